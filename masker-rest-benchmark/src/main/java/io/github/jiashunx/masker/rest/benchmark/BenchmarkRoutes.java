@@ -0,0 +1,95 @@
+package io.github.jiashunx.masker.rest.benchmark;
+
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+
+import java.util.Random;
+
+/**
+ * 基准测试路由及请求组合.
+ * <p>路由构成: 70%精确匹配url映射(/module{m}/resource{i}), 20%占位符servlet(/user{i}/{id}/profile),
+ * 10%路径匹配servlet(/files{i}/*), 另有1个扩展名匹配servlet(*.do, 同一context仅允许1个扩展名匹配servlet);
+ * filter: /*, /module0/*, *.do.</p>
+ * <p>请求组合: 50%精确匹配, 15%占位符, 10%路径匹配, 10%扩展名, 15%未匹配(静态资源/404).</p>
+ * @author jiashunx
+ */
+public final class BenchmarkRoutes {
+
+    /**
+     * 请求组合大小(按序循环使用).
+     */
+    public static final int REQUEST_MIX_SIZE = 1024;
+    private static final long SEED = 20211024L;
+
+    private BenchmarkRoutes() {}
+
+    public static int exactCount(int routeCount) {
+        return Math.max(1, routeCount * 7 / 10);
+    }
+
+    public static int placeholderCount(int routeCount) {
+        return Math.max(1, routeCount * 2 / 10);
+    }
+
+    public static int pathCount(int routeCount) {
+        return Math.max(1, routeCount / 10);
+    }
+
+    /**
+     * 创建已初始化context(未监听端口)的server.
+     * @param routeCount 每个context的路由数量
+     * @param contextPaths 除默认context外的context-path
+     * @return MRestServer
+     */
+    public static MRestServer newServer(int routeCount, String... contextPaths) {
+        MRestServer restServer = new MRestServer("masker-rest-benchmark");
+        register(restServer.context(), routeCount);
+        for (String contextPath: contextPaths) {
+            register(restServer.context(contextPath), routeCount);
+        }
+        return restServer.initContexts();
+    }
+
+    private static void register(MRestContext restContext, int routeCount) {
+        for (int i = 0, n = exactCount(routeCount); i < n; i++) {
+            restContext.get("/module" + (i % 10) + "/resource" + i, () -> "ok");
+        }
+        for (int i = 0, n = placeholderCount(routeCount); i < n; i++) {
+            restContext.servlet("/user" + i + "/{id}/profile", (request, response) -> response.write("ok"));
+        }
+        for (int i = 0, n = pathCount(routeCount); i < n; i++) {
+            restContext.servlet("/files" + i + "/*", (request, response) -> response.write("ok"));
+        }
+        restContext.servlet("*.do", (request, response) -> response.write("ok"));
+        restContext.filter("/*", (request, response, filterChain) -> filterChain.doFilter(request, response));
+        restContext.filter("/module0/*", (request, response, filterChain) -> filterChain.doFilter(request, response));
+        restContext.filter("*.do", (request, response, filterChain) -> filterChain.doFilter(request, response));
+    }
+
+    /**
+     * 生成请求地址组合(context内地址, 不含context-path及查询参数).
+     * @param routeCount 路由数量
+     * @return 请求地址
+     */
+    public static String[] newRequestUrls(int routeCount) {
+        Random random = new Random(SEED);
+        String[] urls = new String[REQUEST_MIX_SIZE];
+        for (int i = 0; i < urls.length; i++) {
+            int type = random.nextInt(100);
+            if (type < 50) {
+                int index = random.nextInt(exactCount(routeCount));
+                urls[i] = "/module" + (index % 10) + "/resource" + index;
+            } else if (type < 65) {
+                urls[i] = "/user" + random.nextInt(placeholderCount(routeCount)) + "/" + random.nextInt(100000) + "/profile";
+            } else if (type < 75) {
+                urls[i] = "/files" + random.nextInt(pathCount(routeCount)) + "/docs/" + random.nextInt(1000) + "/readme.txt";
+            } else if (type < 85) {
+                urls[i] = "/report/" + random.nextInt(1000) + ".do";
+            } else {
+                urls[i] = "/static/js/app" + random.nextInt(1000) + ".js";
+            }
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,118 @@
+package io.github.jiashunx.masker.rest.benchmark;
+
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.MRestRequest;
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.handler.MRestServerChannelHandler;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求解析基准测试: context解析及请求对象解析(含首次读取查询参数、cookie及header).
+ * <p>请求组合: 无参数、查询参数、cookie、查询参数+cookie各占1/4.</p>
+ * @author jiashunx
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestParseBenchmark {
+
+    private static final long SEED = 20211024L;
+
+    /**
+     * context数量(含默认context).
+     */
+    @Param({ "1", "10", "50" })
+    public int contextCount;
+
+    private MRestServerChannelHandler channelHandler;
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+    private FullHttpRequest[] requests;
+    private String[] originUrls;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] contextPaths = new String[contextCount - 1];
+        for (int i = 0; i < contextPaths.length; i++) {
+            contextPaths[i] = "/ctx" + i;
+        }
+        MRestServer restServer = BenchmarkRoutes.newServer(10, contextPaths);
+        channelHandler = new MRestServerChannelHandler(restServer);
+        channel = new EmbeddedChannel(channelHandler);
+        ctx = channel.pipeline().context(channelHandler);
+        String[] urls = BenchmarkRoutes.newRequestUrls(10);
+        Random random = new Random(SEED);
+        requests = new FullHttpRequest[urls.length];
+        originUrls = new String[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            String originUrl = contextPaths.length == 0 ? urls[i] : contextPaths[random.nextInt(contextPaths.length)] + urls[i];
+            int type = i & 3;
+            String uri = originUrl;
+            if (type == 1 || type == 3) {
+                uri = originUrl + "?page=" + random.nextInt(100) + "&size=20&sort=createTime%2Cdesc&keyword=masker%20rest&lang=zh-CN";
+            }
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri, Unpooled.EMPTY_BUFFER);
+            HttpHeaders headers = request.headers();
+            headers.set(HttpHeaderNames.HOST, "127.0.0.1:8080");
+            headers.set(HttpHeaderNames.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/96.0 Safari/537.36");
+            headers.set(HttpHeaderNames.ACCEPT, "application/json, text/plain, */*");
+            headers.set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate");
+            headers.set(HttpHeaderNames.ACCEPT_LANGUAGE, "zh-CN,zh;q=0.9,en;q=0.8");
+            headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            if (type == 2 || type == 3) {
+                headers.set(HttpHeaderNames.COOKIE, "JSESSIONID=" + Long.toHexString(random.nextLong())
+                        + "; masker-rest-token=eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJiZW5jaG1hcmsifQ." + Long.toHexString(random.nextLong())
+                        + "; theme=dark; lang=zh-CN; _ga=GA1.1." + random.nextInt(Integer.MAX_VALUE));
+            }
+            requests[i] = request;
+            originUrls[i] = originUrl;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private int nextIndex() {
+        int i = index;
+        index = (i + 1) & (requests.length - 1);
+        return i;
+    }
+
+    @Benchmark
+    public MRestContext resolveContext() {
+        return channelHandler.resolveContext(originUrls[nextIndex()]);
+    }
+
+    @Benchmark
+    public String parseHttpRequest() {
+        MRestRequest restRequest = channelHandler.parseHttpRequest(ctx, requests[nextIndex()]);
+        String url = restRequest.getUrl();
+        restRequest.recycle();
+        return url;
+    }
+
+    @Benchmark
+    public void parseHttpRequestAndRead(Blackhole blackhole) {
+        MRestRequest restRequest = channelHandler.parseHttpRequest(ctx, requests[nextIndex()]);
+        blackhole.consume(restRequest.getParameter("page"));
+        blackhole.consume(restRequest.getCookie("JSESSIONID"));
+        blackhole.consume(restRequest.getHeader("User-Agent"));
+        blackhole.consume(restRequest.getAcceptFirst());
+        restRequest.recycle();
+    }
+
+}
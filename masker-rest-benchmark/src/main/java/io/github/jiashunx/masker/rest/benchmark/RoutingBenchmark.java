@@ -0,0 +1,84 @@
+package io.github.jiashunx.masker.rest.benchmark;
+
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.MRestRequest;
+import io.github.jiashunx.masker.rest.framework.MRestResponse;
+import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChain;
+import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChainOfDefault;
+import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
+import io.github.jiashunx.masker.rest.framework.handler.MRestHandler;
+import io.github.jiashunx.masker.rest.framework.model.MRestServerThreadModel;
+import io.github.jiashunx.masker.rest.framework.servlet.MRestServlet;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由查找基准测试: servlet匹配、filter链构建及url映射处理器查找.
+ * @author jiashunx
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int routeCount;
+
+    private MRestContext restContext;
+    private EmbeddedChannel channel;
+    private String[] urls;
+    private int index;
+
+    @Setup
+    public void setup() {
+        restContext = BenchmarkRoutes.newServer(routeCount).context();
+        urls = BenchmarkRoutes.newRequestUrls(routeCount);
+        // 占位符匹配结果写入当前线程请求对象, 同请求处理时设置线程上下文
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        MRestServerThreadModel serverThreadModel = new MRestServerThreadModel();
+        serverThreadModel.setRestRequest(new MRestRequest());
+        serverThreadModel.setRestResponse(new MRestResponse(channel.pipeline().firstContext(), restContext));
+        serverThreadModel.setRestContext(restContext);
+        SharedObjects.resetServerThreadModel(serverThreadModel);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SharedObjects.clearServerThreadModel();
+        channel.finishAndReleaseAll();
+    }
+
+    private String nextUrl() {
+        String url = urls[index];
+        index = (index + 1) & (urls.length - 1);
+        return url;
+    }
+
+    @Benchmark
+    public MRestServlet getServlet() {
+        return restContext.getServlet(nextUrl());
+    }
+
+    @Benchmark
+    public MRestFilterChain getFilterChain() {
+        MRestFilterChain filterChain = restContext.getFilterChain(nextUrl());
+        // 同请求处理结束时的回收
+        if (filterChain instanceof MRestFilterChainOfDefault) {
+            ((MRestFilterChainOfDefault) filterChain).recycle();
+        }
+        return filterChain;
+    }
+
+    @Benchmark
+    public MRestHandler getUrlMappingHandler() {
+        return restContext.getUrlMappingHandler(nextUrl(), HttpMethod.GET);
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.jiashunx.masker.rest.benchmark;
+
+import io.github.jiashunx.masker.rest.framework.util.UrlParaser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * url与url匹配规则匹配基准测试(匹配与不匹配各半).
+ * @author jiashunx
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UrlParaserBenchmark {
+
+    @Param({ "strictly", "placeholder", "path", "extension" })
+    public String patternType;
+
+    private String[] urls;
+    private String[] urlPatterns;
+    private int index;
+
+    @Setup
+    public void setup() {
+        switch (patternType) {
+            case "strictly":
+                urls = new String[] { "/module1/resource1", "/module1/resource2" };
+                urlPatterns = new String[] { "/module1/resource1", "/module1/resource1" };
+                break;
+            case "placeholder":
+                urls = new String[] { "/user1/10086/profile", "/user1/10086/settings" };
+                urlPatterns = new String[] { "/user1/{id}/profile", "/user1/{id}/profile" };
+                break;
+            case "path":
+                urls = new String[] { "/files1/docs/1/readme.txt", "/static/js/app.js" };
+                urlPatterns = new String[] { "/files1/*", "/files1/*" };
+                break;
+            case "extension":
+                urls = new String[] { "/report/1.do", "/report/1.json" };
+                urlPatterns = new String[] { "*.do", "*.do" };
+                break;
+            default:
+                throw new IllegalArgumentException("patternType -> " + patternType);
+        }
+    }
+
+    @Benchmark
+    public boolean isUrlMatchUrlPattern() {
+        int i = index;
+        index = i ^ 1;
+        return UrlParaser.isUrlMatchUrlPattern(urls[i], urlPatterns[i]);
+    }
+
+}
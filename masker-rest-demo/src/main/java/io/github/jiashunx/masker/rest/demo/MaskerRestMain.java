@@ -16,7 +16,6 @@ import io.github.jiashunx.masker.rest.framework.servlet.mapping.PostMapping;
 import io.github.jiashunx.masker.rest.framework.servlet.mapping.RequestMapping;
 import io.github.jiashunx.masker.rest.framework.util.*;
 import io.github.jiashunx.masker.rest.jjwt.MRestJWTHelper;
-import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -32,7 +31,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author jiashunx
@@ -416,9 +414,8 @@ public class MaskerRestMain {
             .getRestServer()
             .start();
 
-        // websocket实现简易聊天室
+        // websocket实现简易聊天室(会话由MWebsocketContext维护, 消息通过broadcast广播)
         // 配套前端: static/chatroom.html
-        Map<String, Channel> chatRoomChannelMap = new ConcurrentHashMap<>();
         new MRestServer(10014)
             .context("/demo")
                 // "/"扫描classpath: "META-INF/resources/", "resources/", "static/", "public/"
@@ -429,19 +426,15 @@ public class MaskerRestMain {
                     String channelId = response.getChannelId();
                     String text = frame.text();
                     logger.info("WebsocketContext[{}] receive from client: {}, text: {}", request.getContextPath(), channelId, text);
-                    chatRoomChannelMap.forEach((key, value) -> {
-                        value.writeAndFlush(new TextWebSocketFrame(text));
-                    });
+                    response.getWebsocketContext().broadcast(new TextWebSocketFrame(text));
                 })
                 .channelActiveCallback((ChannelHandlerContext ctx, MWebsocketRequest request) -> {
                     String channelId = ctx.channel().id().toString();
                     logger.info("WebsocketContext[{}] client active: {}", request.getContextPath(), channelId);
-                    chatRoomChannelMap.put(channelId, ctx.channel());
                 })
                 .channelInactiveCallback((MWebsocketRequest request, MWebsocketResponse response) -> {
                     String channelId = response.getChannelId();
                     logger.info("WebsocketContext[{}] client inactive: {}", request.getContextPath(), channelId);
-                    chatRoomChannelMap.remove(channelId);
                 })
             .getRestServer()
             .start();
@@ -6,6 +6,11 @@ import io.github.jiashunx.masker.rest.framework.exception.MRestMappingException;
 import io.github.jiashunx.masker.rest.framework.exception.MRestServerInitializeException;
 import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChain;
 import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
+import io.github.jiashunx.masker.rest.framework.jfr.MFlightRecorder;
+import io.github.jiashunx.masker.rest.framework.metrics.MDashboardPublisher;
+import io.github.jiashunx.masker.rest.framework.metrics.MPrometheusRenderer;
+import io.github.jiashunx.masker.rest.framework.metrics.MRestMetrics;
+import io.github.jiashunx.masker.rest.framework.metrics.MRouteMetrics;
 import io.github.jiashunx.masker.rest.framework.model.*;
 import io.github.jiashunx.masker.rest.framework.servlet.*;
 import io.github.jiashunx.masker.rest.framework.filter.MRestFilter;
@@ -13,6 +18,7 @@ import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChainOfDefault
 import io.github.jiashunx.masker.rest.framework.function.VoidFunc;
 import io.github.jiashunx.masker.rest.framework.handler.*;
 import io.github.jiashunx.masker.rest.framework.util.*;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
@@ -35,6 +41,10 @@ public class MRestContext {
     private final String contextPath;
     private final StaticResourceFinder staticResourceFinder;
     private final Map<String, MWebsocketContext> websocketContextMap = new ConcurrentHashMap<>();
+    /**
+     * 请求指标(按路由记录).
+     */
+    private final MRestMetrics metrics = new MRestMetrics(this);
 
     public MRestContext(MRestServer restServer, String contextPath) {
         this.restServer = Objects.requireNonNull(restServer);
@@ -63,6 +73,54 @@ public class MRestContext {
         return this.staticResourceFinder;
     }
 
+    public MRestMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * 注册Prometheus指标输出接口(默认url: /masker-rest/metrics), 输出server全部指标.
+     * @return MRestContext
+     */
+    public MRestContext prometheusMetrics() {
+        return prometheusMetrics(Constants.PROMETHEUS_METRICS_URL);
+    }
+
+    /**
+     * 注册Prometheus指标输出接口, 输出server全部指标.
+     * @param url url
+     * @return MRestContext
+     */
+    public MRestContext prometheusMetrics(String url) {
+        return get(url, (request, response) -> {
+            ByteBuf content = MPrometheusRenderer.render(getRestServer(), response.getChannelHandlerContext().alloc());
+            response.writeContent(HttpResponseStatus.OK, content, new MRestHeaders().set(Constants.HTTP_HEADER_CONTENT_TYPE, MPrometheusRenderer.CONTENT_TYPE));
+        });
+    }
+
+    /**
+     * 注册状态面板页面(默认url: /masker-rest/dashboard), 页面通过内置websocket(url: 页面url + /websocket)每秒接收一次server状态.
+     * @return MRestContext
+     */
+    public MRestContext dashboard() {
+        return dashboard(Constants.DASHBOARD_URL);
+    }
+
+    /**
+     * 注册状态面板页面, 页面通过内置websocket(url: 页面url + /websocket)每秒接收一次server状态.
+     * @param url url
+     * @return MRestContext
+     */
+    public MRestContext dashboard(String url) {
+        getRestServer().checkServerState();
+        MWebsocketContext websocketContext = websocketContext(Objects.requireNonNull(url) + Constants.DASHBOARD_WEBSOCKET_SUFFIX);
+        MDashboardPublisher publisher = new MDashboardPublisher(getRestServer(), websocketContext, Constants.DASHBOARD_PUSH_INTERVAL_MILLIS);
+        websocketContext.channelActiveCallback(publisher::onSessionActive);
+        return get(url, (request, response) -> {
+            response.write(HttpResponseStatus.OK, publisher.getPageBytes()
+                    , new MRestHeaders().set(Constants.HTTP_HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_TEXT_HTML));
+        });
+    }
+
     void init() {
         // websocket-context初始化
         websocketContextMap.forEach((key, websocketContext) -> {
@@ -228,6 +286,7 @@ public class MRestContext {
         mappingTaskList.add(() -> {
             checkMappingUrl(url, methods);
             checkMappingHandler(handler);
+            handler.setRouteMetrics(metrics.getRouteMetrics(url));
             Map<HttpMethod, MRestHandler> handlerMap = urlMappingHandler.computeIfAbsent(url, k -> new HashMap<>());
             for (HttpMethod method: methods) {
                 handlerMap.put(method, handler);
@@ -412,6 +471,34 @@ public class MRestContext {
      * 请求处理末尾Servlet(扫尾工作).
      */
     private final MRestServlet lastServlet = new LastServlet();
+    /**
+     * filter链末尾的servlet包装filter(各请求共用).
+     */
+    private final MRestFilter dispatchServletFilter = new MRestServletAdapter() {
+        @Override
+        public void doFilter(MRestRequest request, MRestResponse response, MRestFilterChain filterChain) {
+            service(dispatchServlet, request, response);
+            filterChain.doFilter(request, response);
+        }
+    };
+    private final MRestFilter staticResourceServletFilter = new MRestServletAdapter() {
+        @Override
+        public void doFilter(MRestRequest request, MRestResponse response, MRestFilterChain filterChain) {
+            boolean writeMethodInvoked = response.isWriteMethodInvoked();
+            service(staticResourceServlet, request, response);
+            if (!writeMethodInvoked && response.isWriteMethodInvoked()) {
+                request.setRouteMetrics(metrics.getStaticRouteMetrics());
+            }
+            filterChain.doFilter(request, response);
+        }
+    };
+    private final MRestFilter lastServletFilter = new MRestServletAdapter() {
+        @Override
+        public void doFilter(MRestRequest request, MRestResponse response, MRestFilterChain filterChain) {
+            service(lastServlet, request, response);
+            filterChain.doFilter(request, response);
+        }
+    };
     /**
      * 配置的静态资源classpath扫描路径, 按照配置的先后顺序进行扫描, classpath静态资源扫描顺序高于磁盘静态资源.
      */
@@ -429,7 +516,36 @@ public class MRestContext {
      */
     private final List<VoidFunc> filterTaskList = new ArrayList<>();
 
+    /**
+     * 执行servlet(启用请求指标时记录处理器耗时, 录制JFR时提交处理器事件).
+     */
+    private void service(MRestServlet servlet, MRestRequest request, MRestResponse response) {
+        Object handlerEvent = MFlightRecorder.beginHandler();
+        if (!restServer.isRequestMetrics() && handlerEvent == null) {
+            servlet.service(request, response);
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            servlet.service(request, response);
+        } finally {
+            if (restServer.isRequestMetrics()) {
+                request.addHandlerTime(System.nanoTime() - startTime);
+            }
+            if (handlerEvent != null) {
+                MRouteMetrics routeMetrics = request.getRouteMetrics();
+                MFlightRecorder.endHandler(handlerEvent, contextPath, routeMetrics == null ? request.getOriginUrl() : routeMetrics.getRoute()
+                        , servlet.getClass().getName());
+            }
+        }
+    }
+
     public MRestServlet getServlet(String requestURL) {
+        UrlMappingServlet mappingServlet = getMappingServlet(requestURL);
+        return mappingServlet == null ? null : mappingServlet.getRestServlet();
+    }
+
+    private UrlMappingServlet getMappingServlet(String requestURL) {
         List<UrlMappingServlet> mappingServletList = new ArrayList<>();
         // 扩展名匹配
         AtomicReference<UrlMappingServlet> extRef = new AtomicReference<>();
@@ -508,7 +624,7 @@ public class MRestContext {
         if (mappingServletList.isEmpty()) {
             return null;
         }
-        return mappingServletList.get(0).getRestServlet();
+        return mappingServletList.get(0);
     }
 
     public synchronized MRestContext servlet(MRestServlet... servletArr) {
@@ -574,13 +690,16 @@ public class MRestContext {
             int order1 = filter1.order();
             return order0 - order1;
         });
-        MRestServlet servlet = getServlet(requestURL);
+        UrlMappingServlet mappingServlet = getMappingServlet(requestURL);
         // servlet包装为filter执行
-        if (servlet != null) {
+        if (mappingServlet != null) {
+            MRestServlet servlet = mappingServlet.getRestServlet();
+            MRouteMetrics routeMetrics = metrics.getRouteMetrics(mappingServlet.getUrlPatternModel().getUrlPattern());
             filterList.addLast(new MRestServletAdapter() {
                 @Override
                 public void doFilter(MRestRequest request, MRestResponse response, MRestFilterChain filterChain) {
-                    servlet.service(request, response);
+                    request.setRouteMetrics(routeMetrics);
+                    service(servlet, request, response);
                     // servlet执行完成，不在filterChain中向后路由
                     // write方法未执行过, 直接返回成功状态码
                     if (!response.isWriteMethodInvoked()) {
@@ -591,19 +710,14 @@ public class MRestContext {
             });
         }
         // rest请求分发处理.
-        filterList.addLast((request, response, filterChain) -> {
-            dispatchServlet.service(request, response);
-            filterChain.doFilter(request, response);
-        });
-        filterList.addLast((request, response, filterChain) -> {
-            staticResourceServlet.service(request, response);
-            filterChain.doFilter(request, response);
-        });
-        filterList.addLast((request, response, filterChain) -> {
-            lastServlet.service(request, response);
-            filterChain.doFilter(request, response);
-        });
-        return new MRestFilterChainOfDefault(this, filterList.toArray(new MRestFilter[0]));
+        filterList.addLast(dispatchServletFilter);
+        filterList.addLast(staticResourceServletFilter);
+        filterList.addLast(lastServletFilter);
+        MRestFilter[] filterArr = filterList.toArray(new MRestFilter[0]);
+        if (restServer.isObjectPooling()) {
+            return MRestFilterChainOfDefault.newInstance(this, filterArr);
+        }
+        return new MRestFilterChainOfDefault(this, filterArr);
     }
 
     /**
@@ -804,6 +918,55 @@ public class MRestContext {
         return autoRefreshStaticResourcesPeriod;
     }
 
+    private volatile boolean frameworkHeaders = true;
+    private volatile boolean frameworkCookie = true;
+    private volatile boolean dateHeader = true;
+
+    /**
+     * 是否输出框架header(Server-Name, Server-Version, Server-Startup-Time, Server-Identifier).
+     * @param frameworkHeaders frameworkHeaders
+     * @return MRestContext
+     */
+    public synchronized MRestContext frameworkHeaders(boolean frameworkHeaders) {
+        restServer.checkServerState();
+        this.frameworkHeaders = frameworkHeaders;
+        return this;
+    }
+
+    public boolean isFrameworkHeaders() {
+        return frameworkHeaders;
+    }
+
+    /**
+     * 是否输出框架cookie(Server-Identifier).
+     * @param frameworkCookie frameworkCookie
+     * @return MRestContext
+     */
+    public synchronized MRestContext frameworkCookie(boolean frameworkCookie) {
+        restServer.checkServerState();
+        this.frameworkCookie = frameworkCookie;
+        return this;
+    }
+
+    public boolean isFrameworkCookie() {
+        return frameworkCookie;
+    }
+
+    /**
+     * 是否输出Date header(每秒刷新一次的缓存值).
+     * @param dateHeader dateHeader
+     * @return MRestContext
+     */
+    public synchronized MRestContext dateHeader(boolean dateHeader) {
+        restServer.checkServerState();
+        this.dateHeader = dateHeader;
+        return this;
+    }
+
+    public boolean isDateHeader() {
+        return dateHeader;
+    }
+
     private volatile String indexUrl = null;
 
     public synchronized MRestContext setIndexUrl(String indexUrl) {
@@ -834,6 +997,10 @@ public class MRestContext {
         return new ArrayList<>(websocketContextMap.keySet());
     }
 
+    public Collection<MWebsocketContext> getWebsocketContexts() {
+        return Collections.unmodifiableCollection(websocketContextMap.values());
+    }
+
     public MWebsocketContext getWebsocketContext(String websocketUrl) {
         return websocketContextMap.get(MRestUtils.formatWebsocketContextPath(websocketUrl));
     }
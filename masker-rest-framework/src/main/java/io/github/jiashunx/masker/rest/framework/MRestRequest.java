@@ -1,24 +1,64 @@
 package io.github.jiashunx.masker.rest.framework;
 
 import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.metrics.MRouteMetrics;
+import io.github.jiashunx.masker.rest.framework.metrics.MThreadResourceMeter;
 import io.github.jiashunx.masker.rest.framework.serialize.MRestSerializer;
 import io.github.jiashunx.masker.rest.framework.util.StringUtils;
-import io.netty.handler.codec.http.HttpHeaders;
-import io.netty.handler.codec.http.HttpMethod;
-import io.netty.handler.codec.http.HttpRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
+import io.netty.util.Recycler;
 
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
+ * 请求对象: header key、cookie、请求参数、请求地址及请求体均在首次访问时解析并缓存.
  * @author jiashunx
  */
 public class MRestRequest {
 
+    private static final Recycler<MRestRequest> RECYCLER = new Recycler<MRestRequest>() {
+        @Override
+        protected MRestRequest newObject(Handle<MRestRequest> handle) {
+            return new MRestRequest(handle);
+        }
+    };
+
+    /**
+     * 从对象池获取请求对象.
+     * @return MRestRequest
+     */
+    public static MRestRequest newInstance() {
+        MRestRequest restRequest = RECYCLER.get();
+        restRequest.recycled = false;
+        return restRequest;
+    }
+
+    private final Recycler.Handle<MRestRequest> recyclerHandle;
+    private final Map<String, String> pooledAttributes;
+    private final Map<String, String> pooledPlaceholderMap;
+    /**
+     * 请求对象是否已脱离对象池(处理器在请求处理结束后仍需持有请求对象).
+     */
+    private volatile boolean detached;
+    /**
+     * 请求对象是否已回收至对象池(回收后至再次从对象池获取前访问请求数据抛出IllegalStateException).
+     */
+    private volatile boolean recycled;
+
     protected MRestContext restContext;
     protected HttpRequest httpRequest;
+    protected Channel channel;
+    protected QueryStringDecoder queryStringDecoder;
 
     protected Map<String, String> attributes = new HashMap<>();
 
@@ -28,6 +68,7 @@ public class MRestRequest {
     protected int clientPort;
     protected String remoteAddress;
     protected int remotePort;
+    protected boolean addressResolved;
 
     protected HttpMethod method;
     protected String contextPath;
@@ -47,13 +88,48 @@ public class MRestRequest {
     protected List<Cookie> cookies;
     protected Map<String, Cookie> cookieMap;
     protected byte[] bodyBytes;
+    protected CharSequence bodyCharSequence;
+    /**
+     * 请求是否已释放(释放后请求体ByteBuf/InputStream视图不可再访问).
+     */
+    protected boolean released;
     protected Map<String, String> placeholderMap = new LinkedHashMap<>();
+    /**
+     * 开始接收请求的时间(System.nanoTime, 未启用请求指标时为0).
+     */
+    protected long requestStartTime;
+    /**
+     * 处理器(servlet)累计耗时(纳秒).
+     */
+    protected long handlerTime;
+    /**
+     * 请求匹配的路由指标(未匹配任何处理器时为null).
+     */
+    protected MRouteMetrics routeMetrics;
 
-    public MRestRequest() {}
+    public MRestRequest() {
+        this.recyclerHandle = null;
+        this.pooledAttributes = null;
+        this.pooledPlaceholderMap = null;
+    }
+
+    private MRestRequest(Recycler.Handle<MRestRequest> recyclerHandle) {
+        this.recyclerHandle = recyclerHandle;
+        this.pooledAttributes = this.attributes;
+        this.pooledPlaceholderMap = this.placeholderMap;
+    }
 
+    /**
+     * 基于已有请求对象创建新请求对象(共享原请求对象的属性map等, 原请求对象不再回收).
+     * @param restRequest restRequest
+     */
     public MRestRequest(MRestRequest restRequest) {
+        this();
+        restRequest.detach();
         this.restContext = restRequest.restContext;
         this.httpRequest = restRequest.httpRequest;
+        this.channel = restRequest.channel;
+        this.queryStringDecoder = restRequest.queryStringDecoder;
         this.attributes = restRequest.attributes;
         this.protocolName = restRequest.protocolName;
         this.protocolVersion = restRequest.protocolVersion;
@@ -61,6 +137,7 @@ public class MRestRequest {
         this.clientPort = restRequest.clientPort;
         this.remoteAddress = restRequest.remoteAddress;
         this.remotePort = restRequest.remotePort;
+        this.addressResolved = restRequest.addressResolved;
         this.method = restRequest.method;
         this.contextPath = restRequest.contextPath;
         this.originUrl = restRequest.originUrl;
@@ -73,7 +150,12 @@ public class MRestRequest {
         this.cookies = restRequest.cookies;
         this.cookieMap = restRequest.cookieMap;
         this.bodyBytes = restRequest.bodyBytes;
+        this.bodyCharSequence = restRequest.bodyCharSequence;
+        this.released = restRequest.released;
         this.placeholderMap = restRequest.placeholderMap;
+        this.requestStartTime = restRequest.requestStartTime;
+        this.handlerTime = restRequest.handlerTime;
+        this.routeMetrics = restRequest.routeMetrics;
     }
 
     @Override
@@ -81,11 +163,90 @@ public class MRestRequest {
         return (MRestRequest) super.clone();
     }
 
+    /**
+     * 标记请求对象不再回收至对象池, 处理器在请求处理结束后仍需持有请求对象时调用.
+     * @return MRestRequest
+     */
+    public MRestRequest detach() {
+        this.detached = true;
+        return this;
+    }
+
+    public boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * 回收请求对象至对象池(仅对象池创建且未detach的对象会被回收).
+     * @return 是否已回收
+     */
+    public boolean recycle() {
+        if (recyclerHandle == null || detached || recycled) {
+            return false;
+        }
+        restContext = null;
+        httpRequest = null;
+        channel = null;
+        queryStringDecoder = null;
+        pooledAttributes.clear();
+        attributes = pooledAttributes;
+        protocolName = null;
+        protocolVersion = null;
+        clientAddress = null;
+        clientPort = 0;
+        remoteAddress = null;
+        remotePort = 0;
+        addressResolved = false;
+        method = null;
+        contextPath = null;
+        originUrl = null;
+        url = null;
+        urlQuery = null;
+        parameters = null;
+        originParameters = null;
+        headers = null;
+        headerKeys = null;
+        cookies = null;
+        cookieMap = null;
+        bodyBytes = null;
+        bodyCharSequence = null;
+        released = false;
+        pooledPlaceholderMap.clear();
+        placeholderMap = pooledPlaceholderMap;
+        requestStartTime = 0L;
+        handlerTime = 0L;
+        routeMetrics = null;
+        recycled = true;
+        recyclerHandle.recycle(this);
+        return true;
+    }
+
+    public boolean isRecycled() {
+        return recycled;
+    }
+
+    /**
+     * 校验请求对象未被回收(处理器在请求处理结束后持有未detach的请求对象时, 其数据已被清空或属于后续请求).
+     */
+    private void checkRecycled() {
+        if (recycled) {
+            throw new IllegalStateException("request object has been recycled, call detach() to hold it after request handling completes.");
+        }
+    }
+
+    /**
+     * 释放请求(请求处理结束时调用), 释放后请求体ByteBuf/InputStream视图失效.
+     */
     public void release() {
+        this.released = true;
+    }
 
+    public boolean isReleased() {
+        return released;
     }
 
     public MRestContext getRestContext() {
+        checkRecycled();
         return restContext;
     }
 
@@ -94,18 +255,26 @@ public class MRestRequest {
     }
 
     public String bodyToString() {
-        return new String(bodyBytes, StandardCharsets.UTF_8);
+        checkRecycled();
+        return getBodyCharSequence().toString();
     }
 
     public <T> List<T> parseBodyToObjList(Class<T> klass) {
-        return MRestSerializer.jsonToList(bodyBytes, klass);
+        if (bodyBytes != null) {
+            return MRestSerializer.jsonToList(bodyBytes, klass);
+        }
+        return MRestSerializer.jsonToList(getBodyInputStream(), klass);
     }
 
     public <T> T parseBodyToObj(Class<T> klass) {
-        return MRestSerializer.jsonToObj(bodyBytes, klass);
+        if (bodyBytes != null) {
+            return MRestSerializer.jsonToObj(bodyBytes, klass);
+        }
+        return MRestSerializer.jsonToObj(getBodyInputStream(), klass);
     }
 
     public HttpRequest getHttpRequest() {
+        checkRecycled();
         return httpRequest;
     }
 
@@ -113,7 +282,34 @@ public class MRestRequest {
         this.httpRequest = httpRequest;
     }
 
+    public Channel getChannel() {
+        checkRecycled();
+        return channel;
+    }
+
+    /**
+     * 设置请求所属channel(请求地址及端口在首次访问时从channel获取).
+     * @param channel channel
+     */
+    public void setChannel(Channel channel) {
+        this.channel = channel;
+    }
+
+    public QueryStringDecoder getQueryStringDecoder() {
+        checkRecycled();
+        return queryStringDecoder;
+    }
+
+    /**
+     * 设置url解码器(请求参数在首次访问时解码).
+     * @param queryStringDecoder queryStringDecoder
+     */
+    public void setQueryStringDecoder(QueryStringDecoder queryStringDecoder) {
+        this.queryStringDecoder = queryStringDecoder;
+    }
+
     public Map<String, String> getAttributes() {
+        checkRecycled();
         return attributes;
     }
 
@@ -122,14 +318,20 @@ public class MRestRequest {
     }
 
     public void setAttribute(String key, String value) {
+        checkRecycled();
         attributes.put(key, value);
     }
 
     public String getAttribute(String key) {
+        checkRecycled();
         return attributes.get(key);
     }
 
     public String getProtocolName() {
+        checkRecycled();
+        if (protocolName == null && httpRequest != null) {
+            protocolName = httpRequest.protocolVersion().protocolName();
+        }
         return protocolName;
     }
 
@@ -142,6 +344,10 @@ public class MRestRequest {
     }
 
     public String getProtocolVersion() {
+        checkRecycled();
+        if (protocolVersion == null && httpRequest != null) {
+            protocolVersion = httpRequest.protocolVersion().text();
+        }
         return protocolVersion;
     }
 
@@ -153,39 +359,70 @@ public class MRestRequest {
         this.protocolVersion = protocolVersion;
     }
 
+    private void resolveAddress() {
+        if (addressResolved) {
+            return;
+        }
+        addressResolved = true;
+        if (channel == null) {
+            return;
+        }
+        InetSocketAddress localAddress = (InetSocketAddress) channel.localAddress();
+        if (localAddress != null) {
+            remoteAddress = localAddress.getAddress().getHostAddress();
+            remotePort = localAddress.getPort();
+        }
+        InetSocketAddress peerAddress = (InetSocketAddress) channel.remoteAddress();
+        if (peerAddress != null) {
+            clientAddress = peerAddress.getAddress().getHostAddress();
+            clientPort = peerAddress.getPort();
+        }
+    }
+
     public String getClientAddress() {
+        checkRecycled();
+        resolveAddress();
         return clientAddress;
     }
 
     public void setClientAddress(String clientAddress) {
+        resolveAddress();
         this.clientAddress = clientAddress;
     }
 
     public int getClientPort() {
+        resolveAddress();
         return clientPort;
     }
 
     public void setClientPort(int clientPort) {
+        resolveAddress();
         this.clientPort = clientPort;
     }
 
     public String getRemoteAddress() {
+        checkRecycled();
+        resolveAddress();
         return remoteAddress;
     }
 
     public void setRemoteAddress(String remoteAddress) {
+        resolveAddress();
         this.remoteAddress = remoteAddress;
     }
 
     public int getRemotePort() {
+        resolveAddress();
         return remotePort;
     }
 
     public void setRemotePort(int remotePort) {
+        resolveAddress();
         this.remotePort = remotePort;
     }
 
     public HttpMethod getMethod() {
+        checkRecycled();
         return method;
     }
 
@@ -194,6 +431,7 @@ public class MRestRequest {
     }
 
     public String getContextPath() {
+        checkRecycled();
         return contextPath;
     }
 
@@ -202,6 +440,7 @@ public class MRestRequest {
     }
 
     public String getOriginUrl() {
+        checkRecycled();
         return originUrl;
     }
 
@@ -210,6 +449,7 @@ public class MRestRequest {
     }
 
     public String getUrl() {
+        checkRecycled();
         return url;
     }
 
@@ -218,6 +458,10 @@ public class MRestRequest {
     }
 
     public String getUrlQuery() {
+        checkRecycled();
+        if (urlQuery == null && queryStringDecoder != null) {
+            urlQuery = queryStringDecoder.rawQuery();
+        }
         return urlQuery;
     }
 
@@ -226,11 +470,36 @@ public class MRestRequest {
     }
 
     public Map<String, String> getParameters() {
+        checkRecycled();
+        if (parameters == null) {
+            Map<String, List<String>> _originParameters = getOriginParameters();
+            Map<String, String> _parameters = new HashMap<>();
+            _originParameters.forEach((key, value) -> {
+                _parameters.put(key, mergeParameterValue(value));
+            });
+            parameters = _parameters;
+        }
         return parameters;
     }
 
     public String getParameter(String key) {
-        return getParameters().get(key);
+        checkRecycled();
+        if (parameters != null) {
+            return parameters.get(key);
+        }
+        // 未访问过参数map时直接从解码结果中获取, 不创建合并后的参数map
+        Map<String, List<String>> _originParameters = getOriginParameters();
+        if (!_originParameters.containsKey(key)) {
+            return null;
+        }
+        return mergeParameterValue(_originParameters.get(key));
+    }
+
+    private static String mergeParameterValue(List<String> value) {
+        if (value != null && !value.isEmpty()) {
+            return value.get(value.size() - 1);
+        }
+        return "";
     }
 
     public void setParameters(Map<String, String> parameters) {
@@ -238,6 +507,10 @@ public class MRestRequest {
     }
 
     public Map<String, List<String>> getOriginParameters() {
+        checkRecycled();
+        if (originParameters == null) {
+            originParameters = queryStringDecoder == null ? new HashMap<>() : queryStringDecoder.parameters();
+        }
         return originParameters;
     }
 
@@ -284,22 +557,30 @@ public class MRestRequest {
     }
 
     public HttpHeaders getHeaders() {
+        checkRecycled();
         return headers;
     }
 
     public String getHeader(String key) {
+        checkRecycled();
         return getHeaders().get(key);
     }
 
     public List<String> getHeaderAll(String key) {
+        checkRecycled();
         return getHeaders().getAll(key);
     }
 
     public List<Map.Entry<String, String>> getHeaderEntries() {
+        checkRecycled();
         return getHeaders().entries();
     }
 
     public List<String> getHeaderKeys() {
+        checkRecycled();
+        if (headerKeys == null) {
+            headerKeys = headers == null ? new ArrayList<>() : new ArrayList<>(headers.names());
+        }
         return this.headerKeys;
     }
 
@@ -308,18 +589,42 @@ public class MRestRequest {
     }
 
     public List<Cookie> getCookies() {
+        checkRecycled();
+        if (cookies == null) {
+            List<Cookie> _cookies = new ArrayList<>();
+            if (headers != null) {
+                decodeCookies(headers.getAll(HttpHeaderNames.COOKIE), _cookies);
+                decodeCookies(headers.getAll(HttpHeaderNames.SET_COOKIE), _cookies);
+            }
+            cookies = _cookies;
+        }
         return cookies;
     }
 
+    private static void decodeCookies(List<String> cookieStrList, List<Cookie> cookies) {
+        for (String cookieStr: cookieStrList) {
+            cookies.addAll(ServerCookieDecoder.STRICT.decodeAll(cookieStr));
+        }
+    }
+
     public void setCookies(List<Cookie> cookies) {
         this.cookies = Objects.requireNonNull(cookies);
     }
 
     public Cookie getCookie(String key) {
+        checkRecycled();
         return getCookieMap().get(key);
     }
 
     public Map<String, Cookie> getCookieMap() {
+        checkRecycled();
+        if (cookieMap == null) {
+            Map<String, Cookie> _cookieMap = new HashMap<>();
+            getCookies().forEach(cookie -> {
+                _cookieMap.put(cookie.name(), cookie);
+            });
+            cookieMap = _cookieMap;
+        }
         return cookieMap;
     }
 
@@ -327,48 +632,81 @@ public class MRestRequest {
         this.cookieMap = Objects.requireNonNull(cookieMap);
     }
 
+    /**
+     * 设置请求header(header key及cookie在首次访问时解析).
+     * @param headers headers
+     */
     public void setHeaders(HttpHeaders headers) {
         this.headers = headers;
+        this.headerKeys = null;
+        this.cookies = null;
+        this.cookieMap = null;
+    }
+
+    /**
+     * 获取请求体只读视图(不拷贝), 仅在请求处理期间(release之前)有效.
+     * @return ByteBuf
+     */
+    public ByteBuf getBody() {
+        checkRecycled();
+        if (bodyBytes != null) {
+            return Unpooled.wrappedBuffer(bodyBytes).asReadOnly();
+        }
+        return getBodyContent().slice().asReadOnly();
+    }
+
+    /**
+     * 获取请求体输入流视图(不拷贝), 仅在请求处理期间(release之前)有效.
+     * @return InputStream
+     */
+    public InputStream getBodyInputStream() {
+        checkRecycled();
+        return new ByteBufInputStream(getBody());
+    }
 
-        // ----------- set headerKeys
-        Set<String> keySet = new HashSet<>();
-        getHeaderEntries().forEach(entry -> {
-            keySet.add(entry.getKey());
-        });
-        setHeaderKeys(new ArrayList<>(keySet));
-
-        // ----------- set cookies
-        List<String> cookieNames = new ArrayList<>();
-        getHeaderKeys().forEach(key -> {
-            if (key.toLowerCase().equals(Constants.HTTP_HEADER_COOKIE.toLowerCase())
-                    || key.toLowerCase().equals(Constants.HTTP_HEADER_SET_COOKIE.toLowerCase())) {
-                cookieNames.add(key);
+    /**
+     * 获取请求体字符视图(UTF-8解码, 首次访问时解码并缓存).
+     * @return CharSequence
+     */
+    public CharSequence getBodyCharSequence() {
+        checkRecycled();
+        if (bodyCharSequence == null) {
+            if (bodyBytes != null) {
+                bodyCharSequence = new String(bodyBytes, StandardCharsets.UTF_8);
+            } else {
+                ByteBuf content = getBodyContent();
+                bodyCharSequence = content.toString(content.readerIndex(), content.readableBytes(), StandardCharsets.UTF_8);
             }
-        });
-        List<String> cookieStrList = new ArrayList<>(cookieNames.size());
-        cookieNames.forEach(name -> {
-            cookieStrList.addAll(getHeaderAll(name));
-        });
-        List<Cookie> _cookies = new ArrayList<>();
-        cookieStrList.forEach(string -> {
-            _cookies.addAll(ServerCookieDecoder.STRICT.decodeAll(string));
-        });
-        setCookies(_cookies);
-
-        // ----------- set cookieMap
-        Map<String, Cookie> _cookieMap = new HashMap<>();
-        getCookies().forEach(cookie -> {
-            _cookieMap.put(cookie.name(), cookie);
-        });
-        setCookieMap(_cookieMap);
+        }
+        return bodyCharSequence;
     }
 
+    /**
+     * 获取请求体(首次访问时从请求内容拷贝).
+     * @return bytes
+     */
     public byte[] getBodyBytes() {
+        checkRecycled();
+        if (bodyBytes == null) {
+            bodyBytes = ByteBufUtil.getBytes(getBodyContent());
+        }
         return bodyBytes;
     }
 
     public void setBodyBytes(byte[] bodyBytes) {
         this.bodyBytes = bodyBytes;
+        this.bodyCharSequence = null;
+    }
+
+    private ByteBuf getBodyContent() {
+        if (!(httpRequest instanceof FullHttpRequest)) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        ByteBuf content = ((FullHttpRequest) httpRequest).content();
+        if (released || content.refCnt() <= 0) {
+            throw new IllegalStateException("request content has been released, body must be accessed before request handling completes.");
+        }
+        return content;
     }
 
     public void addPlaceholderKv(String key, String value) {
@@ -380,6 +718,7 @@ public class MRestRequest {
     }
 
     public String getPathVariable(String key) {
+        checkRecycled();
         return placeholderMap.get(key);
     }
 
@@ -388,9 +727,58 @@ public class MRestRequest {
     }
 
     public String[] getPathVariableKeys() {
+        checkRecycled();
         if (!isSupportPlaceholder()) {
             return new String[0];
         }
         return placeholderMap.keySet().toArray(new String[0]);
     }
+
+    public long getRequestStartTime() {
+        return requestStartTime;
+    }
+
+    public void setRequestStartTime(long requestStartTime) {
+        this.requestStartTime = requestStartTime;
+    }
+
+    public long getHandlerTime() {
+        return handlerTime;
+    }
+
+    public void addHandlerTime(long handlerTime) {
+        this.handlerTime += handlerTime;
+    }
+
+    public MRouteMetrics getRouteMetrics() {
+        return routeMetrics;
+    }
+
+    /**
+     * 包装处理器移交至其他线程执行的任务, 任务执行期间的分配字节数及CPU时间累加至当前请求的路由指标.
+     * <p>未启用请求资源统计时直接返回原任务; 任务可在请求处理结束(请求对象回收)后执行.</p>
+     * @param task task
+     * @return Runnable
+     */
+    public Runnable trackResource(Runnable task) {
+        Objects.requireNonNull(task);
+        if (restContext == null || !restContext.getRestServer().isRequestResourceMetrics()) {
+            return task;
+        }
+        MRouteMetrics metrics = routeMetrics == null ? restContext.getMetrics().getUnmatchedRouteMetrics() : routeMetrics;
+        return () -> {
+            MThreadResourceMeter.Usage usage = MThreadResourceMeter.start();
+            try {
+                task.run();
+            } finally {
+                if (usage != null) {
+                    usage.stop(metrics);
+                }
+            }
+        };
+    }
+
+    public void setRouteMetrics(MRouteMetrics routeMetrics) {
+        this.routeMetrics = routeMetrics;
+    }
 }
@@ -8,11 +8,13 @@ import io.github.jiashunx.masker.rest.framework.model.MRestHeaders;
 import io.github.jiashunx.masker.rest.framework.serialize.MRestSerializer;
 import io.github.jiashunx.masker.rest.framework.util.MResponseHelper;
 import io.github.jiashunx.masker.rest.framework.util.MRestHeaderBuilder;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import io.netty.util.Recycler;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
@@ -27,28 +29,121 @@ import java.util.function.Consumer;
  */
 public class MRestResponse {
 
-    private final ChannelHandlerContext $channelHandlerContext;
+    private static final Recycler<MRestResponse> RECYCLER = new Recycler<MRestResponse>() {
+        @Override
+        protected MRestResponse newObject(Handle<MRestResponse> handle) {
+            return new MRestResponse(handle);
+        }
+    };
+
+    /**
+     * 从对象池获取响应对象.
+     * @param ctx ChannelHandlerContext
+     * @param restContext restContext
+     * @return MRestResponse
+     */
+    public static MRestResponse newInstance(ChannelHandlerContext ctx, MRestContext restContext) {
+        MRestResponse restResponse = RECYCLER.get();
+        restResponse.recycled = false;
+        return restResponse.init(ctx, restContext);
+    }
+
+    private final Recycler.Handle<MRestResponse> recyclerHandle;
+    /**
+     * 响应对象是否已脱离对象池(处理器在请求处理结束后仍需持有响应对象).
+     */
+    private volatile boolean detached;
+    /**
+     * 响应对象是否已回收至对象池(回收后至再次从对象池获取前访问响应对象抛出IllegalStateException).
+     */
+    private volatile boolean recycled;
+    private ChannelHandlerContext $channelHandlerContext;
     private MRestServer restServer;
-    private final MRestContext restContext;
-    private final MRestHeaders $headers = new MRestHeaders();
-    private volatile FlushTask flushTask = null;
+    private MRestContext restContext;
+    private MRestHeaders $headers = new MRestHeaders();
+    private final FlushTask flushTask = new FlushTask();
+    private volatile boolean writeMethodInvoked = false;
     private boolean $flushed = false;
 
     public MRestResponse(ChannelHandlerContext ctx, MRestContext restContext) {
+        this.recyclerHandle = null;
+        init(ctx, restContext);
+    }
+
+    private MRestResponse(Recycler.Handle<MRestResponse> recyclerHandle) {
+        this.recyclerHandle = recyclerHandle;
+    }
+
+    private MRestResponse init(ChannelHandlerContext ctx, MRestContext restContext) {
         this.$channelHandlerContext = Objects.requireNonNull(ctx);
         this.restContext = restContext;
         this.restServer = restContext.getRestServer();
+        return this;
+    }
+
+    /**
+     * 标记响应对象不再回收至对象池, 处理器在请求处理结束后仍需持有响应对象时调用.
+     * @return MRestResponse
+     */
+    public MRestResponse detach() {
+        this.detached = true;
+        return this;
+    }
+
+    public boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * 回收响应对象至对象池(仅对象池创建且未detach的对象会被回收).
+     * @return 是否已回收
+     */
+    public synchronized boolean recycle() {
+        if (recyclerHandle == null || detached || recycled) {
+            return false;
+        }
+        $channelHandlerContext = null;
+        restServer = null;
+        restContext = null;
+        if (flushTask.executed) {
+            // 已输出的header对象由netty响应持有, 不可复用
+            $headers = new MRestHeaders();
+        } else {
+            $headers.getHttpHeaders().clear();
+        }
+        flushTask.clear();
+        writeMethodInvoked = false;
+        $flushed = false;
+        recycled = true;
+        recyclerHandle.recycle(this);
+        return true;
+    }
+
+    public boolean isRecycled() {
+        return recycled;
+    }
+
+    /**
+     * 校验响应对象未被回收(处理器在请求处理结束后持有未detach的响应对象时, 其输出目标已被清空或属于后续请求).
+     */
+    private void checkRecycled() {
+        if (recycled) {
+            throw new IllegalStateException("response object has been recycled, call detach() to hold it after request handling completes.");
+        }
     }
 
     public ChannelHandlerContext getChannelHandlerContext() {
+        checkRecycled();
         return $channelHandlerContext;
     }
 
     public MRestServer getRestServer() {
+        checkRecycled();
         return restServer;
     }
 
     public MRestContext getRestContext() {
+        checkRecycled();
         return restContext;
     }
 
@@ -93,7 +188,7 @@ public class MRestResponse {
     }
 
     public MRestResponse writeJSON(byte[] bytes, MRestHeaders headers) {
-        return write(bytes, new MRestHeaders(headers).add(Constants.HTTP_HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_APPLICATION_JSON));
+        return write(bytes, new MRestHeaders(headers).set(Constants.HTTP_HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_APPLICATION_JSON));
     }
 
     public MRestResponse writeString(String string) {
@@ -141,10 +236,33 @@ public class MRestResponse {
     }
 
     public synchronized MRestResponse write(HttpResponseStatus status, byte[] bytes, MRestHeaders headers) {
+        checkRecycled();
+        if (isWriteMethodInvoked()) {
+            throw new MRestServerException("write method has already been invoked.");
+        }
+        flushTask.init(status, bytes, headers);
+        writeMethodInvoked = true;
+        return this;
+    }
+
+    /**
+     * 输出ByteBuf响应内容(避免额外拷贝), content的引用由框架负责释放.
+     * @param status status
+     * @param content content
+     * @param headers headers
+     * @return MRestResponse
+     */
+    public synchronized MRestResponse writeContent(HttpResponseStatus status, ByteBuf content, MRestHeaders headers) {
+        if (recycled) {
+            content.release();
+            checkRecycled();
+        }
         if (isWriteMethodInvoked()) {
+            content.release();
             throw new MRestServerException("write method has already been invoked.");
         }
-        flushTask = new FlushTask(status, bytes, headers);
+        flushTask.initContent(status, content, headers);
+        writeMethodInvoked = true;
         return this;
     }
 
@@ -197,15 +315,42 @@ public class MRestResponse {
     }
 
     public synchronized MRestResponse write(File downloadedFile, MRestHeaders headers, Consumer<File> callback) {
+        checkRecycled();
         if (isWriteMethodInvoked()) {
             throw new MRestServerException("write method has already been invoked.");
         }
-        flushTask = new FlushTask(downloadedFile, headers, callback);
+        flushTask.init(downloadedFile, headers, callback);
+        writeMethodInvoked = true;
         return this;
     }
 
     public boolean isWriteMethodInvoked() {
-        return flushTask != null;
+        return writeMethodInvoked;
+    }
+
+    /**
+     * 响应状态码(write方法未调用时为0, 文件下载为200).
+     * @return int
+     */
+    public int getStatusCode() {
+        if (flushTask.isDownloadFile) {
+            return HttpResponseStatus.OK.code();
+        }
+        return flushTask.status == null ? 0 : flushTask.status.code();
+    }
+
+    /**
+     * 响应体字节数.
+     * @return long
+     */
+    public long getContentLength() {
+        if (flushTask.isDownloadFile) {
+            return flushTask.downloadedFile.length();
+        }
+        if (flushTask.content != null) {
+            return flushTask.contentLength;
+        }
+        return flushTask.bytes == null ? 0L : flushTask.bytes.length;
     }
 
     public boolean isFlushed() {
@@ -217,26 +362,49 @@ public class MRestResponse {
         return this;
     }
 
+    /**
+     * 设置header(替换同名header, 名称大小写不敏感).
+     * @param key key
+     * @param value value
+     * @return MRestResponse
+     */
     public MRestResponse setHeader(String key, Object value) {
-        this.$headers.add(key, value);
+        checkRecycled();
+        this.$headers.set(key, value);
         return this;
     }
 
     public MRestResponse setHeader(Map<String, Object> headers) {
-        this.$headers.add(headers);
+        checkRecycled();
+        this.$headers.set(headers);
+        return this;
+    }
+
+    /**
+     * 追加header(保留同名header).
+     * @param key key
+     * @param value value
+     * @return MRestResponse
+     */
+    public MRestResponse addHeader(String key, Object value) {
+        checkRecycled();
+        this.$headers.add(key, value);
         return this;
     }
 
     public MRestResponse removeHeader(String key) {
+        checkRecycled();
         this.$headers.remove(key);
         return this;
     }
 
     public Object getHeader(String key) {
+        checkRecycled();
         return this.$headers.get(key);
     }
 
     public List<Object> getHeaderAll(String key) {
+        checkRecycled();
         return this.$headers.getAll(key);
     }
 
@@ -259,6 +427,14 @@ public class MRestResponse {
         return setCookie(Constants.DEFAULT_CONTEXT_PATH, name, value);
     }
 
+    /**
+     * 释放未输出的ByteBuf响应内容(响应被异常处理替换或请求处理结束仍未输出时调用, 与对象池及detach无关).
+     * @return 是否释放了响应内容
+     */
+    public synchronized boolean releaseContent() {
+        return flushTask.releaseContent();
+    }
+
     public MRestResponse setCookie(String path, String name, String value) {
         return setCookie(path, Long.MIN_VALUE, name, value);
     }
@@ -275,17 +451,19 @@ public class MRestResponse {
      * @param cookie io.netty.handler.codec.http.cookie.DefaultCookie.
      */
     public MRestResponse setCookie(Cookie cookie) {
-        return setHeader(HttpHeaderNames.SET_COOKIE.toString(), ServerCookieEncoder.STRICT.encode(cookie));
+        return addHeader(HttpHeaderNames.SET_COOKIE.toString(), ServerCookieEncoder.STRICT.encode(cookie));
     }
 
     public synchronized MRestResponse flush() {
+        checkRecycled();
         if (isFlushed()) {
             throw new MRestServerException("flush method has already been invoked.");
         }
         if (isWriteMethodInvoked()) {
             flushTask.execute();
         } else {
-            flushTask = new FlushTask(HttpResponseStatus.OK, null, null);
+            flushTask.init(HttpResponseStatus.OK, null, null);
+            writeMethodInvoked = true;
             flush();
         }
         return this;
@@ -294,29 +472,63 @@ public class MRestResponse {
     private class FlushTask {
         HttpResponseStatus status;
         byte[] bytes;
+        ByteBuf content;
+        int contentLength;
         MRestHeaders headers;
         File downloadedFile;
         boolean isDownloadFile = false;
         Consumer<File> downloadCallback;
-        FlushTask(HttpResponseStatus status, byte[] bytes, MRestHeaders headers) {
+        boolean executed = false;
+        void init(HttpResponseStatus status, byte[] bytes, MRestHeaders headers) {
             this.status = Objects.requireNonNull(status);
             this.bytes = bytes;
-            this.headers = headers == null ? new MRestHeaders() : headers;
+            this.headers = headers;
         }
-        FlushTask(File downloadedFile, MRestHeaders headers, Consumer<File> downloadCallback) {
+        void initContent(HttpResponseStatus status, ByteBuf content, MRestHeaders headers) {
+            this.status = Objects.requireNonNull(status);
+            this.content = Objects.requireNonNull(content);
+            this.contentLength = content.readableBytes();
+            this.headers = headers;
+        }
+        void init(File downloadedFile, MRestHeaders headers, Consumer<File> downloadCallback) {
             this.isDownloadFile = true;
             this.downloadedFile = Objects.requireNonNull(downloadedFile);
-            this.headers = headers == null ? new MRestHeaders() : headers;
+            this.headers = headers;
             this.downloadCallback = downloadCallback;
         }
+        boolean releaseContent() {
+            if (this.content == null || executed) {
+                return false;
+            }
+            // 未输出的content仍由响应对象持有, 已输出的content由MResponseHelper负责释放
+            this.content.release();
+            this.content = null;
+            this.contentLength = 0;
+            return true;
+        }
+        void clear() {
+            releaseContent();
+            this.status = null;
+            this.bytes = null;
+            this.content = null;
+            this.contentLength = 0;
+            this.headers = null;
+            this.downloadedFile = null;
+            this.isDownloadFile = false;
+            this.downloadCallback = null;
+            this.executed = false;
+        }
         void execute() {
             try {
-                MRestHeaders headers = $headers.copy();
-                headers.addAll(this.headers);
+                // write方法指定的header覆盖同名header(Set-Cookie除外), 合并后直接作为netty响应header输出
+                HttpHeaders headers = $headers.merge(this.headers).getHttpHeaders();
+                executed = true;
                 if (isDownloadFile) {
-                    MResponseHelper.write($channelHandlerContext, downloadedFile, headers, downloadCallback);
+                    MResponseHelper.write($channelHandlerContext, downloadedFile, headers, downloadCallback, restContext);
+                } else if (content != null) {
+                    MResponseHelper.write($channelHandlerContext, status, content, headers, restContext);
                 } else {
-                    MResponseHelper.write($channelHandlerContext, status, bytes, headers);
+                    MResponseHelper.write($channelHandlerContext, status, bytes, headers, restContext);
                 }
             } catch (Throwable throwable) {
                 throw new MRestFlushException(throwable);
@@ -4,6 +4,11 @@ import io.github.jiashunx.masker.rest.framework.cons.Constants;
 import io.github.jiashunx.masker.rest.framework.exception.MRestServerCloseException;
 import io.github.jiashunx.masker.rest.framework.exception.MRestServerInitializeException;
 import io.github.jiashunx.masker.rest.framework.handler.*;
+import io.github.jiashunx.masker.rest.framework.log.MAccessLogger;
+import io.github.jiashunx.masker.rest.framework.metrics.MEventLoopWatchdog;
+import io.github.jiashunx.masker.rest.framework.metrics.MServerMetrics;
+import io.github.jiashunx.masker.rest.framework.model.MAccessLogConfig;
+import io.github.jiashunx.masker.rest.framework.model.MRestFrameworkHeaders;
 import io.github.jiashunx.masker.rest.framework.type.MRestNettyThreadType;
 import io.github.jiashunx.masker.rest.framework.util.MRestThreadFactory;
 import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
@@ -12,6 +17,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
@@ -22,6 +28,8 @@ import org.slf4j.LoggerFactory;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -35,15 +43,61 @@ public class MRestServer {
     private volatile boolean closed = false;
     private final String startupTime;
     private final String identifier;
+    private final MRestFrameworkHeaders frameworkHeaders;
 
     private Channel serverChannel;
+    private volatile EventLoopGroup bossGroup;
+    private volatile EventLoopGroup workerGroup;
+    /**
+     * server级指标(连接数等).
+     */
+    private final MServerMetrics metrics = new MServerMetrics();
 
     private int listenPort;
     private String serverName;
     private int bossThreadNum = 0;
     private int workerThreadNum = 0;
     private boolean connectionKeepAlive;
+    /**
+     * 是否启用请求处理对象池(请求/响应/filter链等对象复用, 默认不启用).
+     */
+    private boolean objectPooling = false;
+    /**
+     * 各context是否已初始化.
+     */
+    private boolean contextsInitialized;
+    /**
+     * 是否记录请求指标(按路由统计请求数、错误数、字节数及各阶段耗时).
+     */
+    private boolean requestMetrics = true;
+    /**
+     * 是否按路由统计请求处理线程的分配字节数及CPU时间(需同时启用请求指标).
+     */
+    private boolean requestResourceMetrics = false;
+    /**
+     * event loop阻塞检测阈值(毫秒, 默认0即不检测).
+     */
+    private long eventLoopBlockingThreshold = 0L;
+    private volatile MEventLoopWatchdog eventLoopWatchdog;
+    /**
+     * 访问日志配置(为null时不记录访问日志).
+     */
+    private MAccessLogConfig accessLogConfig;
+    private volatile MAccessLogger accessLogger;
     private int httpContentMaxLength = Constants.HTTP_CONTENT_MAX_LENGTH;
+    /**
+     * 连接写缓冲区水位线(待发送字节数超过高水位后channel不可写, 降至低水位以下恢复可写).
+     */
+    private int writeBufferLowWaterMark = Constants.WRITE_BUFFER_LOW_WATER_MARK;
+    private int writeBufferHighWaterMark = Constants.WRITE_BUFFER_HIGH_WATER_MARK;
+    /**
+     * server内全部websocket context最大会话数量(0表示不限制).
+     */
+    private volatile int maxWebsocketSessions = 0;
+    /**
+     * server内已准入websocket会话数量(含握手中的连接).
+     */
+    private final AtomicInteger websocketSessionCount = new AtomicInteger(0);
     private final Map<String, MRestContext> contextMap = new ConcurrentHashMap<>();
 
     public MRestServer() {
@@ -64,6 +118,7 @@ public class MRestServer {
         contextMap.put(Constants.DEFAULT_CONTEXT_PATH, new MRestContext(this, Constants.DEFAULT_CONTEXT_PATH));
         this.startupTime = new SimpleDateFormat("yyyy-MM-dd HH:ss:mm.SSS").format(new Date());
         this.identifier = UUID.randomUUID().toString().replace("-", "");
+        this.frameworkHeaders = new MRestFrameworkHeaders(this);
     }
 
     public String getStartupTime() {
@@ -74,6 +129,10 @@ public class MRestServer {
         return identifier;
     }
 
+    public MRestFrameworkHeaders getFrameworkHeaders() {
+        return frameworkHeaders;
+    }
+
     public MRestServer listenPort(int listenPort) {
         if (listenPort <= 0 || listenPort > 65535) {
             throw new IllegalArgumentException("listenPort -> " + listenPort);
@@ -134,6 +193,47 @@ public class MRestServer {
         return this.httpContentMaxLength;
     }
 
+    public MRestServer writeBufferWaterMark(int writeBufferLowWaterMark, int writeBufferHighWaterMark) {
+        if (writeBufferLowWaterMark < 0 || writeBufferHighWaterMark < writeBufferLowWaterMark) {
+            throw new IllegalArgumentException(String.format("writeBufferWaterMark -> [%d, %d]", writeBufferLowWaterMark, writeBufferHighWaterMark));
+        }
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        return this;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return this.writeBufferLowWaterMark;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return this.writeBufferHighWaterMark;
+    }
+
+    public MRestServer maxWebsocketSessions(int maxWebsocketSessions) {
+        if (maxWebsocketSessions < 0) {
+            throw new IllegalArgumentException("maxWebsocketSessions -> " + maxWebsocketSessions);
+        }
+        this.maxWebsocketSessions = maxWebsocketSessions;
+        return this;
+    }
+
+    public int getMaxWebsocketSessions() {
+        return this.maxWebsocketSessions;
+    }
+
+    /**
+     * server内已准入websocket会话数量(含握手中的连接).
+     * @return int
+     */
+    public int getWebsocketSessionCount() {
+        return this.websocketSessionCount.get();
+    }
+
+    AtomicInteger websocketSessionCount() {
+        return this.websocketSessionCount;
+    }
+
     public MRestServer connectionKeepAlive(boolean connectionKeepAlive) {
         this.connectionKeepAlive = connectionKeepAlive;
         return this;
@@ -143,6 +243,114 @@ public class MRestServer {
         return this.connectionKeepAlive;
     }
 
+    /**
+     * 设置是否启用请求处理对象池.
+     * <p>启用后请求处理结束时请求/响应对象被回收复用, 处理器在请求处理结束后仍需持有请求或响应对象(异步处理等)时须调用其detach方法,
+     * 否则访问已回收对象抛出IllegalStateException, 对象被后续请求复用后读取的将是后续请求的数据.</p>
+     * @param objectPooling objectPooling
+     * @return MRestServer
+     */
+    public MRestServer objectPooling(boolean objectPooling) {
+        this.objectPooling = objectPooling;
+        return this;
+    }
+
+    public boolean isObjectPooling() {
+        return this.objectPooling;
+    }
+
+    public MRestServer requestMetrics(boolean requestMetrics) {
+        this.requestMetrics = requestMetrics;
+        return this;
+    }
+
+    public boolean isRequestMetrics() {
+        return this.requestMetrics;
+    }
+
+    /**
+     * 设置是否按路由统计请求资源消耗: 请求处理前后读取当前线程累计分配字节数及CPU时间, 差值累加至路由指标.
+     * <p>每次请求额外读取ThreadMXBean, 存在一定开销; 处理器将工作移交其他线程时使用{@link MRestRequest#trackResource(Runnable)}包装任务.</p>
+     * @param requestResourceMetrics requestResourceMetrics
+     * @return MRestServer
+     */
+    public MRestServer requestResourceMetrics(boolean requestResourceMetrics) {
+        this.requestResourceMetrics = requestResourceMetrics;
+        return this;
+    }
+
+    /**
+     * 是否统计请求资源消耗(需同时启用请求指标).
+     * @return boolean
+     */
+    public boolean isRequestResourceMetrics() {
+        return this.requestMetrics && this.requestResourceMetrics;
+    }
+
+    /**
+     * 设置event loop阻塞检测阈值(默认不检测): event loop超过阈值未执行心跳任务时输出阻塞线程堆栈及当前处理中的请求(请求地址不含查询参数).
+     * <p>启用后共享指标线程定时向各worker event loop提交心跳任务, 阈值一般设置为数百毫秒(如500).</p>
+     * @param eventLoopBlockingThreshold 阈值(毫秒, 0表示不检测)
+     * @return MRestServer
+     */
+    public MRestServer eventLoopBlockingThreshold(long eventLoopBlockingThreshold) {
+        if (eventLoopBlockingThreshold < 0L) {
+            throw new IllegalArgumentException("eventLoopBlockingThreshold can't be negative");
+        }
+        this.eventLoopBlockingThreshold = eventLoopBlockingThreshold;
+        return this;
+    }
+
+    public long getEventLoopBlockingThreshold() {
+        return this.eventLoopBlockingThreshold;
+    }
+
+    /**
+     * event loop阻塞检测(server启动后可用, 未启用时为null).
+     * @return MEventLoopWatchdog
+     */
+    public MEventLoopWatchdog getEventLoopWatchdog() {
+        return this.eventLoopWatchdog;
+    }
+
+    /**
+     * 启用访问日志: 请求处理完成后将固定字段写入环形缓冲区, 由后台线程批量输出至文件或SLF4J.
+     * @param accessLogConfig 访问日志配置(为null时不记录访问日志)
+     * @return MRestServer
+     */
+    public MRestServer accessLog(MAccessLogConfig accessLogConfig) {
+        this.accessLogConfig = accessLogConfig == null ? null : accessLogConfig.check();
+        return this;
+    }
+
+    public MAccessLogConfig getAccessLogConfig() {
+        return this.accessLogConfig;
+    }
+
+    /**
+     * 访问日志(server启动后可用, 未启用时为null).
+     * @return MAccessLogger
+     */
+    public MAccessLogger getAccessLogger() {
+        return this.accessLogger;
+    }
+
+    public MServerMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * worker线程组(server启动后可用).
+     * @return EventLoopGroup
+     */
+    public EventLoopGroup getWorkerGroup() {
+        return this.workerGroup;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
     public MRestContext context() {
         return context(Constants.DEFAULT_CONTEXT_PATH);
     }
@@ -182,6 +390,10 @@ public class MRestServer {
         }
     }
 
+    /**
+     * 关闭server: 关闭监听channel, 停止event loop监控及访问日志, 并释放boss/worker线程组(已建立的连接随worker线程组关闭).
+     * <p>线程组异步关闭, 需等待关闭完成时调用{@link #awaitTermination(long, TimeUnit)}.</p>
+     */
     public synchronized void shutdown() {
         if (!started) {
             throw new MRestServerCloseException(String.format("%s has not been initialized", getServerDesc()));
@@ -200,6 +412,77 @@ public class MRestServer {
         }
         closed = true;
         serverChannel = null;
+        if (eventLoopWatchdog != null) {
+            eventLoopWatchdog.stop();
+        }
+        shutdownEventLoopGroups();
+        if (accessLogger != null) {
+            accessLogger.stop();
+        }
+    }
+
+    /**
+     * 启动失败时释放已创建的资源(监听channel、访问日志及event loop监控后台任务、boss/worker线程组).
+     */
+    private void releaseStartResources() {
+        if (serverChannel != null) {
+            serverChannel.close();
+            serverChannel = null;
+        }
+        if (accessLogger != null) {
+            accessLogger.stop();
+            accessLogger = null;
+        }
+        if (eventLoopWatchdog != null) {
+            eventLoopWatchdog.stop();
+            eventLoopWatchdog = null;
+        }
+        shutdownEventLoopGroups();
+        bossGroup = null;
+        workerGroup = null;
+    }
+
+    private void shutdownEventLoopGroups() {
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+        }
+    }
+
+    /**
+     * 等待boss/worker线程组关闭完成(server关闭后调用).
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 线程组是否已全部关闭(server未启动时返回true)
+     * @throws InterruptedException InterruptedException
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (EventLoopGroup eventLoopGroup: new EventLoopGroup[] { bossGroup, workerGroup }) {
+            if (eventLoopGroup != null && !eventLoopGroup.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 初始化各context(注册url映射、servlet及filter, 仅执行一次), 启动server时自动调用.
+     * <p>不启动server(不监听端口)直接驱动请求处理时(基准测试、EmbeddedChannel等)需先调用此方法.</p>
+     * @return MRestServer
+     * @throws MRestServerInitializeException MRestServerInitializeException
+     */
+    public synchronized MRestServer initContexts() throws MRestServerInitializeException {
+        checkServerState();
+        if (!contextsInitialized) {
+            contextsInitialized = true;
+            contextMap.forEach((key, restContext) -> {
+                restContext.init();
+            });
+        }
+        return this;
     }
 
     /**
@@ -212,20 +495,34 @@ public class MRestServer {
             logger.info("{} start, Context: {}", getServerDesc(), getContextList());
         }
         try {
-            contextMap.forEach((key, restContext) -> {
-                restContext.init();
-            });
+            initContexts();
             EventLoopGroup bossGroup = new NioEventLoopGroup(bossThreadNum, new MRestThreadFactory(MRestNettyThreadType.BOSS, listenPort));
             EventLoopGroup workerGroup = new NioEventLoopGroup(workerThreadNum, new MRestThreadFactory(MRestNettyThreadType.WORKER, listenPort));
+            this.bossGroup = bossGroup;
+            this.workerGroup = workerGroup;
+            // 访问日志及event loop监控的后台任务在bind成功后启动
+            if (accessLogConfig != null) {
+                this.accessLogger = new MAccessLogger(this, accessLogConfig);
+            }
+            if (eventLoopBlockingThreshold > 0L) {
+                this.eventLoopWatchdog = new MEventLoopWatchdog(this, workerGroup, eventLoopBlockingThreshold);
+            }
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.option(ChannelOption.SO_BACKLOG, 1024);
             bootstrap.option(ChannelOption.TCP_NODELAY, true);
             bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+            bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
             bootstrap.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
                     .handler(new LoggingHandler(LogLevel.INFO))
                     .childHandler(new MRestServerChannelInitializer(this));
             serverChannel = bootstrap.bind(listenPort).sync().channel();
+            if (accessLogger != null) {
+                accessLogger.start();
+            }
+            if (eventLoopWatchdog != null) {
+                eventLoopWatchdog.start();
+            }
             if (logger.isInfoEnabled()) {
                 logger.info("{} start succeed", getServerDesc());
             }
@@ -246,6 +543,7 @@ public class MRestServer {
             syncThread.start();
             started = true;
         } catch (Throwable throwable) {
+            releaseStartResources();
             throw new MRestServerInitializeException(String.format("%s start failed", getServerDesc()), throwable);
         }
     }
@@ -0,0 +1,163 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import io.github.jiashunx.masker.rest.framework.util.MTokenBucket;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * websocket握手准入控制: 在握手前按server/context会话数上限、单IP会话数上限及握手速率进行准入判断.
+ * <p>准入成功即占用会话名额(含握手中的连接), 连接关闭后释放.</p>
+ * @author jiashunx
+ */
+public class MWebsocketAdmission {
+
+    private final MWebsocketContext websocketContext;
+    private final AtomicInteger sessionCount = new AtomicInteger(0);
+    private final Map<String, AtomicInteger> ipSessionCountMap = new ConcurrentHashMap<>();
+    private volatile MTokenBucket handshakeRateLimiter;
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder rejectedByServerLimitCount = new LongAdder();
+    private final LongAdder rejectedByContextLimitCount = new LongAdder();
+    private final LongAdder rejectedByIpLimitCount = new LongAdder();
+    private final LongAdder rejectedByRateLimitCount = new LongAdder();
+
+    public MWebsocketAdmission(MWebsocketContext websocketContext) {
+        this.websocketContext = Objects.requireNonNull(websocketContext);
+    }
+
+    void setHandshakeRateLimiter(MTokenBucket handshakeRateLimiter) {
+        this.handshakeRateLimiter = handshakeRateLimiter;
+    }
+
+    /**
+     * 尝试准入.
+     * @param ip 客户端IP
+     * @return 0表示准入成功, 否则为建议客户端重试等待秒数(Retry-After)
+     */
+    public long tryAcquire(String ip) {
+        MTokenBucket rateLimiter = handshakeRateLimiter;
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire();
+            if (waitNanos > 0) {
+                rejectedByRateLimitCount.increment();
+                return retryAfterSeconds(waitNanos);
+            }
+        }
+        long retryAfter = websocketContext.getAdmissionRetryAfter();
+        AtomicInteger serverSessionCount = websocketContext.getRestServer().websocketSessionCount();
+        if (!increment(serverSessionCount, websocketContext.getRestServer().getMaxWebsocketSessions())) {
+            rejectedByServerLimitCount.increment();
+            return retryAfter;
+        }
+        if (!increment(sessionCount, websocketContext.getMaxSessions())) {
+            serverSessionCount.decrementAndGet();
+            rejectedByContextLimitCount.increment();
+            return retryAfter;
+        }
+        int maxSessionsPerIp = websocketContext.getMaxSessionsPerIp();
+        if (maxSessionsPerIp > 0) {
+            AtomicInteger ipSessionCount = ipSessionCountMap.computeIfAbsent(ip, k -> new AtomicInteger(0));
+            if (!increment(ipSessionCount, maxSessionsPerIp)) {
+                releaseIp(ip, null);
+                sessionCount.decrementAndGet();
+                serverSessionCount.decrementAndGet();
+                rejectedByIpLimitCount.increment();
+                return retryAfter;
+            }
+        }
+        admittedCount.increment();
+        return 0L;
+    }
+
+    /**
+     * 释放准入占用的会话名额(连接关闭时调用).
+     * @param ip 客户端IP
+     */
+    public void release(String ip) {
+        websocketContext.getRestServer().websocketSessionCount().decrementAndGet();
+        sessionCount.decrementAndGet();
+        if (websocketContext.getMaxSessionsPerIp() > 0) {
+            releaseIp(ip, ipSessionCountMap.get(ip));
+        }
+    }
+
+    private void releaseIp(String ip, AtomicInteger counter) {
+        // 计数为0时移除, 避免大量不同IP导致map无限增长
+        ipSessionCountMap.computeIfPresent(ip, (k, count) -> {
+            if (counter != null) {
+                count.decrementAndGet();
+            }
+            return count.get() <= 0 ? null : count;
+        });
+    }
+
+    /**
+     * 令牌等待时间转换为Retry-After秒数(向上取整, 至少1秒).
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private static boolean increment(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (limit > 0 && current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 已准入会话数量(含握手中的连接).
+     * @return int
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    public int getSessionCount(String ip) {
+        AtomicInteger count = ipSessionCountMap.get(ip);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 单IP会话计数中记录的IP数量(计数归零的IP会被移除).
+     * @return int
+     */
+    int getTrackedIpCount() {
+        return ipSessionCountMap.size();
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount.sum();
+    }
+
+    public long getRejectedByServerLimitCount() {
+        return rejectedByServerLimitCount.sum();
+    }
+
+    public long getRejectedByContextLimitCount() {
+        return rejectedByContextLimitCount.sum();
+    }
+
+    public long getRejectedByIpLimitCount() {
+        return rejectedByIpLimitCount.sum();
+    }
+
+    public long getRejectedByRateLimitCount() {
+        return rejectedByRateLimitCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return getRejectedByServerLimitCount() + getRejectedByContextLimitCount() + getRejectedByIpLimitCount() + getRejectedByRateLimitCount();
+    }
+
+}
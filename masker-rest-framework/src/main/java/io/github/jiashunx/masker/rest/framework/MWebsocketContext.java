@@ -1,9 +1,15 @@
 package io.github.jiashunx.masker.rest.framework;
 
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
 import io.github.jiashunx.masker.rest.framework.function.VoidFunc;
 import io.github.jiashunx.masker.rest.framework.handler.MWebsocketHandler;
+import io.github.jiashunx.masker.rest.framework.handler.MWebsocketRpcRouter;
+import io.github.jiashunx.masker.rest.framework.type.MWebsocketOverflowPolicy;
 import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
+import io.github.jiashunx.masker.rest.framework.util.MTokenBucket;
+import io.github.jiashunx.masker.rest.framework.util.UrlUtils;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
@@ -14,7 +20,13 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * @author jiashunx
@@ -26,11 +38,21 @@ public class MWebsocketContext {
     private final MRestServer restServer;
     private final MRestContext restContext;
     private final String websocketUrl;
+    /**
+     * 已连接的websocket会话.
+     */
+    private final MWebsocketSessionGroup sessionGroup;
+    /**
+     * 握手准入控制.
+     */
+    private final MWebsocketAdmission admission;
 
     public MWebsocketContext(MRestServer restServer, MRestContext restContext, String websocketUrl) {
         this.restServer = Objects.requireNonNull(restServer);
         this.restContext = Objects.requireNonNull(restContext);
         this.websocketUrl = MRestUtils.formatWebsocketContextPath(websocketUrl);
+        this.sessionGroup = new MWebsocketSessionGroup(this);
+        this.admission = new MWebsocketAdmission(this);
     }
 
     public MRestServer getRestServer() {
@@ -45,6 +67,110 @@ public class MWebsocketContext {
         return websocketUrl;
     }
 
+    public MWebsocketSessionGroup getSessionGroup() {
+        return sessionGroup;
+    }
+
+    public MWebsocketAdmission getAdmission() {
+        return admission;
+    }
+
+    public MWebsocketSession getSession(String channelId) {
+        return sessionGroup.get(channelId);
+    }
+
+    public MWebsocketSession getSessionByKey(String key) {
+        return sessionGroup.getByKey(key);
+    }
+
+    public Collection<MWebsocketSession> getSessions() {
+        return sessionGroup.getSessions();
+    }
+
+    /**
+     * 向全部会话广播websocket帧(frame由框架负责释放).
+     * @param frame frame
+     */
+    public void broadcast(WebSocketFrame frame) {
+        sessionGroup.broadcast(frame);
+    }
+
+    /**
+     * 向满足条件的会话广播websocket帧(frame由框架负责释放).
+     * @param frame frame
+     * @param filter 会话过滤
+     */
+    public void broadcast(WebSocketFrame frame, Predicate<MWebsocketSession> filter) {
+        sessionGroup.broadcast(frame, filter);
+    }
+
+    /**
+     * 向订阅指定主题的会话发布websocket帧(frame由框架负责释放).
+     * @param topic 主题
+     * @param frame frame
+     */
+    public void publish(String topic, WebSocketFrame frame) {
+        sessionGroup.publish(topic, frame);
+    }
+
+    /**
+     * 向订阅指定主题的会话发布websocket帧(frame由框架负责释放), 溢出策略为COALESCE_BY_KEY时积压帧按合并key仅保留最新一帧.
+     * @param topic 主题
+     * @param frame frame
+     * @param coalesceKey 合并key
+     */
+    public void publish(String topic, WebSocketFrame frame, Object coalesceKey) {
+        sessionGroup.publish(topic, frame, coalesceKey);
+    }
+
+    /**
+     * 全部会话出站队列中待发送帧数量.
+     * @return long
+     */
+    public long getOutboundQueueDepth() {
+        return sessionGroup.getOutboundQueueDepth();
+    }
+
+    /**
+     * 因出站队列溢出被丢弃的帧数量.
+     * @return long
+     */
+    public long getDroppedFrameCount() {
+        return sessionGroup.getDroppedFrameCount();
+    }
+
+    /**
+     * 因合并key相同被覆盖的帧数量.
+     * @return long
+     */
+    public long getCoalescedFrameCount() {
+        return sessionGroup.getCoalescedFrameCount();
+    }
+
+    /**
+     * 因出站队列溢出被关闭的连接数量.
+     * @return long
+     */
+    public long getOverflowDisconnectCount() {
+        return sessionGroup.getOverflowDisconnectCount();
+    }
+
+    /**
+     * 已准入会话数量(含握手中的连接).
+     * @return int
+     */
+    public int getAdmittedSessionCount() {
+        return admission.getSessionCount();
+    }
+
+    /**
+     * 握手准入被拒绝的次数(会话数上限、单IP会话数上限及握手速率限制).
+     * @return long
+     */
+    public long getAdmissionRejectedCount() {
+        return admission.getRejectedCount();
+    }
+
     public String getWebSocketContextDesc() {
         return String.format("%s WebSocketContext[%s]", getRestContext().getContextDesc(), getWebsocketUrl());
     }
@@ -57,6 +183,409 @@ public class MWebsocketContext {
 
     private BiConsumer<ChannelHandlerContext, MWebsocketRequest> activeCallback;
     private BiConsumer<MWebsocketRequest, MWebsocketResponse> inactiveCallback;
+    /**
+     * 单个websocket帧最大负载长度.
+     */
+    private volatile int maxFramePayloadLength = Constants.WEBSOCKET_MAX_FRAME_PAYLOAD_LENGTH;
+    /**
+     * 是否聚合分片帧(启用后处理器收到的是完整消息, 不再收到ContinuationWebSocketFrame).
+     */
+    private volatile boolean frameAggregation = false;
+    /**
+     * 分片帧聚合后最大消息长度.
+     */
+    private volatile int maxAggregatedContentLength = Constants.WEBSOCKET_MAX_AGGREGATED_CONTENT_LENGTH;
+    /**
+     * 会话出站队列容量(channel不可写时待发送帧进入队列, 可写后依次发送).
+     */
+    private volatile int outboundQueueCapacity = Constants.WEBSOCKET_OUTBOUND_QUEUE_CAPACITY;
+    /**
+     * 会话出站队列溢出策略.
+     */
+    private volatile MWebsocketOverflowPolicy overflowPolicy = MWebsocketOverflowPolicy.DROP_OLDEST;
+    /**
+     * 是否启用permessage-deflate压缩扩展(客户端请求时协商).
+     */
+    private volatile boolean compression = false;
+    private volatile int compressionLevel = Constants.WEBSOCKET_COMPRESSION_LEVEL;
+    /**
+     * 建议客户端使用的压缩窗口大小(client_max_window_bits, 客户端声明支持时生效).
+     */
+    private volatile int compressionWindowBits = Constants.WEBSOCKET_COMPRESSION_WINDOW_BITS;
+    /**
+     * 服务端压缩窗口上限(server_max_window_bits), 实际窗口取该值与客户端请求值中的较小值.
+     */
+    private volatile int compressionServerWindowBits = Constants.WEBSOCKET_COMPRESSION_WINDOW_BITS;
+    /**
+     * 最小压缩消息长度(小于该长度的消息不压缩).
+     */
+    private volatile int compressionMinSize = Constants.WEBSOCKET_COMPRESSION_MIN_SIZE;
+    /**
+     * 服务端不保留压缩上下文(server_no_context_takeover), 启用后广播/发布的压缩结果在各会话间复用.
+     */
+    private volatile boolean compressionServerNoContextTakeover = false;
+    /**
+     * 建议客户端不保留压缩上下文(client_no_context_takeover).
+     */
+    private volatile boolean compressionClientNoContextTakeover = false;
+    private volatile WebSocketServerHandshakerFactory handshakerFactory;
+    /**
+     * 帧处理线程池(为null时在event loop线程内处理), 同一会话的帧按接收顺序串行处理.
+     */
+    private volatile Executor handlerExecutor;
+    /**
+     * 单个会话已提交至帧处理线程池但未处理完成的最大帧数量, 超过后暂停读取直至积压降至一半.
+     */
+    private volatile int maxInFlightFrames = Constants.WEBSOCKET_MAX_IN_FLIGHT_FRAMES;
+    /**
+     * 服务端ping间隔(毫秒, 连接在该时间内未收到任何帧时发送ping, 0表示不发送).
+     */
+    private volatile long pingInterval = 0L;
+    /**
+     * 发送ping后等待客户端响应的超时时间(毫秒, 超时未收到任何帧则关闭连接, 0表示不检测).
+     */
+    private volatile long pongTimeout = Constants.WEBSOCKET_PONG_TIMEOUT_MILLIS;
+    /**
+     * 连接空闲超时时间(毫秒, 超过该时间未收到任何帧则关闭连接, 0表示不检测).
+     */
+    private volatile long idleTimeout = 0L;
+    /**
+     * context最大会话数量(0表示不限制).
+     */
+    private volatile int maxSessions = 0;
+    /**
+     * 单个客户端IP最大会话数量(0表示不限制).
+     */
+    private volatile int maxSessionsPerIp = 0;
+    /**
+     * 握手速率限制(每秒握手数量, 0表示不限制).
+     */
+    private volatile double handshakeRateLimit = 0D;
+    /**
+     * 握手速率限制允许的突发握手数量.
+     */
+    private volatile int handshakeRateBurst = 0;
+    /**
+     * 准入被拒绝时建议客户端重试等待时间(秒, 握手速率限制拒绝时按令牌补充时间计算).
+     */
+    private volatile long admissionRetryAfter = Constants.WEBSOCKET_ADMISSION_RETRY_AFTER_SECONDS;
+
+    public synchronized MWebsocketContext maxFramePayloadLength(int maxFramePayloadLength) {
+        getRestServer().checkServerState();
+        if (maxFramePayloadLength <= 0) {
+            throw new IllegalArgumentException("maxFramePayloadLength -> " + maxFramePayloadLength);
+        }
+        this.maxFramePayloadLength = maxFramePayloadLength;
+        return this;
+    }
+
+    public int getMaxFramePayloadLength() {
+        return maxFramePayloadLength;
+    }
+
+    public synchronized MWebsocketContext frameAggregation(boolean frameAggregation) {
+        getRestServer().checkServerState();
+        this.frameAggregation = frameAggregation;
+        return this;
+    }
+
+    public boolean isFrameAggregation() {
+        return frameAggregation;
+    }
+
+    public synchronized MWebsocketContext maxAggregatedContentLength(int maxAggregatedContentLength) {
+        getRestServer().checkServerState();
+        if (maxAggregatedContentLength <= 0) {
+            throw new IllegalArgumentException("maxAggregatedContentLength -> " + maxAggregatedContentLength);
+        }
+        this.maxAggregatedContentLength = maxAggregatedContentLength;
+        return this;
+    }
+
+    public int getMaxAggregatedContentLength() {
+        return maxAggregatedContentLength;
+    }
+
+    public synchronized MWebsocketContext outboundQueueCapacity(int outboundQueueCapacity) {
+        getRestServer().checkServerState();
+        if (outboundQueueCapacity <= 0) {
+            throw new IllegalArgumentException("outboundQueueCapacity -> " + outboundQueueCapacity);
+        }
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        return this;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public synchronized MWebsocketContext overflowPolicy(MWebsocketOverflowPolicy overflowPolicy) {
+        getRestServer().checkServerState();
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        return this;
+    }
+
+    public MWebsocketOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public synchronized MWebsocketContext compression(boolean compression) {
+        getRestServer().checkServerState();
+        this.compression = compression;
+        return this;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public synchronized MWebsocketContext compressionLevel(int compressionLevel) {
+        getRestServer().checkServerState();
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compressionLevel -> " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public synchronized MWebsocketContext compressionWindowBits(int compressionWindowBits) {
+        getRestServer().checkServerState();
+        if (compressionWindowBits < 8 || compressionWindowBits > 15) {
+            throw new IllegalArgumentException("compressionWindowBits -> " + compressionWindowBits);
+        }
+        this.compressionWindowBits = compressionWindowBits;
+        return this;
+    }
+
+    public int getCompressionWindowBits() {
+        return compressionWindowBits;
+    }
+
+    /**
+     * 指定服务端压缩窗口上限(server_max_window_bits, 8~15), 客户端请求更小的窗口时按客户端请求值压缩.
+     * <p>JDK Deflater仅支持15位窗口, 实际窗口小于15时需classpath中存在jzlib(com.jcraft:jzlib), 否则拒绝该压缩协商(连接不压缩).</p>
+     * @param compressionServerWindowBits compressionServerWindowBits
+     * @return MWebsocketContext
+     */
+    public synchronized MWebsocketContext compressionServerWindowBits(int compressionServerWindowBits) {
+        getRestServer().checkServerState();
+        if (compressionServerWindowBits < 8 || compressionServerWindowBits > 15) {
+            throw new IllegalArgumentException("compressionServerWindowBits -> " + compressionServerWindowBits);
+        }
+        this.compressionServerWindowBits = compressionServerWindowBits;
+        return this;
+    }
+
+    public int getCompressionServerWindowBits() {
+        return compressionServerWindowBits;
+    }
+
+    public synchronized MWebsocketContext compressionMinSize(int compressionMinSize) {
+        getRestServer().checkServerState();
+        if (compressionMinSize < 0) {
+            throw new IllegalArgumentException("compressionMinSize -> " + compressionMinSize);
+        }
+        this.compressionMinSize = compressionMinSize;
+        return this;
+    }
+
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    public synchronized MWebsocketContext compressionServerNoContextTakeover(boolean compressionServerNoContextTakeover) {
+        getRestServer().checkServerState();
+        this.compressionServerNoContextTakeover = compressionServerNoContextTakeover;
+        return this;
+    }
+
+    public boolean isCompressionServerNoContextTakeover() {
+        return compressionServerNoContextTakeover;
+    }
+
+    public synchronized MWebsocketContext compressionClientNoContextTakeover(boolean compressionClientNoContextTakeover) {
+        getRestServer().checkServerState();
+        this.compressionClientNoContextTakeover = compressionClientNoContextTakeover;
+        return this;
+    }
+
+    public boolean isCompressionClientNoContextTakeover() {
+        return compressionClientNoContextTakeover;
+    }
+
+    /**
+     * 指定帧处理线程池, 文本/二进制/分片帧交由该线程池处理(同一会话内保持顺序), 避免耗时处理阻塞event loop.
+     * <p>JDK 21及以上可传入虚拟线程执行器(Executors.newVirtualThreadPerTaskExecutor()).</p>
+     * @param handlerExecutor handlerExecutor
+     * @return MWebsocketContext
+     */
+    public synchronized MWebsocketContext handlerExecutor(Executor handlerExecutor) {
+        getRestServer().checkServerState();
+        this.handlerExecutor = Objects.requireNonNull(handlerExecutor);
+        return this;
+    }
+
+    public Executor getHandlerExecutor() {
+        return handlerExecutor;
+    }
+
+    public synchronized MWebsocketContext maxInFlightFrames(int maxInFlightFrames) {
+        getRestServer().checkServerState();
+        if (maxInFlightFrames <= 0) {
+            throw new IllegalArgumentException("maxInFlightFrames -> " + maxInFlightFrames);
+        }
+        this.maxInFlightFrames = maxInFlightFrames;
+        return this;
+    }
+
+    public int getMaxInFlightFrames() {
+        return maxInFlightFrames;
+    }
+
+    public synchronized MWebsocketContext pingInterval(long pingInterval) {
+        getRestServer().checkServerState();
+        if (pingInterval < 0) {
+            throw new IllegalArgumentException("pingInterval -> " + pingInterval);
+        }
+        this.pingInterval = pingInterval;
+        return this;
+    }
+
+    public long getPingInterval() {
+        return pingInterval;
+    }
+
+    public synchronized MWebsocketContext pongTimeout(long pongTimeout) {
+        getRestServer().checkServerState();
+        if (pongTimeout < 0) {
+            throw new IllegalArgumentException("pongTimeout -> " + pongTimeout);
+        }
+        this.pongTimeout = pongTimeout;
+        return this;
+    }
+
+    public long getPongTimeout() {
+        return pongTimeout;
+    }
+
+    public synchronized MWebsocketContext idleTimeout(long idleTimeout) {
+        getRestServer().checkServerState();
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("idleTimeout -> " + idleTimeout);
+        }
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public synchronized MWebsocketContext maxSessions(int maxSessions) {
+        getRestServer().checkServerState();
+        if (maxSessions < 0) {
+            throw new IllegalArgumentException("maxSessions -> " + maxSessions);
+        }
+        this.maxSessions = maxSessions;
+        return this;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public synchronized MWebsocketContext maxSessionsPerIp(int maxSessionsPerIp) {
+        getRestServer().checkServerState();
+        if (maxSessionsPerIp < 0) {
+            throw new IllegalArgumentException("maxSessionsPerIp -> " + maxSessionsPerIp);
+        }
+        this.maxSessionsPerIp = maxSessionsPerIp;
+        return this;
+    }
+
+    public int getMaxSessionsPerIp() {
+        return maxSessionsPerIp;
+    }
+
+    /**
+     * 设置握手速率限制(令牌桶).
+     * @param permitsPerSecond 每秒允许的握手数量(0表示不限制)
+     * @param burst 允许的突发握手数量
+     * @return MWebsocketContext
+     */
+    public synchronized MWebsocketContext handshakeRateLimit(double permitsPerSecond, int burst) {
+        getRestServer().checkServerState();
+        if (permitsPerSecond < 0) {
+            throw new IllegalArgumentException("permitsPerSecond -> " + permitsPerSecond);
+        }
+        if (permitsPerSecond > 0 && burst <= 0) {
+            throw new IllegalArgumentException("burst -> " + burst);
+        }
+        this.handshakeRateLimit = permitsPerSecond;
+        this.handshakeRateBurst = burst;
+        this.admission.setHandshakeRateLimiter(permitsPerSecond > 0 ? new MTokenBucket(permitsPerSecond, burst) : null);
+        return this;
+    }
+
+    public double getHandshakeRateLimit() {
+        return handshakeRateLimit;
+    }
+
+    public int getHandshakeRateBurst() {
+        return handshakeRateBurst;
+    }
+
+    public synchronized MWebsocketContext admissionRetryAfter(long admissionRetryAfter) {
+        getRestServer().checkServerState();
+        if (admissionRetryAfter <= 0) {
+            throw new IllegalArgumentException("admissionRetryAfter -> " + admissionRetryAfter);
+        }
+        this.admissionRetryAfter = admissionRetryAfter;
+        return this;
+    }
+
+    public long getAdmissionRetryAfter() {
+        return admissionRetryAfter;
+    }
+
+    /**
+     * 是否启用心跳检测(pingInterval或idleTimeout大于0).
+     * @return boolean
+     */
+    public boolean isHeartbeatEnabled() {
+        return pingInterval > 0 || idleTimeout > 0;
+    }
+
+    /**
+     * 获取websocket握手工厂(首次握手时按当前配置创建, context内所有连接共用).
+     * <p>握手url取context路径及websocket路径, 不包含任何连接相关信息(如连接接入的本地地址).</p>
+     * @return WebSocketServerHandshakerFactory
+     */
+    public WebSocketServerHandshakerFactory getHandshakerFactory() {
+        WebSocketServerHandshakerFactory factory = handshakerFactory;
+        if (factory == null) {
+            synchronized (this) {
+                factory = handshakerFactory;
+                if (factory == null) {
+                    factory = new WebSocketServerHandshakerFactory(getHandshakeUrl(), null, isCompression(), getMaxFramePayloadLength());
+                    handshakerFactory = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * 握手url(context路径 + websocket路径).
+     * @return String
+     */
+    String getHandshakeUrl() {
+        return UrlUtils.removeSuffixSeps0(getRestContext().getContextPath()) + getWebsocketUrl();
+    }
 
     public MWebsocketContext channelActiveCallback(BiConsumer<ChannelHandlerContext, MWebsocketRequest> activeCallback) {
         this.activeCallback = Objects.requireNonNull(activeCallback);
@@ -121,6 +650,9 @@ public class MWebsocketContext {
     public synchronized MWebsocketContext bindTextFrameHandler(MWebsocketHandler<TextWebSocketFrame> websocketHandler) {
         getRestServer().checkServerState();
         websocketHandlerInitTaskList.add(() -> {
+            if (getTextFrameHandler() instanceof MWebsocketRpcRouter) {
+                throw new IllegalArgumentException(String.format("%s has already bind rpc handler.", getWebSocketContextDesc()));
+            }
             if (getFrameHandler() != null) {
                 throw new IllegalArgumentException(String.format("%s has already bind WebSocketFrame handler.", getWebSocketContextDesc()));
             }
@@ -172,4 +704,63 @@ public class MWebsocketContext {
         return this;
     }
 
+    /**
+     * rpc处理器(按操作名称索引).
+     */
+    private final Map<String, Function<MWebsocketRpcRequest, ?>> rpcHandlerMap = new ConcurrentHashMap<>();
+
+    public Function<MWebsocketRpcRequest, ?> getRpcHandler(String operation) {
+        return rpcHandlerMap.get(operation);
+    }
+
+    /**
+     * 注册rpc处理器(注册后文本帧由MWebsocketRpcRouter按操作名称分发, 不可再指定文本帧处理器).
+     * @param operation 操作名称
+     * @param rpcHandler 处理器(返回值作为响应数据, 返回CompletionStage时异步响应)
+     * @param <R> 响应数据类型
+     * @return MWebsocketContext
+     */
+    public synchronized <R> MWebsocketContext rpc(String operation, Function<MWebsocketRpcRequest, R> rpcHandler) {
+        getRestServer().checkServerState();
+        Objects.requireNonNull(operation);
+        Objects.requireNonNull(rpcHandler);
+        if (rpcHandlerMap.containsKey(operation)) {
+            throw new IllegalArgumentException(String.format("%s has already bind rpc operation [%s].", getWebSocketContextDesc(), operation));
+        }
+        if (rpcHandlerMap.isEmpty()) {
+            websocketHandlerInitTaskList.add(() -> {
+                if (getFrameHandler() != null) {
+                    throw new IllegalArgumentException(String.format("%s has already bind WebSocketFrame handler.", getWebSocketContextDesc()));
+                }
+                if (getContinuationFrameHandler() != null) {
+                    throw new IllegalArgumentException(String.format("%s has already bind ContinuationWebSocketFrame handler.", getWebSocketContextDesc()));
+                }
+                if (getTextFrameHandler() != null) {
+                    throw new IllegalArgumentException(String.format("%s has already bind TextWebSocketFrame handler.", getWebSocketContextDesc()));
+                }
+                this.textFrameHandler = new MWebsocketRpcRouter(this);
+                if (logger.isInfoEnabled()) {
+                    logger.info("{} register rpc handler success, operations: {}", getWebSocketContextDesc(), rpcHandlerMap.keySet());
+                }
+            });
+        }
+        rpcHandlerMap.put(operation, rpcHandler);
+        return this;
+    }
+
+    /**
+     * 注册rpc处理器, 请求参数转换为指定类型.
+     * @param operation 操作名称
+     * @param paramClass 请求参数类型
+     * @param rpcHandler 处理器
+     * @param <T> 请求参数类型
+     * @param <R> 响应数据类型
+     * @return MWebsocketContext
+     */
+    public <T, R> MWebsocketContext rpc(String operation, Class<T> paramClass, Function<T, R> rpcHandler) {
+        Objects.requireNonNull(paramClass);
+        Objects.requireNonNull(rpcHandler);
+        return rpc(operation, rpcRequest -> rpcHandler.apply(rpcRequest.getData(paramClass)));
+    }
+
 }
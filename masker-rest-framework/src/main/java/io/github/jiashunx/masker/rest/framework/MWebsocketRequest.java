@@ -1,6 +1,7 @@
 package io.github.jiashunx.masker.rest.framework;
 
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
 
 /**
  * @author jiashunx
@@ -9,6 +10,10 @@ public class MWebsocketRequest extends MRestRequest {
 
     private MWebsocketContext websocketContext;
     private WebSocketServerHandshaker handshaker;
+    /**
+     * 握手时协商成功的压缩扩展(未协商时为null).
+     */
+    private WebSocketServerExtension compressionExtension;
 
     public MWebsocketRequest() {}
 
@@ -32,4 +37,12 @@ public class MWebsocketRequest extends MRestRequest {
         this.handshaker = handshaker;
     }
 
+    public WebSocketServerExtension getCompressionExtension() {
+        return compressionExtension;
+    }
+
+    public void setCompressionExtension(WebSocketServerExtension compressionExtension) {
+        this.compressionExtension = compressionExtension;
+    }
+
 }
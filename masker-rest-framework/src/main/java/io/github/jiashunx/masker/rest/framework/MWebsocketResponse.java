@@ -1,11 +1,13 @@
 package io.github.jiashunx.masker.rest.framework;
 
 import io.netty.channel.*;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 
 import java.net.SocketAddress;
 import java.util.Objects;
 
 /**
+ * websocket响应: send经会话有界出站队列发送(感知channel可写状态), ChannelOutboundInvoker方法(write/writeAndFlush等)直接写入channel.
  * @author jiashunx
  */
 public class MWebsocketResponse implements ChannelOutboundInvoker {
@@ -13,11 +15,49 @@ public class MWebsocketResponse implements ChannelOutboundInvoker {
     private final ChannelHandlerContext channelHandlerContext;
     private final MWebsocketContext websocketContext;
     private final MRestServer restServer;
+    private final MWebsocketSession session;
 
     public MWebsocketResponse(ChannelHandlerContext ctx, MWebsocketContext websocketContext) {
         this.channelHandlerContext = Objects.requireNonNull(ctx);
         this.websocketContext = Objects.requireNonNull(websocketContext);
         this.restServer = websocketContext.getRestServer();
+        this.session = null;
+    }
+
+    public MWebsocketResponse(MWebsocketSession session) {
+        this.channelHandlerContext = session.getChannelHandlerContext();
+        this.websocketContext = session.getWebsocketContext();
+        this.restServer = websocketContext.getRestServer();
+        this.session = session;
+    }
+
+    /**
+     * 获取当前连接对应的websocket会话.
+     * @return MWebsocketSession
+     */
+    public MWebsocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * 发送帧(线程安全, 感知channel可写状态): channel不可写时帧进入会话有界出站队列, 队列满时按MWebsocketContext溢出策略处理.
+     * @param frame frame(引用由框架负责释放)
+     */
+    public void send(WebSocketFrame frame) {
+        send(frame, null);
+    }
+
+    /**
+     * 发送帧(线程安全, 感知channel可写状态), 溢出策略为COALESCE_BY_KEY时队列中合并key相同的帧仅保留最新一帧.
+     * @param frame frame(引用由框架负责释放)
+     * @param coalesceKey 合并key(可为null)
+     */
+    public void send(WebSocketFrame frame, Object coalesceKey) {
+        if (session == null) {
+            writeAndFlush(frame);
+            return;
+        }
+        session.send(frame, coalesceKey);
     }
 
     public ChannelHandlerContext getChannelHandlerContext() {
@@ -116,11 +156,24 @@ public class MWebsocketResponse implements ChannelOutboundInvoker {
         return getChannelHandlerContext().flush();
     }
 
+    /**
+     * 直接写入并flush(不经过会话出站队列): 不感知channel可写状态及溢出策略, 且可能先于出站队列中已排队的帧发送.
+     * <p>需保证发送顺序及背压保护时使用{@link #send(WebSocketFrame)}.</p>
+     * @param msg msg
+     * @param promise promise
+     * @return ChannelFuture
+     */
     @Override
     public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
         return getChannelHandlerContext().writeAndFlush(msg, promise);
     }
 
+    /**
+     * 直接写入并flush(不经过会话出站队列): 不感知channel可写状态及溢出策略, 且可能先于出站队列中已排队的帧发送.
+     * <p>需保证发送顺序及背压保护时使用{@link #send(WebSocketFrame)}.</p>
+     * @param msg msg
+     * @return ChannelFuture
+     */
     @Override
     public ChannelFuture writeAndFlush(Object msg) {
         return getChannelHandlerContext().writeAndFlush(msg);
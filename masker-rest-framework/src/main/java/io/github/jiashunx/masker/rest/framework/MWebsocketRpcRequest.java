@@ -0,0 +1,77 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jiashunx.masker.rest.framework.exception.MRestSerializeException;
+
+import java.util.Objects;
+
+/**
+ * websocket rpc请求: 由MWebsocketContext.rpc注册的处理器接收, 格式: {"op": "操作名称", "id": "请求id", "data": 请求参数}.
+ * @author jiashunx
+ */
+public class MWebsocketRpcRequest {
+
+    private final String operation;
+    private final JsonNode id;
+    private final JsonNode data;
+    private final MWebsocketRequest websocketRequest;
+    private final MWebsocketResponse websocketResponse;
+    private final ObjectMapper objectMapper;
+
+    public MWebsocketRpcRequest(String operation, JsonNode id, JsonNode data, MWebsocketRequest websocketRequest
+            , MWebsocketResponse websocketResponse, ObjectMapper objectMapper) {
+        this.operation = Objects.requireNonNull(operation);
+        this.id = id;
+        this.data = data;
+        this.websocketRequest = Objects.requireNonNull(websocketRequest);
+        this.websocketResponse = Objects.requireNonNull(websocketResponse);
+        this.objectMapper = Objects.requireNonNull(objectMapper);
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 请求id(响应时原样返回, 用于客户端关联请求与响应).
+     * @return JsonNode
+     */
+    public JsonNode getId() {
+        return id;
+    }
+
+    public JsonNode getData() {
+        return data;
+    }
+
+    /**
+     * 请求参数转换为指定类型对象.
+     * @param klass klass
+     * @param <T> T
+     * @return T(无请求参数时返回null)
+     */
+    public <T> T getData(Class<T> klass) {
+        if (data == null || data.isNull() || data.isMissingNode()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(data, klass);
+        } catch (Throwable throwable) {
+            throw new MRestSerializeException(throwable);
+        }
+    }
+
+    public MWebsocketRequest getWebsocketRequest() {
+        return websocketRequest;
+    }
+
+    public MWebsocketResponse getWebsocketResponse() {
+        return websocketResponse;
+    }
+
+    public MWebsocketSession getSession() {
+        return websocketResponse.getSession();
+    }
+
+}
@@ -0,0 +1,384 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import io.github.jiashunx.masker.rest.framework.type.MWebsocketOverflowPolicy;
+import io.github.jiashunx.masker.rest.framework.util.MWebsocketCompressionHelper;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.concurrent.EventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * websocket会话: 握手完成后创建, 连接断开后自动从所属MWebsocketContext的会话组中移除.
+ * @author jiashunx
+ */
+public class MWebsocketSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(MWebsocketSession.class);
+
+    private final MWebsocketContext websocketContext;
+    private final MWebsocketRequest websocketRequest;
+    private final ChannelHandlerContext channelHandlerContext;
+    private final String id;
+    /**
+     * 是否可复用预压缩帧(协商了permessage-deflate且服务端不保留压缩上下文).
+     */
+    private final boolean sharedCompression;
+    /**
+     * 用户自定义会话标识(如用户id), 可用于按标识查找会话.
+     */
+    private volatile String key;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    /**
+     * 已订阅主题(仅在会话所属event loop线程内修改).
+     */
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+    /**
+     * 出站队列(channel不可写时暂存待发送帧, 仅在会话所属event loop线程内访问).
+     */
+    private final ArrayDeque<OutboundEntry> outboundQueue = new ArrayDeque<>();
+    /**
+     * 出站队列中按合并key索引的帧(仅在会话所属event loop线程内访问).
+     */
+    private final Map<Object, OutboundEntry> coalesceMap = new HashMap<>();
+    private volatile int outboundQueueSize = 0;
+    private volatile long droppedFrameCount = 0L;
+    private volatile long coalescedFrameCount = 0L;
+    /**
+     * 是否处于读取周期内(仅在会话所属event loop线程内访问).
+     */
+    private boolean reading = false;
+    /**
+     * 读取周期内是否有待flush的写入(仅在会话所属event loop线程内访问).
+     */
+    private boolean flushPending = false;
+
+    public MWebsocketSession(ChannelHandlerContext ctx, MWebsocketRequest websocketRequest) {
+        this.channelHandlerContext = Objects.requireNonNull(ctx);
+        this.websocketRequest = Objects.requireNonNull(websocketRequest);
+        this.websocketContext = Objects.requireNonNull(websocketRequest.getWebsocketContext());
+        this.id = ctx.channel().id().toString();
+        this.sharedCompression = websocketRequest.getCompressionExtension() != null
+                && MWebsocketCompressionHelper.isSharable(websocketRequest.getCompressionExtension().newReponseData());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public MWebsocketContext getWebsocketContext() {
+        return websocketContext;
+    }
+
+    public MWebsocketRequest getWebsocketRequest() {
+        return websocketRequest;
+    }
+
+    public ChannelHandlerContext getChannelHandlerContext() {
+        return channelHandlerContext;
+    }
+
+    public Channel getChannel() {
+        return channelHandlerContext.channel();
+    }
+
+    public EventExecutor getExecutor() {
+        return channelHandlerContext.executor();
+    }
+
+    public boolean isSharedCompression() {
+        return sharedCompression;
+    }
+
+    public boolean isActive() {
+        return getChannel().isActive();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 绑定用户自定义会话标识(同一标识仅对应一个会话, 后绑定的会话覆盖先绑定的会话).
+     * @param key key
+     * @return MWebsocketSession
+     */
+    public MWebsocketSession bindKey(String key) {
+        websocketContext.getSessionGroup().bindKey(this, key);
+        return this;
+    }
+
+    void setKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * 订阅主题.
+     * @param topic 主题
+     * @return MWebsocketSession
+     */
+    public MWebsocketSession subscribe(String topic) {
+        websocketContext.getSessionGroup().subscribe(this, topic);
+        return this;
+    }
+
+    /**
+     * 取消订阅主题.
+     * @param topic 主题
+     * @return MWebsocketSession
+     */
+    public MWebsocketSession unsubscribe(String topic) {
+        websocketContext.getSessionGroup().unsubscribe(this, topic);
+        return this;
+    }
+
+    public Set<String> getTopics() {
+        return Collections.unmodifiableSet(topics);
+    }
+
+    Set<String> topics() {
+        return topics;
+    }
+
+    /**
+     * 当前出站队列中待发送帧数量.
+     * @return int
+     */
+    public int getOutboundQueueSize() {
+        return outboundQueueSize;
+    }
+
+    /**
+     * 因出站队列溢出被丢弃的帧数量.
+     * @return long
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    /**
+     * 因合并key相同被覆盖的帧数量.
+     * @return long
+     */
+    public long getCoalescedFrameCount() {
+        return coalescedFrameCount;
+    }
+
+    /**
+     * 发送帧(线程安全): channel可写且出站队列为空时直接写出, 否则进入有界出站队列, 队列满时按MWebsocketContext溢出策略处理.
+     * @param frame frame(引用由框架负责释放)
+     */
+    public void send(WebSocketFrame frame) {
+        send(frame, null);
+    }
+
+    /**
+     * 发送帧(线程安全), 溢出策略为COALESCE_BY_KEY时, 出站队列中合并key相同的帧仅保留最新一帧.
+     * @param frame frame(引用由框架负责释放)
+     * @param coalesceKey 合并key(可为null)
+     */
+    public void send(WebSocketFrame frame, Object coalesceKey) {
+        Objects.requireNonNull(frame);
+        EventExecutor executor = getExecutor();
+        if (executor.inEventLoop()) {
+            if (offer(frame, coalesceKey)) {
+                channelHandlerContext.flush();
+            }
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                if (offer(frame, coalesceKey)) {
+                    channelHandlerContext.flush();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            frame.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * 写入帧(线程安全): 在event loop线程的读取周期内调用时暂不flush, 读取周期结束后统一flush(同一批读取产生的多个响应合并为一次flush), 否则同send.
+     * @param frame frame(引用由框架负责释放)
+     */
+    public void write(WebSocketFrame frame) {
+        Objects.requireNonNull(frame);
+        if (reading && getExecutor().inEventLoop()) {
+            if (offer(frame, null)) {
+                flushPending = true;
+            }
+            return;
+        }
+        send(frame);
+    }
+
+    /**
+     * 读取周期开始(由MWebsocketFrameHandler在event loop线程内调用).
+     */
+    public void beginRead() {
+        reading = true;
+    }
+
+    /**
+     * 读取周期结束, flush读取周期内的写入(由MWebsocketFrameHandler在event loop线程内调用).
+     */
+    public void endRead() {
+        reading = false;
+        if (flushPending) {
+            flushPending = false;
+            channelHandlerContext.flush();
+        }
+    }
+
+    /**
+     * 写入帧(不flush, 须在会话所属event loop线程内调用): channel可写且队列为空时直接写入, 否则进入有界出站队列.
+     * @param frame frame(引用由本方法负责释放)
+     * @param coalesceKey 合并key(可为null)
+     * @return 是否已写入channel(调用方需flush)
+     */
+    boolean offer(WebSocketFrame frame, Object coalesceKey) {
+        if (!isActive()) {
+            frame.release();
+            return false;
+        }
+        if (outboundQueue.isEmpty() && getChannel().isWritable()) {
+            channelHandlerContext.write(frame, channelHandlerContext.voidPromise());
+            return true;
+        }
+        MWebsocketOverflowPolicy overflowPolicy = websocketContext.getOverflowPolicy();
+        if (overflowPolicy == MWebsocketOverflowPolicy.COALESCE_BY_KEY && coalesceKey != null) {
+            OutboundEntry entry = coalesceMap.get(coalesceKey);
+            if (entry != null) {
+                entry.frame.release();
+                entry.frame = frame;
+                coalescedFrameCount++;
+                websocketContext.getSessionGroup().coalescedFrameCount.increment();
+                return false;
+            }
+        }
+        if (outboundQueue.size() >= websocketContext.getOutboundQueueCapacity()) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    frame.release();
+                    onDropped(1);
+                    return false;
+                case DISCONNECT:
+                    frame.release();
+                    onDropped(outboundQueue.size() + 1);
+                    releaseOutbound();
+                    websocketContext.getSessionGroup().overflowDisconnectCount.increment();
+                    if (logger.isWarnEnabled()) {
+                        logger.warn("{} {} outbound queue overflow, close channel", websocketContext.getWebSocketContextDesc(), this);
+                    }
+                    channelHandlerContext.close();
+                    return false;
+                case DROP_OLDEST:
+                case COALESCE_BY_KEY:
+                default:
+                    pollFirst().frame.release();
+                    onDropped(1);
+                    break;
+            }
+        }
+        OutboundEntry entry = new OutboundEntry(frame, coalesceKey);
+        outboundQueue.offerLast(entry);
+        if (coalesceKey != null) {
+            coalesceMap.put(coalesceKey, entry);
+        }
+        outboundQueueSize = outboundQueue.size();
+        return false;
+    }
+
+    private OutboundEntry pollFirst() {
+        OutboundEntry entry = outboundQueue.pollFirst();
+        if (entry != null) {
+            if (entry.coalesceKey != null) {
+                coalesceMap.remove(entry.coalesceKey, entry);
+            }
+            outboundQueueSize = outboundQueue.size();
+        }
+        return entry;
+    }
+
+    private void onDropped(int count) {
+        droppedFrameCount += count;
+        websocketContext.getSessionGroup().droppedFrameCount.add(count);
+    }
+
+    /**
+     * channel恢复可写后发送出站队列中的帧(须在会话所属event loop线程内调用).
+     */
+    public void drain() {
+        boolean written = false;
+        while (!outboundQueue.isEmpty() && getChannel().isWritable()) {
+            channelHandlerContext.write(pollFirst().frame, channelHandlerContext.voidPromise());
+            written = true;
+        }
+        if (written) {
+            channelHandlerContext.flush();
+        }
+    }
+
+    /**
+     * 释放出站队列中未发送的帧(须在会话所属event loop线程内调用).
+     */
+    void releaseOutbound() {
+        OutboundEntry entry;
+        while ((entry = pollFirst()) != null) {
+            entry.frame.release();
+        }
+    }
+
+    /**
+     * 出站队列元素.
+     */
+    private static class OutboundEntry {
+        WebSocketFrame frame;
+        final Object coalesceKey;
+
+        OutboundEntry(WebSocketFrame frame, Object coalesceKey) {
+            this.frame = frame;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public MWebsocketSession setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 直接写入并flush(不经过出站队列): 不感知channel可写状态及溢出策略, 且可能先于出站队列中已排队的帧发送.
+     * <p>需保证发送顺序及背压保护时使用{@link #send(WebSocketFrame)}.</p>
+     * @param msg msg
+     * @return ChannelFuture
+     */
+    public ChannelFuture writeAndFlush(Object msg) {
+        return channelHandlerContext.writeAndFlush(msg);
+    }
+
+    public ChannelFuture close() {
+        return channelHandlerContext.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MWebsocketSession[id=%s, key=%s]", id, key);
+    }
+
+}
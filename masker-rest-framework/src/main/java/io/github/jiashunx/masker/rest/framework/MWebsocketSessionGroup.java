@@ -0,0 +1,342 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import io.github.jiashunx.masker.rest.framework.util.MWebsocketCompressionHelper;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.concurrent.EventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * websocket会话组: 记录MWebsocketContext下的全部会话, 支持按channel id及用户自定义标识查找会话、广播及按主题发布.
+ * <p>会话及主题订阅按所属event loop分片保存, 分片仅在对应event loop线程内访问(订阅/取消订阅无全局锁),
+ * 广播/发布时每个event loop仅执行一个任务.</p>
+ * @author jiashunx
+ */
+public class MWebsocketSessionGroup {
+
+    private static final Logger logger = LoggerFactory.getLogger(MWebsocketSessionGroup.class);
+
+    private final MWebsocketContext websocketContext;
+    private final Map<String, MWebsocketSession> sessionMap = new ConcurrentHashMap<>();
+    private final Map<String, MWebsocketSession> keySessionMap = new ConcurrentHashMap<>();
+    private final Map<EventExecutor, Shard> shardMap = new ConcurrentHashMap<>();
+    final LongAdder droppedFrameCount = new LongAdder();
+    final LongAdder coalescedFrameCount = new LongAdder();
+    final LongAdder overflowDisconnectCount = new LongAdder();
+    /**
+     * 可复用预压缩帧的会话数量.
+     */
+    private final AtomicInteger sharedCompressionSessionCount = new AtomicInteger(0);
+
+    public MWebsocketSessionGroup(MWebsocketContext websocketContext) {
+        this.websocketContext = Objects.requireNonNull(websocketContext);
+    }
+
+    public MWebsocketContext getWebsocketContext() {
+        return websocketContext;
+    }
+
+    /**
+     * 添加会话(须在会话所属event loop线程内调用).
+     * @param session session
+     */
+    public void add(MWebsocketSession session) {
+        sessionMap.put(session.getId(), session);
+        if (session.isSharedCompression()) {
+            sharedCompressionSessionCount.incrementAndGet();
+        }
+        shardMap.computeIfAbsent(session.getExecutor(), executor -> new Shard()).sessions.add(session);
+    }
+
+    /**
+     * 移除会话(须在会话所属event loop线程内调用).
+     * @param session session
+     * @return 会话是否存在
+     */
+    public boolean remove(MWebsocketSession session) {
+        if (!sessionMap.remove(session.getId(), session)) {
+            return false;
+        }
+        String key = session.getKey();
+        if (key != null) {
+            keySessionMap.remove(key, session);
+        }
+        if (session.isSharedCompression()) {
+            sharedCompressionSessionCount.decrementAndGet();
+        }
+        Shard shard = shardMap.get(session.getExecutor());
+        if (shard != null) {
+            shard.remove(session);
+        }
+        session.releaseOutbound();
+        return true;
+    }
+
+    /**
+     * 订阅主题(在会话所属event loop线程内执行).
+     * @param session session
+     * @param topic topic
+     */
+    public void subscribe(MWebsocketSession session, String topic) {
+        Objects.requireNonNull(topic);
+        executeInLoop(session, () -> {
+            // 会话已移除则不再订阅, 避免残留
+            if (sessionMap.get(session.getId()) == session && session.topics().add(topic)) {
+                shardMap.computeIfAbsent(session.getExecutor(), executor -> new Shard()).subscribe(session, topic);
+            }
+        });
+    }
+
+    /**
+     * 取消订阅主题(在会话所属event loop线程内执行).
+     * @param session session
+     * @param topic topic
+     */
+    public void unsubscribe(MWebsocketSession session, String topic) {
+        Objects.requireNonNull(topic);
+        executeInLoop(session, () -> {
+            Shard shard = shardMap.get(session.getExecutor());
+            if (session.topics().remove(topic) && shard != null) {
+                shard.unsubscribe(session, topic);
+            }
+        });
+    }
+
+    private void executeInLoop(MWebsocketSession session, Runnable task) {
+        EventExecutor executor = session.getExecutor();
+        if (executor.inEventLoop()) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException exception) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("{} session task rejected", websocketContext.getWebSocketContextDesc(), exception);
+            }
+        }
+    }
+
+    void bindKey(MWebsocketSession session, String key) {
+        String oldKey = session.getKey();
+        if (oldKey != null) {
+            keySessionMap.remove(oldKey, session);
+        }
+        session.setKey(key);
+        if (key != null && sessionMap.containsKey(session.getId())) {
+            keySessionMap.put(key, session);
+        }
+    }
+
+    public MWebsocketSession get(String id) {
+        return sessionMap.get(id);
+    }
+
+    public MWebsocketSession getByKey(String key) {
+        return keySessionMap.get(key);
+    }
+
+    public Collection<MWebsocketSession> getSessions() {
+        return Collections.unmodifiableCollection(sessionMap.values());
+    }
+
+    public int size() {
+        return sessionMap.size();
+    }
+
+    /**
+     * 全部会话出站队列中待发送帧数量.
+     * @return long
+     */
+    public long getOutboundQueueDepth() {
+        long depth = 0L;
+        for (MWebsocketSession session: sessionMap.values()) {
+            depth += session.getOutboundQueueSize();
+        }
+        return depth;
+    }
+
+    public long getDroppedFrameCount() {
+        return droppedFrameCount.sum();
+    }
+
+    public long getCoalescedFrameCount() {
+        return coalescedFrameCount.sum();
+    }
+
+    public long getOverflowDisconnectCount() {
+        return overflowDisconnectCount.sum();
+    }
+
+    public void broadcast(WebSocketFrame frame) {
+        broadcast(frame, null);
+    }
+
+    /**
+     * 广播websocket帧: 帧内容仅编码一次, 各会话发送retainedDuplicate, 每个event loop一个任务且写完后统一flush.
+     * <p>存在可复用预压缩帧的会话时, 帧仅压缩一次并在这些会话间复用.</p>
+     * <p>调用后frame的引用由本方法负责释放.</p>
+     * @param frame 待广播帧
+     * @param filter 会话过滤(为null时发送至全部会话, 在会话所属event loop线程内执行)
+     */
+    public void broadcast(WebSocketFrame frame, Predicate<MWebsocketSession> filter) {
+        dispatch(frame, (shard, payload) -> shard.broadcast(payload, filter));
+    }
+
+    /**
+     * 向订阅指定主题的会话发布websocket帧, 分发方式同{@link #broadcast(WebSocketFrame, Predicate)}.
+     * <p>调用后frame的引用由本方法负责释放.</p>
+     * @param topic 主题
+     * @param frame 待发布帧
+     */
+    public void publish(String topic, WebSocketFrame frame) {
+        publish(topic, frame, null);
+    }
+
+    /**
+     * 向订阅指定主题的会话发布websocket帧, 会话出站队列积压时合并key相同的帧仅保留最新一帧(溢出策略为COALESCE_BY_KEY时生效).
+     * <p>调用后frame的引用由本方法负责释放.</p>
+     * @param topic 主题
+     * @param frame 待发布帧
+     * @param coalesceKey 合并key(可为null)
+     */
+    public void publish(String topic, WebSocketFrame frame, Object coalesceKey) {
+        Objects.requireNonNull(topic);
+        dispatch(frame, (shard, payload) -> shard.publish(topic, payload, coalesceKey));
+    }
+
+    private void dispatch(WebSocketFrame frame, BiConsumer<Shard, Payload> task) {
+        Objects.requireNonNull(frame);
+        WebSocketFrame compressedFrame = null;
+        if (sharedCompressionSessionCount.get() > 0 && websocketContext.isCompression()) {
+            compressedFrame = MWebsocketCompressionHelper.compress(frame, websocketContext.getCompressionLevel()
+                    , websocketContext.getCompressionMinSize(), ByteBufAllocator.DEFAULT);
+        }
+        Payload payload = new Payload(frame, compressedFrame);
+        try {
+            for (Map.Entry<EventExecutor, Shard> entry: shardMap.entrySet()) {
+                EventExecutor executor = entry.getKey();
+                Shard shard = entry.getValue();
+                if (executor.inEventLoop()) {
+                    task.accept(shard, payload);
+                    continue;
+                }
+                payload.retain();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            task.accept(shard, payload);
+                        } finally {
+                            payload.release();
+                        }
+                    });
+                } catch (RejectedExecutionException exception) {
+                    payload.release();
+                    if (logger.isWarnEnabled()) {
+                        logger.warn("{} dispatch task rejected", websocketContext.getWebSocketContextDesc(), exception);
+                    }
+                }
+            }
+        } finally {
+            payload.release();
+        }
+    }
+
+    /**
+     * 待分发帧(原始帧及可复用的预压缩帧).
+     */
+    private static class Payload {
+        final WebSocketFrame frame;
+        final WebSocketFrame compressedFrame;
+
+        Payload(WebSocketFrame frame, WebSocketFrame compressedFrame) {
+            this.frame = frame;
+            this.compressedFrame = compressedFrame;
+        }
+
+        WebSocketFrame frameFor(MWebsocketSession session) {
+            return compressedFrame != null && session.isSharedCompression() ? compressedFrame : frame;
+        }
+
+        void retain() {
+            frame.retain();
+            if (compressedFrame != null) {
+                compressedFrame.retain();
+            }
+        }
+
+        void release() {
+            frame.release();
+            if (compressedFrame != null) {
+                compressedFrame.release();
+            }
+        }
+    }
+
+    /**
+     * 单个event loop内的会话分片(仅在对应event loop线程内访问, 无需加锁).
+     */
+    private static class Shard {
+        final Set<MWebsocketSession> sessions = new LinkedHashSet<>();
+        final Map<String, Set<MWebsocketSession>> topicMap = new HashMap<>();
+        final List<MWebsocketSession> pendingFlushList = new ArrayList<>();
+
+        void remove(MWebsocketSession session) {
+            sessions.remove(session);
+            for (String topic: session.topics()) {
+                unsubscribe(session, topic);
+            }
+            session.topics().clear();
+        }
+
+        void subscribe(MWebsocketSession session, String topic) {
+            topicMap.computeIfAbsent(topic, k -> new LinkedHashSet<>()).add(session);
+        }
+
+        void unsubscribe(MWebsocketSession session, String topic) {
+            Set<MWebsocketSession> subscribers = topicMap.get(topic);
+            if (subscribers != null && subscribers.remove(session) && subscribers.isEmpty()) {
+                topicMap.remove(topic);
+            }
+        }
+
+        void broadcast(Payload payload, Predicate<MWebsocketSession> filter) {
+            write(sessions, payload, filter, null);
+        }
+
+        void publish(String topic, Payload payload, Object coalesceKey) {
+            Set<MWebsocketSession> subscribers = topicMap.get(topic);
+            if (subscribers != null) {
+                write(subscribers, payload, null, coalesceKey);
+            }
+        }
+
+        private void write(Collection<MWebsocketSession> targets, Payload payload, Predicate<MWebsocketSession> filter, Object coalesceKey) {
+            try {
+                for (MWebsocketSession session: targets) {
+                    if (!session.isActive() || (filter != null && !filter.test(session))) {
+                        continue;
+                    }
+                    if (session.offer(payload.frameFor(session).retainedDuplicate(), coalesceKey)) {
+                        pendingFlushList.add(session);
+                    }
+                }
+            } finally {
+                for (MWebsocketSession session: pendingFlushList) {
+                    session.getChannelHandlerContext().flush();
+                }
+                pendingFlushList.clear();
+            }
+        }
+    }
+
+}
@@ -7,6 +7,24 @@ package io.github.jiashunx.masker.rest.framework.cons;
 public class Constants {
 
     public static final int HTTP_CONTENT_MAX_LENGTH = 50*1024*1024;
+    public static final int WEBSOCKET_MAX_FRAME_PAYLOAD_LENGTH = 64*1024;
+    public static final int WEBSOCKET_MAX_AGGREGATED_CONTENT_LENGTH = 10*1024*1024;
+    public static final int WEBSOCKET_OUTBOUND_QUEUE_CAPACITY = 1024;
+    public static final int WEBSOCKET_MAX_IN_FLIGHT_FRAMES = 256;
+    public static final long WEBSOCKET_PONG_TIMEOUT_MILLIS = 10*1000L;
+    public static final long WEBSOCKET_ADMISSION_RETRY_AFTER_SECONDS = 1L;
+    public static final int WEBSOCKET_COMPRESSION_LEVEL = 6;
+    public static final String WEBSOCKET_RPC_FIELD_OPERATION = "op";
+    public static final String WEBSOCKET_RPC_FIELD_ID = "id";
+    public static final String WEBSOCKET_RPC_FIELD_DATA = "data";
+    public static final String WEBSOCKET_RPC_FIELD_CODE = "code";
+    public static final String WEBSOCKET_RPC_FIELD_ERROR = "error";
+    public static final String WEBSOCKET_RPC_ERROR_INVALID_REQUEST = "invalid rpc request";
+    public static final String WEBSOCKET_RPC_ERROR_EXECUTE_FAILED = "rpc operation execute failed";
+    public static final int WEBSOCKET_COMPRESSION_WINDOW_BITS = 15;
+    public static final int WEBSOCKET_COMPRESSION_MIN_SIZE = 256;
+    public static final int WRITE_BUFFER_LOW_WATER_MARK = 32*1024;
+    public static final int WRITE_BUFFER_HIGH_WATER_MARK = 64*1024;
 
     public static final Character CHAR_PATH_SEP = '/';
     public static final String PATH_SEP = "/";
@@ -15,6 +33,26 @@ public class Constants {
     public static final String INDEX_PATH = "/index.html";
     public static final String DEFAULT_CONTEXT_PATH = "/";
     public static final String DEFAULT_WEBSOCKET_CONTEXT_PATH = "/websocket";
+    public static final String PROMETHEUS_METRICS_URL = "/masker-rest/metrics";
+    public static final String DASHBOARD_URL = "/masker-rest/dashboard";
+    public static final String DASHBOARD_WEBSOCKET_SUFFIX = "/websocket";
+    public static final long DASHBOARD_PUSH_INTERVAL_MILLIS = 1000L;
+    public static final long EVENT_LOOP_BLOCKING_REPORT_INTERVAL_MILLIS = 10000L;
+    public static final long EVENT_LOOP_WATCHDOG_MIN_CHECK_INTERVAL_MILLIS = 10L;
+    public static final long EVENT_LOOP_WATCHDOG_MAX_CHECK_INTERVAL_MILLIS = 100L;
+    public static final String EVENT_LOOP_TASK_WEBSOCKET = "WEBSOCKET";
+    public static final String ACCESS_LOG_LOGGER_NAME = "masker-rest-access";
+    public static final String ACCESS_LOG_FILE_NAME_PREFIX = "access";
+    public static final long ACCESS_LOG_MAX_FILE_SIZE = 100L*1024*1024;
+    public static final int ACCESS_LOG_BUFFER_SIZE = 8192;
+    public static final int ACCESS_LOG_MAX_BUFFER_SIZE = 1 << 24;
+    public static final int ACCESS_LOG_BATCH_SIZE = 256;
+    public static final int ACCESS_LOG_WRITE_BUFFER_SIZE = 64*1024;
+    public static final long ACCESS_LOG_IDLE_PARK_MILLIS = 10L;
+    public static final long ACCESS_LOG_STOP_TIMEOUT_MILLIS = 3000L;
+    public static final int ACCESS_LOG_REQUEST_ID_MAX_LENGTH = 128;
+    public static final String HTTP_HEADER_X_REQUEST_ID = "X-Request-Id";
+    public static final String JFR_DISABLED_PROPERTY = "masker.rest.jfr.disabled";
     public static final int DEFAULT_FILTER_ORDER = 0;
     public static final String DEFAULT_FILTER_URLPATTERN = "/*";
     public static final String[] DEFAULT_FILTER_URLPATTERNS = new String[] { DEFAULT_FILTER_URLPATTERN };
@@ -0,0 +1,30 @@
+package io.github.jiashunx.masker.rest.framework.exception;
+
+/**
+ * websocket rpc处理器异常: 处理器抛出(或CompletionStage以其异常完成)时, 响应code及错误信息原样返回客户端.
+ * <p>其他异常仅返回通用错误信息, 异常详情只记录在服务端日志中.</p>
+ * @author jiashunx
+ */
+public class MWebsocketRpcException extends MRestRuntimeException {
+
+    private final int code;
+
+    public MWebsocketRpcException(String message) {
+        this(500, message);
+    }
+
+    public MWebsocketRpcException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public MWebsocketRpcException(int code, String message, Throwable throwable) {
+        super(message, throwable);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+}
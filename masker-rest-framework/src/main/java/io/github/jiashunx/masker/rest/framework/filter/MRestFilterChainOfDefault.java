@@ -3,6 +3,9 @@ package io.github.jiashunx.masker.rest.framework.filter;
 import io.github.jiashunx.masker.rest.framework.MRestContext;
 import io.github.jiashunx.masker.rest.framework.MRestRequest;
 import io.github.jiashunx.masker.rest.framework.MRestResponse;
+import io.github.jiashunx.masker.rest.framework.jfr.MFlightRecorder;
+import io.github.jiashunx.masker.rest.framework.servlet.MRestServletAdapter;
+import io.netty.util.Recycler;
 
 import java.util.Objects;
 
@@ -11,8 +14,28 @@ import java.util.Objects;
  */
 public class MRestFilterChainOfDefault implements MRestFilterChain {
 
-    protected final MRestContext restContext;
-    protected final MRestFilter[] filterArr;
+    private static final Recycler<MRestFilterChainOfDefault> RECYCLER = new Recycler<MRestFilterChainOfDefault>() {
+        @Override
+        protected MRestFilterChainOfDefault newObject(Handle<MRestFilterChainOfDefault> handle) {
+            return new MRestFilterChainOfDefault(handle);
+        }
+    };
+
+    /**
+     * 从对象池获取filter链对象.
+     * @param restContext restContext
+     * @param filterArr filterArr
+     * @return MRestFilterChainOfDefault
+     */
+    public static MRestFilterChainOfDefault newInstance(MRestContext restContext, MRestFilter... filterArr) {
+        MRestFilterChainOfDefault filterChain = RECYCLER.get();
+        filterChain.init(restContext, filterArr);
+        return filterChain;
+    }
+
+    private final Recycler.Handle<MRestFilterChainOfDefault> recyclerHandle;
+    protected MRestContext restContext;
+    protected MRestFilter[] filterArr;
     protected int index;
 
     public MRestFilterChainOfDefault(MRestFilter... filterArr) {
@@ -20,6 +43,15 @@ public class MRestFilterChainOfDefault implements MRestFilterChain {
     }
 
     public MRestFilterChainOfDefault(MRestContext restContext, MRestFilter... filterArr) {
+        this.recyclerHandle = null;
+        init(restContext, filterArr);
+    }
+
+    private MRestFilterChainOfDefault(Recycler.Handle<MRestFilterChainOfDefault> recyclerHandle) {
+        this.recyclerHandle = recyclerHandle;
+    }
+
+    private void init(MRestContext restContext, MRestFilter[] filterArr) {
         this.restContext = restContext;
         this.filterArr = Objects.requireNonNull(filterArr);
         if (this.filterArr.length == 0) {
@@ -28,10 +60,34 @@ public class MRestFilterChainOfDefault implements MRestFilterChain {
         this.index = 0;
     }
 
+    /**
+     * 回收filter链对象至对象池(仅对象池创建的对象会被回收).
+     */
+    public synchronized void recycle() {
+        if (recyclerHandle == null) {
+            return;
+        }
+        this.restContext = null;
+        this.filterArr = null;
+        this.index = 0;
+        recyclerHandle.recycle(this);
+    }
+
     @Override
     public synchronized void doFilter(MRestRequest restRequest, MRestResponse restResponse) {
         if (index < filterArr.length) {
-            filterArr[index++].doFilter(restRequest, restResponse, this);
+            MRestFilter filter = filterArr[index++];
+            // servlet包装filter由处理器事件记录, 不重复提交filter事件
+            Object filterEvent = filter instanceof MRestServletAdapter ? null : MFlightRecorder.beginFilter();
+            if (filterEvent == null) {
+                filter.doFilter(restRequest, restResponse, this);
+                return;
+            }
+            try {
+                filter.doFilter(restRequest, restResponse, this);
+            } finally {
+                MFlightRecorder.endFilter(filterEvent, restRequest.getContextPath(), restRequest.getUrl(), filter.filterName());
+            }
         }
     }
 
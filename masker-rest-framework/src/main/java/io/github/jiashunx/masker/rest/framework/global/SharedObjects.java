@@ -3,8 +3,14 @@ package io.github.jiashunx.masker.rest.framework.global;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jiashunx.masker.rest.framework.MRestContext;
 import io.github.jiashunx.masker.rest.framework.model.MRestServerThreadModel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
 import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -16,24 +22,73 @@ public class SharedObjects {
 
     private static final ThreadLocal<MRestServerThreadModel> SERVER_THREAD_MODEL = new ThreadLocal<>();
 
+    /**
+     * websocket心跳定时器(全部server共用, 时间轮定时器, 避免每个连接一个调度任务).
+     */
+    private static volatile Timer websocketHeartbeatTimer;
+
+    public static Timer getWebsocketHeartbeatTimer() {
+        Timer timer = websocketHeartbeatTimer;
+        if (timer == null) {
+            synchronized (SharedObjects.class) {
+                timer = websocketHeartbeatTimer;
+                if (timer == null) {
+                    timer = new HashedWheelTimer(new DefaultThreadFactory("masker-rest-websocket-heartbeat", true), 100, TimeUnit.MILLISECONDS);
+                    websocketHeartbeatTimer = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * 指标定时任务线程(全部server共用, 单线程守护线程, 用于状态面板推送等周期性指标计算).
+     */
+    private static volatile ScheduledExecutorService metricsScheduler;
+
+    public static ScheduledExecutorService getMetricsScheduler() {
+        ScheduledExecutorService scheduler = metricsScheduler;
+        if (scheduler == null) {
+            synchronized (SharedObjects.class) {
+                scheduler = metricsScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("masker-rest-metrics", true));
+                    metricsScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
     public static MRestServerThreadModel getServerThreadModel() {
         return SERVER_THREAD_MODEL.get();
     }
 
+    /**
+     * 默认ObjectMapper(未指定ObjectMapper时共用, 避免每次序列化重新创建及重复解析类型元数据).
+     */
+    private static final ObjectMapper DEFAULT_OBJECT_MAPPER = new ObjectMapper();
+
     public static ObjectMapper getObjectMapperFromThreadLocal() {
-        ObjectMapper objectMapper = null;
         MRestServerThreadModel threadModel = getServerThreadModel();
-        if (threadModel != null) {
-            MRestContext restContext = threadModel.getRestContext();
-            if (restContext != null) {
-                Supplier<ObjectMapper> objectMapperSupplier = restContext.getObjectMapperSupplier();
-                if (objectMapperSupplier != null) {
-                    objectMapper = objectMapperSupplier.get();
-                }
+        return getObjectMapper(threadModel == null ? null : threadModel.getRestContext());
+    }
+
+    /**
+     * 获取context指定的ObjectMapper, 未指定时返回默认ObjectMapper.
+     * @param restContext restContext(可为null)
+     * @return ObjectMapper
+     */
+    public static ObjectMapper getObjectMapper(MRestContext restContext) {
+        ObjectMapper objectMapper = null;
+        if (restContext != null) {
+            Supplier<ObjectMapper> objectMapperSupplier = restContext.getObjectMapperSupplier();
+            if (objectMapperSupplier != null) {
+                objectMapper = objectMapperSupplier.get();
             }
         }
         if (objectMapper == null) {
-            objectMapper = new ObjectMapper();
+            objectMapper = DEFAULT_OBJECT_MAPPER;
         }
         return objectMapper;
     }
@@ -43,7 +98,8 @@ public class SharedObjects {
     }
 
     public static void clearServerThreadModel() {
-        SERVER_THREAD_MODEL.remove();
+        // 置空而非remove, 避免IO线程每次请求重新创建ThreadLocal条目
+        SERVER_THREAD_MODEL.set(null);
     }
 
 }
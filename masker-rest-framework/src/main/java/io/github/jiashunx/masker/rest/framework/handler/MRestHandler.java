@@ -1,5 +1,6 @@
 package io.github.jiashunx.masker.rest.framework.handler;
 
+import io.github.jiashunx.masker.rest.framework.metrics.MRouteMetrics;
 import io.github.jiashunx.masker.rest.framework.model.MRestHandlerConfig;
 import io.github.jiashunx.masker.rest.framework.type.MRestHandlerType;
 import io.netty.handler.codec.http.HttpMethod;
@@ -16,6 +17,10 @@ public abstract class MRestHandler {
     private String url;
     private List<HttpMethod> httpMethods;
     private final MRestHandlerConfig config;
+    /**
+     * 路由指标(注册url映射时设置).
+     */
+    private volatile MRouteMetrics routeMetrics;
 
     public MRestHandler(String url, HttpMethod... methodArr) {
         this(url, null, methodArr);
@@ -47,6 +52,14 @@ public abstract class MRestHandler {
         return config;
     }
 
+    public MRouteMetrics getRouteMetrics() {
+        return routeMetrics;
+    }
+
+    public void setRouteMetrics(MRouteMetrics routeMetrics) {
+        this.routeMetrics = routeMetrics;
+    }
+
     public abstract Object getHandler();
 
     public abstract MRestHandlerType getType();
@@ -0,0 +1,39 @@
+package io.github.jiashunx.masker.rest.framework.handler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.util.List;
+
+/**
+ * http请求聚合handler: 额外记录当前请求开始接收的时间(用于统计请求排队耗时).
+ * @author jiashunx
+ */
+public class MRestHttpObjectAggregator extends HttpObjectAggregator {
+
+    private final boolean requestTiming;
+    /**
+     * 当前请求开始接收的时间(System.nanoTime, 仅在channel所属event loop线程内访问).
+     */
+    private long requestStartTime;
+
+    public MRestHttpObjectAggregator(int maxContentLength, boolean requestTiming) {
+        super(maxContentLength);
+        this.requestTiming = requestTiming;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
+        if (requestTiming && msg instanceof HttpRequest) {
+            requestStartTime = System.nanoTime();
+        }
+        super.decode(ctx, msg, out);
+    }
+
+    public long getRequestStartTime() {
+        return requestStartTime;
+    }
+
+}
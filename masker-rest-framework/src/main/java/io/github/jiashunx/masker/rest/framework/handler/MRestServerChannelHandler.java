@@ -3,14 +3,23 @@ package io.github.jiashunx.masker.rest.framework.handler;
 import io.github.jiashunx.masker.rest.framework.*;
 import io.github.jiashunx.masker.rest.framework.cons.Constants;
 import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChain;
+import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChainOfDefault;
+import io.github.jiashunx.masker.rest.framework.jfr.MFlightRecorder;
+import io.github.jiashunx.masker.rest.framework.log.MAccessLogger;
+import io.github.jiashunx.masker.rest.framework.metrics.MEventLoopWatchdog;
+import io.github.jiashunx.masker.rest.framework.metrics.MRouteMetrics;
+import io.github.jiashunx.masker.rest.framework.metrics.MThreadResourceMeter;
 import io.github.jiashunx.masker.rest.framework.model.ExceptionCallbackVo;
 import io.github.jiashunx.masker.rest.framework.model.MRestServerThreadModel;
 import io.github.jiashunx.masker.rest.framework.util.MResponseHelper;
+import io.github.jiashunx.masker.rest.framework.util.MWebsocketCompressionHelper;
 import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
 import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
 import io.github.jiashunx.masker.rest.framework.util.MimetypeUtils;
 import io.github.jiashunx.masker.rest.framework.util.StringUtils;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
@@ -19,19 +28,20 @@ import io.netty.handler.codec.http.multipart.FileUpload;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import io.netty.handler.codec.http.websocketx.*;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
+ * 请求处理handler: 无状态, 同一server的所有连接共用一个实例, 连接相关的websocket状态保存在channel属性中.
  * @author jiashunx
  */
+@ChannelHandler.Sharable
 public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Object> {
 
     private static final Logger logger = LoggerFactory.getLogger(MRestServerChannelHandler.class);
@@ -48,11 +58,16 @@ public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Objec
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object object) throws Exception {
         if (object instanceof FullHttpRequest) {
-            handleHttpRequest(ctx, (FullHttpRequest) object);
-            return;
-        }
-        if (object instanceof WebSocketFrame) {
-            handleWebSocketRequest(ctx, (WebSocketFrame) object);
+            FullHttpRequest httpRequest = (FullHttpRequest) object;
+            MEventLoopWatchdog watchdog = restServer.getEventLoopWatchdog();
+            MEventLoopWatchdog.LoopState loopState = watchdog == null ? null : watchdog.enter(ctx.executor(), httpRequest.method().name(), httpRequest.uri());
+            try {
+                handleHttpRequest(ctx, httpRequest);
+            } finally {
+                if (loopState != null) {
+                    loopState.exit();
+                }
+            }
             return;
         }
         MResponseHelper.write(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE);
@@ -92,81 +107,6 @@ public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Objec
     /************************************************** ChannelHandler ********************************************/
 
 
-    /************************************************** WebSocket *************************************************/
-
-    private void handleWebSocketRequest(ChannelHandlerContext ctx, WebSocketFrame object) {
-        String channelId = ctx.channel().id().toString();
-        MWebsocketRequest websocketRequest = webSocketServerHandshakerMap.get(channelId);
-        if (websocketRequest == null) {
-            return;
-        }
-        if (object instanceof PingWebSocketFrame) {
-            ctx.channel().writeAndFlush(new PongWebSocketFrame(object.content().retain()));
-            return;
-        }
-        MWebsocketContext websocketContext = websocketRequest.getWebsocketContext();
-        MWebsocketResponse websocketResponse = new MWebsocketResponse(ctx, websocketContext);
-        if (object instanceof CloseWebSocketFrame) {
-            webSocketServerHandshakerMap.remove(channelId);
-            MRestUtils.tryCatch(() -> {
-                BiConsumer<MWebsocketRequest, MWebsocketResponse> inactiveCallback = websocketRequest.getWebsocketContext().getInactiveCallback();
-                if (inactiveCallback != null) {
-                    inactiveCallback.accept(websocketRequest, websocketResponse);
-                }
-            }, throwable -> {
-                if (logger.isErrorEnabled()) {
-                    logger.error("inactive callback execute failed.", throwable);
-                }
-            });
-            websocketRequest.getHandshaker().close(ctx.channel(), (CloseWebSocketFrame) object.retain());
-//            ctx.channel().close();
-            return;
-        }
-        if (object instanceof TextWebSocketFrame) {
-            MWebsocketHandler<TextWebSocketFrame> websocketHandler = websocketContext.getTextFrameHandler();
-            if (websocketHandler == null) {
-                throw new UnsupportedOperationException(String.format("%s not assign the TextWebSocketFrame handler", websocketContext.getWebSocketContextDesc()));
-            }
-            websocketHandler.execute((TextWebSocketFrame) object, websocketRequest, websocketResponse);
-            return;
-        }
-        if (object instanceof BinaryWebSocketFrame) {
-            MWebsocketHandler<BinaryWebSocketFrame> websocketHandler = websocketContext.getBinaryFrameHandler();
-            if (websocketHandler == null) {
-                throw new UnsupportedOperationException(String.format("%s not assign the BinaryWebSocketFrame handler", websocketContext.getWebSocketContextDesc()));
-            }
-            websocketHandler.execute((BinaryWebSocketFrame) object, websocketRequest, websocketResponse);
-            return;
-        }
-        if (object instanceof ContinuationWebSocketFrame) {
-            MWebsocketHandler<ContinuationWebSocketFrame> websocketHandler = websocketContext.getContinuationFrameHandler();
-            if (websocketHandler == null) {
-                throw new UnsupportedOperationException(String.format("%s not assign the ContinuationWebSocketFrame handler", websocketContext.getWebSocketContextDesc()));
-            }
-            websocketHandler.execute((ContinuationWebSocketFrame) object, websocketRequest, websocketResponse);
-        }
-    }
-
-    /************************************************** WebSocket *************************************************/
-
-    private final Map<String, MWebsocketRequest> webSocketServerHandshakerMap = new ConcurrentHashMap<>();
-    private final Map<String, WebSocketServerHandshakerFactory> handshakerFactoryMap = new HashMap<>();
-
-    public WebSocketServerHandshakerFactory getWebSocketServerHandshakerFactory(String webSocketURL) {
-        WebSocketServerHandshakerFactory handshakerFactory = handshakerFactoryMap.get(webSocketURL);
-        if (handshakerFactory == null) {
-            synchronized (this) {
-                handshakerFactory = handshakerFactoryMap.get(webSocketURL);
-                if (handshakerFactory == null) {
-                    final WebSocketServerHandshakerFactory $handshakerFactory = new WebSocketServerHandshakerFactory(webSocketURL, null, false);
-                    handshakerFactoryMap.put(webSocketURL, $handshakerFactory);
-                    handshakerFactory = $handshakerFactory;
-                }
-            }
-        }
-        return handshakerFactory;
-    }
-
     /************************************************** HTTP  ****************************************************/
 
     private void handleHttpRequest(ChannelHandlerContext ctx, FullHttpRequest object) throws Exception {
@@ -174,51 +114,114 @@ public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Objec
 
         // 处理websocket连接请求.
         if (Constants.UPGRADE_WEBSOCKET.equals(restRequest.getHeader(Constants.HTTP_HEADER_UPGRADE))) {
+            Object handshakeEvent = MFlightRecorder.beginWebsocketHandshake();
             Channel channel = ctx.channel();
             String websocketUrl = restRequest.getUrl();
+            String contextPath = restRequest.getContextPath();
             MWebsocketContext websocketContext = restRequest.getRestContext().getWebsocketContext(websocketUrl);
             // 对于未注册WebsocketContext的websocket请求, 直接响应406
             if (websocketContext == null) {
+                MFlightRecorder.endWebsocketHandshake(handshakeEvent, contextPath, websocketUrl, restRequest.getClientAddress(), MFlightRecorder.HANDSHAKE_NOT_FOUND);
                 HttpResponse res = new DefaultFullHttpResponse(
                         HttpVersion.HTTP_1_1,
                         HttpResponseStatus.NOT_ACCEPTABLE, channel.alloc().buffer(0));
                 res.headers().set(HttpHeaderNames.SEC_WEBSOCKET_VERSION, WebSocketVersion.V13.toHttpHeaderValue());
                 HttpUtil.setContentLength(res, 0);
                 channel.writeAndFlush(res, channel.newPromise());
+                restRequest.recycle();
                 return;
             }
-            String webSocketURL = String.format("%s://%s:%d%s", restRequest.getProtocolNameLowerCase()
-                    , restRequest.getRemoteAddress(), restRequest.getRemotePort(), websocketUrl);
-            WebSocketServerHandshakerFactory wsFactory = getWebSocketServerHandshakerFactory(webSocketURL);
+            // 握手准入控制: 会话数/单IP会话数超过上限或握手速率超限时直接响应503, 不做任何握手处理
+            String clientAddress = restRequest.getClientAddress();
+            MWebsocketAdmission admission = websocketContext.getAdmission();
+            long retryAfter = admission.tryAcquire(clientAddress);
+            if (retryAfter > 0) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("{} websocket handshake rejected, client: {}", websocketContext.getWebSocketContextDesc(), clientAddress);
+                }
+                MFlightRecorder.endWebsocketHandshake(handshakeEvent, contextPath, websocketUrl, clientAddress, MFlightRecorder.HANDSHAKE_REJECTED);
+                HttpResponse res = new DefaultFullHttpResponse(
+                        HttpVersion.HTTP_1_1,
+                        HttpResponseStatus.SERVICE_UNAVAILABLE, channel.alloc().buffer(0));
+                res.headers().set(HttpHeaderNames.RETRY_AFTER, retryAfter);
+                res.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+                HttpUtil.setContentLength(res, 0);
+                channel.writeAndFlush(res).addListener(ChannelFutureListener.CLOSE);
+                restRequest.recycle();
+                return;
+            }
+            WebSocketServerHandshakerFactory wsFactory = websocketContext.getHandshakerFactory();
             WebSocketServerHandshaker handshaker = wsFactory.newHandshaker(object);
             if (handshaker == null) {
+                admission.release(clientAddress);
+                MFlightRecorder.endWebsocketHandshake(handshakeEvent, contextPath, websocketUrl, clientAddress, MFlightRecorder.HANDSHAKE_UNSUPPORTED_VERSION);
                 WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(channel);
             } else {
-                String channelId = channel.id().toString();
-                handshaker.handshake(channel, object);
+                // 连接关闭时释放准入占用的会话名额
+                channel.closeFuture().addListener(future -> admission.release(clientAddress));
                 MWebsocketRequest websocketRequest = new MWebsocketRequest(restRequest);
                 websocketRequest.setWebsocketContext(websocketContext);
                 websocketRequest.setHandshaker(handshaker);
-                webSocketServerHandshakerMap.put(channelId, websocketRequest);
-                MRestUtils.tryCatch(() -> {
-                    BiConsumer<ChannelHandlerContext, MWebsocketRequest> activeCallback = websocketRequest.getWebsocketContext().getActiveCallback();
-                    if (activeCallback != null) {
-                        activeCallback.accept(ctx, websocketRequest);
-                    }
-                }, throwable -> {
-                    if (logger.isErrorEnabled()) {
-                        logger.error("active callback execute failed.", throwable);
+                // permessage-deflate压缩扩展协商
+                HttpHeaders responseHeaders = null;
+                WebSocketServerExtension compressionExtension = MWebsocketCompressionHelper.negotiate(websocketContext, object.headers());
+                if (compressionExtension != null) {
+                    websocketRequest.setCompressionExtension(compressionExtension);
+                    responseHeaders = new DefaultHttpHeaders();
+                    responseHeaders.set(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, MWebsocketCompressionHelper.toHeaderValue(compressionExtension.newReponseData()));
+                }
+                handshaker.handshake(channel, object, responseHeaders, channel.newPromise()).addListener((ChannelFutureListener) future -> {
+                    MFlightRecorder.endWebsocketHandshake(handshakeEvent, contextPath, websocketUrl, clientAddress
+                            , future.isSuccess() ? MFlightRecorder.HANDSHAKE_SUCCESS : MFlightRecorder.HANDSHAKE_FAILED);
+                    if (!future.isSuccess()) {
+                        if (logger.isErrorEnabled()) {
+                            logger.error("websocket handshake failed, url: {}", websocketUrl, future.cause());
+                        }
+                        channel.close();
+                        return;
                     }
+                    // 握手完成, 移除http相关handler, 后续websocket帧直接交由MWebsocketFrameHandler处理
+                    ChannelHandlerContext websocketCtx = MRestServerChannelInitializer.initWebsocketPipeline(channel.pipeline(), websocketRequest);
+                    MRestUtils.tryCatch(() -> {
+                        BiConsumer<ChannelHandlerContext, MWebsocketRequest> activeCallback = websocketContext.getActiveCallback();
+                        if (activeCallback != null) {
+                            activeCallback.accept(websocketCtx, websocketRequest);
+                        }
+                    }, throwable -> {
+                        if (logger.isErrorEnabled()) {
+                            logger.error("active callback execute failed.", throwable);
+                        }
+                    });
                 });
             }
             return;
         }
 
+        Object requestEvent = MFlightRecorder.beginRequest();
+        // 请求指标及访问日志: 记录各阶段起始时间
+        boolean requestMetrics = restServer.isRequestMetrics();
+        MAccessLogger accessLogger = restServer.getAccessLogger();
+        long handleStartTime = 0L;
+        long flushStartTime = 0L;
+        int requestBytes = 0;
+        if (requestMetrics || accessLogger != null) {
+            handleStartTime = System.nanoTime();
+            requestBytes = object.content().readableBytes();
+        }
+        MThreadResourceMeter.Usage resourceUsage = restServer.isRequestResourceMetrics() ? MThreadResourceMeter.start() : null;
+        if (requestMetrics) {
+            ChannelHandler aggregator = ctx.pipeline().get(MRestServerChannelInitializer.HANDLER_NAME_HTTP_AGGREGATOR);
+            if (aggregator instanceof MRestHttpObjectAggregator) {
+                restRequest.setRequestStartTime(((MRestHttpObjectAggregator) aggregator).getRequestStartTime());
+            }
+        }
+
         MRestContext restContext = restRequest.getRestContext();
-        MRestResponse restResponse = new MRestResponse(ctx, restContext);
+        boolean objectPooling = restServer.isObjectPooling();
+        MRestResponse restResponse = objectPooling ? MRestResponse.newInstance(ctx, restContext) : new MRestResponse(ctx, restContext);
 
         // reset thread local
-        MRestServerThreadModel serverThreadModel = new MRestServerThreadModel();
+        MRestServerThreadModel serverThreadModel = objectPooling ? MRestServerThreadModel.newInstance() : new MRestServerThreadModel();
         serverThreadModel.setRestRequest(restRequest);
         serverThreadModel.setRestResponse(restResponse);
         serverThreadModel.setRestContext(restContext);
@@ -228,71 +231,139 @@ public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Objec
         String requestUrl = restRequest.getUrl();
 
         Exception exception = null;
+        boolean failed = false;
+        MRestFilterChain filterChain = null;
         try {
-            MRestFilterChain filterChain = restContext.getFilterChain(requestUrl);
+            filterChain = restContext.getFilterChain(requestUrl);
             filterChain.doFilter(restRequest, restResponse);
-            restResponse.setHeader(Constants.HTTP_HEADER_SERVER_FRAMEWORK_NAME, MRestUtils.getFrameworkName());
-            restResponse.setHeader(Constants.HTTP_HEADER_SERVER_FRAMEWORK_VERSION, MRestUtils.getFrameworkVersion());
-            restResponse.setHeader(Constants.HTTP_HEADER_SERVER_STARTUP_TIME, restResponse.getRestServer().getStartupTime());
-            restResponse.setHeader(Constants.HTTP_HEADER_SERVER_IDENTIFIER, restResponse.getRestServer().getIdentifier());
-            restResponse.setCookie(Constants.HTTP_HEADER_SERVER_IDENTIFIER, restResponse.getRestServer().getIdentifier());
-            if (restResponse.getRestServer().isConnectionKeepAlive()) {
-                restResponse.setHeader(Constants.HTTP_HEADER_CONNECTION, Constants.CONNECTION_KEEP_ALIVE);
-            }
+            // 框架header(Server-Name等)及Connection在flush时由MRestFrameworkHeaders直接写入
             // Content-Type修正
             String acceptContentType = restRequest.getAcceptFirst();
             String contentType = (String) restResponse.getHeader(Constants.HTTP_HEADER_CONTENT_TYPE);
             if (StringUtils.isNotEmpty(acceptContentType) && (StringUtils.isEmpty(contentType) || MimetypeUtils.DEFAULT_CONTENT_TYPE_VALUE.equals(contentType))) {
                 restResponse.setHeader(Constants.HTTP_HEADER_CONTENT_TYPE, acceptContentType);
             }
+            if (requestMetrics) {
+                flushStartTime = System.nanoTime();
+            }
+            Object flushEvent = MFlightRecorder.beginFlush();
             restResponse.flush();
+            if (flushEvent != null) {
+                MFlightRecorder.endFlush(flushEvent, restContext.getContextPath(), route(restRequest), restResponse.getStatusCode(), restResponse.getContentLength());
+            }
         } catch (Throwable throwable) {
+            failed = true;
             if (logger.isErrorEnabled()) {
                 logger.error("request handle failed, url: {}", requestUrl, throwable);
             }
             exception = handleException(ctx, restRequest, restResponse, throwable);
         } finally {
             restResponse.setFlushed(true);
+            // 请求处理结束后不再输出, 释放未输出的响应内容(未启用对象池或响应被detach时不会经由recycle释放)
+            restResponse.releaseContent();
+            if (requestMetrics) {
+                recordMetrics(restRequest, restResponse, handleStartTime, flushStartTime, requestBytes, failed, resourceUsage);
+            }
+            if (accessLogger != null) {
+                recordAccessLog(accessLogger, restRequest, restResponse, handleStartTime, requestBytes, failed);
+            }
+            if (requestEvent != null) {
+                MFlightRecorder.endRequest(requestEvent, restContext.getContextPath(), route(restRequest), restRequest.getMethod().name()
+                        , originUrl, failed ? HttpResponseStatus.INTERNAL_SERVER_ERROR.code() : restResponse.getStatusCode());
+            }
             SharedObjects.getServerThreadModel().getRestRequest().release();
             SharedObjects.clearServerThreadModel();
+            // 回收请求处理对象, 请求或响应对象被detach(处理器仍持有引用)时本次请求不回收
+            if (objectPooling && !restRequest.isDetached() && !restResponse.isDetached()) {
+                if (filterChain instanceof MRestFilterChainOfDefault) {
+                    ((MRestFilterChainOfDefault) filterChain).recycle();
+                }
+                serverThreadModel.recycle();
+                restResponse.recycle();
+                restRequest.recycle();
+            }
         }
         if (exception != null) {
             throw exception;
         }
     }
 
-    private MRestRequest parseHttpRequest(ChannelHandlerContext ctx, FullHttpRequest httpRequest) {
-        MRestRequest restRequest = new MRestRequest();
+    /**
+     * 记录请求指标(未匹配任何处理器的请求记录至context的未匹配路由, 启用请求资源统计时一并累加资源消耗).
+     */
+    private void recordMetrics(MRestRequest restRequest, MRestResponse restResponse, long handleStartTime
+            , long flushStartTime, int requestBytes, boolean failed, MThreadResourceMeter.Usage resourceUsage) {
+        long endTime = System.nanoTime();
+        MRouteMetrics routeMetrics = restRequest.getRouteMetrics();
+        if (routeMetrics == null) {
+            routeMetrics = restRequest.getRestContext().getMetrics().getUnmatchedRouteMetrics();
+        }
+        long requestStartTime = restRequest.getRequestStartTime();
+        if (requestStartTime == 0L || requestStartTime - handleStartTime > 0L) {
+            requestStartTime = handleStartTime;
+        }
+        long handlerTime = restRequest.getHandlerTime();
+        long filterEndTime = flushStartTime == 0L ? endTime : flushStartTime;
+        long writeTime = flushStartTime == 0L ? 0L : endTime - flushStartTime;
+        int statusCode = failed ? HttpResponseStatus.INTERNAL_SERVER_ERROR.code() : restResponse.getStatusCode();
+        routeMetrics.record(handleStartTime - requestStartTime, Math.max(0L, filterEndTime - handleStartTime - handlerTime)
+                , handlerTime, writeTime, endTime - requestStartTime, requestBytes
+                , failed ? 0L : restResponse.getContentLength(), statusCode >= HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
+        if (resourceUsage != null) {
+            resourceUsage.stop(routeMetrics);
+        }
+    }
+
+    /**
+     * 记录访问日志(路由为匹配的url映射, 未匹配时为请求地址).
+     */
+    private void recordAccessLog(MAccessLogger accessLogger, MRestRequest restRequest, MRestResponse restResponse
+            , long handleStartTime, int requestBytes, boolean failed) {
+        long requestStartTime = restRequest.getRequestStartTime();
+        if (requestStartTime == 0L || requestStartTime - handleStartTime > 0L) {
+            requestStartTime = handleStartTime;
+        }
+        long latencyNanos = System.nanoTime() - requestStartTime;
+        int statusCode = failed ? HttpResponseStatus.INTERNAL_SERVER_ERROR.code() : restResponse.getStatusCode();
+        // 先行过滤, 未命中采样及慢请求条件的请求不解析客户端地址及header
+        if (!accessLogger.accept(statusCode, latencyNanos)) {
+            return;
+        }
+        String route = route(restRequest);
+        accessLogger.record(System.currentTimeMillis(), restRequest.getMethod().name(), route, statusCode, requestBytes
+                , failed ? 0L : restResponse.getContentLength(), latencyNanos, restRequest.getClientAddress()
+                , restRequest.getHeader(Constants.HTTP_HEADER_X_REQUEST_ID));
+    }
+
+    /**
+     * 请求路由(匹配的url映射, 未匹配时为请求地址).
+     */
+    private static String route(MRestRequest restRequest) {
+        MRouteMetrics routeMetrics = restRequest.getRouteMetrics();
+        return routeMetrics == null ? restRequest.getOriginUrl() : routeMetrics.getRoute();
+    }
+
+    /**
+     * 解析请求对象(不经过filter链及处理器, 可供基准测试等场景直接调用, 需先调用{@link MRestServer#initContexts()}).
+     * <p>启用对象池时返回的请求对象由调用方在使用完毕后回收.</p>
+     * @param ctx ChannelHandlerContext
+     * @param httpRequest httpRequest
+     * @return MRestRequest
+     */
+    public MRestRequest parseHttpRequest(ChannelHandlerContext ctx, FullHttpRequest httpRequest) {
+        MRestRequest restRequest = restServer.isObjectPooling() ? MRestRequest.newInstance() : new MRestRequest();
         restRequest.setHttpRequest(httpRequest);
-        InetSocketAddress remoteAddress = (InetSocketAddress) ctx.channel().localAddress();
-        restRequest.setRemoteAddress(remoteAddress.getAddress().getHostAddress());
-        restRequest.setRemotePort(remoteAddress.getPort());
-        InetSocketAddress clientAddress = (InetSocketAddress) ctx.channel().remoteAddress();
-        restRequest.setClientAddress(clientAddress.getAddress().getHostAddress());
-        restRequest.setClientPort(clientAddress.getPort());
-        restRequest.setProtocolName(httpRequest.protocolVersion().protocolName());
-        restRequest.setProtocolVersion(httpRequest.protocolVersion().text());
+        // 请求地址、请求参数、header key、cookie及请求体均由MRestRequest在首次访问时解析
+        restRequest.setChannel(ctx.channel());
         QueryStringDecoder queryStringDecoder = new QueryStringDecoder(httpRequest.uri(), StandardCharsets.UTF_8, true);
         String originUrl = queryStringDecoder.path();
         if (StringUtils.isEmpty(originUrl)) {
             originUrl = Constants.ROOT_PATH;
         }
+        restRequest.setQueryStringDecoder(queryStringDecoder);
         restRequest.setOriginUrl(originUrl);
 
-        // 根据url和已配置的context-path来解析出实际context-path
-        String _ctxPath = Constants.DEFAULT_CONTEXT_PATH;
-        for (String context: restServer.getContextList()) {
-            if (context.equals(Constants.DEFAULT_CONTEXT_PATH)) {
-                continue;
-            }
-            if (originUrl.startsWith(context)) {
-                _ctxPath = context;
-            }
-        }
-        MRestContext restContext = restServer.getContext(_ctxPath);
-        if (restContext == null) {
-            restContext = restServer.context();
-        }
+        MRestContext restContext = resolveContext(originUrl);
         restRequest.setRestContext(restContext);
 
         // 获取context-path及实际url路径
@@ -307,19 +378,6 @@ public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Objec
             url = Constants.PATH_SEP;
         }
         restRequest.setUrl(url);
-        restRequest.setUrlQuery(queryStringDecoder.rawQuery());
-
-        Map<String, List<String>> originParameters = queryStringDecoder.parameters();
-        restRequest.setOriginParameters(originParameters);
-        Map<String, String> parameters = new HashMap<>();
-        originParameters.forEach((key, value) -> {
-            String mergedVal = "";
-            if (value != null && !value.isEmpty()) {
-                mergedVal = value.get(value.size() - 1);
-            }
-            parameters.put(key, mergedVal);
-        });
-        restRequest.setParameters(parameters);
         restRequest.setMethod(httpRequest.method());
         restRequest.setHeaders(httpRequest.headers());
         // 处理文件上传特定逻辑.
@@ -339,20 +397,36 @@ public class MRestServerChannelHandler extends SimpleChannelInboundHandler<Objec
             }
             decoder.destroy();
             restRequest = fileUploadRequest;
-        } else {
-            byte[] bodyBytes = null;
-            int byteSize = httpRequest.content().readableBytes();
-            if (byteSize >= 0) {
-                bodyBytes = new byte[byteSize];
-                httpRequest.content().readBytes(bodyBytes, 0, byteSize);
-            }
-            restRequest.setBodyBytes(bodyBytes);
         }
         return restRequest;
     }
 
+    /**
+     * 根据url和已配置的context-path来解析出实际context.
+     * @param originUrl 带context-path的url
+     * @return MRestContext
+     */
+    public MRestContext resolveContext(String originUrl) {
+        String _ctxPath = Constants.DEFAULT_CONTEXT_PATH;
+        for (String context: restServer.getContextList()) {
+            if (context.equals(Constants.DEFAULT_CONTEXT_PATH)) {
+                continue;
+            }
+            if (originUrl.startsWith(context)) {
+                _ctxPath = context;
+            }
+        }
+        MRestContext restContext = restServer.getContext(_ctxPath);
+        if (restContext == null) {
+            restContext = restServer.context();
+        }
+        return restContext;
+    }
+
     private Exception handleException(ChannelHandlerContext ctx, MRestRequest request
             , MRestResponse response, Throwable cause) {
+        // 异常处理输出新的响应, 原响应未输出的内容不再发送
+        response.releaseContent();
         Consumer<ExceptionCallbackVo> errHandler = request.getRestContext().getDefaultErrorHandler();
         if (errHandler == null) {
             errHandler = vo -> {
@@ -1,12 +1,17 @@
 package io.github.jiashunx.masker.rest.framework.handler;
 
 import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.github.jiashunx.masker.rest.framework.MWebsocketRequest;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameDecoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
 import io.netty.handler.stream.ChunkedWriteHandler;
 
 import java.util.Objects;
@@ -16,22 +21,74 @@ import java.util.Objects;
  */
 public class MRestServerChannelInitializer extends ChannelInitializer<SocketChannel> {
 
+    public static final String HANDLER_NAME_HTTP_CODEC = "http-codec";
+    public static final String HANDLER_NAME_CHUNKED_WRITE = "chunked-write";
+    public static final String HANDLER_NAME_HTTP_AGGREGATOR = "http-aggregator";
+    public static final String HANDLER_NAME_HTTP_EXPECT_CONTINUE = "http-expect-continue";
+    public static final String HANDLER_NAME_REST = "rest-handler";
+    public static final String HANDLER_NAME_WEBSOCKET_AGGREGATOR = "websocket-aggregator";
+    public static final String HANDLER_NAME_WEBSOCKET_DEFLATE_ENCODER = "websocket-deflate-encoder";
+    public static final String HANDLER_NAME_WEBSOCKET_DEFLATE_DECODER = "websocket-deflate-decoder";
+    public static final String HANDLER_NAME_WEBSOCKET = "websocket-handler";
+
     private final MRestServer restServer;
+    /**
+     * 请求处理handler(无状态, 所有连接共用同一实例).
+     */
+    private final MRestServerChannelHandler channelHandler;
 
     public MRestServerChannelInitializer(MRestServer restServer) {
         this.restServer = Objects.requireNonNull(restServer);
+        this.channelHandler = new MRestServerChannelHandler(restServer);
     }
 
     @Override
     protected void initChannel(SocketChannel socketChannel) throws Exception {
-        ChannelPipeline pipeline = socketChannel.pipeline();
-        pipeline.addLast(new HttpServerCodec());
-        pipeline.addLast(new ChunkedWriteHandler());
+        restServer.getMetrics().connectionOpened(socketChannel);
+        initHttpPipeline(socketChannel.pipeline());
+    }
+
+    /**
+     * 初始化http请求处理pipeline(可供基准测试等场景在EmbeddedChannel上构建与server相同的pipeline).
+     * @param pipeline pipeline
+     */
+    public void initHttpPipeline(ChannelPipeline pipeline) {
+        pipeline.addLast(HANDLER_NAME_HTTP_CODEC, new HttpServerCodec());
+        pipeline.addLast(HANDLER_NAME_CHUNKED_WRITE, new ChunkedWriteHandler());
         // 聚合Http请求或响应，否则会收到HttpMessage，HttpContent等对象
         // 使用此Handler后, 只会收到FullHttpRequest等对象
-        pipeline.addLast(new HttpObjectAggregator(restServer.getHttpContentMaxLength()));
-        pipeline.addLast(new HttpServerExpectContinueHandler());
-        pipeline.addLast(new MRestServerChannelHandler(restServer));
+        pipeline.addLast(HANDLER_NAME_HTTP_AGGREGATOR, new MRestHttpObjectAggregator(restServer.getHttpContentMaxLength(), restServer.isRequestMetrics()));
+        pipeline.addLast(HANDLER_NAME_HTTP_EXPECT_CONTINUE, new HttpServerExpectContinueHandler());
+        pipeline.addLast(HANDLER_NAME_REST, channelHandler);
+    }
+
+    /**
+     * websocket握手完成后重建pipeline: 移除http相关handler, 以websocket帧处理handler替换请求处理handler.
+     * @param pipeline pipeline
+     * @param websocketRequest websocketRequest
+     * @return websocket帧处理handler对应的ChannelHandlerContext
+     */
+    public static ChannelHandlerContext initWebsocketPipeline(ChannelPipeline pipeline, MWebsocketRequest websocketRequest) {
+        MWebsocketContext websocketContext = websocketRequest.getWebsocketContext();
+        // http编解码及聚合handler由握手过程移除, 此处仅做兜底
+        for (String name: new String[] { HANDLER_NAME_HTTP_CODEC, HANDLER_NAME_CHUNKED_WRITE, HANDLER_NAME_HTTP_AGGREGATOR, HANDLER_NAME_HTTP_EXPECT_CONTINUE }) {
+            if (pipeline.get(name) != null) {
+                pipeline.remove(name);
+            }
+        }
+        MWebsocketFrameHandler frameHandler = new MWebsocketFrameHandler(websocketRequest);
+        pipeline.replace(HANDLER_NAME_REST, HANDLER_NAME_WEBSOCKET, frameHandler);
+        // 压缩扩展编解码紧随websocket帧解码器(先于分片聚合解压)
+        WebSocketServerExtension compressionExtension = websocketRequest.getCompressionExtension();
+        ChannelHandlerContext frameDecoderCtx = pipeline.context(WebSocketFrameDecoder.class);
+        if (compressionExtension != null && frameDecoderCtx != null) {
+            pipeline.addAfter(frameDecoderCtx.name(), HANDLER_NAME_WEBSOCKET_DEFLATE_DECODER, compressionExtension.newExtensionDecoder());
+            pipeline.addAfter(frameDecoderCtx.name(), HANDLER_NAME_WEBSOCKET_DEFLATE_ENCODER, compressionExtension.newExtensionEncoder());
+        }
+        if (websocketContext.isFrameAggregation()) {
+            pipeline.addBefore(HANDLER_NAME_WEBSOCKET, HANDLER_NAME_WEBSOCKET_AGGREGATOR, new WebSocketFrameAggregator(websocketContext.getMaxAggregatedContentLength()));
+        }
+        return pipeline.context(frameHandler);
     }
 
 }
@@ -0,0 +1,376 @@
+package io.github.jiashunx.masker.rest.framework.handler;
+
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.github.jiashunx.masker.rest.framework.MWebsocketRequest;
+import io.github.jiashunx.masker.rest.framework.MWebsocketResponse;
+import io.github.jiashunx.masker.rest.framework.MWebsocketSession;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
+import io.github.jiashunx.masker.rest.framework.jfr.MFlightRecorder;
+import io.github.jiashunx.masker.rest.framework.metrics.MEventLoopWatchdog;
+import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.*;
+import io.netty.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * websocket帧处理handler: 握手完成后替换MRestServerChannelHandler, 每个websocket连接一个实例.
+ * <p>MWebsocketContext指定帧处理线程池时, 数据帧在线程池中按接收顺序串行处理.</p>
+ * @author jiashunx
+ */
+public class MWebsocketFrameHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MWebsocketFrameHandler.class);
+    private static final int OFFLOAD_BATCH_SIZE = 64;
+
+    private final MWebsocketRequest websocketRequest;
+    private final MWebsocketContext websocketContext;
+    private MWebsocketSession session;
+    private MWebsocketResponse websocketResponse;
+    /**
+     * 帧处理线程池(为null时在event loop线程内处理).
+     */
+    private final Executor handlerExecutor;
+    private final Queue<WebSocketFrame> offloadQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlightFrames = new AtomicInteger(0);
+    private final AtomicBoolean offloadRunning = new AtomicBoolean(false);
+    /**
+     * 最近一次收到帧的时间(System.nanoTime).
+     */
+    private volatile long lastReadTime = System.nanoTime();
+    /**
+     * 已发送且尚未收到响应的ping发送时间(0表示无).
+     */
+    private volatile long pingSentTime = 0L;
+    private volatile Timeout heartbeatTimeout;
+    /**
+     * 心跳检测是否已停止(连接关闭或handler移除后不再调度).
+     */
+    private volatile boolean heartbeatStopped = false;
+    private final AtomicBoolean inactiveCallbackInvoked = new AtomicBoolean(false);
+
+    public MWebsocketFrameHandler(MWebsocketRequest websocketRequest) {
+        this.websocketRequest = Objects.requireNonNull(websocketRequest);
+        this.websocketContext = Objects.requireNonNull(websocketRequest.getWebsocketContext());
+        this.handlerExecutor = websocketContext.getHandlerExecutor();
+    }
+
+    public MWebsocketRequest getWebsocketRequest() {
+        return websocketRequest;
+    }
+
+    public MWebsocketResponse getWebsocketResponse() {
+        return websocketResponse;
+    }
+
+    public MWebsocketSession getSession() {
+        return session;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.session = new MWebsocketSession(ctx, websocketRequest);
+        this.websocketResponse = new MWebsocketResponse(session);
+        websocketContext.getSessionGroup().add(session);
+        if (websocketContext.isHeartbeatEnabled()) {
+            scheduleHeartbeat(ctx);
+        }
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        cancelHeartbeat();
+        websocketContext.getSessionGroup().remove(session);
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 任意原因导致的连接关闭(close帧/心跳超时/网络断开等)均在此统一清理并执行inactive回调
+        cancelHeartbeat();
+        websocketContext.getSessionGroup().remove(session);
+        releaseOffloadQueue();
+        invokeInactiveCallback();
+        super.channelInactive(ctx);
+    }
+
+    private void invokeInactiveCallback() {
+        if (!inactiveCallbackInvoked.compareAndSet(false, true)) {
+            return;
+        }
+        MRestUtils.tryCatch(() -> {
+            BiConsumer<MWebsocketRequest, MWebsocketResponse> inactiveCallback = websocketContext.getInactiveCallback();
+            if (inactiveCallback != null) {
+                inactiveCallback.accept(websocketRequest, websocketResponse);
+            }
+        }, throwable -> {
+            if (logger.isErrorEnabled()) {
+                logger.error("inactive callback execute failed.", throwable);
+            }
+        });
+    }
+
+    void scheduleHeartbeat(ChannelHandlerContext ctx) {
+        if (heartbeatStopped || !ctx.channel().isActive()) {
+            return;
+        }
+        long delay = Long.MAX_VALUE;
+        for (long value: new long[] { websocketContext.getPingInterval(), websocketContext.getPongTimeout(), websocketContext.getIdleTimeout() }) {
+            if (value > 0 && value < delay) {
+                delay = value;
+            }
+        }
+        heartbeatTimeout = SharedObjects.getWebsocketHeartbeatTimer().newTimeout(timeout -> heartbeat(ctx), delay, TimeUnit.MILLISECONDS);
+        // 心跳检测(定时器线程)与连接关闭(event loop线程)并发时, 关闭方可能未取消本次新调度的定时任务
+        if (heartbeatStopped) {
+            cancelHeartbeat();
+        }
+    }
+
+    private void cancelHeartbeat() {
+        heartbeatStopped = true;
+        Timeout timeout = heartbeatTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+            heartbeatTimeout = null;
+        }
+    }
+
+    Timeout getHeartbeatTimeout() {
+        return heartbeatTimeout;
+    }
+
+    /**
+     * 心跳检测(在时间轮定时器线程执行): 空闲超时或ping响应超时关闭连接, 否则按需发送ping.
+     */
+    private void heartbeat(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(websocketContext.getIdleTimeout());
+        if (idleTimeout > 0 && now - lastReadTime >= idleTimeout) {
+            if (logger.isInfoEnabled()) {
+                logger.info("{} {} idle timeout, close channel", websocketContext.getWebSocketContextDesc(), session);
+            }
+            ctx.close();
+            return;
+        }
+        long pingSent = pingSentTime;
+        long pongTimeout = TimeUnit.MILLISECONDS.toNanos(websocketContext.getPongTimeout());
+        if (pingSent != 0L && pongTimeout > 0 && now - pingSent >= pongTimeout) {
+            if (logger.isInfoEnabled()) {
+                logger.info("{} {} pong timeout, close channel", websocketContext.getWebSocketContextDesc(), session);
+            }
+            ctx.close();
+            return;
+        }
+        long pingInterval = TimeUnit.MILLISECONDS.toNanos(websocketContext.getPingInterval());
+        if (pingInterval > 0 && pingSent == 0L && now - lastReadTime >= pingInterval) {
+            pingSentTime = now;
+            ctx.writeAndFlush(new PingWebSocketFrame());
+        }
+        scheduleHeartbeat(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        // 连接已关闭时出站队列中的帧写出失败属预期情况(如出站队列溢出断开连接)
+        if (!ctx.channel().isActive()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} {} write failed after channel closed", websocketContext.getWebSocketContextDesc(), session, cause);
+            }
+            return;
+        }
+        super.exceptionCaught(ctx, cause);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        session.endRead();
+        super.channelReadComplete(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            session.drain();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) throws Exception {
+        // 收到任意帧(含pong)均视为连接存活
+        lastReadTime = System.nanoTime();
+        pingSentTime = 0L;
+        session.beginRead();
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame || frame instanceof ContinuationWebSocketFrame) {
+            if (handlerExecutor != null) {
+                offload(ctx, frame);
+                return;
+            }
+            MEventLoopWatchdog watchdog = websocketContext.getRestServer().getEventLoopWatchdog();
+            MEventLoopWatchdog.LoopState loopState = watchdog == null ? null : watchdog.enter(ctx.executor(), Constants.EVENT_LOOP_TASK_WEBSOCKET, websocketContext.getWebsocketUrl());
+            try {
+                handleDataFrame(frame);
+            } finally {
+                if (loopState != null) {
+                    loopState.exit();
+                }
+            }
+            return;
+        }
+        if (frame instanceof PingWebSocketFrame) {
+            ctx.writeAndFlush(new PongWebSocketFrame(frame.content().retain()));
+            return;
+        }
+        if (frame instanceof CloseWebSocketFrame) {
+            // inactive回调在连接关闭后由channelInactive执行
+            websocketRequest.getHandshaker().close(ctx.channel(), (CloseWebSocketFrame) frame.retain());
+        }
+    }
+
+    /**
+     * 处理数据帧(录制JFR时提交websocket帧事件).
+     */
+    private void handleDataFrame(WebSocketFrame frame) throws Exception {
+        Object frameEvent = MFlightRecorder.beginWebsocketFrame();
+        if (frameEvent == null) {
+            handleDataFrame0(frame);
+            return;
+        }
+        // 处理器可能读取帧内容, 提前记录帧字节数
+        int bytes = frame.content().readableBytes();
+        try {
+            handleDataFrame0(frame);
+        } finally {
+            MFlightRecorder.endWebsocketFrame(frameEvent, websocketContext.getRestContext().getContextPath()
+                    , websocketContext.getWebsocketUrl(), frame.getClass().getSimpleName(), bytes);
+        }
+    }
+
+    private void handleDataFrame0(WebSocketFrame frame) throws Exception {
+        MWebsocketHandler<WebSocketFrame> frameHandler = websocketContext.getFrameHandler();
+        if (frame instanceof TextWebSocketFrame) {
+            if (frameHandler != null) {
+                frameHandler.execute(frame, websocketRequest, websocketResponse);
+                return;
+            }
+            MWebsocketHandler<TextWebSocketFrame> websocketHandler = websocketContext.getTextFrameHandler();
+            if (websocketHandler == null) {
+                throw new UnsupportedOperationException(String.format("%s not assign the TextWebSocketFrame handler", websocketContext.getWebSocketContextDesc()));
+            }
+            websocketHandler.execute((TextWebSocketFrame) frame, websocketRequest, websocketResponse);
+            return;
+        }
+        if (frame instanceof BinaryWebSocketFrame) {
+            if (frameHandler != null) {
+                frameHandler.execute(frame, websocketRequest, websocketResponse);
+                return;
+            }
+            MWebsocketHandler<BinaryWebSocketFrame> websocketHandler = websocketContext.getBinaryFrameHandler();
+            if (websocketHandler == null) {
+                throw new UnsupportedOperationException(String.format("%s not assign the BinaryWebSocketFrame handler", websocketContext.getWebSocketContextDesc()));
+            }
+            websocketHandler.execute((BinaryWebSocketFrame) frame, websocketRequest, websocketResponse);
+            return;
+        }
+        if (frame instanceof ContinuationWebSocketFrame) {
+            if (frameHandler != null) {
+                frameHandler.execute(frame, websocketRequest, websocketResponse);
+                return;
+            }
+            MWebsocketHandler<ContinuationWebSocketFrame> websocketHandler = websocketContext.getContinuationFrameHandler();
+            if (websocketHandler == null) {
+                throw new UnsupportedOperationException(String.format("%s not assign the ContinuationWebSocketFrame handler", websocketContext.getWebSocketContextDesc()));
+            }
+            websocketHandler.execute((ContinuationWebSocketFrame) frame, websocketRequest, websocketResponse);
+        }
+    }
+
+    /**
+     * 帧提交至帧处理线程池(同一会话串行处理), 积压帧数量超过上限时暂停读取.
+     */
+    private void offload(ChannelHandlerContext ctx, WebSocketFrame frame) {
+        offloadQueue.offer(frame.retain());
+        if (inFlightFrames.incrementAndGet() >= websocketContext.getMaxInFlightFrames() && ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(false);
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} {} too many in-flight frames, pause reading", websocketContext.getWebSocketContextDesc(), session);
+            }
+        }
+        scheduleOffload(ctx);
+    }
+
+    private void scheduleOffload(ChannelHandlerContext ctx) {
+        if (!offloadRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            handlerExecutor.execute(() -> runOffload(ctx));
+        } catch (RejectedExecutionException exception) {
+            offloadRunning.set(false);
+            if (logger.isErrorEnabled()) {
+                logger.error("{} {} frame handler task rejected, close channel", websocketContext.getWebSocketContextDesc(), session, exception);
+            }
+            releaseOffloadQueue();
+            ctx.close();
+        }
+    }
+
+    private void runOffload(ChannelHandlerContext ctx) {
+        try {
+            // 单次任务处理帧数量有限, 避免单个会话长期占用线程
+            for (int i = 0; i < OFFLOAD_BATCH_SIZE; i++) {
+                WebSocketFrame frame = offloadQueue.poll();
+                if (frame == null) {
+                    break;
+                }
+                try {
+                    handleDataFrame(frame);
+                } catch (Throwable throwable) {
+                    ctx.fireExceptionCaught(throwable);
+                } finally {
+                    frame.release();
+                    onFrameDone(ctx);
+                }
+            }
+        } finally {
+            offloadRunning.set(false);
+            if (!offloadQueue.isEmpty()) {
+                scheduleOffload(ctx);
+            }
+        }
+    }
+
+    private void onFrameDone(ChannelHandlerContext ctx) {
+        int count = inFlightFrames.decrementAndGet();
+        if (count <= websocketContext.getMaxInFlightFrames() / 2 && !ctx.channel().config().isAutoRead() && ctx.channel().isActive()) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void releaseOffloadQueue() {
+        WebSocketFrame frame;
+        while ((frame = offloadQueue.poll()) != null) {
+            frame.release();
+            inFlightFrames.decrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.jiashunx.masker.rest.framework.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.jiashunx.masker.rest.framework.*;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.exception.MWebsocketRpcException;
+import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * websocket rpc路由: 按请求中的操作名称分发至MWebsocketContext.rpc注册的处理器, 响应携带请求id.
+ * <p>请求格式: {"op": "操作名称", "id": "请求id", "data": 请求参数}</p>
+ * <p>响应格式: {"id": "请求id", "op": "操作名称", "code": 200, "data": 响应数据} 或 {"id": "请求id", "op": "操作名称", "code": 500, "error": "错误信息"}</p>
+ * <p>处理器返回CompletionStage时异步响应, 同一会话可同时存在多个未完成的请求; event loop线程内同步产生的响应在本次读取周期结束后统一flush.</p>
+ * <p>处理器异常仅返回通用错误信息(详情记录在服务端日志), 需向客户端返回错误信息时抛出MWebsocketRpcException.</p>
+ * @author jiashunx
+ */
+public class MWebsocketRpcRouter implements MWebsocketHandler<TextWebSocketFrame> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MWebsocketRpcRouter.class);
+
+    private final MWebsocketContext websocketContext;
+
+    public MWebsocketRpcRouter(MWebsocketContext websocketContext) {
+        this.websocketContext = Objects.requireNonNull(websocketContext);
+    }
+
+    @Override
+    public void execute(TextWebSocketFrame frame, MWebsocketRequest websocketRequest, MWebsocketResponse websocketResponse) {
+        ObjectMapper objectMapper = SharedObjects.getObjectMapper(websocketContext.getRestContext());
+        JsonNode requestNode;
+        try {
+            requestNode = objectMapper.readTree(new ByteBufInputStream(frame.content().duplicate()));
+        } catch (Throwable throwable) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} parse rpc request failed", websocketContext.getWebSocketContextDesc(), throwable);
+            }
+            reply(websocketResponse, objectMapper, null, null, HttpResponseStatus.BAD_REQUEST.code(), Constants.WEBSOCKET_RPC_ERROR_INVALID_REQUEST, null);
+            return;
+        }
+        if (requestNode == null || !requestNode.isObject()) {
+            reply(websocketResponse, objectMapper, null, null, HttpResponseStatus.BAD_REQUEST.code(), Constants.WEBSOCKET_RPC_ERROR_INVALID_REQUEST, null);
+            return;
+        }
+        JsonNode id = requestNode.get(Constants.WEBSOCKET_RPC_FIELD_ID);
+        String operation = requestNode.path(Constants.WEBSOCKET_RPC_FIELD_OPERATION).asText(null);
+        Function<MWebsocketRpcRequest, ?> rpcHandler = operation == null ? null : websocketContext.getRpcHandler(operation);
+        if (rpcHandler == null) {
+            reply(websocketResponse, objectMapper, id, operation, HttpResponseStatus.NOT_FOUND.code(), "rpc operation not found: " + operation, null);
+            return;
+        }
+        MWebsocketRpcRequest rpcRequest = new MWebsocketRpcRequest(operation, id, requestNode.get(Constants.WEBSOCKET_RPC_FIELD_DATA)
+                , websocketRequest, websocketResponse, objectMapper);
+        Object result;
+        try {
+            result = rpcHandler.apply(rpcRequest);
+        } catch (Throwable throwable) {
+            replyError(websocketResponse, objectMapper, id, operation, throwable);
+            return;
+        }
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    replyError(websocketResponse, objectMapper, id, operation, throwable);
+                } else {
+                    reply(websocketResponse, objectMapper, id, operation, HttpResponseStatus.OK.code(), null, value);
+                }
+            });
+            return;
+        }
+        reply(websocketResponse, objectMapper, id, operation, HttpResponseStatus.OK.code(), null, result);
+    }
+
+    private void replyError(MWebsocketResponse websocketResponse, ObjectMapper objectMapper, JsonNode id, String operation, Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof MWebsocketRpcException) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} rpc operation [{}] execute failed", websocketContext.getWebSocketContextDesc(), operation, cause);
+            }
+            MWebsocketRpcException rpcException = (MWebsocketRpcException) cause;
+            reply(websocketResponse, objectMapper, id, operation, rpcException.getCode(), String.valueOf(rpcException.getMessage()), null);
+            return;
+        }
+        // 异常信息可能包含服务端内部细节, 仅记录日志, 客户端返回通用错误信息
+        if (logger.isErrorEnabled()) {
+            logger.error("{} rpc operation [{}] execute failed", websocketContext.getWebSocketContextDesc(), operation, cause);
+        }
+        reply(websocketResponse, objectMapper, id, operation, HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), Constants.WEBSOCKET_RPC_ERROR_EXECUTE_FAILED, null);
+    }
+
+    private void reply(MWebsocketResponse websocketResponse, ObjectMapper objectMapper, JsonNode id, String operation, int code, String error, Object data) {
+        ObjectNode replyNode = objectMapper.createObjectNode();
+        replyNode.set(Constants.WEBSOCKET_RPC_FIELD_ID, id);
+        replyNode.put(Constants.WEBSOCKET_RPC_FIELD_OPERATION, operation);
+        replyNode.put(Constants.WEBSOCKET_RPC_FIELD_CODE, code);
+        byte[] bytes;
+        try {
+            if (error != null) {
+                replyNode.put(Constants.WEBSOCKET_RPC_FIELD_ERROR, error);
+            } else {
+                replyNode.set(Constants.WEBSOCKET_RPC_FIELD_DATA, objectMapper.valueToTree(data));
+            }
+            bytes = objectMapper.writeValueAsBytes(replyNode);
+        } catch (Throwable throwable) {
+            if (logger.isErrorEnabled()) {
+                logger.error("{} rpc operation [{}] serialize response failed", websocketContext.getWebSocketContextDesc(), operation, throwable);
+            }
+            replyNode.remove(Constants.WEBSOCKET_RPC_FIELD_DATA);
+            replyNode.put(Constants.WEBSOCKET_RPC_FIELD_CODE, HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
+            replyNode.put(Constants.WEBSOCKET_RPC_FIELD_ERROR, "serialize response failed");
+            bytes = replyNode.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        TextWebSocketFrame replyFrame = new TextWebSocketFrame(Unpooled.wrappedBuffer(bytes));
+        MWebsocketSession session = websocketResponse.getSession();
+        if (session == null) {
+            websocketResponse.writeAndFlush(replyFrame);
+            return;
+        }
+        session.write(replyFrame);
+    }
+
+}
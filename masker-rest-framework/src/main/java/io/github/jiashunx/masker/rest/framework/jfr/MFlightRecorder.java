@@ -0,0 +1,116 @@
+package io.github.jiashunx.masker.rest.framework.jfr;
+
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JFR(JDK Flight Recorder)事件入口: 请求、filter、处理器、响应flush、静态资源加载、websocket握手及websocket帧处理.
+ * <p>运行环境不支持jdk.jfr(JDK 8u262之前版本等)或设置系统属性masker.rest.jfr.disabled=true时不产生任何事件;
+ * 未录制对应事件时begin方法返回null且不创建事件对象.</p>
+ * <p>事件对象以Object传递, 调用方不直接引用jdk.jfr类型, 不支持jdk.jfr的运行环境下也不会加载事件类.</p>
+ * @author jiashunx
+ */
+public final class MFlightRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MFlightRecorder.class);
+
+    public static final String HANDSHAKE_SUCCESS = "success";
+    public static final String HANDSHAKE_FAILED = "failed";
+    public static final String HANDSHAKE_NOT_FOUND = "not_found";
+    public static final String HANDSHAKE_REJECTED = "rejected";
+    public static final String HANDSHAKE_UNSUPPORTED_VERSION = "unsupported_version";
+
+    private static final boolean ENABLED;
+    static {
+        boolean enabled = false;
+        if (!Boolean.getBoolean(Constants.JFR_DISABLED_PROPERTY)) {
+            try {
+                Class.forName(MJfrEvents.class.getName(), true, MFlightRecorder.class.getClassLoader());
+                enabled = true;
+            } catch (Throwable throwable) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("jdk flight recorder not available, masker-rest jfr events disabled", throwable);
+                }
+            }
+        }
+        ENABLED = enabled;
+    }
+
+    private MFlightRecorder() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static Object beginRequest() {
+        return ENABLED ? MJfrEvents.beginRequest() : null;
+    }
+
+    public static void endRequest(Object event, String context, String route, String method, String url, int status) {
+        if (event != null) {
+            MJfrEvents.endRequest(event, context, route, method, url, status);
+        }
+    }
+
+    public static Object beginFilter() {
+        return ENABLED ? MJfrEvents.beginFilter() : null;
+    }
+
+    public static void endFilter(Object event, String context, String url, String filter) {
+        if (event != null) {
+            MJfrEvents.endFilter(event, context, url, filter);
+        }
+    }
+
+    public static Object beginHandler() {
+        return ENABLED ? MJfrEvents.beginHandler() : null;
+    }
+
+    public static void endHandler(Object event, String context, String route, String servlet) {
+        if (event != null) {
+            MJfrEvents.endHandler(event, context, route, servlet);
+        }
+    }
+
+    public static Object beginFlush() {
+        return ENABLED ? MJfrEvents.beginFlush() : null;
+    }
+
+    public static void endFlush(Object event, String context, String route, int status, long bytes) {
+        if (event != null) {
+            MJfrEvents.endFlush(event, context, route, status, bytes);
+        }
+    }
+
+    public static Object beginStaticResourceLoad() {
+        return ENABLED ? MJfrEvents.beginStaticResourceLoad() : null;
+    }
+
+    public static void endStaticResourceLoad(Object event, String context, String url, String source, long bytes) {
+        if (event != null) {
+            MJfrEvents.endStaticResourceLoad(event, context, url, source, bytes);
+        }
+    }
+
+    public static Object beginWebsocketHandshake() {
+        return ENABLED ? MJfrEvents.beginWebsocketHandshake() : null;
+    }
+
+    public static void endWebsocketHandshake(Object event, String context, String websocket, String client, String result) {
+        if (event != null) {
+            MJfrEvents.endWebsocketHandshake(event, context, websocket, client, result);
+        }
+    }
+
+    public static Object beginWebsocketFrame() {
+        return ENABLED ? MJfrEvents.beginWebsocketFrame() : null;
+    }
+
+    public static void endWebsocketFrame(Object event, String context, String websocket, String frameType, long bytes) {
+        if (event != null) {
+            MJfrEvents.endWebsocketFrame(event, context, websocket, frameType, bytes);
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+package io.github.jiashunx.masker.rest.framework.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR事件定义及创建/提交(仅由{@link MFlightRecorder}在jdk.jfr可用时调用, 其他类不得直接引用).
+ * <p>未录制对应事件时不创建事件对象, 返回null.</p>
+ * @author jiashunx
+ */
+final class MJfrEvents {
+
+    private MJfrEvents() {}
+
+    private static final RequestEvent REQUEST_PROBE = new RequestEvent();
+    private static final FilterEvent FILTER_PROBE = new FilterEvent();
+    private static final HandlerEvent HANDLER_PROBE = new HandlerEvent();
+    private static final FlushEvent FLUSH_PROBE = new FlushEvent();
+    private static final StaticResourceLoadEvent STATIC_RESOURCE_LOAD_PROBE = new StaticResourceLoadEvent();
+    private static final WebsocketHandshakeEvent WEBSOCKET_HANDSHAKE_PROBE = new WebsocketHandshakeEvent();
+    private static final WebsocketFrameEvent WEBSOCKET_FRAME_PROBE = new WebsocketFrameEvent();
+
+    static Object beginRequest() {
+        if (!REQUEST_PROBE.isEnabled()) {
+            return null;
+        }
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endRequest(Object object, String context, String route, String method, String url, int status) {
+        RequestEvent event = (RequestEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.route = route;
+            event.method = method;
+            event.url = url;
+            event.status = status;
+            event.commit();
+        }
+    }
+
+    static Object beginFilter() {
+        if (!FILTER_PROBE.isEnabled()) {
+            return null;
+        }
+        FilterEvent event = new FilterEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endFilter(Object object, String context, String url, String filter) {
+        FilterEvent event = (FilterEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.url = url;
+            event.filter = filter;
+            event.commit();
+        }
+    }
+
+    static Object beginHandler() {
+        if (!HANDLER_PROBE.isEnabled()) {
+            return null;
+        }
+        HandlerEvent event = new HandlerEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endHandler(Object object, String context, String route, String servlet) {
+        HandlerEvent event = (HandlerEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.route = route;
+            event.servlet = servlet;
+            event.commit();
+        }
+    }
+
+    static Object beginFlush() {
+        if (!FLUSH_PROBE.isEnabled()) {
+            return null;
+        }
+        FlushEvent event = new FlushEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endFlush(Object object, String context, String route, int status, long bytes) {
+        FlushEvent event = (FlushEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.route = route;
+            event.status = status;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginStaticResourceLoad() {
+        if (!STATIC_RESOURCE_LOAD_PROBE.isEnabled()) {
+            return null;
+        }
+        StaticResourceLoadEvent event = new StaticResourceLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endStaticResourceLoad(Object object, String context, String url, String source, long bytes) {
+        StaticResourceLoadEvent event = (StaticResourceLoadEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.url = url;
+            event.source = source;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginWebsocketHandshake() {
+        if (!WEBSOCKET_HANDSHAKE_PROBE.isEnabled()) {
+            return null;
+        }
+        WebsocketHandshakeEvent event = new WebsocketHandshakeEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endWebsocketHandshake(Object object, String context, String websocket, String client, String result) {
+        WebsocketHandshakeEvent event = (WebsocketHandshakeEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.websocket = websocket;
+            event.client = client;
+            event.result = result;
+            event.commit();
+        }
+    }
+
+    static Object beginWebsocketFrame() {
+        if (!WEBSOCKET_FRAME_PROBE.isEnabled()) {
+            return null;
+        }
+        WebsocketFrameEvent event = new WebsocketFrameEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endWebsocketFrame(Object object, String context, String websocket, String frameType, long bytes) {
+        WebsocketFrameEvent event = (WebsocketFrameEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.context = context;
+            event.websocket = websocket;
+            event.frameType = frameType;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Name("masker.rest.Request")
+    @Label("HTTP Request")
+    @Category({ "masker-rest", "HTTP" })
+    @Description("HTTP request handled on the event loop, from dispatch to response flush")
+    static class RequestEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("Route")
+        String route;
+        @Label("Method")
+        String method;
+        @Label("URL")
+        String url;
+        @Label("Status")
+        int status;
+    }
+
+    @Name("masker.rest.Filter")
+    @Label("Filter")
+    @Category({ "masker-rest", "HTTP" })
+    @Description("Filter execution, including the rest of the filter chain it invokes")
+    static class FilterEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("URL")
+        String url;
+        @Label("Filter")
+        String filter;
+    }
+
+    @Name("masker.rest.Handler")
+    @Label("Handler")
+    @Category({ "masker-rest", "HTTP" })
+    @Description("Servlet or url mapping handler execution")
+    static class HandlerEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("Route")
+        String route;
+        @Label("Servlet")
+        String servlet;
+    }
+
+    @Name("masker.rest.ResponseFlush")
+    @Label("Response Flush")
+    @Category({ "masker-rest", "HTTP" })
+    @Description("Response encoding and write to the channel")
+    static class FlushEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("Route")
+        String route;
+        @Label("Status")
+        int status;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("masker.rest.StaticResourceLoad")
+    @Label("Static Resource Load")
+    @Category({ "masker-rest", "HTTP" })
+    @Description("Static resource loaded from classpath or disk on a cache miss")
+    static class StaticResourceLoadEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("URL")
+        String url;
+        @Label("Source")
+        String source;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("masker.rest.WebsocketHandshake")
+    @Label("Websocket Handshake")
+    @Category({ "masker-rest", "Websocket" })
+    @Description("Websocket handshake, from upgrade request to handshake completion")
+    static class WebsocketHandshakeEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("Websocket")
+        String websocket;
+        @Label("Client")
+        String client;
+        @Label("Result")
+        String result;
+    }
+
+    @Name("masker.rest.WebsocketFrame")
+    @Label("Websocket Frame")
+    @Category({ "masker-rest", "Websocket" })
+    @Description("Websocket data frame handling")
+    static class WebsocketFrameEvent extends Event {
+        @Label("Context")
+        String context;
+        @Label("Websocket")
+        String websocket;
+        @Label("Frame Type")
+        String frameType;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+}
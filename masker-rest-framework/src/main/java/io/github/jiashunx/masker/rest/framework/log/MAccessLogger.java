@@ -0,0 +1,422 @@
+package io.github.jiashunx.masker.rest.framework.log;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.model.MAccessLogConfig;
+import io.github.jiashunx.masker.rest.framework.type.MAccessLogOutput;
+import io.github.jiashunx.masker.rest.framework.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志: event loop线程将固定字段写入预分配的环形缓冲区, 后台线程批量格式化后输出至滚动文件或SLF4J.
+ * <p>缓冲区满时丢弃并计数, 不阻塞event loop; 记录时仅保存字段值(字符串字段为已有对象的引用), 不做格式化.</p>
+ * <p>日志格式: 时间 客户端IP 请求方法 路由 状态码 请求字节数 响应字节数 耗时(毫秒) 请求id(取X-Request-Id请求header, 不存在时为日志序号;
+ * 空白及控制字符替换为'_', 超出128字符时截断)</p>
+ * @author jiashunx
+ */
+public class MAccessLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(MAccessLogger.class);
+    private static final Logger accessLogger = LoggerFactory.getLogger(Constants.ACCESS_LOG_LOGGER_NAME);
+    private static final DateTimeFormatter SECOND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final MRestServer restServer;
+    private final MAccessLogConfig config;
+    private final Entry[] buffer;
+    private final int mask;
+    private final long slowThresholdNanos;
+    private final AtomicLong tail = new AtomicLong(0L);
+    private final LongAdder droppedCount = new LongAdder();
+    private volatile long writtenCount;
+    private volatile long failedCount;
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    /********************************* 以下字段仅在后台线程内访问 *********************************/
+    private long head;
+    private final StringBuilder builder = new StringBuilder(Constants.ACCESS_LOG_BATCH_SIZE * 128);
+    private char[] chars = new char[0];
+    private long currentSecond = -1L;
+    private String currentSecondText;
+    private String currentSecondDay;
+    private String currentDay;
+    private Writer writer;
+    private long currentFileSize;
+    private int currentFileIndex;
+
+    public MAccessLogger(MRestServer restServer, MAccessLogConfig config) {
+        this.restServer = Objects.requireNonNull(restServer);
+        this.config = Objects.requireNonNull(config).check();
+        int capacity = Integer.highestOneBit(Math.max(2, config.getBufferSize() - 1)) << 1;
+        this.buffer = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            buffer[i] = new Entry(i);
+        }
+        this.mask = capacity - 1;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowThresholdMillis());
+        this.thread = new Thread(this::run, "masker-rest-access-log-" + restServer.getListenPort());
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        if (config.getOutput() == MAccessLogOutput.FILE) {
+            FileUtils.newDirectory(config.getDirectory());
+        }
+        thread.start();
+    }
+
+    /**
+     * 停止后台线程(输出缓冲区中剩余日志后关闭文件).
+     */
+    public void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Constants.ACCESS_LOG_STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 判断请求是否需记录访问日志(慢请求及采样过滤, 按配置5xx错误始终记录).
+     * <p>由event loop线程在解析客户端地址、请求id等字段之前调用, 未命中的请求不承担字段解析开销.</p>
+     * @param status 响应状态码
+     * @param latencyNanos 耗时(纳秒)
+     * @return 是否需记录
+     */
+    public boolean accept(int status, long latencyNanos) {
+        if (status >= 500 && config.isAlwaysLogErrors()) {
+            return true;
+        }
+        if (latencyNanos < slowThresholdNanos) {
+            return false;
+        }
+        double sampleRate = config.getSampleRate();
+        return sampleRate >= 1D || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * 记录访问日志(由event loop线程调用, 不阻塞; 采样及慢请求过滤由调用方先行调用{@link #accept(int, long)}完成).
+     * @param timeMillis 请求时间
+     * @param method 请求方法
+     * @param route 路由
+     * @param status 响应状态码
+     * @param requestBytes 请求字节数
+     * @param responseBytes 响应字节数
+     * @param latencyNanos 耗时(纳秒)
+     * @param clientAddress 客户端IP
+     * @param requestId 请求id(可为null)
+     * @return 是否写入缓冲区(缓冲区已满时返回false)
+     */
+    public boolean record(long timeMillis, String method, String route, int status, long requestBytes, long responseBytes
+            , long latencyNanos, String clientAddress, String requestId) {
+        Entry entry;
+        long position;
+        while (true) {
+            position = tail.get();
+            entry = buffer[(int) (position & mask)];
+            long diff = entry.sequence - position;
+            if (diff == 0L) {
+                if (tail.compareAndSet(position, position + 1L)) {
+                    break;
+                }
+            } else if (diff < 0L) {
+                // 后台线程尚未消费, 缓冲区已满
+                droppedCount.increment();
+                return false;
+            }
+        }
+        entry.timeMillis = timeMillis;
+        entry.method = method;
+        entry.route = route;
+        entry.status = status;
+        entry.requestBytes = requestBytes;
+        entry.responseBytes = responseBytes;
+        entry.latencyNanos = latencyNanos;
+        entry.clientAddress = clientAddress;
+        entry.requestId = requestId;
+        // 发布: 后台线程读取到sequence变化后方可消费
+        entry.sequence = position + 1L;
+        return true;
+    }
+
+    public MAccessLogConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 因缓冲区已满被丢弃的日志数量.
+     * @return long
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 已输出的日志数量.
+     * @return long
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * 因输出失败(文件写入异常等)被丢弃的日志数量.
+     * @return long
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * 缓冲区中待输出的日志数量.
+     * @return long
+     */
+    public long getPendingCount() {
+        return Math.max(0L, tail.get() - writtenCount - failedCount);
+    }
+
+    private void run() {
+        while (true) {
+            int count = 0;
+            try {
+                count = drain();
+            } catch (Throwable throwable) {
+                if (logger.isErrorEnabled()) {
+                    logger.error("{} access log output failed", restServer.getServerDesc(), throwable);
+                }
+                closeWriter();
+            }
+            if (count > 0) {
+                continue;
+            }
+            if (stopped || restServer.isClosed()) {
+                break;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Constants.ACCESS_LOG_IDLE_PARK_MILLIS));
+        }
+        closeWriter();
+    }
+
+    /**
+     * 批量消费缓冲区.
+     * @return 本批次输出数量
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        int written = 0;
+        boolean file = config.getOutput() == MAccessLogOutput.FILE;
+        try {
+            while (count < Constants.ACCESS_LOG_BATCH_SIZE) {
+                Entry entry = buffer[(int) (head & mask)];
+                if (entry.sequence != head + 1L) {
+                    break;
+                }
+                String day = format(entry);
+                // 释放引用并归还槽位(输出失败时该条日志计入failedCount)
+                entry.method = null;
+                entry.route = null;
+                entry.clientAddress = null;
+                entry.requestId = null;
+                entry.sequence = head + buffer.length;
+                head++;
+                count++;
+                if (file) {
+                    if (writer == null || !day.equals(currentDay) || currentFileSize >= config.getMaxFileSize()) {
+                        rotate(day);
+                    }
+                    currentFileSize += builder.length();
+                    write();
+                } else if (accessLogger.isInfoEnabled()) {
+                    builder.setLength(builder.length() - 1);
+                    accessLogger.info(builder.toString());
+                }
+                builder.setLength(0);
+                written++;
+            }
+            if (written > 0 && writer != null) {
+                writer.flush();
+            }
+        } finally {
+            // 输出异常时清除未输出的内容, 避免拼接至下一条日志之前
+            builder.setLength(0);
+            if (written > 0) {
+                writtenCount += written;
+            }
+            if (count > written) {
+                failedCount += count - written;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 格式化单条日志至builder.
+     * @return 日志日期(yyyy-MM-dd)
+     */
+    private String format(Entry entry) {
+        long second = entry.timeMillis / 1000L;
+        if (second != currentSecond) {
+            currentSecond = second;
+            currentSecondText = SECOND_FORMATTER.format(Instant.ofEpochSecond(second));
+            currentSecondDay = currentSecondText.substring(0, 10);
+        }
+        int millis = (int) (entry.timeMillis % 1000L);
+        builder.append(currentSecondText).append('.');
+        if (millis < 100) {
+            builder.append('0');
+        }
+        if (millis < 10) {
+            builder.append('0');
+        }
+        builder.append(millis).append(' ')
+                .append(entry.clientAddress).append(' ')
+                .append(entry.method).append(' ')
+                .append(entry.route).append(' ')
+                .append(entry.status).append(' ')
+                .append(entry.requestBytes).append(' ')
+                .append(entry.responseBytes).append(' ');
+        long micros = TimeUnit.NANOSECONDS.toMicros(entry.latencyNanos);
+        builder.append(micros / 1000L).append('.');
+        long fraction = micros % 1000L;
+        if (fraction < 100L) {
+            builder.append('0');
+        }
+        if (fraction < 10L) {
+            builder.append('0');
+        }
+        builder.append(fraction).append(' ');
+        if (entry.requestId != null) {
+            appendRequestId(entry.requestId);
+        } else {
+            builder.append('#').append(head);
+        }
+        builder.append('\n');
+        return currentSecondDay;
+    }
+
+    /**
+     * 输出请求id(客户端传入的值, 替换空白及控制字符以保证日志按空格分隔的字段及行结构不被破坏).
+     */
+    private void appendRequestId(String requestId) {
+        int length = Math.min(requestId.length(), Constants.ACCESS_LOG_REQUEST_ID_MAX_LENGTH);
+        if (length == 0) {
+            builder.append('_');
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = requestId.charAt(i);
+            builder.append(c <= ' ' || Character.isWhitespace(c) || Character.isISOControl(c) ? '_' : c);
+        }
+    }
+
+    private void write() throws IOException {
+        int length = builder.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        builder.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+    }
+
+    /**
+     * 滚动日志文件: 日期变化时切换至新日期文件, 文件超过最大字节数时切换至下一序号文件.
+     */
+    private void rotate(String day) throws IOException {
+        closeWriter();
+        if (!day.equals(currentDay)) {
+            currentDay = day;
+            currentFileIndex = 0;
+        }
+        File file = logFile(day, currentFileIndex);
+        while (file.exists() && file.length() >= config.getMaxFileSize()) {
+            file = logFile(day, ++currentFileIndex);
+        }
+        currentFileSize = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8), Constants.ACCESS_LOG_WRITE_BUFFER_SIZE);
+        cleanFiles();
+    }
+
+    private File logFile(String day, int index) {
+        String fileName = config.getFileNamePrefix() + "." + day + (index == 0 ? "" : "." + index) + ".log";
+        return new File(config.getDirectory(), fileName);
+    }
+
+    /**
+     * 清理超出保留数量的日志文件(按修改时间删除最早的文件).
+     */
+    private void cleanFiles() {
+        int maxFiles = config.getMaxFiles();
+        if (maxFiles <= 0) {
+            return;
+        }
+        String prefix = config.getFileNamePrefix() + ".";
+        File[] files = new File(config.getDirectory()).listFiles(f -> f.isFile() && f.getName().startsWith(prefix) && f.getName().endsWith(".log"));
+        if (files == null || files.length <= maxFiles) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - maxFiles; i++) {
+            if (!files[i].delete() && logger.isWarnEnabled()) {
+                logger.warn("{} delete access log file failed: {}", restServer.getServerDesc(), files[i].getAbsolutePath());
+            }
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (Throwable throwable) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("{} close access log file failed", restServer.getServerDesc(), throwable);
+            }
+        }
+        writer = null;
+    }
+
+    /**
+     * 环形缓冲区槽位(预分配, 循环复用).
+     */
+    private static final class Entry {
+        /**
+         * 槽位状态: 等于写入位置时可写入, 等于写入位置+1时可消费.
+         */
+        volatile long sequence;
+        long timeMillis;
+        String method;
+        String route;
+        int status;
+        long requestBytes;
+        long responseBytes;
+        long latencyNanos;
+        String clientAddress;
+        String requestId;
+
+        Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+}
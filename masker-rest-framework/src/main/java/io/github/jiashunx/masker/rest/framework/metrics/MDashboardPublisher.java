@@ -0,0 +1,314 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.github.jiashunx.masker.rest.framework.MWebsocketRequest;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
+import io.github.jiashunx.masker.rest.framework.servlet.StaticResourceFinder;
+import io.github.jiashunx.masker.rest.framework.util.IOUtils;
+import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 状态面板数据推送: 按固定间隔计算一次server状态(吞吐量、区间延迟百分位、连接数、websocket会话数、event loop待执行任务数、
+ * ByteBuf分配器使用量及静态资源缓存命中率), 序列化后广播至面板websocket的全部会话.
+ * <p>首个会话建立后才开始调度, 无会话时跳过计算; 新会话建立时立即发送最近一次数据.</p>
+ * @author jiashunx
+ */
+public class MDashboardPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MDashboardPublisher.class);
+
+    private static final String PAGE_TEMPLATE_PATH = "masker-rest/template/dashboard.html";
+
+    private final MRestServer restServer;
+    private final MWebsocketContext websocketContext;
+    private final long intervalMillis;
+    private final byte[] pageBytes;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile ScheduledFuture<?> future;
+    /**
+     * 最近一次推送的数据(新会话建立时发送).
+     */
+    private volatile byte[] lastPayload;
+    /**
+     * 上一次计算时的累计值(仅在指标线程内访问, 为null时表示需重新建立基线).
+     */
+    private Sample previous;
+
+    public MDashboardPublisher(MRestServer restServer, MWebsocketContext websocketContext, long intervalMillis) {
+        this.restServer = Objects.requireNonNull(restServer);
+        this.websocketContext = Objects.requireNonNull(websocketContext);
+        if (intervalMillis <= 0L) {
+            throw new IllegalArgumentException("dashboard push interval must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+        this.pageBytes = renderPage();
+    }
+
+    private byte[] renderPage() {
+        String template = IOUtils.loadContentFromClasspath(PAGE_TEMPLATE_PATH, MDashboardPublisher.class.getClassLoader());
+        String contextPath = websocketContext.getRestContext().getContextPath();
+        String prefix = Constants.ROOT_PATH.equals(contextPath) ? "" : contextPath;
+        Map<String, Object> params = new HashMap<>();
+        params.put("server", restServer.getServerDesc());
+        params.put("context.prefix", prefix);
+        params.put("websocket.url", prefix + websocketContext.getWebsocketUrl());
+        params.put("mrf.version", MRestUtils.getFrameworkVersion());
+        return MRestUtils.format(template, params).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 面板页面内容(注册时渲染一次).
+     * @return byte[]
+     */
+    public byte[] getPageBytes() {
+        return pageBytes;
+    }
+
+    public MWebsocketContext getWebsocketContext() {
+        return websocketContext;
+    }
+
+    /**
+     * 面板会话建立: 首次调用时开始调度, 并向新会话发送最近一次数据.
+     * @param ctx ctx
+     * @param websocketRequest websocketRequest
+     */
+    public void onSessionActive(ChannelHandlerContext ctx, MWebsocketRequest websocketRequest) {
+        if (started.compareAndSet(false, true)) {
+            future = SharedObjects.getMetricsScheduler().scheduleWithFixedDelay(this::run, 0L, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        byte[] payload = lastPayload;
+        if (payload != null) {
+            ctx.writeAndFlush(new TextWebSocketFrame(Unpooled.wrappedBuffer(payload)));
+        }
+    }
+
+    private void run() {
+        if (restServer.isClosed()) {
+            ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+            return;
+        }
+        try {
+            publish();
+        } catch (Throwable throwable) {
+            if (logger.isErrorEnabled()) {
+                logger.error("{} dashboard publish failed", websocketContext.getWebSocketContextDesc(), throwable);
+            }
+        }
+    }
+
+    private void publish() throws JsonProcessingException {
+        if (websocketContext.getSessionGroup().size() == 0) {
+            // 无会话时不计算, 再次有会话时重新建立基线, 避免区间跨越空闲时段
+            previous = null;
+            lastPayload = null;
+            return;
+        }
+        Sample current = new Sample(restServer);
+        Sample previous = this.previous;
+        this.previous = current;
+        if (previous == null) {
+            return;
+        }
+        ObjectMapper objectMapper = SharedObjects.getObjectMapper(websocketContext.getRestContext());
+        byte[] payload = objectMapper.writeValueAsBytes(toJson(objectMapper, previous, current));
+        lastPayload = payload;
+        websocketContext.broadcast(new TextWebSocketFrame(Unpooled.wrappedBuffer(payload)));
+    }
+
+    private ObjectNode toJson(ObjectMapper objectMapper, Sample previous, Sample current) {
+        double seconds = Math.max(1L, current.nanoTime - previous.nanoTime) / 1000000000D;
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("server", restServer.getServerDesc());
+        root.put("time", current.timeMillis);
+        root.put("uptime", current.timeMillis - restServer.getMetrics().getStartTimeMillis());
+
+        ObjectNode throughput = root.putObject("throughput");
+        throughput.put("requests", (current.requests - previous.requests) / seconds);
+        throughput.put("errors", (current.errors - previous.errors) / seconds);
+        throughput.put("requestBytes", (current.bytesIn - previous.bytesIn) / seconds);
+        throughput.put("responseBytes", (current.bytesOut - previous.bytesOut) / seconds);
+        throughput.put("totalRequests", current.requests);
+        throughput.put("totalErrors", current.errors);
+
+        // 区间资源消耗: 每秒及每请求的分配字节数、CPU时间(微秒)
+        long intervalRequests = current.requests - previous.requests;
+        long allocatedBytes = current.allocatedBytes - previous.allocatedBytes;
+        long cpuMicros = TimeUnit.NANOSECONDS.toMicros(current.cpuTime - previous.cpuTime);
+        ObjectNode resources = root.putObject("resources");
+        resources.put("enabled", restServer.isRequestResourceMetrics());
+        resources.put("allocatedBytes", allocatedBytes / seconds);
+        resources.put("cpu", cpuMicros / seconds);
+        resources.put("allocatedBytesPerRequest", intervalRequests <= 0L ? 0L : allocatedBytes / intervalRequests);
+        resources.put("cpuPerRequest", intervalRequests <= 0L ? 0L : cpuMicros / intervalRequests);
+
+        // 区间延迟: 累计直方图相减
+        long[] counts = new long[current.latencyCounts.length];
+        long sum = current.latencySum - previous.latencySum;
+        long max = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.max(0L, current.latencyCounts[i] - previous.latencyCounts[i]);
+            if (counts[i] > 0L) {
+                max = MLatencyHistogram.bucketUpperBound(MLatencyHistogram.DEFAULT_SUB_BUCKET_BITS, i);
+            }
+        }
+        MLatencySnapshot latency = new MLatencySnapshot(MLatencyHistogram.DEFAULT_SUB_BUCKET_BITS, counts, sum, max);
+        ObjectNode latencyNode = root.putObject("latency");
+        latencyNode.put("count", latency.getCount());
+        latencyNode.put("mean", latency.getMean());
+        latencyNode.put("p50", latency.getValueAtPercentile(50D));
+        latencyNode.put("p90", latency.getValueAtPercentile(90D));
+        latencyNode.put("p99", latency.getValueAtPercentile(99D));
+        latencyNode.put("max", max);
+
+        ObjectNode connections = root.putObject("connections");
+        connections.put("active", current.activeConnections);
+        connections.put("accepted", current.acceptedConnections);
+        connections.put("websocketSessions", current.websocketSessions);
+        connections.put("websocketRejected", current.websocketRejected);
+
+        ArrayNode eventLoops = root.putArray("eventLoops");
+        for (int pendingTasks: current.pendingTasks) {
+            eventLoops.add(pendingTasks);
+        }
+        ArrayNode eventLoopLags = root.putArray("eventLoopLags");
+        for (long lagMicros: current.lagMicros) {
+            eventLoopLags.add(lagMicros);
+        }
+
+        ObjectNode allocator = root.putObject("allocator");
+        allocator.put("heapUsed", current.heapUsed);
+        allocator.put("directUsed", current.directUsed);
+
+        ObjectNode staticCache = root.putObject("staticCache");
+        staticCache.put("hitRate", hitRate(current.cacheHits - previous.cacheHits, current.cacheMisses - previous.cacheMisses));
+        staticCache.put("totalHitRate", hitRate(current.cacheHits, current.cacheMisses));
+        staticCache.put("size", current.cacheSize);
+        staticCache.put("bytes", current.cacheBytes);
+        return root;
+    }
+
+    /**
+     * 命中率(无访问时返回-1).
+     */
+    private static double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total <= 0L ? -1D : (double) hits / total;
+    }
+
+    /**
+     * 单次采样的累计值及瞬时值.
+     */
+    private static class Sample {
+        final long nanoTime = System.nanoTime();
+        final long timeMillis = System.currentTimeMillis();
+        long requests;
+        long errors;
+        long bytesIn;
+        long bytesOut;
+        long allocatedBytes;
+        long cpuTime;
+        /**
+         * 各路由延迟直方图(均为默认精度)合并后的桶计数.
+         */
+        final long[] latencyCounts = new long[MLatencyHistogram.bucketCount(MLatencyHistogram.DEFAULT_SUB_BUCKET_BITS)];
+        long latencySum;
+        final int activeConnections;
+        final long acceptedConnections;
+        int websocketSessions;
+        long websocketRejected;
+        final List<Integer> pendingTasks = new ArrayList<>();
+        final List<Long> lagMicros = new ArrayList<>();
+        long heapUsed;
+        long directUsed;
+        long cacheHits;
+        long cacheMisses;
+        int cacheSize;
+        long cacheBytes;
+
+        Sample(MRestServer restServer) {
+            MServerMetrics serverMetrics = restServer.getMetrics();
+            activeConnections = serverMetrics.getActiveConnections();
+            acceptedConnections = serverMetrics.getAcceptedConnections();
+            for (String contextPath: restServer.getContextList()) {
+                MRestContext restContext = restServer.getContext(contextPath);
+                if (restContext == null) {
+                    continue;
+                }
+                for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                    requests += routeMetrics.getRequestCount();
+                    errors += routeMetrics.getErrorCount();
+                    bytesIn += routeMetrics.getBytesIn();
+                    bytesOut += routeMetrics.getBytesOut();
+                    allocatedBytes += routeMetrics.getAllocatedBytes();
+                    cpuTime += routeMetrics.getCpuTime();
+                    MLatencySnapshot snapshot = routeMetrics.getLatency().snapshot();
+                    long[] counts = snapshot.getCounts();
+                    for (int i = 0; i < counts.length; i++) {
+                        latencyCounts[i] += counts[i];
+                    }
+                    latencySum += snapshot.getSum();
+                }
+                for (MWebsocketContext websocketContext: restContext.getWebsocketContexts()) {
+                    websocketSessions += websocketContext.getSessionGroup().size();
+                    websocketRejected += websocketContext.getAdmissionRejectedCount();
+                }
+                StaticResourceFinder staticResourceFinder = restContext.getStaticResourceFinder();
+                cacheHits += staticResourceFinder.getCacheHitCount();
+                cacheMisses += staticResourceFinder.getCacheMissCount();
+                cacheSize += staticResourceFinder.getCacheSize();
+                cacheBytes += staticResourceFinder.getCacheBytes();
+            }
+            EventLoopGroup workerGroup = restServer.getWorkerGroup();
+            if (workerGroup != null) {
+                for (EventExecutor executor: workerGroup) {
+                    pendingTasks.add(executor instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) executor).pendingTasks() : 0);
+                }
+            }
+            MEventLoopWatchdog watchdog = restServer.getEventLoopWatchdog();
+            if (watchdog != null) {
+                for (MEventLoopWatchdog.LoopState loopState: watchdog.getLoopStates()) {
+                    lagMicros.add(TimeUnit.NANOSECONDS.toMicros(loopState.getLagNanos()));
+                }
+            }
+            ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+            if (allocator instanceof ByteBufAllocatorMetricProvider) {
+                ByteBufAllocatorMetric metric = ((ByteBufAllocatorMetricProvider) allocator).metric();
+                heapUsed = metric.usedHeapMemory();
+                directUsed = metric.usedDirectMemory();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
+import io.github.jiashunx.masker.rest.framework.util.StringUtils;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * event loop阻塞检测: 定时向各worker event loop提交心跳任务, 心跳任务的执行延迟即为event loop滞后时间.
+ * <p>心跳任务超过阈值仍未执行时判定event loop阻塞, 输出阻塞线程堆栈及当前处理中的请求(同一server按最小间隔限流输出;
+ * 请求地址去除查询参数后输出, 避免token等参数写入日志).</p>
+ * <p>请求/websocket帧处理的进入及退出时间由{@link LoopState#enter(String, String)}、{@link LoopState#exit()}记录.</p>
+ * @author jiashunx
+ */
+public class MEventLoopWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(MEventLoopWatchdog.class);
+
+    private final MRestServer restServer;
+    private final long thresholdNanos;
+    private final long checkIntervalMillis;
+    /**
+     * 各event loop状态(启动后不再变更, 只读访问无需加锁).
+     */
+    private final Map<EventExecutor, LoopState> loopStateMap;
+    private final List<LoopState> loopStates;
+    private volatile ScheduledFuture<?> future;
+    /**
+     * 上一次输出阻塞堆栈的时间(仅在指标线程内访问).
+     */
+    private long lastReportNanos;
+    private final LongAdder suppressedReportCount = new LongAdder();
+
+    public MEventLoopWatchdog(MRestServer restServer, EventLoopGroup workerGroup, long thresholdMillis) {
+        this.restServer = Objects.requireNonNull(restServer);
+        if (thresholdMillis <= 0L) {
+            throw new IllegalArgumentException("event loop blocking threshold must be positive");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.checkIntervalMillis = Math.max(Constants.EVENT_LOOP_WATCHDOG_MIN_CHECK_INTERVAL_MILLIS
+                , Math.min(Constants.EVENT_LOOP_WATCHDOG_MAX_CHECK_INTERVAL_MILLIS, thresholdMillis / 4));
+        Map<EventExecutor, LoopState> loopStateMap = new IdentityHashMap<>();
+        List<LoopState> loopStates = new ArrayList<>();
+        for (EventExecutor executor: Objects.requireNonNull(workerGroup)) {
+            LoopState loopState = new LoopState(loopStates.size(), executor);
+            loopStateMap.put(executor, loopState);
+            loopStates.add(loopState);
+        }
+        this.loopStateMap = loopStateMap;
+        this.loopStates = Collections.unmodifiableList(loopStates);
+    }
+
+    public synchronized void start() {
+        if (future == null) {
+            // 预先获取各event loop线程, event loop在首次心跳前阻塞时仍可输出线程堆栈
+            for (LoopState loopState: loopStates) {
+                try {
+                    loopState.executor.execute(loopState::captureThread);
+                } catch (RejectedExecutionException exception) {
+                    // event loop已关闭
+                }
+            }
+            future = SharedObjects.getMetricsScheduler().scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 记录event loop开始处理请求.
+     * @param executor 当前event loop
+     * @param method 请求方法(websocket帧为WEBSOCKET)
+     * @param target 请求地址
+     * @return LoopState(非worker event loop返回null)
+     */
+    public LoopState enter(EventExecutor executor, String method, String target) {
+        LoopState loopState = loopStateMap.get(executor);
+        if (loopState != null) {
+            loopState.enter(method, target);
+        }
+        return loopState;
+    }
+
+    public List<LoopState> getLoopStates() {
+        return loopStates;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    /**
+     * 因限流未输出堆栈的阻塞次数.
+     * @return long
+     */
+    public long getSuppressedReportCount() {
+        return suppressedReportCount.sum();
+    }
+
+    private void check() {
+        if (restServer.isClosed()) {
+            stop();
+            return;
+        }
+        for (LoopState loopState: loopStates) {
+            try {
+                check(loopState);
+            } catch (Throwable throwable) {
+                if (logger.isErrorEnabled()) {
+                    logger.error("{} event loop [{}] check failed", restServer.getServerDesc(), loopState.index, throwable);
+                }
+            }
+        }
+    }
+
+    private void check(LoopState loopState) {
+        long now = System.nanoTime();
+        if (!loopState.heartbeatPending) {
+            loopState.heartbeatSubmitTime = now;
+            loopState.heartbeatPending = true;
+            loopState.blockReported = false;
+            try {
+                loopState.executor.execute(loopState.heartbeatTask);
+            } catch (RejectedExecutionException exception) {
+                // event loop已关闭
+                loopState.heartbeatPending = false;
+            }
+            return;
+        }
+        long blockedNanos = now - loopState.heartbeatSubmitTime;
+        if (blockedNanos < thresholdNanos || loopState.blockReported) {
+            return;
+        }
+        // 同一次阻塞仅计数及输出一次
+        loopState.blockReported = true;
+        loopState.blockedCount.increment();
+        if (lastReportNanos != 0L && now - lastReportNanos < TimeUnit.MILLISECONDS.toNanos(Constants.EVENT_LOOP_BLOCKING_REPORT_INTERVAL_MILLIS)) {
+            suppressedReportCount.increment();
+            return;
+        }
+        lastReportNanos = now;
+        if (logger.isWarnEnabled()) {
+            Thread thread = loopState.thread;
+            long taskStartTime = loopState.taskStartTime;
+            String method = loopState.method;
+            String target = withoutQuery(loopState.target);
+            String handling = taskStartTime == 0L ? "none"
+                    : String.format("%s %s (%d ms)", method, target, TimeUnit.NANOSECONDS.toMillis(now - taskStartTime));
+            logger.warn("{} event loop [{}] blocked for {} ms, thread: {}, handling: {}, stack:{}{}"
+                    , restServer.getServerDesc(), loopState.index, TimeUnit.NANOSECONDS.toMillis(blockedNanos)
+                    , thread == null ? "unknown" : thread.getName(), handling, StringUtils.ENTER
+                    , thread == null ? "unavailable" : StringUtils.getThreadStackTrace(thread));
+        }
+    }
+
+    /**
+     * 去除请求地址中的查询参数及片段.
+     */
+    static String withoutQuery(String target) {
+        if (target == null) {
+            return null;
+        }
+        int index = target.indexOf('?');
+        int fragmentIndex = target.indexOf('#');
+        if (fragmentIndex >= 0 && (index < 0 || fragmentIndex < index)) {
+            index = fragmentIndex;
+        }
+        return index < 0 ? target : target.substring(0, index);
+    }
+
+    /**
+     * 单个event loop的阻塞检测状态.
+     */
+    public static class LoopState {
+        private final int index;
+        private final EventExecutor executor;
+        private final LongAdder blockedCount = new LongAdder();
+        private final Runnable heartbeatTask = this::heartbeat;
+        private volatile Thread thread;
+        private volatile long heartbeatSubmitTime;
+        private volatile boolean heartbeatPending;
+        private volatile long lagNanos;
+        /**
+         * 当前阻塞是否已记录(仅在指标线程内访问).
+         */
+        private boolean blockReported;
+        private volatile long taskStartTime;
+        private volatile String method;
+        private volatile String target;
+
+        LoopState(int index, EventExecutor executor) {
+            this.index = index;
+            this.executor = executor;
+        }
+
+        private void heartbeat() {
+            lagNanos = System.nanoTime() - heartbeatSubmitTime;
+            thread = Thread.currentThread();
+            heartbeatPending = false;
+        }
+
+        private void captureThread() {
+            if (thread == null) {
+                thread = Thread.currentThread();
+            }
+        }
+
+        Thread getThread() {
+            return thread;
+        }
+
+        void enter(String method, String target) {
+            this.method = method;
+            this.target = target;
+            this.taskStartTime = System.nanoTime();
+        }
+
+        /**
+         * 记录event loop处理完成.
+         */
+        public void exit() {
+            this.taskStartTime = 0L;
+            this.method = null;
+            this.target = null;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * event loop滞后时间: 心跳任务未执行时为已等待时间, 否则为最近一次心跳任务的执行延迟.
+         * @return long
+         */
+        public long getLagNanos() {
+            if (heartbeatPending) {
+                return Math.max(lagNanos, System.nanoTime() - heartbeatSubmitTime);
+            }
+            return lagNanos;
+        }
+
+        /**
+         * 判定为阻塞的次数.
+         * @return long
+         */
+        public long getBlockedCount() {
+            return blockedCount.sum();
+        }
+    }
+
+}
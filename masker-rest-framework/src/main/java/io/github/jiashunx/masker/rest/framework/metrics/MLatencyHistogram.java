@@ -0,0 +1,173 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 无锁延迟直方图(单位: 微秒).
+ * <p>桶划分方式同HdrHistogram: 按2的幂划分区间, 每个区间再线性划分为2^subBucketBits个子桶, 相对误差不超过1/2^subBucketBits
+ * (默认5位约3.1%, 压测等需更高精度的场景可指定7位, 约0.8%), 百分位值在所在桶内线性插值.</p>
+ * <p>按线程分段计数(分段数为cpu核数向上取整为2的幂), 分段在首次被使用时创建, 此后记录过程无锁且无对象分配.</p>
+ * @author jiashunx
+ */
+public class MLatencyHistogram {
+
+    public static final int DEFAULT_SUB_BUCKET_BITS = 5;
+    public static final int MIN_SUB_BUCKET_BITS = 1;
+    public static final int MAX_SUB_BUCKET_BITS = 10;
+    /**
+     * 可记录的最大值(约19小时), 超出部分计入最后一个桶.
+     */
+    public static final long MAX_VALUE = (1L << 36) - 1;
+    private static final int STRIPE_COUNT;
+    static {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripeCount = 1;
+        while (stripeCount < processors && stripeCount < 64) {
+            stripeCount <<= 1;
+        }
+        STRIPE_COUNT = stripeCount;
+    }
+
+    private final int subBucketBits;
+    private final int bucketCount;
+    /**
+     * 分段内除桶计数外的附加槽位: 数值总和、最大值.
+     */
+    private final int slotSum;
+    private final int slotMax;
+    private final int slotCount;
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPE_COUNT);
+
+    public MLatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param subBucketBits 每个2的幂区间划分的子桶数量位数(1~10), 每增加1位精度提高一倍, 桶数量约增加一倍
+     */
+    public MLatencyHistogram(int subBucketBits) {
+        if (subBucketBits < MIN_SUB_BUCKET_BITS || subBucketBits > MAX_SUB_BUCKET_BITS) {
+            throw new IllegalArgumentException("subBucketBits -> " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.bucketCount = bucketCount(subBucketBits);
+        this.slotSum = bucketCount;
+        this.slotMax = bucketCount + 1;
+        this.slotCount = bucketCount + 2;
+    }
+
+    public int getSubBucketBits() {
+        return subBucketBits;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * 记录一次耗时.
+     * @param nanos 耗时(纳秒)
+     */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000L);
+    }
+
+    /**
+     * 记录一个数值.
+     * @param value 数值(微秒, 小于0按0记录)
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+        AtomicLongArray stripe = stripe();
+        stripe.incrementAndGet(bucketIndex(subBucketBits, Math.min(value, MAX_VALUE)));
+        stripe.addAndGet(slotSum, value);
+        long max;
+        while ((max = stripe.get(slotMax)) < value && !stripe.compareAndSet(slotMax, max, value)) {
+            // retry
+        }
+    }
+
+    private AtomicLongArray stripe() {
+        int index = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1));
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(slotCount));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    /**
+     * 获取当前快照(合并各分段计数, 记录过程不受影响).
+     * @return MLatencySnapshot
+     */
+    public MLatencySnapshot snapshot() {
+        long[] counts = new long[bucketCount];
+        long sum = 0L;
+        long max = 0L;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe == null) {
+                continue;
+            }
+            for (int j = 0; j < bucketCount; j++) {
+                counts[j] += stripe.get(j);
+            }
+            sum += stripe.get(slotSum);
+            max = Math.max(max, stripe.get(slotMax));
+        }
+        return new MLatencySnapshot(subBucketBits, counts, sum, max);
+    }
+
+    /**
+     * 桶数量.
+     * @param subBucketBits 子桶数量位数
+     * @return int
+     */
+    public static int bucketCount(int subBucketBits) {
+        return bucketIndex(subBucketBits, MAX_VALUE) + 1;
+    }
+
+    static int bucketIndex(int subBucketBits, long value) {
+        int subBucketCount = 1 << subBucketBits;
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return ((shift + 1) << subBucketBits) + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    /**
+     * 桶内最小值(含).
+     * @param subBucketBits 子桶数量位数
+     * @param index 桶序号
+     * @return long
+     */
+    public static long bucketLowerBound(int subBucketBits, int index) {
+        int subBucketCount = 1 << subBucketBits;
+        if (index < (subBucketCount << 1)) {
+            return index;
+        }
+        int shift = (index >>> subBucketBits) - 1;
+        return ((long) ((index & (subBucketCount - 1)) + subBucketCount)) << shift;
+    }
+
+    /**
+     * 桶内最大值(含).
+     * @param subBucketBits 子桶数量位数
+     * @param index 桶序号
+     * @return long
+     */
+    public static long bucketUpperBound(int subBucketBits, int index) {
+        int subBucketCount = 1 << subBucketBits;
+        if (index < (subBucketCount << 1)) {
+            return index;
+        }
+        int shift = (index >>> subBucketBits) - 1;
+        return bucketLowerBound(subBucketBits, index) + (1L << shift) - 1;
+    }
+
+}
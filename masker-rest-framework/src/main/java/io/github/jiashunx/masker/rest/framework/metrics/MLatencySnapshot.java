@@ -0,0 +1,90 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+/**
+ * 延迟直方图快照(单位: 微秒).
+ * @author jiashunx
+ */
+public class MLatencySnapshot {
+
+    private final int subBucketBits;
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    MLatencySnapshot(int subBucketBits, long[] counts, long sum, long max) {
+        this.subBucketBits = subBucketBits;
+        this.counts = counts;
+        long count = 0L;
+        for (long c: counts) {
+            count += c;
+        }
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * 各桶计数(桶边界见{@link #bucketLowerBound(int)}及{@link #bucketUpperBound(int)}).
+     * @return long[]
+     */
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public int getSubBucketBits() {
+        return subBucketBits;
+    }
+
+    public long bucketLowerBound(int index) {
+        return MLatencyHistogram.bucketLowerBound(subBucketBits, index);
+    }
+
+    public long bucketUpperBound(int index) {
+        return MLatencyHistogram.bucketUpperBound(subBucketBits, index);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0L ? 0D : (double) sum / count;
+    }
+
+    /**
+     * 获取百分位值(按桶内数值均匀分布在所在桶内线性插值, 不超过最大值).
+     * @param percentile 百分位(0-100)
+     * @return long
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0L) {
+            return 0L;
+        }
+        double p = Math.min(Math.max(percentile, 0D), 100D);
+        double target = p / 100D * count;
+        long accumulated = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0L) {
+                continue;
+            }
+            if (accumulated + counts[i] >= target) {
+                long lowerBound = bucketLowerBound(i);
+                double fraction = (target - accumulated) / counts[i];
+                long value = lowerBound + Math.round(fraction * (bucketUpperBound(i) - lowerBound));
+                return Math.min(value, max);
+            }
+            accumulated += counts[i];
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,434 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.MWebsocketAdmission;
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.github.jiashunx.masker.rest.framework.log.MAccessLogger;
+import io.github.jiashunx.masker.rest.framework.servlet.StaticResourceFinder;
+import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prometheus文本格式(0.0.4)指标输出: server、连接、event loop、路由(含请求资源消耗)、静态资源缓存、websocket及ByteBuf分配器指标.
+ * <p>直接增量写入池化ByteBuf(数值按字符写入, 不拼接字符串), 指标数量较多时也不会产生大量临时对象.</p>
+ * @author jiashunx
+ */
+public class MPrometheusRenderer {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    /**
+     * 请求耗时直方图桶边界(微秒), 按直方图桶上边界近似统计.
+     */
+    private static final long[] DURATION_BUCKETS = { 500L, 1000L, 2500L, 5000L, 10000L, 25000L, 50000L, 100000L, 250000L, 500000L, 1000000L, 2500000L, 5000000L, 10000000L };
+    private static final String[] DURATION_BUCKET_LABELS = { "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10" };
+    private static final double[] QUANTILES = { 50D, 90D, 99D };
+    private static final String[] QUANTILE_LABELS = { "0.5", "0.9", "0.99" };
+    private static final String[] PHASES = { "queue", "filter", "handler", "write" };
+
+    private final MRestServer restServer;
+    private final ByteBuf buf;
+    private final byte[] digits = new byte[20];
+    private boolean labelOpen;
+
+    private Contexts contexts;
+
+    private MPrometheusRenderer(MRestServer restServer, ByteBuf buf) {
+        this.restServer = Objects.requireNonNull(restServer);
+        this.buf = Objects.requireNonNull(buf);
+    }
+
+    /**
+     * 输出server全部指标.
+     * @param restServer restServer
+     * @param allocator allocator
+     * @return 指标内容(调用方负责释放)
+     */
+    public static ByteBuf render(MRestServer restServer, ByteBufAllocator allocator) {
+        ByteBuf buf = allocator.buffer(INITIAL_CAPACITY);
+        try {
+            new MPrometheusRenderer(restServer, buf).render();
+            return buf;
+        } catch (Throwable throwable) {
+            buf.release();
+            throw throwable;
+        }
+    }
+
+    private void render() {
+        contexts = new Contexts(restServer);
+        renderServer();
+        renderRoutes();
+        renderStaticCache();
+        renderWebsocket();
+        renderAllocator();
+    }
+
+    private void renderServer() {
+        MServerMetrics serverMetrics = restServer.getMetrics();
+        family("masker_rest_server_info", "gauge", "masker-rest server information");
+        sample("masker_rest_server_info").label("server", restServer.getServerName())
+                .label("port", String.valueOf(restServer.getListenPort()))
+                .label("version", MRestUtils.getFrameworkVersion()).value(1L);
+        family("masker_rest_server_start_time_seconds", "gauge", "server start time since unix epoch in seconds");
+        sample("masker_rest_server_start_time_seconds").value(serverMetrics.getStartTimeMillis() / 1000L);
+        family("masker_rest_connections_active", "gauge", "active connections");
+        sample("masker_rest_connections_active").value(serverMetrics.getActiveConnections());
+        family("masker_rest_connections_accepted_total", "counter", "accepted connections");
+        sample("masker_rest_connections_accepted_total").value(serverMetrics.getAcceptedConnections());
+        EventLoopGroup workerGroup = restServer.getWorkerGroup();
+        if (workerGroup != null) {
+            family("masker_rest_event_loop_pending_tasks", "gauge", "pending tasks of worker event loops");
+            int index = 0;
+            for (EventExecutor executor: workerGroup) {
+                if (executor instanceof SingleThreadEventExecutor) {
+                    sample("masker_rest_event_loop_pending_tasks").label("loop", String.valueOf(index))
+                            .value(((SingleThreadEventExecutor) executor).pendingTasks());
+                }
+                index++;
+            }
+        }
+        MEventLoopWatchdog watchdog = restServer.getEventLoopWatchdog();
+        if (watchdog != null) {
+            family("masker_rest_event_loop_lag_seconds", "gauge", "delay of the latest heartbeat task on worker event loops");
+            for (MEventLoopWatchdog.LoopState loopState: watchdog.getLoopStates()) {
+                sample("masker_rest_event_loop_lag_seconds").label("loop", String.valueOf(loopState.getIndex()))
+                        .valueSeconds(TimeUnit.NANOSECONDS.toMicros(loopState.getLagNanos()));
+            }
+            family("masker_rest_event_loop_blocked_total", "counter", "times worker event loops were blocked longer than the threshold");
+            for (MEventLoopWatchdog.LoopState loopState: watchdog.getLoopStates()) {
+                sample("masker_rest_event_loop_blocked_total").label("loop", String.valueOf(loopState.getIndex()))
+                        .value(loopState.getBlockedCount());
+            }
+        }
+        MAccessLogger accessLogger = restServer.getAccessLogger();
+        if (accessLogger != null) {
+            family("masker_rest_access_log_written_total", "counter", "access log entries written");
+            sample("masker_rest_access_log_written_total").value(accessLogger.getWrittenCount());
+            family("masker_rest_access_log_dropped_total", "counter", "access log entries dropped because the buffer was full");
+            sample("masker_rest_access_log_dropped_total").value(accessLogger.getDroppedCount());
+            family("masker_rest_access_log_failed_total", "counter", "access log entries lost because the output failed");
+            sample("masker_rest_access_log_failed_total").value(accessLogger.getFailedCount());
+        }
+    }
+
+    private void renderRoutes() {
+        family("masker_rest_requests_total", "counter", "requests by route");
+        for (MRestContext restContext: contexts.restContexts) {
+            for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                routeSample("masker_rest_requests_total", restContext, routeMetrics).value(routeMetrics.getRequestCount());
+            }
+        }
+        family("masker_rest_request_errors_total", "counter", "failed requests (exception or 5xx) by route");
+        for (MRestContext restContext: contexts.restContexts) {
+            for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                routeSample("masker_rest_request_errors_total", restContext, routeMetrics).value(routeMetrics.getErrorCount());
+            }
+        }
+        family("masker_rest_request_bytes_total", "counter", "request body bytes by route");
+        for (MRestContext restContext: contexts.restContexts) {
+            for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                routeSample("masker_rest_request_bytes_total", restContext, routeMetrics).value(routeMetrics.getBytesIn());
+            }
+        }
+        family("masker_rest_response_bytes_total", "counter", "response body bytes by route");
+        for (MRestContext restContext: contexts.restContexts) {
+            for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                routeSample("masker_rest_response_bytes_total", restContext, routeMetrics).value(routeMetrics.getBytesOut());
+            }
+        }
+        if (restServer.isRequestResourceMetrics()) {
+            family("masker_rest_request_allocated_bytes_total", "counter", "bytes allocated by request handling threads by route");
+            for (MRestContext restContext: contexts.restContexts) {
+                for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                    routeSample("masker_rest_request_allocated_bytes_total", restContext, routeMetrics).value(routeMetrics.getAllocatedBytes());
+                }
+            }
+            family("masker_rest_request_cpu_seconds_total", "counter", "cpu time of request handling threads by route");
+            for (MRestContext restContext: contexts.restContexts) {
+                for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                    routeSample("masker_rest_request_cpu_seconds_total", restContext, routeMetrics)
+                            .valueSeconds(TimeUnit.NANOSECONDS.toMicros(routeMetrics.getCpuTime()));
+                }
+            }
+        }
+        family("masker_rest_request_duration_seconds", "histogram", "request duration by route");
+        for (MRestContext restContext: contexts.restContexts) {
+            for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                renderHistogram(restContext, routeMetrics, routeMetrics.getLatency().snapshot());
+            }
+        }
+        family("masker_rest_request_phase_duration_seconds", "summary", "request duration by route and phase (queue, filter, handler, write)");
+        for (MRestContext restContext: contexts.restContexts) {
+            for (MRouteMetrics routeMetrics: restContext.getMetrics().getRouteMetrics()) {
+                renderSummary(restContext, routeMetrics, PHASES[0], routeMetrics.getQueueLatency().snapshot());
+                renderSummary(restContext, routeMetrics, PHASES[1], routeMetrics.getFilterLatency().snapshot());
+                renderSummary(restContext, routeMetrics, PHASES[2], routeMetrics.getHandlerLatency().snapshot());
+                renderSummary(restContext, routeMetrics, PHASES[3], routeMetrics.getWriteLatency().snapshot());
+            }
+        }
+    }
+
+    private void renderHistogram(MRestContext restContext, MRouteMetrics routeMetrics, MLatencySnapshot snapshot) {
+        String name = "masker_rest_request_duration_seconds";
+        long[] counts = snapshot.getCounts();
+        long cumulative = 0L;
+        int j = 0;
+        for (int i = 0; i < counts.length && j < DURATION_BUCKETS.length; i++) {
+            while (j < DURATION_BUCKETS.length && snapshot.bucketUpperBound(i) > DURATION_BUCKETS[j]) {
+                routeSample(name, "_bucket", restContext, routeMetrics).label("le", DURATION_BUCKET_LABELS[j]).value(cumulative);
+                j++;
+            }
+            cumulative += counts[i];
+        }
+        for (; j < DURATION_BUCKETS.length; j++) {
+            routeSample(name, "_bucket", restContext, routeMetrics).label("le", DURATION_BUCKET_LABELS[j]).value(cumulative);
+        }
+        routeSample(name, "_bucket", restContext, routeMetrics).label("le", "+Inf").value(snapshot.getCount());
+        routeSample(name, "_sum", restContext, routeMetrics).valueSeconds(snapshot.getSum());
+        routeSample(name, "_count", restContext, routeMetrics).value(snapshot.getCount());
+    }
+
+    private void renderSummary(MRestContext restContext, MRouteMetrics routeMetrics, String phase, MLatencySnapshot snapshot) {
+        String name = "masker_rest_request_phase_duration_seconds";
+        for (int i = 0; i < QUANTILES.length; i++) {
+            routeSample(name, null, restContext, routeMetrics).label("phase", phase).label("quantile", QUANTILE_LABELS[i])
+                    .valueSeconds(snapshot.getValueAtPercentile(QUANTILES[i]));
+        }
+        routeSample(name, "_sum", restContext, routeMetrics).label("phase", phase).valueSeconds(snapshot.getSum());
+        routeSample(name, "_count", restContext, routeMetrics).label("phase", phase).value(snapshot.getCount());
+    }
+
+    private void renderStaticCache() {
+        family("masker_rest_static_cache_entries", "gauge", "cached static resources (including not found entries)");
+        for (MRestContext restContext: contexts.restContexts) {
+            sample("masker_rest_static_cache_entries").label("context", restContext.getContextPath())
+                    .value(restContext.getStaticResourceFinder().getCacheSize());
+        }
+        family("masker_rest_static_cache_bytes", "gauge", "cached static resource content bytes");
+        for (MRestContext restContext: contexts.restContexts) {
+            sample("masker_rest_static_cache_bytes").label("context", restContext.getContextPath())
+                    .value(restContext.getStaticResourceFinder().getCacheBytes());
+        }
+        family("masker_rest_static_cache_hits_total", "counter", "static resource cache hits");
+        for (MRestContext restContext: contexts.restContexts) {
+            sample("masker_rest_static_cache_hits_total").label("context", restContext.getContextPath())
+                    .value(restContext.getStaticResourceFinder().getCacheHitCount());
+        }
+        family("masker_rest_static_cache_misses_total", "counter", "static resource cache misses");
+        for (MRestContext restContext: contexts.restContexts) {
+            StaticResourceFinder finder = restContext.getStaticResourceFinder();
+            sample("masker_rest_static_cache_misses_total").label("context", restContext.getContextPath())
+                    .value(finder.getCacheMissCount());
+        }
+    }
+
+    private void renderWebsocket() {
+        family("masker_rest_websocket_sessions", "gauge", "connected websocket sessions");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            websocketSample("masker_rest_websocket_sessions", websocketContext).value(websocketContext.getSessionGroup().size());
+        }
+        family("masker_rest_websocket_outbound_queue_depth", "gauge", "frames waiting in websocket outbound queues");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            websocketSample("masker_rest_websocket_outbound_queue_depth", websocketContext).value(websocketContext.getOutboundQueueDepth());
+        }
+        family("masker_rest_websocket_dropped_frames_total", "counter", "frames dropped by outbound queue overflow");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            websocketSample("masker_rest_websocket_dropped_frames_total", websocketContext).value(websocketContext.getDroppedFrameCount());
+        }
+        family("masker_rest_websocket_coalesced_frames_total", "counter", "frames replaced by newer frames with the same coalesce key");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            websocketSample("masker_rest_websocket_coalesced_frames_total", websocketContext).value(websocketContext.getCoalescedFrameCount());
+        }
+        family("masker_rest_websocket_overflow_disconnects_total", "counter", "sessions closed by outbound queue overflow");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            websocketSample("masker_rest_websocket_overflow_disconnects_total", websocketContext).value(websocketContext.getOverflowDisconnectCount());
+        }
+        family("masker_rest_websocket_admitted_total", "counter", "admitted websocket handshakes");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            websocketSample("masker_rest_websocket_admitted_total", websocketContext).value(websocketContext.getAdmission().getAdmittedCount());
+        }
+        family("masker_rest_websocket_admission_rejected_total", "counter", "rejected websocket handshakes by reason");
+        for (MWebsocketContext websocketContext: contexts.websocketContexts) {
+            MWebsocketAdmission admission = websocketContext.getAdmission();
+            websocketSample("masker_rest_websocket_admission_rejected_total", websocketContext).label("reason", "server_limit").value(admission.getRejectedByServerLimitCount());
+            websocketSample("masker_rest_websocket_admission_rejected_total", websocketContext).label("reason", "context_limit").value(admission.getRejectedByContextLimitCount());
+            websocketSample("masker_rest_websocket_admission_rejected_total", websocketContext).label("reason", "ip_limit").value(admission.getRejectedByIpLimitCount());
+            websocketSample("masker_rest_websocket_admission_rejected_total", websocketContext).label("reason", "rate_limit").value(admission.getRejectedByRateLimitCount());
+        }
+    }
+
+    private void renderAllocator() {
+        ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+        if (!(allocator instanceof ByteBufAllocatorMetricProvider)) {
+            return;
+        }
+        ByteBufAllocatorMetric metric = ((ByteBufAllocatorMetricProvider) allocator).metric();
+        family("masker_rest_bytebuf_allocator_used_bytes", "gauge", "memory used by the default ByteBuf allocator");
+        sample("masker_rest_bytebuf_allocator_used_bytes").label("type", "heap").value(metric.usedHeapMemory());
+        sample("masker_rest_bytebuf_allocator_used_bytes").label("type", "direct").value(metric.usedDirectMemory());
+        if (metric instanceof PooledByteBufAllocatorMetric) {
+            PooledByteBufAllocatorMetric pooledMetric = (PooledByteBufAllocatorMetric) metric;
+            family("masker_rest_bytebuf_allocator_arenas", "gauge", "arenas of the pooled ByteBuf allocator");
+            sample("masker_rest_bytebuf_allocator_arenas").label("type", "heap").value(pooledMetric.numHeapArenas());
+            sample("masker_rest_bytebuf_allocator_arenas").label("type", "direct").value(pooledMetric.numDirectArenas());
+            family("masker_rest_bytebuf_allocator_thread_caches", "gauge", "thread local caches of the pooled ByteBuf allocator");
+            sample("masker_rest_bytebuf_allocator_thread_caches").value(pooledMetric.numThreadLocalCaches());
+        }
+    }
+
+    /*********************************************** 输出 ***********************************************/
+
+    private void family(String name, String type, String help) {
+        ByteBufUtil.writeAscii(buf, "# HELP ");
+        ByteBufUtil.writeAscii(buf, name);
+        buf.writeByte(' ');
+        ByteBufUtil.writeAscii(buf, help);
+        ByteBufUtil.writeAscii(buf, "\n# TYPE ");
+        ByteBufUtil.writeAscii(buf, name);
+        buf.writeByte(' ');
+        ByteBufUtil.writeAscii(buf, type);
+        buf.writeByte('\n');
+    }
+
+    private MPrometheusRenderer sample(String name) {
+        return sample(name, null);
+    }
+
+    private MPrometheusRenderer sample(String name, String suffix) {
+        ByteBufUtil.writeAscii(buf, name);
+        if (suffix != null) {
+            ByteBufUtil.writeAscii(buf, suffix);
+        }
+        labelOpen = false;
+        return this;
+    }
+
+    private MPrometheusRenderer routeSample(String name, MRestContext restContext, MRouteMetrics routeMetrics) {
+        return routeSample(name, null, restContext, routeMetrics);
+    }
+
+    private MPrometheusRenderer routeSample(String name, String suffix, MRestContext restContext, MRouteMetrics routeMetrics) {
+        return sample(name, suffix).label("context", restContext.getContextPath()).label("route", routeMetrics.getRoute());
+    }
+
+    private MPrometheusRenderer websocketSample(String name, MWebsocketContext websocketContext) {
+        return sample(name).label("context", websocketContext.getRestContext().getContextPath())
+                .label("websocket", websocketContext.getWebsocketUrl());
+    }
+
+    private MPrometheusRenderer label(String key, String value) {
+        buf.writeByte(labelOpen ? ',' : '{');
+        labelOpen = true;
+        ByteBufUtil.writeAscii(buf, key);
+        buf.writeByte('=');
+        buf.writeByte('"');
+        writeLabelValue(value);
+        buf.writeByte('"');
+        return this;
+    }
+
+    private void writeLabelValue(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean plain = true;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || c == '\\' || c == '"' || c == '\n') {
+                plain = false;
+                break;
+            }
+        }
+        if (plain) {
+            ByteBufUtil.writeAscii(buf, value);
+            return;
+        }
+        ByteBufUtil.writeUtf8(buf, value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"));
+    }
+
+    private void value(long value) {
+        if (labelOpen) {
+            buf.writeByte('}');
+        }
+        buf.writeByte(' ');
+        writeLong(value);
+        buf.writeByte('\n');
+    }
+
+    /**
+     * 输出以秒为单位的数值.
+     * @param micros 微秒
+     */
+    private void valueSeconds(long micros) {
+        if (labelOpen) {
+            buf.writeByte('}');
+        }
+        buf.writeByte(' ');
+        if (micros < 0L) {
+            buf.writeByte('-');
+            micros = -micros;
+        }
+        writeLong(micros / 1000000L);
+        long fraction = micros % 1000000L;
+        if (fraction != 0L) {
+            buf.writeByte('.');
+            for (long divisor = 100000L; divisor > 0L && fraction != 0L; divisor /= 10L) {
+                buf.writeByte((int) ('0' + fraction / divisor));
+                fraction %= divisor;
+            }
+        }
+        buf.writeByte('\n');
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            ByteBufUtil.writeAscii(buf, Long.toString(value));
+            return;
+        }
+        if (value < 0L) {
+            buf.writeByte('-');
+            value = -value;
+        }
+        int index = digits.length;
+        do {
+            digits[--index] = (byte) ('0' + value % 10L);
+            value /= 10L;
+        } while (value != 0L);
+        buf.writeBytes(digits, index, digits.length - index);
+    }
+
+    /**
+     * server内context及websocket context列表(每次输出时获取一次).
+     */
+    private static class Contexts {
+        final List<MRestContext> restContexts = new ArrayList<>();
+        final List<MWebsocketContext> websocketContexts = new ArrayList<>();
+
+        Contexts(MRestServer restServer) {
+            for (String contextPath: restServer.getContextList()) {
+                MRestContext restContext = restServer.getContext(contextPath);
+                if (restContext == null) {
+                    continue;
+                }
+                restContexts.add(restContext);
+                websocketContexts.addAll(restContext.getWebsocketContexts());
+            }
+        }
+    }
+
+}
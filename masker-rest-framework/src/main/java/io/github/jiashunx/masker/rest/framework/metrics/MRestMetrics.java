@@ -0,0 +1,61 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MRestContext请求指标: 按路由(url映射模板, 而非实际请求url)记录.
+ * <p>静态资源请求统一记录为{@link #ROUTE_STATIC}, 未匹配任何处理器的请求统一记录为{@link #ROUTE_UNMATCHED}.</p>
+ * @author jiashunx
+ */
+public class MRestMetrics {
+
+    public static final String ROUTE_STATIC = "[static]";
+    public static final String ROUTE_UNMATCHED = "[unmatched]";
+
+    private final MRestContext restContext;
+    private final Map<String, MRouteMetrics> routeMetricsMap = new ConcurrentHashMap<>();
+    private final MRouteMetrics staticRouteMetrics;
+    private final MRouteMetrics unmatchedRouteMetrics;
+
+    public MRestMetrics(MRestContext restContext) {
+        this.restContext = Objects.requireNonNull(restContext);
+        this.staticRouteMetrics = getRouteMetrics(ROUTE_STATIC);
+        this.unmatchedRouteMetrics = getRouteMetrics(ROUTE_UNMATCHED);
+    }
+
+    public MRestContext getRestContext() {
+        return restContext;
+    }
+
+    /**
+     * 获取路由指标(不存在则创建).
+     * @param route 路由(url映射模板)
+     * @return MRouteMetrics
+     */
+    public MRouteMetrics getRouteMetrics(String route) {
+        MRouteMetrics routeMetrics = routeMetricsMap.get(route);
+        if (routeMetrics == null) {
+            routeMetrics = routeMetricsMap.computeIfAbsent(route, MRouteMetrics::new);
+        }
+        return routeMetrics;
+    }
+
+    public MRouteMetrics getStaticRouteMetrics() {
+        return staticRouteMetrics;
+    }
+
+    public MRouteMetrics getUnmatchedRouteMetrics() {
+        return unmatchedRouteMetrics;
+    }
+
+    public Collection<MRouteMetrics> getRouteMetrics() {
+        return Collections.unmodifiableCollection(routeMetricsMap.values());
+    }
+
+}
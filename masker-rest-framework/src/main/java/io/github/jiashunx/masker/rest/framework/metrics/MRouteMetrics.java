@@ -0,0 +1,131 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由(url映射模板)的请求指标: 请求数、错误数、请求/响应字节数及各阶段耗时直方图.
+ * <p>耗时阶段: queue(开始接收请求至开始处理), filter(filter链耗时, 不含处理器), handler(处理器耗时), write(响应输出耗时), total(总耗时).</p>
+ * <p>启用请求资源统计时另记录请求处理线程(含处理器移交任务的线程)的分配字节数及CPU时间.</p>
+ * @author jiashunx
+ */
+public class MRouteMetrics {
+
+    private final String route;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder cpuTime = new LongAdder();
+    private final MLatencyHistogram latency = new MLatencyHistogram();
+    private final MLatencyHistogram queueLatency = new MLatencyHistogram();
+    private final MLatencyHistogram filterLatency = new MLatencyHistogram();
+    private final MLatencyHistogram handlerLatency = new MLatencyHistogram();
+    private final MLatencyHistogram writeLatency = new MLatencyHistogram();
+
+    public MRouteMetrics(String route) {
+        this.route = Objects.requireNonNull(route);
+    }
+
+    /**
+     * 记录一次请求(各耗时单位: 纳秒).
+     * @param queueNanos queue阶段耗时
+     * @param filterNanos filter阶段耗时
+     * @param handlerNanos handler阶段耗时
+     * @param writeNanos write阶段耗时
+     * @param totalNanos 总耗时
+     * @param requestBytes 请求体字节数
+     * @param responseBytes 响应体字节数
+     * @param error 是否处理失败(抛出异常或响应状态码为5xx)
+     */
+    public void record(long queueNanos, long filterNanos, long handlerNanos, long writeNanos, long totalNanos
+            , long requestBytes, long responseBytes, boolean error) {
+        requestCount.increment();
+        if (error) {
+            errorCount.increment();
+        }
+        if (requestBytes > 0L) {
+            bytesIn.add(requestBytes);
+        }
+        if (responseBytes > 0L) {
+            bytesOut.add(responseBytes);
+        }
+        queueLatency.recordNanos(queueNanos);
+        filterLatency.recordNanos(filterNanos);
+        handlerLatency.recordNanos(handlerNanos);
+        writeLatency.recordNanos(writeNanos);
+        latency.recordNanos(totalNanos);
+    }
+
+    /**
+     * 累加请求处理消耗的资源(同一请求在多个线程上处理时分别累加).
+     * @param allocatedBytes 分配字节数
+     * @param cpuNanos CPU时间(纳秒)
+     */
+    public void recordResource(long allocatedBytes, long cpuNanos) {
+        if (allocatedBytes > 0L) {
+            this.allocatedBytes.add(allocatedBytes);
+        }
+        if (cpuNanos > 0L) {
+            this.cpuTime.add(cpuNanos);
+        }
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * 累计分配字节数.
+     * @return long
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * 累计CPU时间(纳秒).
+     * @return long
+     */
+    public long getCpuTime() {
+        return cpuTime.sum();
+    }
+
+    public MLatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public MLatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    public MLatencyHistogram getFilterLatency() {
+        return filterLatency;
+    }
+
+    public MLatencyHistogram getHandlerLatency() {
+        return handlerLatency;
+    }
+
+    public MLatencyHistogram getWriteLatency() {
+        return writeLatency;
+    }
+
+}
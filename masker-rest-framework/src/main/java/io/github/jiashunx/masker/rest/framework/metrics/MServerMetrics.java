@@ -0,0 +1,45 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * server级指标: 连接数等.
+ * @author jiashunx
+ */
+public class MServerMetrics {
+
+    private final long startTimeMillis = System.currentTimeMillis();
+    private final AtomicInteger activeConnections = new AtomicInteger(0);
+    private final LongAdder acceptedConnections = new LongAdder();
+    /**
+     * 连接关闭监听(各连接共用).
+     */
+    private final ChannelFutureListener connectionCloseListener = future -> activeConnections.decrementAndGet();
+
+    /**
+     * 记录新建立的连接, 连接关闭时自动扣减活跃连接数.
+     * @param channel channel
+     */
+    public void connectionOpened(Channel channel) {
+        acceptedConnections.increment();
+        activeConnections.incrementAndGet();
+        channel.closeFuture().addListener(connectionCloseListener);
+    }
+
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 当前线程资源消耗读取: 线程累计分配字节数(com.sun.management.ThreadMXBean)及线程CPU时间.
+ * <p>运行环境不支持时对应方法返回-1, 调用方据此跳过统计.</p>
+ * @author jiashunx
+ */
+public final class MThreadResourceMeter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MThreadResourceMeter.class);
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN;
+    private static final ThreadMXBean CPU_BEAN;
+    static {
+        com.sun.management.ThreadMXBean allocationBean = null;
+        ThreadMXBean cpuBean = null;
+        try {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+                allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    allocationBean.setThreadAllocatedMemoryEnabled(true);
+                }
+            }
+            if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+                cpuBean = threadMXBean;
+                if (!cpuBean.isThreadCpuTimeEnabled()) {
+                    cpuBean.setThreadCpuTimeEnabled(true);
+                }
+            }
+        } catch (Throwable throwable) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("thread allocated memory or cpu time measurement not available", throwable);
+            }
+        }
+        ALLOCATION_BEAN = allocationBean;
+        CPU_BEAN = cpuBean;
+    }
+
+    private MThreadResourceMeter() {}
+
+    public static boolean isAllocationSupported() {
+        return ALLOCATION_BEAN != null;
+    }
+
+    public static boolean isCpuTimeSupported() {
+        return CPU_BEAN != null;
+    }
+
+    /**
+     * 当前线程累计分配字节数.
+     * @return 字节数(不支持时返回-1)
+     */
+    public static long getAllocatedBytes() {
+        return ALLOCATION_BEAN == null ? -1L : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 当前线程累计CPU时间.
+     * @return 纳秒(不支持时返回-1)
+     */
+    public static long getCpuTime() {
+        return CPU_BEAN == null ? -1L : CPU_BEAN.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * 开始统计当前线程资源消耗.
+     * @return 统计起点(运行环境均不支持时返回null)
+     */
+    public static Usage start() {
+        if (ALLOCATION_BEAN == null && CPU_BEAN == null) {
+            return null;
+        }
+        return new Usage(getAllocatedBytes(), getCpuTime());
+    }
+
+    /**
+     * 单个线程上的资源统计起点, 仅可在创建它的线程上调用{@link #stop(MRouteMetrics)}.
+     */
+    public static final class Usage {
+        private final long allocatedBytes;
+        private final long cpuTime;
+
+        private Usage(long allocatedBytes, long cpuTime) {
+            this.allocatedBytes = allocatedBytes;
+            this.cpuTime = cpuTime;
+        }
+
+        /**
+         * 结束统计并将统计起点以来的分配字节数及CPU时间累加至路由指标.
+         * @param routeMetrics routeMetrics
+         */
+        public void stop(MRouteMetrics routeMetrics) {
+            long allocated = allocatedBytes < 0L ? 0L : Math.max(0L, getAllocatedBytes() - allocatedBytes);
+            long cpu = cpuTime < 0L ? 0L : Math.max(0L, getCpuTime() - cpuTime);
+            routeMetrics.recordResource(allocated, cpu);
+        }
+    }
+
+}
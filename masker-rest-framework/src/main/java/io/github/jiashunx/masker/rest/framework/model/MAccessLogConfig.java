@@ -0,0 +1,194 @@
+package io.github.jiashunx.masker.rest.framework.model;
+
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.type.MAccessLogOutput;
+import io.github.jiashunx.masker.rest.framework.util.StringUtils;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 访问日志配置.
+ * @author jiashunx
+ */
+public class MAccessLogConfig {
+
+    /**
+     * 输出方式.
+     */
+    private MAccessLogOutput output = MAccessLogOutput.SLF4J;
+    /**
+     * 日志文件目录(输出至文件时必须指定).
+     */
+    private String directory;
+    /**
+     * 日志文件名前缀(文件名: 前缀.yyyy-MM-dd[.序号].log).
+     */
+    private String fileNamePrefix = Constants.ACCESS_LOG_FILE_NAME_PREFIX;
+    /**
+     * 单个日志文件最大字节数(超过后滚动至新文件).
+     */
+    private long maxFileSize = Constants.ACCESS_LOG_MAX_FILE_SIZE;
+    /**
+     * 最多保留的日志文件数量(0表示不清理).
+     */
+    private int maxFiles = 0;
+    /**
+     * 环形缓冲区容量(向上取整为2的幂, 缓冲区满时丢弃并计数).
+     */
+    private int bufferSize = Constants.ACCESS_LOG_BUFFER_SIZE;
+    /**
+     * 采样率(0-1, 1表示记录全部请求).
+     */
+    private double sampleRate = 1D;
+    /**
+     * 慢请求阈值(毫秒, 大于0时仅记录耗时不低于阈值的请求).
+     */
+    private long slowThresholdMillis = 0L;
+    /**
+     * 失败请求(异常或5xx)是否不受采样及慢请求过滤.
+     */
+    private boolean alwaysLogErrors = true;
+
+    public MAccessLogConfig() {}
+
+    public static MAccessLogConfig newInstance() {
+        return new MAccessLogConfig();
+    }
+
+    public static MAccessLogConfig newInstance(Consumer<MAccessLogConfig> consumer) {
+        MAccessLogConfig config = newInstance();
+        consumer.accept(config);
+        return config;
+    }
+
+    /**
+     * 输出至文件.
+     * @param directory 日志文件目录
+     * @return MAccessLogConfig
+     */
+    public MAccessLogConfig file(String directory) {
+        if (StringUtils.isEmpty(directory)) {
+            throw new IllegalArgumentException("access log directory can't be empty");
+        }
+        this.output = MAccessLogOutput.FILE;
+        this.directory = directory;
+        return this;
+    }
+
+    /**
+     * 输出至SLF4J.
+     * @return MAccessLogConfig
+     */
+    public MAccessLogConfig slf4j() {
+        this.output = MAccessLogOutput.SLF4J;
+        return this;
+    }
+
+    public MAccessLogOutput getOutput() {
+        return output;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public MAccessLogConfig fileNamePrefix(String fileNamePrefix) {
+        if (StringUtils.isEmpty(fileNamePrefix)) {
+            throw new IllegalArgumentException("access log file name prefix can't be empty");
+        }
+        this.fileNamePrefix = fileNamePrefix;
+        return this;
+    }
+
+    public String getFileNamePrefix() {
+        return fileNamePrefix;
+    }
+
+    public MAccessLogConfig maxFileSize(long maxFileSize) {
+        if (maxFileSize <= 0L) {
+            throw new IllegalArgumentException("access log maxFileSize must be positive");
+        }
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public MAccessLogConfig maxFiles(int maxFiles) {
+        if (maxFiles < 0) {
+            throw new IllegalArgumentException("access log maxFiles can't be negative");
+        }
+        this.maxFiles = maxFiles;
+        return this;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    public MAccessLogConfig bufferSize(int bufferSize) {
+        if (bufferSize <= 0 || bufferSize > Constants.ACCESS_LOG_MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("access log bufferSize must be in (0, " + Constants.ACCESS_LOG_MAX_BUFFER_SIZE + "]");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public MAccessLogConfig sampleRate(double sampleRate) {
+        if (!(sampleRate > 0D && sampleRate <= 1D)) {
+            throw new IllegalArgumentException("access log sampleRate must be in (0, 1]");
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 仅记录慢请求.
+     * @param slowThresholdMillis 慢请求阈值(毫秒, 0表示记录全部请求)
+     * @return MAccessLogConfig
+     */
+    public MAccessLogConfig slowThresholdMillis(long slowThresholdMillis) {
+        if (slowThresholdMillis < 0L) {
+            throw new IllegalArgumentException("access log slowThresholdMillis can't be negative");
+        }
+        this.slowThresholdMillis = slowThresholdMillis;
+        return this;
+    }
+
+    public long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    public MAccessLogConfig alwaysLogErrors(boolean alwaysLogErrors) {
+        this.alwaysLogErrors = alwaysLogErrors;
+        return this;
+    }
+
+    public boolean isAlwaysLogErrors() {
+        return alwaysLogErrors;
+    }
+
+    /**
+     * 校验配置.
+     * @return MAccessLogConfig
+     */
+    public MAccessLogConfig check() {
+        Objects.requireNonNull(output);
+        if (output == MAccessLogOutput.FILE && StringUtils.isEmpty(directory)) {
+            throw new IllegalArgumentException("access log directory can't be empty");
+        }
+        return this;
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.github.jiashunx.masker.rest.framework.model;
+
+import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.util.MRestUtils;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import io.netty.util.AsciiString;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * 框架响应header: 在server创建时一次性编码完成, 每次响应时直接添加至netty的HttpHeaders, 不再逐请求编码.
+ * @author jiashunx
+ */
+public class MRestFrameworkHeaders {
+
+    private static final AsciiString SERVER_FRAMEWORK_NAME = AsciiString.cached(Constants.HTTP_HEADER_SERVER_FRAMEWORK_NAME);
+    private static final AsciiString SERVER_FRAMEWORK_VERSION = AsciiString.cached(Constants.HTTP_HEADER_SERVER_FRAMEWORK_VERSION);
+    private static final AsciiString SERVER_STARTUP_TIME = AsciiString.cached(Constants.HTTP_HEADER_SERVER_STARTUP_TIME);
+    private static final AsciiString SERVER_IDENTIFIER = AsciiString.cached(Constants.HTTP_HEADER_SERVER_IDENTIFIER);
+
+    private final MRestServer restServer;
+    private final AsciiString frameworkName;
+    private final AsciiString frameworkVersion;
+    private final AsciiString startupTime;
+    private final AsciiString identifier;
+    private final AsciiString identifierCookie;
+    /**
+     * Date header缓存(每秒刷新一次).
+     */
+    private volatile CachedDate cachedDate = new CachedDate(0L);
+
+    public MRestFrameworkHeaders(MRestServer restServer) {
+        this.restServer = Objects.requireNonNull(restServer);
+        this.frameworkName = new AsciiString(MRestUtils.getFrameworkName());
+        this.frameworkVersion = new AsciiString(MRestUtils.getFrameworkVersion());
+        this.startupTime = new AsciiString(restServer.getStartupTime());
+        this.identifier = new AsciiString(restServer.getIdentifier());
+        Cookie cookie = new DefaultCookie(Constants.HTTP_HEADER_SERVER_IDENTIFIER, restServer.getIdentifier());
+        cookie.setPath(Constants.DEFAULT_CONTEXT_PATH);
+        cookie.setMaxAge(Long.MIN_VALUE);
+        this.identifierCookie = new AsciiString(ServerCookieEncoder.STRICT.encode(cookie));
+    }
+
+    /**
+     * 获取Date header值, 同一秒内的请求复用同一编码结果.
+     * @return Date header value
+     */
+    public AsciiString getDate() {
+        long second = System.currentTimeMillis() / 1000L;
+        CachedDate date = this.cachedDate;
+        if (date.second != second) {
+            date = new CachedDate(second);
+            this.cachedDate = date;
+        }
+        return date.value;
+    }
+
+    /**
+     * 根据context配置添加框架响应header.
+     * @param httpHeaders netty响应header
+     * @param restContext restContext
+     */
+    public void addTo(HttpHeaders httpHeaders, MRestContext restContext) {
+        if (restContext.isFrameworkHeaders()) {
+            httpHeaders.add(SERVER_FRAMEWORK_NAME, frameworkName);
+            httpHeaders.add(SERVER_FRAMEWORK_VERSION, frameworkVersion);
+            httpHeaders.add(SERVER_STARTUP_TIME, startupTime);
+            httpHeaders.add(SERVER_IDENTIFIER, identifier);
+        }
+        if (restContext.isFrameworkCookie()) {
+            httpHeaders.add(HttpHeaderNames.SET_COOKIE, identifierCookie);
+        }
+        // 处理器已指定Date时不重复添加(RFC 7231: Date header仅允许出现一次)
+        if (restContext.isDateHeader() && !httpHeaders.contains(HttpHeaderNames.DATE)) {
+            httpHeaders.add(HttpHeaderNames.DATE, getDate());
+        }
+        if (restServer.isConnectionKeepAlive() && !httpHeaders.contains(HttpHeaderNames.CONNECTION)) {
+            httpHeaders.add(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        }
+    }
+
+    private static class CachedDate {
+        final long second;
+        final AsciiString value;
+        CachedDate(long second) {
+            this.second = second;
+            this.value = new AsciiString(DateFormatter.format(new Date(second * 1000L)));
+        }
+    }
+
+}
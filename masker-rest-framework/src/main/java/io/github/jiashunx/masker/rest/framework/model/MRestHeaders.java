@@ -1,28 +1,36 @@
 package io.github.jiashunx.masker.rest.framework.model;
 
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+
 import java.util.*;
 
 /**
+ * 响应header容器, 基于netty DefaultHttpHeaders实现(header名称大小写不敏感, 按名称哈希索引).
  * @author jiashunx
  */
 public class MRestHeaders {
 
-    private final List<MRestHeader> $headers;
+    private final HttpHeaders $headers;
 
     public MRestHeaders() {
-        this.$headers = new ArrayList<>();
+        this.$headers = new DefaultHttpHeaders();
     }
 
     public MRestHeaders(MRestHeaders headers) {
-        this(headers == null ? new LinkedList<>() : headers.getHeaders());
+        this();
+        addAll(headers);
     }
 
     public MRestHeaders(Map<String, Object> headers) {
-        this(mapToHeaders(headers));
+        this();
+        add(headers);
     }
 
     public MRestHeaders(MRestHeader... headerArr) {
-        this(Arrays.asList(headerArr));
+        this();
+        addAll(headerArr);
     }
 
     public MRestHeaders(List<MRestHeader> headerList) {
@@ -40,15 +48,33 @@ public class MRestHeaders {
         return _headers;
     }
 
+    /**
+     * 获取底层netty header对象(响应输出时直接使用, 不再拷贝).
+     * @return HttpHeaders
+     */
+    public HttpHeaders getHttpHeaders() {
+        return $headers;
+    }
+
+    /**
+     * 获取header列表快照.
+     * @return List
+     */
     public List<MRestHeader> getHeaders() {
-        return new ArrayList<>($headers);
+        List<MRestHeader> headerList = new ArrayList<>($headers.size());
+        Iterator<Map.Entry<CharSequence, CharSequence>> iterator = $headers.iteratorCharSequence();
+        while (iterator.hasNext()) {
+            Map.Entry<CharSequence, CharSequence> entry = iterator.next();
+            headerList.add(new MRestHeader(entry.getKey().toString(), entry.getValue().toString()));
+        }
+        return headerList;
     }
 
     public MRestHeaders addAll(MRestHeaders headers) {
-        if (headers == null) {
+        if (headers == null || headers == this) {
             return this;
         }
-        addAll(headers.getHeaders());
+        $headers.add(headers.$headers);
         return this;
     }
 
@@ -57,66 +83,126 @@ public class MRestHeaders {
             return this;
         }
         for (MRestHeader header: headerList) {
-            if (header == null) {
-                continue;
-            }
-            $headers.add(header);
+            add(header);
         }
         return this;
     }
 
     public MRestHeaders addAll(MRestHeader... headerArr) {
-        return addAll(Arrays.asList(headerArr));
+        if (headerArr == null) {
+            return this;
+        }
+        for (MRestHeader header: headerArr) {
+            add(header);
+        }
+        return this;
     }
 
     public MRestHeaders add(MRestHeader header) {
-        return addAll(header);
+        if (header == null) {
+            return this;
+        }
+        return add(header.getKey(), header.getValue());
     }
 
+    /**
+     * 添加header(保留同名header, 名称大小写不敏感), value为null时忽略.
+     * @param key key
+     * @param value value
+     * @return MRestHeaders
+     */
     public MRestHeaders add(String key, Object value) {
-        return add(new MRestHeader(key, value));
+        if (value != null) {
+            $headers.add(String.valueOf(key), value);
+        }
+        return this;
     }
 
     public MRestHeaders add(Map<String, Object> headers) {
-        return addAll(mapToHeaders(headers));
+        if (headers != null && !headers.isEmpty()) {
+            headers.forEach(this::add);
+        }
+        return this;
     }
 
-    public Object get(String key) {
-        List<Object> values = getAll(key);
-        if (values == null || values.isEmpty()) {
-            return null;
+    /**
+     * 设置header(替换同名header, 名称大小写不敏感).
+     * @param key key
+     * @param value value
+     * @return MRestHeaders
+     */
+    public MRestHeaders set(String key, Object value) {
+        if (value == null) {
+            $headers.remove(String.valueOf(key));
+        } else {
+            $headers.set(String.valueOf(key), value);
         }
-        if (values.size() > 1) {
-            throw new RuntimeException("expected one value, but has " + values.size());
+        return this;
+    }
+
+    public MRestHeaders set(Map<String, Object> headers) {
+        if (headers != null && !headers.isEmpty()) {
+            headers.forEach(this::set);
         }
-        return values.get(0);
+        return this;
     }
 
-    public List<Object> getAll(String key) {
-        List<Object> valueList = new LinkedList<>();
-        for (MRestHeader header: $headers) {
-            if (header.getKey().equals(key)) {
-                valueList.add(header.getValue());
+    /**
+     * 合并header: 传入的header覆盖当前同名header, Set-Cookie追加.
+     * @param headers headers
+     * @return MRestHeaders
+     */
+    public MRestHeaders merge(MRestHeaders headers) {
+        if (headers == null || headers == this || headers.isEmpty()) {
+            return this;
+        }
+        Iterator<Map.Entry<CharSequence, CharSequence>> iterator = headers.$headers.iteratorCharSequence();
+        while (iterator.hasNext()) {
+            CharSequence name = iterator.next().getKey();
+            if (!HttpHeaderNames.SET_COOKIE.contentEqualsIgnoreCase(name)) {
+                $headers.remove(name);
             }
         }
-        return valueList;
+        $headers.add(headers.$headers);
+        return this;
+    }
+
+    /**
+     * 获取header值(多值时返回第一个值).
+     * @param key key
+     * @return value
+     */
+    /**
+     * 获取header值(名称大小写不敏感), 存在多个同名header时返回第一个.
+     * @param key key
+     * @return header值(不存在时返回null)
+     */
+    public Object get(String key) {
+        return $headers.get(key);
+    }
+
+    public List<Object> getAll(String key) {
+        return new ArrayList<>($headers.getAll(key));
+    }
+
+    public boolean contains(String key) {
+        return $headers.contains(key);
+    }
+
+    public int size() {
+        return $headers.size();
+    }
+
+    public boolean isEmpty() {
+        return $headers.isEmpty();
     }
 
     public void remove(String key) {
-        $headers.removeIf(header -> header.getKey().equals(key));
+        $headers.remove(key);
     }
 
     public MRestHeaders copy() {
-        MRestHeaders newHeadersObj = new MRestHeaders();
-        List<MRestHeader> headerList = this.getHeaders();
-        if (headerList != null && !headerList.isEmpty()) {
-            for (MRestHeader headerObj: headerList) {
-                if (headerObj != null) {
-                    newHeadersObj.add(headerObj.copy());
-                }
-            }
-        }
-        return newHeadersObj;
+        return new MRestHeaders(this);
     }
 
 }
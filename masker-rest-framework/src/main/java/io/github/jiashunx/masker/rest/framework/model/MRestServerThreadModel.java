@@ -3,6 +3,7 @@ package io.github.jiashunx.masker.rest.framework.model;
 import io.github.jiashunx.masker.rest.framework.MRestContext;
 import io.github.jiashunx.masker.rest.framework.MRestRequest;
 import io.github.jiashunx.masker.rest.framework.MRestResponse;
+import io.netty.util.Recycler;
 
 import java.util.Objects;
 
@@ -11,10 +12,47 @@ import java.util.Objects;
  */
 public class MRestServerThreadModel {
 
+    private static final Recycler<MRestServerThreadModel> RECYCLER = new Recycler<MRestServerThreadModel>() {
+        @Override
+        protected MRestServerThreadModel newObject(Handle<MRestServerThreadModel> handle) {
+            return new MRestServerThreadModel(handle);
+        }
+    };
+
+    /**
+     * 从对象池获取线程模型对象.
+     * @return MRestServerThreadModel
+     */
+    public static MRestServerThreadModel newInstance() {
+        return RECYCLER.get();
+    }
+
+    private final Recycler.Handle<MRestServerThreadModel> recyclerHandle;
     private MRestContext restContext;
     private MRestRequest restRequest;
     private MRestResponse restResponse;
 
+    public MRestServerThreadModel() {
+        this.recyclerHandle = null;
+    }
+
+    private MRestServerThreadModel(Recycler.Handle<MRestServerThreadModel> recyclerHandle) {
+        this.recyclerHandle = recyclerHandle;
+    }
+
+    /**
+     * 回收线程模型对象至对象池(仅对象池创建的对象会被回收).
+     */
+    public void recycle() {
+        if (recyclerHandle == null) {
+            return;
+        }
+        restContext = null;
+        restRequest = null;
+        restResponse = null;
+        recyclerHandle.recycle(this);
+    }
+
     public MRestServerThreadModel assertNotNull() {
         Objects.requireNonNull(restContext);
         Objects.requireNonNull(restRequest);
@@ -6,6 +6,7 @@ import io.github.jiashunx.masker.rest.framework.exception.MRestSerializeExceptio
 import io.github.jiashunx.masker.rest.framework.serialize.impl.MRestJSONSerializer;
 import io.github.jiashunx.masker.rest.framework.global.SharedObjects;
 
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -39,6 +40,14 @@ public class MRestSerializer {
         }
     }
 
+    public static <T> T jsonToObj(InputStream inputStream, Class<T> klass) {
+        try {
+            return SharedObjects.getObjectMapperFromThreadLocal().readValue(inputStream, klass);
+        } catch (Throwable throwable) {
+            throw new MRestSerializeException(throwable);
+        }
+    }
+
     public static <T> List<T> jsonToList(String json, Class<T> klass) {
         try {
             List<T> objList = SharedObjects.getObjectMapperFromThreadLocal().readValue(json, new TypeReference<List<T>>() {
@@ -69,6 +78,21 @@ public class MRestSerializer {
         }
     }
 
+    public static <T> List<T> jsonToList(InputStream inputStream, Class<T> klass) {
+        try {
+            List<T> objList = SharedObjects.getObjectMapperFromThreadLocal().readValue(inputStream, new TypeReference<List<T>>() {
+                @Override
+                public Type getType() {
+                    return super.getType();
+                }
+            });
+            // 默认list obj: LinkedHashMap
+            return transferObjList(objList, klass);
+        } catch (Throwable throwable) {
+            throw new MRestSerializeException(throwable);
+        }
+    }
+
     public static <T> List<T> transferObjList(List<T> objList, Class<T> klass) {
         if (objList == null || objList.isEmpty()) {
             return objList;
@@ -32,6 +32,7 @@ public class MRestDispatchServlet implements MRestServlet {
         MRestContext restContext = restRequest.getRestContext();
         MRestHandler restHandler = restContext.getUrlMappingHandler(requestURL, restRequest.getMethod());
         if (restHandler != null) {
+            restRequest.setRouteMetrics(restHandler.getRouteMetrics());
             handleRequest(restRequest, restResponse, restHandler);
         }
     }
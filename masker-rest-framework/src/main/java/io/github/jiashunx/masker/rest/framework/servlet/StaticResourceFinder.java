@@ -1,6 +1,7 @@
 package io.github.jiashunx.masker.rest.framework.servlet;
 
 import io.github.jiashunx.masker.rest.framework.MRestContext;
+import io.github.jiashunx.masker.rest.framework.jfr.MFlightRecorder;
 import io.github.jiashunx.masker.rest.framework.model.StaticResource;
 import io.github.jiashunx.masker.rest.framework.type.StaticResourceType;
 import io.github.jiashunx.masker.rest.framework.util.IOUtils;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -37,6 +39,11 @@ public class StaticResourceFinder {
      * 静态资源缓存Map(读写锁)
      */
     private final ReentrantReadWriteLock StaticResourceMapReadWriteLock = new ReentrantReadWriteLock();
+    /**
+     * 静态资源缓存命中/未命中(需加载classpath或磁盘资源)次数.
+     */
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder cacheMissCount = new LongAdder();
 
     private final MRestContext restContext;
 
@@ -56,11 +63,15 @@ public class StaticResourceFinder {
     public StaticResource loadResource(String requestUrl0) {
         String requestUrl = MRestUtils.formatPath(requestUrl0);
         StaticResource staticResource = StaticResourceMap.get(requestUrl);
-        if (staticResource == null) {
+        if (staticResource != null) {
+            cacheHitCount.increment();
+        } else {
+            cacheMissCount.increment();
             StaticResourceMapReadWriteLock.writeLock().lock();
             try {
                 staticResource = StaticResourceMap.get(requestUrl);
                 if (staticResource == null) {
+                    Object loadEvent = MFlightRecorder.beginStaticResourceLoad();
                     staticResource = loadResourceFromClasspath(requestUrl);
                     if (staticResource == null) {
                         staticResource = loadResourceFromDiskpath(requestUrl);
@@ -69,6 +80,12 @@ public class StaticResourceFinder {
                         staticResource = NotFoundStaticResource;
                     }
                     StaticResourceMap.put(requestUrl, staticResource);
+                    if (loadEvent != null) {
+                        boolean notFound = staticResource == NotFoundStaticResource;
+                        MFlightRecorder.endStaticResourceLoad(loadEvent, restContext.getContextPath(), requestUrl
+                                , notFound ? "not_found" : staticResource.getType().name().toLowerCase()
+                                , notFound ? 0L : staticResource.getContentBytes().length);
+                    }
                 }
             } finally {
                 StaticResourceMapReadWriteLock.writeLock().unlock();
@@ -80,6 +97,37 @@ public class StaticResourceFinder {
         return staticResource;
     }
 
+    public long getCacheHitCount() {
+        return cacheHitCount.sum();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount.sum();
+    }
+
+    /**
+     * 已缓存的静态资源数量(含未定位到的资源).
+     * @return int
+     */
+    public int getCacheSize() {
+        return StaticResourceMap.size();
+    }
+
+    /**
+     * 已缓存的静态资源内容字节数.
+     * @return long
+     */
+    public long getCacheBytes() {
+        long bytes = 0L;
+        for (StaticResource staticResource: StaticResourceMap.values()) {
+            byte[] contentBytes = staticResource.getContentBytes();
+            if (contentBytes != null) {
+                bytes += contentBytes.length;
+            }
+        }
+        return bytes;
+    }
+
     private StaticResource loadResourceFromClasspath(String requestUrl0) {
         String requestUrl = MRestUtils.formatPath(requestUrl0);
         List<String> classpathResourcePrefixUrls = findPrefixUrls(requestUrl, restContext.getClasspathResourcePrefixUrls());
@@ -0,0 +1,18 @@
+package io.github.jiashunx.masker.rest.framework.type;
+
+/**
+ * 访问日志输出方式.
+ * @author jiashunx
+ */
+public enum MAccessLogOutput {
+
+    /**
+     * 输出至SLF4J(logger名称: masker-rest-access).
+     */
+    SLF4J,
+    /**
+     * 输出至文件(按日期及文件大小滚动).
+     */
+    FILE;
+
+}
@@ -0,0 +1,26 @@
+package io.github.jiashunx.masker.rest.framework.type;
+
+/**
+ * websocket会话出站队列溢出策略.
+ * @author jiashunx
+ */
+public enum MWebsocketOverflowPolicy {
+
+    /**
+     * 丢弃队列中最早的帧.
+     */
+    DROP_OLDEST,
+    /**
+     * 丢弃当前待发送的帧.
+     */
+    DROP_NEWEST,
+    /**
+     * 队列中合并key相同的帧仅保留最新一帧(未指定合并key或key不重复时按DROP_OLDEST处理).
+     */
+    COALESCE_BY_KEY,
+    /**
+     * 队列溢出时丢弃全部待发送帧并关闭连接.
+     */
+    DISCONNECT;
+
+}
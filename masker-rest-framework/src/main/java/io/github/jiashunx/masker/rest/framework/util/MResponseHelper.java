@@ -1,10 +1,11 @@
 package io.github.jiashunx.masker.rest.framework.util;
 
+import io.github.jiashunx.masker.rest.framework.MRestContext;
 import io.github.jiashunx.masker.rest.framework.cons.Constants;
 import io.github.jiashunx.masker.rest.framework.exception.MRestFileDownloadException;
-import io.github.jiashunx.masker.rest.framework.model.MRestHeader;
 import io.github.jiashunx.masker.rest.framework.model.MRestHeaders;
 import io.github.jiashunx.masker.rest.framework.serialize.MRestSerializer;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.handler.codec.http.*;
@@ -13,7 +14,6 @@ import java.io.File;
 import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -64,7 +64,7 @@ public class MResponseHelper {
     }
 
     public static void writeJSON(ChannelHandlerContext ctx, byte[] bytes, MRestHeaders headers) {
-        write(ctx, bytes, new MRestHeaders(headers).add(Constants.HTTP_HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_APPLICATION_JSON));
+        write(ctx, bytes, new MRestHeaders(headers).set(Constants.HTTP_HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_APPLICATION_JSON));
     }
 
     public static void write(ChannelHandlerContext ctx, byte[] bytes) {
@@ -128,10 +128,51 @@ public class MResponseHelper {
     }
 
     public static void write(ChannelHandlerContext ctx, HttpResponseStatus status, byte[] bytes, MRestHeaders headers) {
-        byte[] _bytes = bytes == null ? new byte[0] : bytes;
-        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, Unpooled.wrappedBuffer(_bytes));
-        HttpHeaders httpHeaders = setRespHeaders(response, headers);
-        httpHeaders.remove(Constants.HTTP_HEADER_CONTENT_LENGTH).add(Constants.HTTP_HEADER_CONTENT_LENGTH, response.content().readableBytes());
+        write(ctx, status, bytes, headers, null);
+    }
+
+    /**
+     * 输出响应(添加context对应的框架header).
+     * @param ctx ChannelHandlerContext
+     * @param status HttpResponseStatus
+     * @param bytes bytes
+     * @param headers headers(拷贝后输出, 不修改入参)
+     * @param restContext restContext(为null时不添加框架header)
+     */
+    public static void write(ChannelHandlerContext ctx, HttpResponseStatus status, byte[] bytes, MRestHeaders headers, MRestContext restContext) {
+        write(ctx, status, bytes, copyHttpHeaders(headers), restContext);
+    }
+
+    /**
+     * 输出响应, 直接使用传入的netty header对象作为响应header(不拷贝).
+     * @param ctx ChannelHandlerContext
+     * @param status HttpResponseStatus
+     * @param bytes bytes
+     * @param httpHeaders 响应header
+     * @param restContext restContext(为null时不添加框架header)
+     */
+    public static void write(ChannelHandlerContext ctx, HttpResponseStatus status, byte[] bytes, HttpHeaders httpHeaders, MRestContext restContext) {
+        write(ctx, status, bytes == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(bytes), httpHeaders, restContext);
+    }
+
+    /**
+     * 输出响应, 直接使用传入的netty header对象作为响应header(不拷贝).
+     * @param ctx ChannelHandlerContext
+     * @param status HttpResponseStatus
+     * @param content 响应内容(引用由本方法负责释放)
+     * @param httpHeaders 响应header
+     * @param restContext restContext(为null时不添加框架header)
+     */
+    public static void write(ChannelHandlerContext ctx, HttpResponseStatus status, ByteBuf content, HttpHeaders httpHeaders, MRestContext restContext) {
+        FullHttpResponse response;
+        try {
+            response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content
+                    , addFrameworkHeaders(httpHeaders, restContext), EmptyHttpHeaders.INSTANCE);
+        } catch (Throwable throwable) {
+            content.release();
+            throw throwable;
+        }
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
         ctx.write(response);
         ctx.flush();
     }
@@ -157,14 +198,30 @@ public class MResponseHelper {
     }
 
     public static void write(ChannelHandlerContext ctx, File downloadedFile, MRestHeaders headers, Consumer<File> callback) {
+        write(ctx, downloadedFile, headers, callback, null);
+    }
+
+    public static void write(ChannelHandlerContext ctx, File downloadedFile, MRestHeaders headers, Consumer<File> callback, MRestContext restContext) {
+        write(ctx, downloadedFile, copyHttpHeaders(headers), callback, restContext);
+    }
+
+    /**
+     * 输出文件, 直接使用传入的netty header对象作为响应header(不拷贝).
+     * @param ctx ChannelHandlerContext
+     * @param downloadedFile 文件
+     * @param httpHeaders 响应header
+     * @param callback 输出完成回调
+     * @param restContext restContext(为null时不添加框架header)
+     */
+    public static void write(ChannelHandlerContext ctx, File downloadedFile, HttpHeaders httpHeaders, Consumer<File> callback, MRestContext restContext) {
         try {
             RandomAccessFile randomAccessFile = new RandomAccessFile(downloadedFile, "r");
             long fileLength = randomAccessFile.length();
-            HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
-            HttpHeaders httpHeaders = setRespHeaders(response, headers);
-            httpHeaders.remove(Constants.HTTP_HEADER_CONTENT_LENGTH).add(Constants.HTTP_HEADER_CONTENT_LENGTH, fileLength);
-            httpHeaders.remove(Constants.HTTP_HEADER_CONTENT_TYPE).add(Constants.HTTP_HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_APPLICATION_OCTETSTREAM);
-            httpHeaders.remove(Constants.HTTP_HEADER_CONTENT_DISPOSITION).add(Constants.HTTP_HEADER_CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"", downloadedFile.getName()));
+            HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, addFrameworkHeaders(httpHeaders, restContext));
+            HttpHeaders respHeaders = response.headers();
+            respHeaders.set(HttpHeaderNames.CONTENT_LENGTH, fileLength);
+            respHeaders.set(HttpHeaderNames.CONTENT_TYPE, Constants.CONTENT_TYPE_APPLICATION_OCTETSTREAM);
+            respHeaders.set(HttpHeaderNames.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"", downloadedFile.getName()));
             ctx.write(response);
             ChannelFuture sendFileFuture = ctx.write(new DefaultFileRegion(randomAccessFile.getChannel(), 0, fileLength), ctx.newProgressivePromise());
             sendFileFuture.addListener(new ChannelProgressiveFutureListener() {
@@ -186,15 +243,20 @@ public class MResponseHelper {
         }
     }
 
-    private static HttpHeaders setRespHeaders(HttpResponse response, MRestHeaders headers) {
-        HttpHeaders httpHeaders = response.headers();
+    private static HttpHeaders copyHttpHeaders(MRestHeaders headers) {
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
         if (headers != null) {
-            List<MRestHeader> headerList = headers.getHeaders();
-            headerList.forEach(header -> {
-                httpHeaders.add(header.getKey(), header.getValue());
-            });
+            httpHeaders.add(headers.getHttpHeaders());
         }
         return httpHeaders;
     }
 
+    private static HttpHeaders addFrameworkHeaders(HttpHeaders httpHeaders, MRestContext restContext) {
+        HttpHeaders _httpHeaders = httpHeaders == null ? new DefaultHttpHeaders() : httpHeaders;
+        if (restContext != null) {
+            restContext.getRestServer().getFrameworkHeaders().addTo(_httpHeaders, restContext);
+        }
+        return _httpHeaders;
+    }
+
 }
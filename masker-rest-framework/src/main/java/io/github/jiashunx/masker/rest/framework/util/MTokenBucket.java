@@ -0,0 +1,66 @@
+package io.github.jiashunx.masker.rest.framework.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 令牌桶限流: 按固定速率补充令牌, 桶容量限制突发量.
+ * @author jiashunx
+ */
+public class MTokenBucket {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final double nanosPerPermit;
+    private final LongSupplier nanoClock;
+    private double permits;
+    private long lastRefillTime;
+
+    public MTokenBucket(double permitsPerSecond, int capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    /**
+     * @param permitsPerSecond 每秒补充令牌数
+     * @param capacity 桶容量
+     * @param nanoClock 纳秒时间源(测试时替换)
+     */
+    MTokenBucket(double permitsPerSecond, int capacity, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond -> " + permitsPerSecond);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity -> " + capacity);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.nanoClock = nanoClock;
+        this.permits = capacity;
+        this.lastRefillTime = nanoClock.getAsLong();
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 尝试获取一个令牌.
+     * @return 0表示获取成功, 否则为距离下一个令牌可用的纳秒数
+     */
+    public synchronized long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        permits = Math.min(capacity, permits + (now - lastRefillTime) / nanosPerPermit);
+        lastRefillTime = now;
+        if (permits >= 1.0D) {
+            permits -= 1.0D;
+            return 0L;
+        }
+        return Math.max(1L, (long) Math.ceil((1.0D - permits) * nanosPerPermit));
+    }
+
+}
@@ -0,0 +1,222 @@
+package io.github.jiashunx.masker.rest.framework.util;
+
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.*;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * websocket permessage-deflate压缩扩展协商及预压缩工具类.
+ * @author jiashunx
+ */
+public class MWebsocketCompressionHelper {
+
+    public static final String PERMESSAGE_DEFLATE_EXTENSION = "permessage-deflate";
+    public static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    public static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    private static final int MIN_WINDOW_BITS = 8;
+    private static final int MAX_WINDOW_BITS = 15;
+    /**
+     * netty在压缩窗口小于15时使用jzlib实现压缩(JDK Deflater窗口固定为15).
+     */
+    private static final boolean JZLIB_AVAILABLE = isClassPresent("com.jcraft.jzlib.Deflater");
+    private static final byte[] DEFLATE_TAIL = new byte[] { 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+
+    /**
+     * 根据websocket握手请求协商permessage-deflate扩展.
+     * @param websocketContext websocketContext
+     * @param requestHeaders 握手请求header
+     * @return 协商成功的扩展(客户端未请求或参数不匹配时返回null)
+     */
+    public static WebSocketServerExtension negotiate(MWebsocketContext websocketContext, HttpHeaders requestHeaders) {
+        String extensionsHeader = requestHeaders.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS);
+        if (!websocketContext.isCompression() || StringUtils.isEmpty(extensionsHeader)) {
+            return null;
+        }
+        int minSize = websocketContext.getCompressionMinSize();
+        WebSocketExtensionFilterProvider filterProvider = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                // 小于最小压缩长度的完整消息不压缩(分片消息首帧已开始压缩则后续分片必须压缩)
+                return frame -> frame.isFinalFragment()
+                        && !(frame instanceof ContinuationWebSocketFrame)
+                        && frame.content().readableBytes() < minSize;
+            }
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+        PerMessageDeflateServerExtensionHandshaker handshaker = new PerMessageDeflateServerExtensionHandshaker(
+                websocketContext.getCompressionLevel(), true, websocketContext.getCompressionWindowBits()
+                , true, websocketContext.isCompressionClientNoContextTakeover(), filterProvider);
+        List<WebSocketExtensionData> extensionDataList = WebSocketExtensionUtil.extractExtensions(extensionsHeader);
+        for (WebSocketExtensionData extensionData: extensionDataList) {
+            if (!PERMESSAGE_DEFLATE_EXTENSION.equals(extensionData.name())) {
+                continue;
+            }
+            Map<String, String> parameters = new HashMap<>(extensionData.parameters());
+            // 服务端可在客户端未请求时主动声明server_no_context_takeover(RFC 7692 7.1.1.1)
+            if (websocketContext.isCompressionServerNoContextTakeover()) {
+                parameters.put(SERVER_NO_CONTEXT_TAKEOVER, null);
+            }
+            int serverWindowBits = serverWindowBits(websocketContext, parameters);
+            if (serverWindowBits < MIN_WINDOW_BITS) {
+                continue;
+            }
+            // 服务端窗口取配置值与客户端请求值中的较小值, 小于15时在协商响应中声明(RFC 7692 7.1.2.1)
+            if (serverWindowBits < MAX_WINDOW_BITS) {
+                parameters.put(SERVER_MAX_WINDOW_BITS, String.valueOf(serverWindowBits));
+            } else {
+                parameters.remove(SERVER_MAX_WINDOW_BITS);
+            }
+            extensionData = new WebSocketExtensionData(extensionData.name(), parameters);
+            WebSocketServerExtension extension = handshaker.handshakeExtension(extensionData);
+            if (extension != null) {
+                return extension;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 计算服务端压缩窗口(配置值与客户端请求的server_max_window_bits中的较小值).
+     * @return 窗口位数(客户端请求值非法或当前环境无法使用该窗口压缩时返回-1, 即拒绝该协商请求)
+     */
+    private static int serverWindowBits(MWebsocketContext websocketContext, Map<String, String> parameters) {
+        int windowBits = websocketContext.getCompressionServerWindowBits();
+        if (parameters.containsKey(SERVER_MAX_WINDOW_BITS)) {
+            int requestWindowBits;
+            try {
+                requestWindowBits = Integer.parseInt(String.valueOf(parameters.get(SERVER_MAX_WINDOW_BITS)));
+            } catch (NumberFormatException exception) {
+                return -1;
+            }
+            if (requestWindowBits < MIN_WINDOW_BITS || requestWindowBits > MAX_WINDOW_BITS) {
+                return -1;
+            }
+            windowBits = Math.min(windowBits, requestWindowBits);
+        }
+        if (windowBits < MAX_WINDOW_BITS && !JZLIB_AVAILABLE) {
+            return -1;
+        }
+        return windowBits;
+    }
+
+    private static boolean isClassPresent(String className) {
+        try {
+            Class.forName(className, false, MWebsocketCompressionHelper.class.getClassLoader());
+            return true;
+        } catch (Throwable throwable) {
+            return false;
+        }
+    }
+
+    /**
+     * 扩展参数转换为Sec-WebSocket-Extensions响应header值.
+     * @param extensionData extensionData
+     * @return header值
+     */
+    public static String toHeaderValue(WebSocketExtensionData extensionData) {
+        StringBuilder builder = new StringBuilder(extensionData.name());
+        for (Map.Entry<String, String> entry: extensionData.parameters().entrySet()) {
+            builder.append("; ").append(entry.getKey());
+            if (entry.getValue() != null) {
+                builder.append('=').append(entry.getValue());
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 协商结果是否允许复用预压缩帧(服务端不保留压缩上下文且服务端窗口与预压缩窗口一致(15)时, 各连接对同一消息的压缩结果一致).
+     * @param extensionData 协商响应参数
+     * @return boolean
+     */
+    public static boolean isSharable(WebSocketExtensionData extensionData) {
+        if (extensionData == null || !extensionData.parameters().containsKey(SERVER_NO_CONTEXT_TAKEOVER)) {
+            return false;
+        }
+        String serverWindowBits = extensionData.parameters().get(SERVER_MAX_WINDOW_BITS);
+        return serverWindowBits == null || String.valueOf(MAX_WINDOW_BITS).equals(serverWindowBits);
+    }
+
+    /**
+     * 预压缩完整的文本/二进制帧(压缩结果设置RSV1标识, 连接上的压缩编码器直接透传).
+     * <p>使用JDK Deflater(窗口固定为15), 仅可发送至{@link #isSharable(WebSocketExtensionData)}为true的会话.</p>
+     * @param frame 原始帧(不改变其引用计数)
+     * @param compressionLevel 压缩级别
+     * @param minSize 最小压缩长度
+     * @param allocator allocator
+     * @return 压缩后的帧(不满足压缩条件或压缩后未变小时返回null)
+     */
+    public static WebSocketFrame compress(WebSocketFrame frame, int compressionLevel, int minSize, ByteBufAllocator allocator) {
+        if (!(frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame)
+                || !frame.isFinalFragment()
+                || (frame.rsv() & WebSocketExtension.RSV1) != 0) {
+            return null;
+        }
+        ByteBuf content = frame.content();
+        int length = content.readableBytes();
+        if (length < minSize) {
+            return null;
+        }
+        byte[] input;
+        int offset;
+        if (content.hasArray()) {
+            input = content.array();
+            offset = content.arrayOffset() + content.readerIndex();
+        } else {
+            input = ByteBufUtil.getBytes(content);
+            offset = 0;
+        }
+        Deflater deflater = new Deflater(compressionLevel, true);
+        ByteBuf compressed = allocator.heapBuffer(Math.max(64, length / 2));
+        try {
+            deflater.setInput(input, offset, length);
+            byte[] buffer = new byte[Math.min(8192, length + 64)];
+            int count;
+            do {
+                count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                compressed.writeBytes(buffer, 0, count);
+            } while (count == buffer.length);
+        } finally {
+            deflater.end();
+        }
+        int compressedLength = compressed.readableBytes() - DEFLATE_TAIL.length;
+        if (compressedLength <= 0 || compressedLength >= length || !endsWithDeflateTail(compressed)) {
+            compressed.release();
+            return null;
+        }
+        compressed.writerIndex(compressedLength);
+        int rsv = frame.rsv() | WebSocketExtension.RSV1;
+        if (frame instanceof TextWebSocketFrame) {
+            return new TextWebSocketFrame(true, rsv, compressed);
+        }
+        return new BinaryWebSocketFrame(true, rsv, compressed);
+    }
+
+    private static boolean endsWithDeflateTail(ByteBuf compressed) {
+        int start = compressed.writerIndex() - DEFLATE_TAIL.length;
+        for (int i = 0; i < DEFLATE_TAIL.length; i++) {
+            if (compressed.getByte(start + i) != DEFLATE_TAIL[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
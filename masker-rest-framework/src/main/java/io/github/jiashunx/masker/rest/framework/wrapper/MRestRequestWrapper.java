@@ -23,7 +23,7 @@ public class MRestRequestWrapper extends MRestRequest {
     }
 
     public void setBodyBytes(byte[] bodyBytes) {
-        super.bodyBytes = Objects.requireNonNull(bodyBytes);
+        super.setBodyBytes(Objects.requireNonNull(bodyBytes));
     }
 
 }
@@ -0,0 +1,120 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.handler.MRestServerChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MRestObjectPoolingTest {
+
+    private final AtomicReference<MRestRequest> heldRequest = new AtomicReference<>();
+    private final AtomicReference<MRestResponse> heldResponse = new AtomicReference<>();
+
+    private void request(MRestServer restServer, String url) {
+        restServer.context()
+                .get("/hold", (request, response) -> {
+                    heldRequest.set(request);
+                    heldResponse.set(response);
+                })
+                .get("/detach", (request, response) -> {
+                    heldRequest.set(request.detach());
+                    heldResponse.set(response.detach());
+                });
+        restServer.context().init();
+        EmbeddedChannel channel = new EmbeddedChannel(new MRestServerChannelHandler(restServer));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, url));
+        FullHttpResponse response = channel.readOutbound();
+        try {
+            assertEquals(HttpResponseStatus.OK, response.status());
+        } finally {
+            ReferenceCountUtil.release(response);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void test_defaultNoPooling() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        assertFalse(restServer.isObjectPooling());
+        request(restServer, "/hold");
+        assertFalse(heldRequest.get().isRecycled());
+        assertEquals("/hold", heldRequest.get().getUrl());
+        assertNotNull(heldResponse.get().getRestContext());
+    }
+
+    @Test
+    public void test_staleReference() {
+        request(new MRestServer("masker-rest-test").objectPooling(true), "/hold");
+        MRestRequest request = heldRequest.get();
+        MRestResponse response = heldResponse.get();
+        assertTrue(request.isRecycled());
+        assertTrue(response.isRecycled());
+        try {
+            request.getUrl();
+            fail();
+        } catch (IllegalStateException expected) {}
+        try {
+            response.write(HttpResponseStatus.OK);
+            fail();
+        } catch (IllegalStateException expected) {}
+        // 重复回收不会再次放入对象池
+        assertFalse(request.recycle());
+        assertFalse(response.recycle());
+    }
+
+    @Test
+    public void test_detach() {
+        request(new MRestServer("masker-rest-test").objectPooling(true), "/detach");
+        MRestRequest request = heldRequest.get();
+        MRestResponse response = heldResponse.get();
+        assertFalse(request.isRecycled());
+        assertFalse(response.isRecycled());
+        assertEquals("/detach", request.getUrl());
+        assertNotNull(response.getRestContext());
+        assertFalse(request.recycle());
+        assertFalse(response.recycle());
+    }
+
+    @Test
+    public void test_resetOnRecycle() {
+        MRestContext restContext = new MRestServer("masker-rest-test").context();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        // 对象池按比例丢弃首次回收的对象, 重试至回收的对象被再次获取
+        MRestRequest request = null;
+        MRestRequest pooledRequest = null;
+        for (int i = 0; i < 16 && (request == null || pooledRequest != request); i++) {
+            request = MRestRequest.newInstance();
+            request.setUrl("/url");
+            request.setAttribute("key", "value");
+            request.addPlaceholderKv("id", "1");
+            assertTrue(request.recycle());
+            pooledRequest = MRestRequest.newInstance();
+        }
+        assertSame(request, pooledRequest);
+        assertFalse(pooledRequest.isRecycled());
+        assertNull(pooledRequest.getUrl());
+        assertNull(pooledRequest.getAttribute("key"));
+        assertNull(pooledRequest.getPathVariable("id"));
+        MRestResponse response = null;
+        MRestResponse pooledResponse = null;
+        for (int i = 0; i < 16 && (response == null || pooledResponse != response); i++) {
+            response = MRestResponse.newInstance(channel.pipeline().firstContext(), restContext);
+            response.setHeader("X-A", "1").write(HttpResponseStatus.CREATED);
+            assertTrue(response.recycle());
+            pooledResponse = MRestResponse.newInstance(channel.pipeline().firstContext(), restContext);
+        }
+        assertSame(response, pooledResponse);
+        assertFalse(pooledResponse.isRecycled());
+        assertNull(pooledResponse.getHeader("X-A"));
+        assertFalse(pooledResponse.isWriteMethodInvoked());
+        assertEquals(0, pooledResponse.getStatusCode());
+        channel.finishAndReleaseAll();
+    }
+
+}
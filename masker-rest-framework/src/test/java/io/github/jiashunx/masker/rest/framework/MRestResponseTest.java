@@ -0,0 +1,107 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.handler.MRestServerChannelHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MRestResponseTest {
+
+    private ResourceLeakDetector.Level leakDetectionLevel;
+    private final List<ByteBuf> contents = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @After
+    public void tearDown() {
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    private ByteBuf newContent() {
+        ByteBuf content = Unpooled.copiedBuffer("content", StandardCharsets.UTF_8);
+        contents.add(content);
+        return content;
+    }
+
+    private void failAfterWriteContent(MRestResponse response) {
+        response.writeContent(HttpResponseStatus.OK, newContent(), null);
+        throw new IllegalStateException("handler failed after writeContent");
+    }
+
+    private FullHttpResponse request(boolean objectPooling, String url) {
+        MRestServer restServer = new MRestServer("masker-rest-test").objectPooling(objectPooling);
+        restServer.context()
+                .get("/written", (request, response) -> {
+                    response.writeContent(HttpResponseStatus.OK, newContent(), null);
+                })
+                .get("/error", (request, response) -> { failAfterWriteContent(response); })
+                .get("/detached", (request, response) -> { failAfterWriteContent(response.detach()); });
+        restServer.context().init();
+        EmbeddedChannel channel = new EmbeddedChannel(new MRestServerChannelHandler(restServer));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, url));
+        FullHttpResponse response = channel.readOutbound();
+        assertNotNull(response);
+        channel.finishAndReleaseAll();
+        return response;
+    }
+
+    private void assertReleased(FullHttpResponse response, HttpResponseStatus status) {
+        try {
+            assertEquals(status, response.status());
+        } finally {
+            ReferenceCountUtil.release(response);
+        }
+        assertEquals(1, contents.size());
+        assertEquals(0, contents.get(0).refCnt());
+    }
+
+    @Test
+    public void test_writeContent_written() {
+        assertReleased(request(true, "/written"), HttpResponseStatus.OK);
+    }
+
+    @Test
+    public void test_writeContent_exception_pooling() {
+        assertReleased(request(true, "/error"), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    public void test_writeContent_exception_noPooling() {
+        assertReleased(request(false, "/error"), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    public void test_writeContent_exception_detached() {
+        assertReleased(request(true, "/detached"), HttpResponseStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    public void test_releaseContent() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        MRestResponse response = new MRestResponse(channel.pipeline().firstContext(), new MRestServer("masker-rest-test").context());
+        ByteBuf content = newContent();
+        response.writeContent(HttpResponseStatus.OK, content, null);
+        assertTrue(response.releaseContent());
+        assertEquals(0, content.refCnt());
+        assertFalse(response.releaseContent());
+        channel.finishAndReleaseAll();
+    }
+
+}
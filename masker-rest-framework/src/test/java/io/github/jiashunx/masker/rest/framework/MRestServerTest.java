@@ -0,0 +1,94 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.exception.MRestServerInitializeException;
+import io.github.jiashunx.masker.rest.framework.handler.MRestServerChannelHandler;
+import io.github.jiashunx.masker.rest.framework.model.MAccessLogConfig;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+public class MRestServerTest {
+
+    private static int freePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    @Test
+    public void test_shutdown() throws Exception {
+        MRestServer restServer = new MRestServer(freePort(), "masker-rest-test");
+        assertTrue(restServer.awaitTermination(0L, TimeUnit.MILLISECONDS));
+        restServer.start();
+        assertFalse(restServer.getWorkerGroup().isShuttingDown());
+        restServer.shutdown();
+        assertTrue(restServer.isClosed());
+        assertTrue(restServer.getWorkerGroup().isShuttingDown());
+        assertTrue(restServer.awaitTermination(30L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_initContexts() throws Exception {
+        MRestServer restServer = new MRestServer(freePort(), "masker-rest-test");
+        restServer.context("/ctx").get("/hello", () -> "hello");
+        // 可重复调用, 启动时不再重复初始化
+        restServer.initContexts().initContexts();
+        MRestServerChannelHandler channelHandler = new MRestServerChannelHandler(restServer);
+        assertEquals("/ctx", channelHandler.resolveContext("/ctx/hello").getContextPath());
+        EmbeddedChannel channel = new EmbeddedChannel(channelHandler);
+        MRestRequest restRequest = channelHandler.parseHttpRequest(channel.pipeline().context(channelHandler)
+                , new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/ctx/hello?a=1"));
+        assertEquals("/hello", restRequest.getUrl());
+        assertEquals("1", restRequest.getParameter("a"));
+        assertNotNull(restRequest.getRestContext().getUrlMappingHandler("/hello", HttpMethod.GET));
+        channel.finishAndReleaseAll();
+        restServer.start();
+        restServer.shutdown();
+        assertTrue(restServer.awaitTermination(30L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_startFailed() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            int port = serverSocket.getLocalPort();
+            MRestServer restServer = new MRestServer(port, "masker-rest-test")
+                    .accessLog(MAccessLogConfig.newInstance().slf4j())
+                    .eventLoopBlockingThreshold(500L);
+            try {
+                restServer.start();
+                fail("bind to an occupied port must fail");
+            } catch (MRestServerInitializeException expected) {
+                assertFalse(restServer.isClosed());
+            }
+            // 启动失败后不残留访问日志线程及boss/worker线程
+            assertNull(restServer.getAccessLogger());
+            assertNull(restServer.getEventLoopWatchdog());
+            assertNull(restServer.getWorkerGroup());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+            while (hasThread(port) && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50L);
+            }
+            assertFalse(hasThread(port));
+        }
+    }
+
+    private static boolean hasThread(int port) {
+        for (Thread thread: Thread.getAllStackTraces().keySet()) {
+            String name = thread.getName();
+            if (thread.isAlive() && (name.equals("masker-rest-access-log-" + port) || name.startsWith("restpool-BOSS-" + port + "-")
+                    || name.startsWith("restpool-WORKER-" + port + "-"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MWebsocketAdmissionTest {
+
+    private static final String IP_A = "10.0.0.1";
+    private static final String IP_B = "10.0.0.2";
+
+    @Test
+    public void test_serverLimit() {
+        MRestServer restServer = new MRestServer("masker-rest-test").maxWebsocketSessions(1);
+        MWebsocketContext websocketContext0 = restServer.context().websocketContext("/ws0");
+        MWebsocketContext websocketContext1 = restServer.context().websocketContext("/ws1").maxSessionsPerIp(2);
+        assertEquals(0L, websocketContext0.getAdmission().tryAcquire(IP_A));
+        MWebsocketAdmission admission = websocketContext1.getAdmission();
+        assertEquals(websocketContext1.getAdmissionRetryAfter(), admission.tryAcquire(IP_A));
+        assertEquals(1L, admission.getRejectedByServerLimitCount());
+        assertEquals(1, restServer.getWebsocketSessionCount());
+        assertEquals(0, admission.getSessionCount());
+        assertEquals(0, admission.getSessionCount(IP_A));
+        assertEquals(0, admission.getTrackedIpCount());
+        websocketContext0.getAdmission().release(IP_A);
+        assertEquals(0L, admission.tryAcquire(IP_A));
+        assertEquals(1, restServer.getWebsocketSessionCount());
+    }
+
+    @Test
+    public void test_contextLimit() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        MWebsocketContext websocketContext = restServer.context().websocketContext("/ws").maxSessions(1).maxSessionsPerIp(2);
+        MWebsocketAdmission admission = websocketContext.getAdmission();
+        assertEquals(0L, admission.tryAcquire(IP_A));
+        assertEquals(websocketContext.getAdmissionRetryAfter(), admission.tryAcquire(IP_A));
+        assertEquals(1L, admission.getRejectedByContextLimitCount());
+        // 已占用的server会话名额回滚, 单IP计数未增加
+        assertEquals(1, restServer.getWebsocketSessionCount());
+        assertEquals(1, admission.getSessionCount());
+        assertEquals(1, admission.getSessionCount(IP_A));
+    }
+
+    @Test
+    public void test_ipLimit() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        MWebsocketContext websocketContext = restServer.context().websocketContext("/ws").maxSessionsPerIp(1);
+        MWebsocketAdmission admission = websocketContext.getAdmission();
+        assertEquals(0L, admission.tryAcquire(IP_A));
+        assertEquals(websocketContext.getAdmissionRetryAfter(), admission.tryAcquire(IP_A));
+        assertEquals(1L, admission.getRejectedByIpLimitCount());
+        // server及context会话名额回滚
+        assertEquals(1, restServer.getWebsocketSessionCount());
+        assertEquals(1, admission.getSessionCount());
+        assertEquals(1, admission.getSessionCount(IP_A));
+        assertEquals(0L, admission.tryAcquire(IP_B));
+        assertEquals(2, admission.getSessionCount());
+        assertEquals(2L, admission.getAdmittedCount());
+        assertEquals(1L, admission.getRejectedCount());
+    }
+
+    @Test
+    public void test_releaseIp() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        MWebsocketAdmission admission = restServer.context().websocketContext("/ws").maxSessionsPerIp(2).getAdmission();
+        assertEquals(0L, admission.tryAcquire(IP_A));
+        assertEquals(0L, admission.tryAcquire(IP_A));
+        assertEquals(0L, admission.tryAcquire(IP_B));
+        assertEquals(2, admission.getTrackedIpCount());
+        admission.release(IP_A);
+        assertEquals(1, admission.getSessionCount(IP_A));
+        admission.release(IP_A);
+        admission.release(IP_B);
+        // 计数归零的IP从map中移除
+        assertEquals(0, admission.getSessionCount(IP_A));
+        assertEquals(0, admission.getTrackedIpCount());
+        assertEquals(0, admission.getSessionCount());
+        assertEquals(0, restServer.getWebsocketSessionCount());
+        // IP限制拒绝后不残留计数为0的IP
+        MWebsocketAdmission limited = restServer.context().websocketContext("/ws-limited").maxSessions(1).maxSessionsPerIp(1).getAdmission();
+        assertEquals(0L, limited.tryAcquire(IP_A));
+        assertTrue(limited.tryAcquire(IP_B) > 0L);
+        assertEquals(1, limited.getTrackedIpCount());
+    }
+
+    @Test
+    public void test_rateLimit() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        // 每1000秒补充1个令牌, 突发1个
+        MWebsocketAdmission admission = restServer.context().websocketContext("/ws").handshakeRateLimit(0.001D, 1).getAdmission();
+        assertEquals(0L, admission.tryAcquire(IP_A));
+        assertEquals(1000L, admission.tryAcquire(IP_A));
+        assertEquals(1L, admission.getRejectedByRateLimitCount());
+        assertEquals(1, admission.getSessionCount());
+        assertEquals(1, restServer.getWebsocketSessionCount());
+    }
+
+    @Test
+    public void test_retryAfterSeconds() {
+        assertEquals(1L, MWebsocketAdmission.retryAfterSeconds(1L));
+        assertEquals(1L, MWebsocketAdmission.retryAfterSeconds(TimeUnit.MILLISECONDS.toNanos(500L)));
+        assertEquals(1L, MWebsocketAdmission.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1L)));
+        assertEquals(2L, MWebsocketAdmission.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1L) + 1L));
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import org.junit.Test;
+
+public class MWebsocketContextTest {
+
+    @Test
+    public void test_handshakeUrl() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        assertEquals("/ws", restServer.context().websocketContext("/ws").getHandshakeUrl());
+        assertEquals("/api/ws", restServer.context("/api").websocketContext("/ws").getHandshakeUrl());
+    }
+
+    @Test
+    public void test_handshakerFactory() {
+        MWebsocketContext websocketContext = new MRestServer("masker-rest-test").context().websocketContext("/ws");
+        WebSocketServerHandshakerFactory factory = websocketContext.getHandshakerFactory();
+        assertSame(factory, websocketContext.getHandshakerFactory());
+    }
+
+}
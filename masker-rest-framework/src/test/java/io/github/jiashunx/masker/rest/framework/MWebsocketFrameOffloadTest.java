@@ -0,0 +1,143 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.handler.MWebsocketFrameHandler;
+import io.github.jiashunx.masker.rest.framework.handler.MWebsocketHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+public class MWebsocketFrameOffloadTest {
+
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    private ExecutorService handlerExecutor;
+    private final List<String> handledTexts = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        handlerExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        handlerExecutor.shutdownNow();
+        assertTrue(handlerExecutor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    private EmbeddedChannel open(int maxInFlightFrames, MWebsocketHandler<TextWebSocketFrame> textFrameHandler) {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        MWebsocketContext websocketContext = restServer.context().websocketContext("/ws")
+                .handlerExecutor(handlerExecutor)
+                .maxInFlightFrames(maxInFlightFrames)
+                .bindTextFrameHandler(textFrameHandler);
+        restServer.context().init();
+        MWebsocketRequest websocketRequest = new MWebsocketRequest();
+        websocketRequest.setWebsocketContext(websocketContext);
+        return new EmbeddedChannel(new MWebsocketFrameHandler(websocketRequest));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1L);
+        }
+    }
+
+    private static void acquire(Semaphore semaphore) {
+        try {
+            assertTrue(semaphore.tryAcquire(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private List<TextWebSocketFrame> writeFrames(EmbeddedChannel channel, int count) {
+        List<TextWebSocketFrame> frames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TextWebSocketFrame frame = new TextWebSocketFrame(String.valueOf(i));
+            frames.add(frame);
+            channel.writeInbound(frame);
+        }
+        return frames;
+    }
+
+    @Test
+    public void test_order() throws InterruptedException {
+        int count = 2000;
+        EmbeddedChannel channel = open(count, (frame, request, response) -> {
+            handledTexts.add(frame.text());
+        });
+        List<TextWebSocketFrame> frames = writeFrames(channel, count);
+        await(() -> handledTexts.size() == count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(String.valueOf(i), handledTexts.get(i));
+            assertEquals(0, frames.get(i).refCnt());
+        }
+        assertTrue(channel.config().isAutoRead());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void test_autoRead() throws InterruptedException {
+        Semaphore permits = new Semaphore(0);
+        EmbeddedChannel channel = open(4, (frame, request, response) -> {
+            acquire(permits);
+            handledTexts.add(frame.text());
+        });
+        writeFrames(channel, 3);
+        assertTrue(channel.config().isAutoRead());
+        // 积压帧数量达到maxInFlightFrames时暂停读取
+        writeFrames(channel, 1);
+        assertFalse(channel.config().isAutoRead());
+        // 积压帧数量降至maxInFlightFrames的一半前不恢复读取
+        permits.release();
+        await(() -> handledTexts.size() == 1);
+        Thread.sleep(50L);
+        assertFalse(channel.config().isAutoRead());
+        permits.release();
+        await(() -> channel.config().isAutoRead());
+        assertEquals(2, handledTexts.size());
+        permits.release(2);
+        await(() -> handledTexts.size() == 4);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void test_releaseOnClose() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        EmbeddedChannel channel = open(16, (frame, request, response) -> {
+            started.countDown();
+            try {
+                assertTrue(gate.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+            handledTexts.add(frame.text());
+        });
+        List<TextWebSocketFrame> frames = writeFrames(channel, 8);
+        assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        // 连接关闭时释放尚未处理的积压帧, 处理中的帧处理完成后释放
+        channel.close();
+        assertEquals(1, frames.get(0).refCnt());
+        for (int i = 1; i < frames.size(); i++) {
+            assertEquals(0, frames.get(i).refCnt());
+        }
+        gate.countDown();
+        await(() -> frames.get(0).refCnt() == 0);
+        assertEquals(Collections.singletonList("0"), handledTexts);
+        channel.finishAndReleaseAll();
+    }
+
+}
@@ -0,0 +1,95 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jiashunx.masker.rest.framework.cons.Constants;
+import io.github.jiashunx.masker.rest.framework.exception.MWebsocketRpcException;
+import io.github.jiashunx.masker.rest.framework.handler.MWebsocketFrameHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+public class MWebsocketRpcRouterTest {
+
+    private static final String SECRET = "jdbc:mysql://10.0.0.1/secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        MWebsocketContext websocketContext = restServer.context().websocketContext("/ws")
+                .rpc("echo", rpcRequest -> "pong")
+                .rpc("fail", rpcRequest -> {
+                    throw new IllegalStateException(SECRET);
+                })
+                .rpc("failAsync", rpcRequest -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    future.completeExceptionally(new IllegalStateException(SECRET));
+                    return future;
+                })
+                .rpc("reject", rpcRequest -> {
+                    throw new MWebsocketRpcException(403, "permission denied");
+                });
+        restServer.context().init();
+        MWebsocketRequest websocketRequest = new MWebsocketRequest();
+        websocketRequest.setWebsocketContext(websocketContext);
+        channel = new EmbeddedChannel(new MWebsocketFrameHandler(websocketRequest));
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private JsonNode call(String request) throws Exception {
+        channel.writeInbound(new TextWebSocketFrame(request));
+        TextWebSocketFrame replyFrame = channel.readOutbound();
+        assertNotNull(replyFrame);
+        try {
+            return objectMapper.readTree(replyFrame.text());
+        } finally {
+            replyFrame.release();
+        }
+    }
+
+    @Test
+    public void test_reply() throws Exception {
+        JsonNode reply = call("{\"op\": \"echo\", \"id\": 1}");
+        assertEquals(1, reply.get(Constants.WEBSOCKET_RPC_FIELD_ID).asInt());
+        assertEquals(200, reply.get(Constants.WEBSOCKET_RPC_FIELD_CODE).asInt());
+        assertEquals("pong", reply.get(Constants.WEBSOCKET_RPC_FIELD_DATA).asText());
+    }
+
+    @Test
+    public void test_errorDetailNotExposed() throws Exception {
+        for (String operation: new String[] { "fail", "failAsync" }) {
+            JsonNode reply = call("{\"op\": \"" + operation + "\", \"id\": 2}");
+            assertEquals(500, reply.get(Constants.WEBSOCKET_RPC_FIELD_CODE).asInt());
+            assertEquals(Constants.WEBSOCKET_RPC_ERROR_EXECUTE_FAILED, reply.get(Constants.WEBSOCKET_RPC_FIELD_ERROR).asText());
+            assertFalse(reply.toString().contains(SECRET));
+        }
+    }
+
+    @Test
+    public void test_rpcException() throws Exception {
+        JsonNode reply = call("{\"op\": \"reject\", \"id\": 3}");
+        assertEquals(403, reply.get(Constants.WEBSOCKET_RPC_FIELD_CODE).asInt());
+        assertEquals("permission denied", reply.get(Constants.WEBSOCKET_RPC_FIELD_ERROR).asText());
+    }
+
+    @Test
+    public void test_invalidRequest() throws Exception {
+        JsonNode reply = call("{\"op\": \"" + SECRET);
+        assertEquals(400, reply.get(Constants.WEBSOCKET_RPC_FIELD_CODE).asInt());
+        assertEquals(Constants.WEBSOCKET_RPC_ERROR_INVALID_REQUEST, reply.get(Constants.WEBSOCKET_RPC_FIELD_ERROR).asText());
+    }
+
+}
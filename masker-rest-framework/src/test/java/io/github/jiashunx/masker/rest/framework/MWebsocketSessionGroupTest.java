@@ -0,0 +1,51 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.handler.MWebsocketFrameHandler;
+import io.github.jiashunx.masker.rest.framework.util.MWebsocketCompressionHelper;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import org.junit.Test;
+
+public class MWebsocketSessionGroupTest {
+
+    private static final String TEXT = new String(new char[1024]).replace('\0', 'm');
+
+    private static EmbeddedChannel open(MWebsocketContext websocketContext, String extensions) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, extensions);
+        MWebsocketRequest websocketRequest = new MWebsocketRequest();
+        websocketRequest.setWebsocketContext(websocketContext);
+        websocketRequest.setCompressionExtension(MWebsocketCompressionHelper.negotiate(websocketContext, headers));
+        assertNotNull(websocketRequest.getCompressionExtension());
+        return new EmbeddedChannel(new MWebsocketFrameHandler(websocketRequest));
+    }
+
+    @Test
+    public void test_broadcastSharedCompression() {
+        MWebsocketContext websocketContext = new MRestServer("masker-rest-test").context().websocketContext("/ws").compression(true);
+        EmbeddedChannel sharedChannel = open(websocketContext, "permessage-deflate; server_no_context_takeover");
+        EmbeddedChannel channel = open(websocketContext, "permessage-deflate");
+        websocketContext.getSessionGroup().broadcast(new TextWebSocketFrame(TEXT));
+        // 协商了server_no_context_takeover的会话发送预压缩帧, 其他会话发送原始帧(由连接上的压缩编码器压缩)
+        TextWebSocketFrame sharedFrame = sharedChannel.readOutbound();
+        TextWebSocketFrame frame = channel.readOutbound();
+        try {
+            assertTrue((sharedFrame.rsv() & WebSocketExtension.RSV1) != 0);
+            assertTrue(sharedFrame.content().readableBytes() < TEXT.length());
+            assertEquals(0, frame.rsv() & WebSocketExtension.RSV1);
+            assertEquals(TEXT, frame.text());
+        } finally {
+            sharedFrame.release();
+            frame.release();
+        }
+        assertFalse(sharedChannel.finishAndReleaseAll());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+}
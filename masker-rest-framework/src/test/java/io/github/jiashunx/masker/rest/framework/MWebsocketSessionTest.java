@@ -0,0 +1,206 @@
+package io.github.jiashunx.masker.rest.framework;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.handler.MWebsocketFrameHandler;
+import io.github.jiashunx.masker.rest.framework.type.MWebsocketOverflowPolicy;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MWebsocketSessionTest {
+
+    private static final int LOW_WATER_MARK = 8;
+    private static final int HIGH_WATER_MARK = 16;
+
+    private ResourceLeakDetector.Level leakDetectionLevel;
+    private EmbeddedChannel channel;
+    private MWebsocketSession session;
+    private MWebsocketContext websocketContext;
+
+    @Before
+    public void setUp() {
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    private void open(MWebsocketOverflowPolicy overflowPolicy) {
+        websocketContext = new MRestServer("masker-rest-test").context().websocketContext("/ws")
+                .outboundQueueCapacity(2).overflowPolicy(overflowPolicy);
+        MWebsocketRequest websocketRequest = new MWebsocketRequest();
+        websocketRequest.setWebsocketContext(websocketContext);
+        MWebsocketFrameHandler frameHandler = new MWebsocketFrameHandler(websocketRequest);
+        channel = new EmbeddedChannel();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(LOW_WATER_MARK, HIGH_WATER_MARK));
+        channel.pipeline().addLast(frameHandler);
+        session = frameHandler.getSession();
+    }
+
+    /**
+     * 写入超过高水位线的未flush数据, 使channel不可写.
+     */
+    private void blockWritability() {
+        channel.write(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(new byte[HIGH_WATER_MARK * 2])));
+        assertFalse(channel.isWritable());
+    }
+
+    private static TextWebSocketFrame frame(String text) {
+        return new TextWebSocketFrame(text);
+    }
+
+    /**
+     * flush出站数据(待发送字节低于低水位线后channel恢复可写, 触发出站队列drain), 返回已写出的文本帧内容.
+     */
+    private List<String> flushOutbound() {
+        channel.flushOutbound();
+        channel.runPendingTasks();
+        List<String> texts = new ArrayList<>();
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            try {
+                if (msg instanceof TextWebSocketFrame) {
+                    texts.add(((TextWebSocketFrame) msg).text());
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        return texts;
+    }
+
+    @Test
+    public void test_sendWhenWritable() {
+        open(MWebsocketOverflowPolicy.DROP_OLDEST);
+        session.send(frame("a"));
+        assertEquals(0, session.getOutboundQueueSize());
+        assertEquals(listOf("a"), flushOutbound());
+    }
+
+    @Test
+    public void test_dropOldest() {
+        open(MWebsocketOverflowPolicy.DROP_OLDEST);
+        blockWritability();
+        TextWebSocketFrame oldest = frame("a");
+        session.send(oldest);
+        session.send(frame("b"));
+        session.send(frame("c"));
+        assertEquals(0, oldest.refCnt());
+        assertEquals(2, session.getOutboundQueueSize());
+        assertEquals(1L, session.getDroppedFrameCount());
+        assertEquals(listOf("b", "c"), flushOutbound());
+        assertEquals(0, session.getOutboundQueueSize());
+        assertTrue(channel.isWritable());
+    }
+
+    @Test
+    public void test_dropNewest() {
+        open(MWebsocketOverflowPolicy.DROP_NEWEST);
+        blockWritability();
+        session.send(frame("a"));
+        session.send(frame("b"));
+        TextWebSocketFrame newest = frame("c");
+        session.send(newest);
+        assertEquals(0, newest.refCnt());
+        assertEquals(1L, session.getDroppedFrameCount());
+        assertEquals(listOf("a", "b"), flushOutbound());
+    }
+
+    @Test
+    public void test_coalesceByKey() {
+        open(MWebsocketOverflowPolicy.COALESCE_BY_KEY);
+        blockWritability();
+        TextWebSocketFrame stale = frame("k1-v1");
+        session.send(stale, "k1");
+        session.send(frame("k2-v1"), "k2");
+        TextWebSocketFrame latest = frame("k1-v2");
+        session.send(latest, "k1");
+        assertEquals(0, stale.refCnt());
+        assertEquals(2, session.getOutboundQueueSize());
+        assertEquals(1L, session.getCoalescedFrameCount());
+        assertEquals(0L, session.getDroppedFrameCount());
+        // 无合并key的帧在队列满时按DROP_OLDEST处理(合并后的帧保留原队列位置)
+        session.send(frame("y"));
+        assertEquals(0, latest.refCnt());
+        assertEquals(1L, session.getDroppedFrameCount());
+        assertEquals(listOf("k2-v1", "y"), flushOutbound());
+    }
+
+    @Test
+    public void test_disconnect() {
+        open(MWebsocketOverflowPolicy.DISCONNECT);
+        blockWritability();
+        TextWebSocketFrame queued0 = frame("a");
+        TextWebSocketFrame queued1 = frame("b");
+        TextWebSocketFrame overflow = frame("c");
+        session.send(queued0);
+        session.send(queued1);
+        session.send(overflow);
+        assertFalse(channel.isActive());
+        assertEquals(0, queued0.refCnt());
+        assertEquals(0, queued1.refCnt());
+        assertEquals(0, overflow.refCnt());
+        assertEquals(0, session.getOutboundQueueSize());
+        assertEquals(3L, session.getDroppedFrameCount());
+        assertEquals(1L, websocketContext.getOverflowDisconnectCount());
+        // 连接关闭后发送的帧直接释放
+        TextWebSocketFrame closed = frame("d");
+        session.send(closed);
+        assertEquals(0, closed.refCnt());
+    }
+
+    @Test
+    public void test_drainOnWritabilityChanged() {
+        open(MWebsocketOverflowPolicy.DROP_OLDEST);
+        blockWritability();
+        session.send(frame("a"));
+        session.send(frame("b"));
+        assertEquals(2, session.getOutboundQueueSize());
+        // 恢复可写前出站队列不发送
+        channel.runPendingTasks();
+        assertEquals(2, session.getOutboundQueueSize());
+        assertEquals(listOf("a", "b"), flushOutbound());
+        assertEquals(0, session.getOutboundQueueSize());
+        // 队列清空后恢复直接写出
+        session.send(frame("c"));
+        assertEquals(listOf("c"), flushOutbound());
+    }
+
+    @Test
+    public void test_releaseOutboundOnClose() {
+        open(MWebsocketOverflowPolicy.DROP_OLDEST);
+        blockWritability();
+        TextWebSocketFrame queued = frame("a");
+        session.send(queued);
+        channel.close();
+        assertEquals(0, queued.refCnt());
+        assertEquals(0, session.getOutboundQueueSize());
+    }
+
+    private static List<String> listOf(String... texts) {
+        List<String> list = new ArrayList<>();
+        for (String text: texts) {
+            list.add(text);
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,35 @@
+package io.github.jiashunx.masker.rest.framework.handler;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.github.jiashunx.masker.rest.framework.MWebsocketRequest;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.Timeout;
+import org.junit.Test;
+
+public class MWebsocketFrameHandlerTest {
+
+    @Test
+    public void test_heartbeatNotRearmedAfterClose() {
+        MWebsocketContext websocketContext = new MRestServer("masker-rest-test").context().websocketContext("/ws")
+                .idleTimeout(60 * 1000L);
+        MWebsocketRequest websocketRequest = new MWebsocketRequest();
+        websocketRequest.setWebsocketContext(websocketContext);
+        MWebsocketFrameHandler frameHandler = new MWebsocketFrameHandler(websocketRequest);
+        EmbeddedChannel channel = new EmbeddedChannel(frameHandler);
+        ChannelHandlerContext ctx = channel.pipeline().context(frameHandler);
+        Timeout timeout = frameHandler.getHeartbeatTimeout();
+        assertNotNull(timeout);
+        channel.close();
+        assertTrue(timeout.isCancelled());
+        assertNull(frameHandler.getHeartbeatTimeout());
+        // 模拟连接关闭后定时器线程中正在执行的心跳检测重新调度
+        frameHandler.scheduleHeartbeat(ctx);
+        assertNull(frameHandler.getHeartbeatTimeout());
+        channel.finishAndReleaseAll();
+    }
+
+}
@@ -0,0 +1,101 @@
+package io.github.jiashunx.masker.rest.framework.log;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.model.MAccessLogConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class MAccessLoggerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static void awaitConsumed(MAccessLogger accessLogger) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (accessLogger.getPendingCount() > 0L && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5L);
+        }
+        assertEquals(0L, accessLogger.getPendingCount());
+    }
+
+    @Test
+    public void test_outputFailed() throws Exception {
+        File directory = temporaryFolder.newFolder("access-log");
+        MAccessLogger accessLogger = new MAccessLogger(new MRestServer("masker-rest-test")
+                , MAccessLogConfig.newInstance().file(directory.getAbsolutePath()).fileNamePrefix("access"));
+        accessLogger.start();
+        try {
+            // 日志目录不可用: 输出失败的日志计入failedCount
+            assertTrue(directory.delete());
+            assertTrue(directory.createNewFile());
+            assertTrue(accessLogger.record(System.currentTimeMillis(), "GET", "/failed", 200, 0L, 0L, 0L, "127.0.0.1", "failed-id"));
+            awaitConsumed(accessLogger);
+            assertEquals(1L, accessLogger.getFailedCount());
+            assertEquals(0L, accessLogger.getWrittenCount());
+
+            // 目录恢复后正常输出, 且不包含输出失败的日志内容
+            assertTrue(directory.delete());
+            assertTrue(directory.mkdir());
+            assertTrue(accessLogger.record(System.currentTimeMillis(), "GET", "/written", 200, 0L, 0L, 0L, "127.0.0.1", "written-id"));
+            awaitConsumed(accessLogger);
+            assertEquals(1L, accessLogger.getWrittenCount());
+        } finally {
+            accessLogger.stop();
+        }
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+        List<String> lines = Files.readAllLines(files[0].toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith(" /written 200 0 0 0.000 written-id"));
+    }
+
+    @Test
+    public void test_accept() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        MAccessLogger slowLogger = new MAccessLogger(restServer, MAccessLogConfig.newInstance().slf4j().slowThresholdMillis(100L));
+        assertFalse(slowLogger.accept(200, TimeUnit.MILLISECONDS.toNanos(99L)));
+        assertTrue(slowLogger.accept(200, TimeUnit.MILLISECONDS.toNanos(100L)));
+        assertTrue(slowLogger.accept(500, 0L));
+        MAccessLogger sampledLogger = new MAccessLogger(restServer, MAccessLogConfig.newInstance().slf4j().sampleRate(Double.MIN_VALUE).alwaysLogErrors(false));
+        assertFalse(sampledLogger.accept(200, Long.MAX_VALUE));
+        assertFalse(sampledLogger.accept(500, Long.MAX_VALUE));
+        assertTrue(new MAccessLogger(restServer, MAccessLogConfig.newInstance().slf4j()).accept(200, 0L));
+    }
+
+    @Test
+    public void test_requestId() throws Exception {
+        File directory = temporaryFolder.newFolder("access-log");
+        MAccessLogger accessLogger = new MAccessLogger(new MRestServer("masker-rest-test")
+                , MAccessLogConfig.newInstance().file(directory.getAbsolutePath()).fileNamePrefix("access"));
+        accessLogger.start();
+        StringBuilder longRequestId = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longRequestId.append('a');
+        }
+        try {
+            accessLogger.record(System.currentTimeMillis(), "GET", "/a", 200, 0L, 0L, 0L, "127.0.0.1", "id 1\r\nGET /forged\t\u0000");
+            accessLogger.record(System.currentTimeMillis(), "GET", "/b", 200, 0L, 0L, 0L, "127.0.0.1", longRequestId.toString());
+            awaitConsumed(accessLogger);
+        } finally {
+            accessLogger.stop();
+        }
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        List<String> lines = Files.readAllLines(files[0].toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith(" /a 200 0 0 0.000 id_1__GET_/forged__"));
+        assertTrue(lines.get(1).endsWith(" " + longRequestId.substring(0, 128)));
+        assertEquals(10, lines.get(1).split(" ").length);
+    }
+
+}
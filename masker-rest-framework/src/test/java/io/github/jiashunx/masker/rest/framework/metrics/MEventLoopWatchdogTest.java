@@ -0,0 +1,50 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MEventLoopWatchdogTest {
+
+    @Test
+    public void test_disabledByDefault() {
+        assertEquals(0L, new MRestServer("masker-rest-test").getEventLoopBlockingThreshold());
+    }
+
+    @Test
+    public void test_withoutQuery() {
+        assertNull(MEventLoopWatchdog.withoutQuery(null));
+        assertEquals("/api/user", MEventLoopWatchdog.withoutQuery("/api/user"));
+        assertEquals("/api/user", MEventLoopWatchdog.withoutQuery("/api/user?token=secret&id=1"));
+        assertEquals("/api/user", MEventLoopWatchdog.withoutQuery("/api/user#token=secret"));
+        assertEquals("/api/user", MEventLoopWatchdog.withoutQuery("/api/user#a?token=secret"));
+    }
+
+    @Test
+    public void test_captureThread() throws InterruptedException {
+        EventLoopGroup eventLoopGroup = new NioEventLoopGroup(2, new DefaultThreadFactory("watchdog-test"));
+        // 阈值较大时首次心跳在100ms后提交, 启动后即应获取到event loop线程
+        MEventLoopWatchdog watchdog = new MEventLoopWatchdog(new MRestServer("masker-rest-test"), eventLoopGroup, 60_000L);
+        try {
+            watchdog.start();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(80L);
+            for (MEventLoopWatchdog.LoopState loopState: watchdog.getLoopStates()) {
+                while (loopState.getThread() == null && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(1L);
+                }
+                assertNotNull(loopState.getThread());
+                assertTrue(loopState.getThread().getName().startsWith("watchdog-test"));
+            }
+        } finally {
+            watchdog.stop();
+            eventLoopGroup.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.github.jiashunx.masker.rest.framework.metrics;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class MLatencyHistogramTest {
+
+    @Test
+    public void test_bucketBounds() {
+        for (int bits = MLatencyHistogram.MIN_SUB_BUCKET_BITS; bits <= MLatencyHistogram.MAX_SUB_BUCKET_BITS; bits++) {
+            for (long value: new long[] { 0L, 1L, 7L, 8L, 15L, 16L, 17L, 1000L, 123456L, MLatencyHistogram.MAX_VALUE }) {
+                int index = MLatencyHistogram.bucketIndex(bits, value);
+                long lowerBound = MLatencyHistogram.bucketLowerBound(bits, index);
+                long upperBound = MLatencyHistogram.bucketUpperBound(bits, index);
+                assertTrue(lowerBound <= value);
+                assertTrue(upperBound >= value);
+                // 桶宽度不超过桶内最小值的1/2^bits
+                assertTrue((upperBound - lowerBound) * (1L << bits) <= Math.max(lowerBound, 1L << bits));
+            }
+            int bucketCount = MLatencyHistogram.bucketCount(bits);
+            assertEquals(0L, MLatencyHistogram.bucketLowerBound(bits, 0));
+            for (int i = 1; i < bucketCount; i++) {
+                assertEquals(MLatencyHistogram.bucketUpperBound(bits, i - 1) + 1, MLatencyHistogram.bucketLowerBound(bits, i));
+            }
+            assertEquals(MLatencyHistogram.MAX_VALUE, MLatencyHistogram.bucketUpperBound(bits, bucketCount - 1));
+        }
+    }
+
+    @Test
+    public void test_snapshot() {
+        MLatencyHistogram histogram = new MLatencyHistogram();
+        assertEquals(MLatencyHistogram.DEFAULT_SUB_BUCKET_BITS, histogram.getSubBucketBits());
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        MLatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1000L, snapshot.getCount());
+        assertEquals(500500L, snapshot.getSum());
+        assertEquals(1000L, snapshot.getMax());
+        assertEquals(1000L, snapshot.getValueAtPercentile(100));
+        assertEquals(1L, snapshot.getValueAtPercentile(0));
+        assertEquals(0L, new MLatencyHistogram().snapshot().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void test_percentileError() {
+        for (int bits: new int[] { MLatencyHistogram.DEFAULT_SUB_BUCKET_BITS, 7 }) {
+            MLatencyHistogram histogram = new MLatencyHistogram(bits);
+            for (int i = 1; i <= 100000; i++) {
+                histogram.record(i);
+            }
+            MLatencySnapshot snapshot = histogram.snapshot();
+            // 均匀分布下插值结果与真实百分位值的相对误差远小于桶宽度
+            for (double percentile: new double[] { 10D, 50D, 90D, 99D, 99.9D }) {
+                double expected = percentile / 100D * 100000D;
+                double error = Math.abs(snapshot.getValueAtPercentile(percentile) - expected) / expected;
+                assertTrue(bits + " p" + percentile + " error " + error, error < 1D / (1L << (bits + 2)));
+            }
+        }
+        // 7位精度: 单点分布时误差不超过1%
+        MLatencyHistogram histogram = new MLatencyHistogram(7);
+        for (long value: new long[] { 1000L, 12345L, 999999L }) {
+            histogram.record(value);
+        }
+        MLatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1000D, snapshot.getValueAtPercentile(10), 10D);
+        assertEquals(12345D, snapshot.getValueAtPercentile(50), 123.45D);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_illegalSubBucketBits() {
+        new MLatencyHistogram(MLatencyHistogram.MAX_SUB_BUCKET_BITS + 1);
+    }
+
+}
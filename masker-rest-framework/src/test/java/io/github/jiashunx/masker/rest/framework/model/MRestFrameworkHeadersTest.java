@@ -0,0 +1,28 @@
+package io.github.jiashunx.masker.rest.framework.model;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.Test;
+
+public class MRestFrameworkHeadersTest {
+
+    @Test
+    public void test_dateHeader() {
+        MRestServer restServer = new MRestServer("masker-rest-test");
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        restServer.getFrameworkHeaders().addTo(httpHeaders, restServer.context());
+        assertEquals(1, httpHeaders.getAll(HttpHeaderNames.DATE).size());
+        // 处理器指定的Date保持不变
+        String date = "Thu, 01 Jan 1970 00:00:00 GMT";
+        httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.set(HttpHeaderNames.DATE, date);
+        restServer.getFrameworkHeaders().addTo(httpHeaders, restServer.context());
+        assertEquals(1, httpHeaders.getAll(HttpHeaderNames.DATE).size());
+        assertEquals(date, httpHeaders.get(HttpHeaderNames.DATE));
+    }
+
+}
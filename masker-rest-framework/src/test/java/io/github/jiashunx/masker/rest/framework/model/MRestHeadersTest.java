@@ -0,0 +1,68 @@
+package io.github.jiashunx.masker.rest.framework.model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class MRestHeadersTest {
+
+    @Test
+    public void test_caseInsensitive() {
+        MRestHeaders headers = new MRestHeaders();
+        headers.add("Content-Type", "text/html");
+        assertEquals("text/html", headers.get("content-type"));
+        assertTrue(headers.contains("CONTENT-TYPE"));
+        headers.set("content-type", "application/json");
+        assertEquals(1, headers.size());
+        assertEquals("application/json", headers.get("Content-Type"));
+        headers.remove("CONTENT-type");
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    public void test_add() {
+        MRestHeaders headers = new MRestHeaders();
+        headers.add("X-A", "1").add("x-a", 2).add("X-B", null);
+        assertEquals(2, headers.getAll("X-A").size());
+        assertEquals("1", headers.get("X-A"));
+        assertFalse(headers.contains("X-B"));
+        assertEquals(2, headers.getHeaders().size());
+        MRestHeaders copy = headers.copy();
+        copy.remove("X-A");
+        assertEquals(2, headers.size());
+        assertTrue(copy.isEmpty());
+    }
+
+    @Test
+    public void test_merge() {
+        MRestHeaders headers = new MRestHeaders()
+                .add("Content-Type", "text/html")
+                .add("Set-Cookie", "a=1")
+                .add("X-Keep", "1");
+        MRestHeaders other = new MRestHeaders()
+                .add("content-type", "application/json")
+                .add("set-cookie", "b=2");
+        headers.merge(other);
+        assertEquals(1, headers.getAll("Content-Type").size());
+        assertEquals("application/json", headers.get("Content-Type"));
+        assertEquals(2, headers.getAll("Set-Cookie").size());
+        assertEquals("1", headers.get("X-Keep"));
+    }
+
+    @Test
+    public void test_rejectCRLF() {
+        MRestHeaders headers = new MRestHeaders();
+        try {
+            headers.set("Location", "/x\r\nSet-Cookie: evil=1");
+            fail("header value with CRLF must be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertFalse(headers.contains("Location"));
+        }
+        try {
+            headers.add("X-A\r\nSet-Cookie", "evil=1");
+            fail("header name with CRLF must be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(headers.isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.github.jiashunx.masker.rest.framework.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MTokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1L);
+
+    @Test
+    public void test_burst() {
+        AtomicLong clock = new AtomicLong(0L);
+        MTokenBucket bucket = new MTokenBucket(1D, 3, clock::get);
+        assertEquals(0L, bucket.tryAcquire());
+        assertEquals(0L, bucket.tryAcquire());
+        assertEquals(0L, bucket.tryAcquire());
+        assertEquals(SECOND, bucket.tryAcquire());
+    }
+
+    @Test
+    public void test_refill() {
+        AtomicLong clock = new AtomicLong(0L);
+        MTokenBucket bucket = new MTokenBucket(2D, 1, clock::get);
+        assertEquals(0L, bucket.tryAcquire());
+        assertEquals(SECOND / 2, bucket.tryAcquire());
+        clock.addAndGet(SECOND / 4);
+        assertEquals(SECOND / 4, bucket.tryAcquire());
+        clock.addAndGet(SECOND / 4);
+        assertEquals(0L, bucket.tryAcquire());
+        // 令牌补充不超过桶容量
+        clock.addAndGet(10L * SECOND);
+        assertEquals(0L, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0L);
+    }
+
+    @Test
+    public void test_waitRoundsUp() {
+        AtomicLong clock = new AtomicLong(0L);
+        MTokenBucket bucket = new MTokenBucket(3D, 1, clock::get);
+        assertEquals(0L, bucket.tryAcquire());
+        // 1/3秒不能整除时向上取整, 等待结束后必然可获取令牌
+        long waitNanos = bucket.tryAcquire();
+        assertEquals((long) Math.ceil(SECOND / 3D), waitNanos);
+        clock.addAndGet(waitNanos);
+        assertEquals(0L, bucket.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_illegalCapacity() {
+        new MTokenBucket(1D, 0);
+    }
+
+}
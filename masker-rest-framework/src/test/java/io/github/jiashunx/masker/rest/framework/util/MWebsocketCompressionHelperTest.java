@@ -0,0 +1,113 @@
+package io.github.jiashunx.masker.rest.framework.util;
+
+import static org.junit.Assert.*;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.MWebsocketContext;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import org.junit.Test;
+
+public class MWebsocketCompressionHelperTest {
+
+    private static final String TEXT = repeat("masker-rest websocket compression ", 64);
+
+    private static String repeat(String str, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(str);
+        }
+        return builder.toString();
+    }
+
+    private static MWebsocketContext newWebsocketContext() {
+        return new MRestServer("masker-rest-test").context().websocketContext("/ws").compression(true);
+    }
+
+    private static WebSocketServerExtension negotiate(MWebsocketContext websocketContext, String extensions) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, extensions);
+        return MWebsocketCompressionHelper.negotiate(websocketContext, headers);
+    }
+
+    private static boolean isJZlibAvailable() {
+        try {
+            Class.forName("com.jcraft.jzlib.Deflater");
+            return true;
+        } catch (ClassNotFoundException exception) {
+            return false;
+        }
+    }
+
+    @Test
+    public void test_negotiateServerWindowBits() {
+        MWebsocketContext websocketContext = newWebsocketContext().compressionServerNoContextTakeover(true);
+        // 客户端请求server_max_window_bits=15时接受压缩且可复用预压缩帧
+        WebSocketServerExtension extension = negotiate(websocketContext, "permessage-deflate; server_max_window_bits=15");
+        assertNotNull(extension);
+        WebSocketExtensionData responseData = extension.newReponseData();
+        assertFalse(responseData.parameters().containsKey(MWebsocketCompressionHelper.SERVER_MAX_WINDOW_BITS));
+        assertTrue(MWebsocketCompressionHelper.isSharable(responseData));
+        // 非法的server_max_window_bits拒绝协商
+        assertNull(negotiate(websocketContext, "permessage-deflate; server_max_window_bits=16"));
+        // 客户端请求更小的窗口: 需jzlib实现, 协商成功时按客户端窗口压缩且不复用预压缩帧
+        extension = negotiate(websocketContext, "permessage-deflate; server_max_window_bits=10");
+        if (isJZlibAvailable()) {
+            assertNotNull(extension);
+            assertEquals("10", extension.newReponseData().parameters().get(MWebsocketCompressionHelper.SERVER_MAX_WINDOW_BITS));
+            assertFalse(MWebsocketCompressionHelper.isSharable(extension.newReponseData()));
+        } else {
+            assertNull(extension);
+        }
+    }
+
+    @Test
+    public void test_isSharable() {
+        MWebsocketContext websocketContext = newWebsocketContext();
+        assertFalse(MWebsocketCompressionHelper.isSharable(negotiate(websocketContext, "permessage-deflate").newReponseData()));
+        assertTrue(MWebsocketCompressionHelper.isSharable(negotiate(websocketContext, "permessage-deflate; server_no_context_takeover").newReponseData()));
+    }
+
+    @Test
+    public void test_compress() {
+        MWebsocketContext websocketContext = newWebsocketContext().compressionServerNoContextTakeover(true);
+        WebSocketServerExtension extension = negotiate(websocketContext, "permessage-deflate; client_max_window_bits");
+        assertNotNull(extension);
+        TextWebSocketFrame frame = new TextWebSocketFrame(TEXT);
+        WebSocketFrame compressedFrame = MWebsocketCompressionHelper.compress(frame, websocketContext.getCompressionLevel()
+                , websocketContext.getCompressionMinSize(), ByteBufAllocator.DEFAULT);
+        assertNotNull(compressedFrame);
+        assertEquals(1, frame.refCnt());
+        frame.release();
+        assertTrue(compressedFrame instanceof TextWebSocketFrame);
+        assertTrue((compressedFrame.rsv() & WebSocketExtension.RSV1) != 0);
+        assertTrue(compressedFrame.content().readableBytes() < TEXT.length());
+        // 预压缩帧可被netty的permessage-deflate解码器(PerMessageDeflateDecoder)还原
+        EmbeddedChannel channel = new EmbeddedChannel(extension.newExtensionDecoder());
+        assertTrue(channel.writeInbound(compressedFrame));
+        TextWebSocketFrame decodedFrame = channel.readInbound();
+        try {
+            assertEquals(0, decodedFrame.rsv() & WebSocketExtension.RSV1);
+            assertEquals(TEXT, decodedFrame.text());
+        } finally {
+            decodedFrame.release();
+        }
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void test_compressMinSize() {
+        TextWebSocketFrame frame = new TextWebSocketFrame("small");
+        assertNull(MWebsocketCompressionHelper.compress(frame, 6, 256, ByteBufAllocator.DEFAULT));
+        frame.release();
+    }
+
+}
@@ -0,0 +1,396 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测连接: 按配置的模型在单个连接上发送请求并记录结果(全部状态仅在所属EventLoop线程上访问).
+ * <p>开放模型: 按固定间隔生成计划发送时间, 到期请求进入积压队列, 在途请求数未达上限时立即发送;
+ * 连接繁忙时请求在积压队列中等待, 延迟仍自计划发送时间起算(同wrk2, 避免协调遗漏).</p>
+ * <p>封闭模型: 保持pipelining个在途请求, 收到响应后立即发送下一请求, 延迟自实际发送时间起算.</p>
+ * <p>计划发送时间由EventLoop定时任务生成, 实际发送时间与计划发送时间之差包含定时任务的调度误差(通常在1毫秒以内).</p>
+ * <p>连接关闭时在途请求记为失败; 压测期间连接关闭(含非keep-alive模式或服务端不保持连接时每次响应后关闭)后立即重连, 连接失败时延迟重连.</p>
+ * @author jiashunx
+ */
+abstract class AbstractLoadConnection {
+
+    /**
+     * 连接失败后重连等待时间(毫秒).
+     */
+    private static final long RECONNECT_DELAY_MILLIS = 100L;
+
+    protected final LoadTestConfig config;
+    protected final LoadRecorder recorder;
+    protected final List<LoadRequest> requests;
+    private final LoadScenario scenario;
+    private final EventLoop eventLoop;
+    private final Bootstrap bootstrap;
+    private final Random random;
+    private final int pipelining;
+    /**
+     * 本连接计划发送间隔(纳秒, 0表示封闭模型).
+     */
+    private final long intervalNanos;
+    /**
+     * 本连接首个计划发送时间相对压测开始时间的偏移(各连接错开发送).
+     */
+    private final long phaseNanos;
+    private final LongQueue backlog = new LongQueue();
+    private final InFlightQueue inFlight;
+    private Channel channel;
+    private boolean ready;
+    private boolean connecting;
+    /**
+     * 是否仍可生成新请求(压测结束后置为false).
+     */
+    private boolean sending;
+    /**
+     * 是否已关闭(关闭后不再重连).
+     */
+    private boolean closed;
+    private long nextIntendedNanos;
+    private long endNanos;
+    private ScheduledFuture<?> tickFuture;
+    private Runnable readyCallback;
+    /**
+     * 积压及在途请求数(供压测线程读取).
+     */
+    private volatile int pending;
+
+    AbstractLoadConnection(LoadTestConfig config, LoadRecorder recorder, EventLoop eventLoop, Bootstrap bootstrap, int connectionIndex) {
+        this.config = config;
+        this.recorder = recorder;
+        this.scenario = config.getScenario();
+        this.requests = recorder.getRequests();
+        this.eventLoop = eventLoop;
+        this.bootstrap = bootstrap.clone(eventLoop).handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new TrafficHandler());
+                initPipeline(ch.pipeline());
+            }
+        });
+        this.random = new Random(config.getSeed() + connectionIndex);
+        this.pipelining = config.getPipelining();
+        this.inFlight = new InFlightQueue(pipelining);
+        if (config.isOpenModel()) {
+            this.intervalNanos = Math.max(1L, TimeUnit.SECONDS.toNanos(config.getConnections()) / config.getRate());
+            this.phaseNanos = TimeUnit.SECONDS.toNanos(connectionIndex) / config.getRate();
+        } else {
+            this.intervalNanos = 0L;
+            this.phaseNanos = 0L;
+        }
+    }
+
+    /**
+     * 初始化channel pipeline.
+     * @param pipeline pipeline
+     */
+    protected abstract void initPipeline(ChannelPipeline pipeline);
+
+    /**
+     * 写出请求(不flush).
+     * @param channel channel
+     * @param request 请求
+     */
+    protected abstract void write(Channel channel, LoadRequest request);
+
+    /**
+     * 建立连接, 连接可发送请求后执行回调(仅首次).
+     * @param readyCallback 回调
+     */
+    void connect(Runnable readyCallback) {
+        eventLoop.execute(() -> {
+            this.readyCallback = readyCallback;
+            doConnect();
+        });
+    }
+
+    private void doConnect() {
+        if (closed || connecting || channel != null) {
+            return;
+        }
+        connecting = true;
+        bootstrap.connect().addListener((ChannelFutureListener) future -> {
+            connecting = false;
+            recorder.recordConnect(future.isSuccess());
+            if (!future.isSuccess()) {
+                eventLoop.schedule(this::doConnect, RECONNECT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            Channel ch = future.channel();
+            if (closed) {
+                ch.close();
+                return;
+            }
+            channel = ch;
+            ch.closeFuture().addListener(closeFuture -> onClosed(ch));
+        });
+    }
+
+    /**
+     * 连接可发送请求(http连接建立或websocket握手完成).
+     * @param ch channel
+     */
+    protected void onReady(Channel ch) {
+        if (ch != channel) {
+            return;
+        }
+        ready = true;
+        if (readyCallback != null) {
+            Runnable callback = readyCallback;
+            readyCallback = null;
+            callback.run();
+        }
+        trySend();
+    }
+
+    private void onClosed(Channel ch) {
+        if (ch != channel) {
+            return;
+        }
+        channel = null;
+        ready = false;
+        // 主动关闭时在途请求计入pending, 不计为失败
+        while (!closed && !inFlight.isEmpty()) {
+            recorder.recordFailure(inFlight.peekIndex(), inFlight.peekIntended());
+            inFlight.poll();
+        }
+        updatePending();
+        if (!closed && (sending || !backlog.isEmpty())) {
+            doConnect();
+        }
+    }
+
+    /**
+     * 开始发送请求.
+     * @param startNanos 压测开始时间(含预热)
+     * @param endNanos 压测结束时间(此后不再生成新请求)
+     */
+    void start(long startNanos, long endNanos) {
+        eventLoop.execute(() -> {
+            this.endNanos = endNanos;
+            this.nextIntendedNanos = startNanos + phaseNanos;
+            this.sending = true;
+            if (intervalNanos > 0L) {
+                tick();
+            } else {
+                trySend();
+                tickFuture = eventLoop.schedule(this::stopSending, Math.max(0L, endNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * 开放模型: 生成到期的计划发送时间并发送, 然后等待下一计划发送时间.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+        while (nextIntendedNanos <= now && nextIntendedNanos < endNanos) {
+            backlog.add(nextIntendedNanos);
+            nextIntendedNanos += intervalNanos;
+        }
+        trySend();
+        if (nextIntendedNanos < endNanos) {
+            tickFuture = eventLoop.schedule(this::tick, nextIntendedNanos - now, TimeUnit.NANOSECONDS);
+        } else {
+            sending = false;
+        }
+    }
+
+    private void stopSending() {
+        sending = false;
+        updatePending();
+    }
+
+    private void trySend() {
+        Channel ch = channel;
+        if (ready && ch != null && ch.isActive()) {
+            boolean written = false;
+            while (inFlight.size() < pipelining) {
+                long intendedNanos;
+                if (intervalNanos > 0L) {
+                    if (backlog.isEmpty()) {
+                        break;
+                    }
+                    intendedNanos = backlog.poll();
+                } else {
+                    if (!sending) {
+                        break;
+                    }
+                    intendedNanos = System.nanoTime();
+                }
+                int requestIndex = scenario.nextIndex(random);
+                inFlight.add(requestIndex, intendedNanos, System.nanoTime());
+                write(ch, requests.get(requestIndex));
+                written = true;
+            }
+            if (written) {
+                ch.flush();
+            }
+        } else if (ch == null && !connecting && (sending || !backlog.isEmpty())) {
+            doConnect();
+        }
+        updatePending();
+    }
+
+    /**
+     * 收到响应(http响应及websocket帧均按发送顺序一一对应).
+     * @param status http状态码(websocket帧为0)
+     * @param keepAlive 连接是否可继续使用(服务端响应Connection: close时为false)
+     */
+    protected void onResponse(int status, boolean keepAlive) {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        recorder.recordResponse(inFlight.peekIndex(), inFlight.peekIntended(), inFlight.peekSent(), System.nanoTime(), status);
+        inFlight.poll();
+        if (!keepAlive || !config.isKeepAlive()) {
+            ready = false;
+            channel.close();
+            updatePending();
+            return;
+        }
+        trySend();
+    }
+
+    private void updatePending() {
+        pending = backlog.size() + inFlight.size();
+    }
+
+    int getPending() {
+        return pending;
+    }
+
+    /**
+     * 关闭连接(未完成的请求计入pending).
+     */
+    void close() {
+        eventLoop.execute(() -> {
+            closed = true;
+            sending = false;
+            if (tickFuture != null) {
+                tickFuture.cancel(false);
+            }
+            updatePending();
+            if (channel != null) {
+                channel.close();
+            }
+        });
+    }
+
+    /**
+     * 统计收发字节数.
+     */
+    private class TrafficHandler extends ChannelDuplexHandler {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof ByteBuf) {
+                recorder.recordBytesReceived(((ByteBuf) msg).readableBytes());
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof ByteBuf) {
+                recorder.recordBytesSent(((ByteBuf) msg).readableBytes());
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+
+    /**
+     * long队列(积压请求的计划发送时间, 容量按需扩展).
+     */
+    private static class LongQueue {
+        private long[] elements = new long[16];
+        private int head;
+        private int size;
+
+        void add(long value) {
+            if (size == elements.length) {
+                long[] newElements = new long[elements.length << 1];
+                for (int i = 0; i < size; i++) {
+                    newElements[i] = elements[(head + i) & (elements.length - 1)];
+                }
+                elements = newElements;
+                head = 0;
+            }
+            elements[(head + size) & (elements.length - 1)] = value;
+            size++;
+        }
+
+        long poll() {
+            long value = elements[head];
+            head = (head + 1) & (elements.length - 1);
+            size--;
+            return value;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 在途请求队列(容量固定为pipelining).
+     */
+    private static class InFlightQueue {
+        private final int[] indexes;
+        private final long[] intended;
+        private final long[] sent;
+        private int head;
+        private int size;
+
+        InFlightQueue(int capacity) {
+            this.indexes = new int[capacity];
+            this.intended = new long[capacity];
+            this.sent = new long[capacity];
+        }
+
+        void add(int index, long intendedNanos, long sentNanos) {
+            int position = (head + size) % indexes.length;
+            indexes[position] = index;
+            intended[position] = intendedNanos;
+            sent[position] = sentNanos;
+            size++;
+        }
+
+        int peekIndex() {
+            return indexes[head];
+        }
+
+        long peekIntended() {
+            return intended[head];
+        }
+
+        long peekSent() {
+            return sent[head];
+        }
+
+        void poll() {
+            head = (head + 1) % indexes.length;
+            size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.github.jiashunx.masker.rest.framework.MRestRequest;
+import io.github.jiashunx.masker.rest.framework.MRestResponse;
+import io.github.jiashunx.masker.rest.framework.filter.MFilter;
+import io.github.jiashunx.masker.rest.framework.filter.MRestFilter;
+import io.github.jiashunx.masker.rest.framework.filter.MRestFilterChain;
+import io.github.jiashunx.masker.rest.framework.util.MRestHeaderBuilder;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 内置压测场景: 对应masker-rest-demo中MaskerRestMain各样例server的路由(场景描述中注明样例端口).
+ * <p>服务端路由与样例一致, 但不输出请求日志(避免控制台输出成为压测瓶颈); 以loopback方式压测样例程序时指定对应端口即可.</p>
+ * <p>未包含依赖外部资源的样例: jwt、文件上传下载、静态资源、聊天室广播及异常测试.</p>
+ * @author jiashunx
+ */
+public final class DemoScenarios {
+
+    private static final String CONTEXT_PATH = "/demo";
+
+    private static final Map<String, Supplier<LoadScenario>> SCENARIOS = new LinkedHashMap<>();
+    static {
+        SCENARIOS.put("get", DemoScenarios::get);
+        SCENARIOS.put("post", DemoScenarios::post);
+        SCENARIOS.put("rest", DemoScenarios::rest);
+        SCENARIOS.put("redirect", DemoScenarios::redirect);
+        SCENARIOS.put("forward", DemoScenarios::forward);
+        SCENARIOS.put("filter", DemoScenarios::filter);
+        SCENARIOS.put("servlet", DemoScenarios::servlet);
+        SCENARIOS.put("cookie", DemoScenarios::cookie);
+        SCENARIOS.put("websocket", DemoScenarios::websocket);
+        SCENARIOS.put("mixed", DemoScenarios::mixed);
+    }
+
+    private DemoScenarios() {}
+
+    public static Set<String> names() {
+        return Collections.unmodifiableSet(SCENARIOS.keySet());
+    }
+
+    /**
+     * 获取内置场景.
+     * @param name 场景名称
+     * @return LoadScenario(不存在时返回null)
+     */
+    public static LoadScenario get(String name) {
+        Supplier<LoadScenario> supplier = SCENARIOS.get(name);
+        return supplier == null ? null : supplier.get().check();
+    }
+
+    private static LoadScenario get() {
+        return LoadScenario.newInstance("get")
+                .description("demo get mappings (port 10000)")
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-NoParam-NoRet").weight(2))
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-ParamReq-NoRet").weight(2))
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-html").weight(2))
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-text").weight(3))
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-ParamReqResp-NoRet").weight(1))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .get("/get-NoParam-NoRet", () -> {})
+                        .get("/get-ParamReq-NoRet", (MRestRequest request) -> {})
+                        .get("/get-html", request -> {
+                            return "<html><body>this is a html page !</body></html>";
+                        }, MRestHeaderBuilder.Build("Content-Type", "text/html"))
+                        .get("/get-text", request -> {
+                            return "text.......";
+                        }, MRestHeaderBuilder.Build("Content-Type", "text/plain"))
+                        .get("/get-ParamReqResp-NoRet", (MRestRequest request, MRestResponse response) -> {}));
+    }
+
+    private static LoadScenario post() {
+        return LoadScenario.newInstance("post")
+                .description("demo post form (port 10001)")
+                .request(LoadRequest.post(CONTEXT_PATH + "/post-form", "{\"username\":\"admin\"}"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .post("/post-form", request -> {
+                            request.parseBodyToObj(Vo.class);
+                            return new HashMap<String, Object>();
+                        }));
+    }
+
+    private static LoadScenario rest() {
+        return LoadScenario.newInstance("rest")
+                .description("demo rest mappings with url filter (port 10002)")
+                .request(LoadRequest.request(HttpMethod.PUT, CONTEXT_PATH + "/put"))
+                .request(LoadRequest.request(HttpMethod.PUT, CONTEXT_PATH + "/put_delete"))
+                .request(LoadRequest.request(HttpMethod.DELETE, CONTEXT_PATH + "/put_delete"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/" + encode("空格测试 1 2")).name("GET " + CONTEXT_PATH + "/空格测试 1 2"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .mapping("/put", (request, response) -> {
+                            response.write(HttpResponseStatus.OK);
+                        }, HttpMethod.PUT)
+                        .mapping("/put_delete", (request, response) -> {
+                            response.write(new HashMap<>());
+                        }, HttpMethod.PUT, HttpMethod.DELETE)
+                        .mapping("/空格测试 1 2", (request, response) -> {
+                            response.write("空格测试成功");
+                        }, HttpMethod.GET)
+                        .filter("/*", (request, response, filterChain) -> {
+                            filterChain.doFilter(request, response);
+                        }));
+    }
+
+    private static LoadScenario redirect() {
+        return LoadScenario.newInstance("redirect")
+                .description("demo redirect (port 10003)")
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-redirect.html"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/get-redirect-target.html"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .get("/get-redirect.html", (request, response) -> {
+                            response.redirect("/get-redirect-target.html");
+                        })
+                        .get("/get-redirect-target.html", (request) -> {
+                            return "<html><body>this is an redirected html page !</body></html>";
+                        }, MRestHeaderBuilder.Build("Content-Type", "text/html")));
+    }
+
+    private static LoadScenario forward() {
+        return LoadScenario.newInstance("forward")
+                .description("demo forward (port 10004)")
+                .request(LoadRequest.post(CONTEXT_PATH + "/post-forward", "{}"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .post("/post-forward", (request, response) -> {
+                            request.setAttribute("hk-01", "hk-01-value");
+                            response.forward("/post-forward-target", request);
+                        })
+                        .post("/post-forward-target", (request, response) -> {
+                            response.write(HttpResponseStatus.OK);
+                        }));
+    }
+
+    private static LoadScenario filter() {
+        return LoadScenario.newInstance("filter")
+                .description("demo ordered filters (port 10005)")
+                .request(LoadRequest.get(CONTEXT_PATH + "/filter-test/get0"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .filter("/filter-test/*", new Filter0(), new Filter1())
+                        .get("/filter-test/get0", (MRestRequest request) -> {}));
+    }
+
+    private static LoadScenario servlet() {
+        return LoadScenario.newInstance("servlet")
+                .description("demo servlet url patterns (port 10006)")
+                .request(LoadRequest.get(CONTEXT_PATH + "/servlet/t"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/servlet/abc"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/servlet/m/abc"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/servlet/m/xxx"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/servlet/n/xx"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .servlet("/servlet/t", (request, response) -> {
+                            response.writeString("/servlet/t -> =_=");
+                        })
+                        .servlet("/servlet/*", (request, response) -> {
+                            if ("/servlet/test".equals(request.getUrl())) {
+                                return;
+                            }
+                            response.writeString("/servlet/* -> =_=");
+                        })
+                        .servlet("/servlet/m/{abc}", (request, response) -> {
+                            response.writeString("/servlet/m/{abc}");
+                        })
+                        .servlet("/servlet/m/xxx", (request, response) -> {
+                            response.writeString("/servlet/m/sss");
+                        })
+                        .servlet("/servlet/n/{xx}", (request, response) -> {
+                            response.writeString("/servlet/n/{xxx}");
+                        }));
+    }
+
+    private static LoadScenario cookie() {
+        return LoadScenario.newInstance("cookie")
+                .description("demo cookie (port 10007)")
+                .request(LoadRequest.get(CONTEXT_PATH + "/cookie/set-cookie"))
+                .request(LoadRequest.get(CONTEXT_PATH + "/cookie/get-cookie")
+                        .header("Cookie", "hello=xxxxxxxxxxxxxxxxxx; hello0=hhhhhh"))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .get("/cookie/set-cookie", (request, response) -> {
+                            response.setCookie("hello", "xxxxxxxxxxxxxxxxxx");
+                            response.setCookie(new DefaultCookie("hello0", "hhhhhh"));
+                        })
+                        .get("/cookie/get-cookie", (MRestRequest request) -> {
+                            request.getCookieMap();
+                        }));
+    }
+
+    private static LoadScenario websocket() {
+        return LoadScenario.newInstance("websocket")
+                .description("demo websocket text frames (port 10013)")
+                .websocket(CONTEXT_PATH + "/websocket-test")
+                .request(LoadRequest.text("hello, masker-rest."))
+                .route(restServer -> restServer.context(CONTEXT_PATH)
+                        .websocketContext("/websocket-test")
+                        .bindTextFrameHandler((frame, request, response) -> {
+                            response.writeAndFlush(new TextWebSocketFrame("hello."));
+                        }));
+    }
+
+    private static LoadScenario mixed() {
+        return LoadScenario.newInstance("mixed")
+                .description("get + post + rest + servlet + cookie on one server (in-process only)")
+                .include(get())
+                .include(post())
+                .include(rest())
+                .include(servlet())
+                .include(cookie());
+    }
+
+    private static String encode(String path) {
+        try {
+            return URLEncoder.encode(path, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        } catch (UnsupportedEncodingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @MFilter(order = 123)
+    private static class Filter0 implements MRestFilter {
+        @Override
+        public void doFilter(MRestRequest restRequest, MRestResponse restResponse, MRestFilterChain filterChain) {
+            filterChain.doFilter(restRequest, restResponse);
+        }
+    }
+
+    @MFilter(order = -123)
+    private static class Filter1 implements MRestFilter {
+        @Override
+        public void doFilter(MRestRequest restRequest, MRestResponse restResponse, MRestFilterChain filterChain) {
+            filterChain.doFilter(restRequest, restResponse);
+        }
+    }
+
+    private static class Vo {
+        String username;
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * http压测连接(HTTP/1.1, 支持keep-alive及pipelining, 响应按请求顺序返回).
+ * @author jiashunx
+ */
+class HttpLoadConnection extends AbstractLoadConnection {
+
+    /**
+     * 响应最大长度.
+     */
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
+
+    HttpLoadConnection(LoadTestConfig config, LoadRecorder recorder, EventLoop eventLoop, Bootstrap bootstrap, int connectionIndex) {
+        super(config, recorder, eventLoop, bootstrap, connectionIndex);
+    }
+
+    @Override
+    protected void initPipeline(ChannelPipeline pipeline) {
+        pipeline.addLast(new HttpClientCodec());
+        pipeline.addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+        pipeline.addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                super.channelActive(ctx);
+                // connect回调设置channel后再标记可发送
+                ctx.channel().eventLoop().execute(() -> onReady(ctx.channel()));
+            }
+
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+                onResponse(response.status().code(), HttpUtil.isKeepAlive(response));
+            }
+
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                ctx.close();
+            }
+        });
+    }
+
+    @Override
+    protected void write(Channel channel, LoadRequest request) {
+        channel.write(request.newHttpRequest(), channel.voidPromise());
+    }
+
+}
@@ -0,0 +1,188 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.github.jiashunx.masker.rest.framework.metrics.MLatencyHistogram;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测结果记录(各客户端io线程并发记录).
+ * <p>请求按计划发送时间归属统计窗口: 计划发送时间落在[预热结束, 压测结束)内的请求计入报告.</p>
+ * <p>延迟分两种记录: 自计划发送时间起算的延迟(开放模型下包含客户端排队时间, 不受协调遗漏影响)
+ * 及自实际发送时间起算的服务时间; 封闭模型下二者相同.</p>
+ * @author jiashunx
+ */
+public class LoadRecorder {
+
+    /**
+     * 延迟直方图子桶精度(7位, 相对误差不超过1/128, 约0.8%).
+     */
+    static final int LATENCY_SUB_BUCKET_BITS = 7;
+
+    private final List<LoadRequest> requests;
+    private final RequestStats[] requestStats;
+    private final MLatencyHistogram latency = new MLatencyHistogram(LATENCY_SUB_BUCKET_BITS);
+    private final MLatencyHistogram serviceTime = new MLatencyHistogram(LATENCY_SUB_BUCKET_BITS);
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    /**
+     * 全部已完成请求数(含预热期间, 用于输出进度).
+     */
+    private final LongAdder totalCompleted = new LongAdder();
+    private volatile long measureStartNanos = Long.MAX_VALUE;
+    private volatile long measureEndNanos = Long.MAX_VALUE;
+
+    public LoadRecorder(List<LoadRequest> requests) {
+        this.requests = requests;
+        this.requestStats = new RequestStats[requests.size()];
+        for (int i = 0; i < requestStats.length; i++) {
+            requestStats[i] = new RequestStats();
+        }
+    }
+
+    /**
+     * 设置统计窗口.
+     * @param measureStartNanos 窗口开始时间(System.nanoTime)
+     * @param measureEndNanos 窗口结束时间(System.nanoTime)
+     */
+    void measure(long measureStartNanos, long measureEndNanos) {
+        this.measureEndNanos = measureEndNanos;
+        this.measureStartNanos = measureStartNanos;
+    }
+
+    boolean isMeasured(long nanos) {
+        return nanos >= measureStartNanos && nanos < measureEndNanos;
+    }
+
+    /**
+     * 记录收到响应.
+     * @param requestIndex 请求序号
+     * @param intendedNanos 计划发送时间
+     * @param sentNanos 实际发送时间
+     * @param nowNanos 收到响应时间
+     * @param status http状态码(websocket帧为0)
+     */
+    void recordResponse(int requestIndex, long intendedNanos, long sentNanos, long nowNanos, int status) {
+        totalCompleted.increment();
+        if (!isMeasured(intendedNanos)) {
+            return;
+        }
+        boolean error = status >= 400;
+        RequestStats stats = requestStats[requestIndex];
+        stats.completed.increment();
+        stats.latency.recordNanos(nowNanos - intendedNanos);
+        completed.increment();
+        latency.recordNanos(nowNanos - intendedNanos);
+        serviceTime.recordNanos(nowNanos - sentNanos);
+        if (error) {
+            stats.errors.increment();
+            errors.increment();
+        }
+        if (status > 0) {
+            statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 记录请求失败(连接在收到响应前关闭).
+     * @param requestIndex 请求序号
+     * @param intendedNanos 计划发送时间
+     */
+    void recordFailure(int requestIndex, long intendedNanos) {
+        if (!isMeasured(intendedNanos)) {
+            return;
+        }
+        requestStats[requestIndex].errors.increment();
+        errors.increment();
+        failures.increment();
+    }
+
+    void recordConnect(boolean success) {
+        connects.increment();
+        if (!success) {
+            connectFailures.increment();
+        }
+    }
+
+    void recordBytesSent(int bytes) {
+        if (isMeasured(System.nanoTime())) {
+            bytesSent.add(bytes);
+        }
+    }
+
+    void recordBytesReceived(int bytes) {
+        if (isMeasured(System.nanoTime())) {
+            bytesReceived.add(bytes);
+        }
+    }
+
+    List<LoadRequest> getRequests() {
+        return requests;
+    }
+
+    RequestStats getRequestStats(int requestIndex) {
+        return requestStats[requestIndex];
+    }
+
+    MLatencyHistogram getLatency() {
+        return latency;
+    }
+
+    MLatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    Map<Integer, LongAdder> getStatusCounts() {
+        return statusCounts;
+    }
+
+    long getCompleted() {
+        return completed.sum();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    long getFailures() {
+        return failures.sum();
+    }
+
+    long getConnects() {
+        return connects.sum();
+    }
+
+    long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    long getTotalCompleted() {
+        return totalCompleted.sum();
+    }
+
+    /**
+     * 单个请求定义的统计.
+     */
+    static class RequestStats {
+        final LongAdder completed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final MLatencyHistogram latency = new MLatencyHistogram(LATENCY_SUB_BUCKET_BITS);
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.jiashunx.masker.rest.framework.metrics.MLatencySnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 压测报告: 吞吐量、错误数、延迟分布(自计划发送时间起算及服务时间)、按请求统计及状态码分布.
+ * <p>延迟单位为毫秒, 百分位值为所在直方图桶的上边界(相对误差不超过1/8).</p>
+ * @author jiashunx
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = { 50D, 90D, 99D, 99.9D };
+
+    private final Map<String, Object> summary = new LinkedHashMap<>();
+
+    LoadReport(LoadTestConfig config, LoadRecorder recorder, String target, long pending) {
+        LoadScenario scenario = config.getScenario();
+        double seconds = config.getDurationMillis() / 1000D;
+        long completed = recorder.getCompleted();
+        summary.put("scenario", scenario.getName());
+        summary.put("description", scenario.getDescription());
+        summary.put("target", (config.isInProcess() ? "in-process " : "") + target);
+        summary.put("model", config.isOpenModel() ? "open" : "closed");
+        summary.put("rate", config.getRate());
+        summary.put("connections", config.getConnections());
+        summary.put("pipelining", config.getPipelining());
+        summary.put("keepAlive", config.isKeepAlive());
+        summary.put("durationSeconds", seconds);
+        summary.put("warmupSeconds", config.getWarmupMillis() / 1000D);
+        summary.put("completed", completed);
+        summary.put("errors", recorder.getErrors());
+        summary.put("failures", recorder.getFailures());
+        summary.put("pending", pending);
+        summary.put("connects", recorder.getConnects());
+        summary.put("connectFailures", recorder.getConnectFailures());
+        summary.put("throughput", completed / seconds);
+        summary.put("bytesSentPerSecond", recorder.getBytesSent() / seconds);
+        summary.put("bytesReceivedPerSecond", recorder.getBytesReceived() / seconds);
+        summary.put("latency", latency(recorder.getLatency().snapshot()));
+        summary.put("serviceTime", latency(recorder.getServiceTime().snapshot()));
+        List<Map<String, Object>> requests = new ArrayList<>();
+        List<LoadRequest> requestList = recorder.getRequests();
+        for (int i = 0; i < requestList.size(); i++) {
+            LoadRecorder.RequestStats stats = recorder.getRequestStats(i);
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("name", requestList.get(i).getName());
+            request.put("completed", stats.completed.sum());
+            request.put("errors", stats.errors.sum());
+            request.put("latency", latency(stats.latency.snapshot()));
+            requests.add(request);
+        }
+        summary.put("requests", requests);
+        Map<String, Long> statusCounts = new TreeMap<>();
+        recorder.getStatusCounts().forEach((status, count) -> statusCounts.put(String.valueOf(status), count.sum()));
+        summary.put("status", statusCounts);
+    }
+
+    private static Map<String, Object> latency(MLatencySnapshot snapshot) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", snapshot.getCount());
+        latency.put("mean", snapshot.getMean() / 1000D);
+        for (double percentile: PERCENTILES) {
+            latency.put("p" + format(percentile, 1).replace(".0", ""), snapshot.getValueAtPercentile(percentile) / 1000D);
+        }
+        latency.put("max", snapshot.getMax() / 1000D);
+        return latency;
+    }
+
+    public Map<String, Object> getSummary() {
+        return summary;
+    }
+
+    public long getCompleted() {
+        return (long) summary.get("completed");
+    }
+
+    public long getErrors() {
+        return (long) summary.get("errors");
+    }
+
+    public double getThroughput() {
+        return (double) summary.get("throughput");
+    }
+
+    /**
+     * 输出json报告.
+     * @param file 报告文件
+     * @throws IOException IOException
+     */
+    public void writeJson(File file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, summary);
+    }
+
+    /**
+     * 文本报告.
+     * @return String
+     */
+    @SuppressWarnings("unchecked")
+    public String render() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("masker-rest loadtest report\n");
+        builder.append(String.format("scenario:    %s (%s)%n", summary.get("scenario"), summary.get("description")));
+        builder.append(String.format("target:      %s%n", summary.get("target")));
+        builder.append(String.format("model:       %s%s, connections: %s, pipelining: %s, keep-alive: %s%n",
+                summary.get("model"), "open".equals(summary.get("model")) ? " (" + summary.get("rate") + " req/s)" : "",
+                summary.get("connections"), summary.get("pipelining"), summary.get("keepAlive")));
+        builder.append(String.format("duration:    %ss (warmup %ss)%n", summary.get("durationSeconds"), summary.get("warmupSeconds")));
+        builder.append(String.format("requests:    %s completed, %s errors (%s connection failures), %s pending at end%n",
+                summary.get("completed"), summary.get("errors"), summary.get("failures"), summary.get("pending")));
+        builder.append(String.format("connects:    %s (%s failed)%n", summary.get("connects"), summary.get("connectFailures")));
+        builder.append(String.format("throughput:  %s req/s, sent %s/s, received %s/s%n",
+                format((double) summary.get("throughput"), 1), bytes((double) summary.get("bytesSentPerSecond")), bytes((double) summary.get("bytesReceivedPerSecond"))));
+        builder.append(String.format("%n%-44s %10s %10s %10s %10s %10s %10s %10s%n", "latency (ms)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        builder.append(latencyRow("from intended send time", (Map<String, Object>) summary.get("latency")));
+        builder.append(latencyRow("service time", (Map<String, Object>) summary.get("serviceTime")));
+        builder.append(String.format("%n%-44s %10s %10s %10s %10s %10s %10s %10s%n", "per request (ms, from intended send time)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map<String, Object> request: (List<Map<String, Object>>) summary.get("requests")) {
+            String name = request.get("name") + ("0".equals(String.valueOf(request.get("errors"))) ? "" : " (" + request.get("errors") + " errors)");
+            builder.append(latencyRow(name, (Map<String, Object>) request.get("latency")));
+        }
+        Map<String, Long> statusCounts = (Map<String, Long>) summary.get("status");
+        if (!statusCounts.isEmpty()) {
+            builder.append(String.format("%nstatus:      %s%n", statusCounts));
+        }
+        return builder.toString();
+    }
+
+    private static String latencyRow(String name, Map<String, Object> latency) {
+        if (name.length() > 44) {
+            name = name.substring(0, 41) + "...";
+        }
+        return String.format("%-44s %10s %10s %10s %10s %10s %10s %10s%n", name, latency.get("count"),
+                format((double) latency.get("mean"), 3), format((double) latency.get("p50"), 3), format((double) latency.get("p90"), 3),
+                format((double) latency.get("p99"), 3), format((double) latency.get("p99.9"), 3), format((double) latency.get("max"), 3));
+    }
+
+    private static String format(double value, int scale) {
+        return String.format(Locale.ROOT, "%." + scale + "f", value);
+    }
+
+    private static String bytes(double value) {
+        String[] units = { "B", "KB", "MB", "GB" };
+        int index = 0;
+        while (value >= 1024D && index < units.length - 1) {
+            value /= 1024D;
+            index++;
+        }
+        return format(value, index == 0 ? 0 : 2) + " " + units[index];
+    }
+
+    @Override
+    public String toString() {
+        return render();
+    }
+
+}
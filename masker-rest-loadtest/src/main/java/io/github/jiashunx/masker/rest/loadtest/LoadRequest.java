@@ -0,0 +1,196 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.github.jiashunx.masker.rest.framework.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 压测请求定义: http请求(method + url + header + body)或websocket文本帧(body).
+ * <p>压测开始前创建http请求模板或websocket帧内容, 发送时复用模板内容, 不重复编码body.</p>
+ * @author jiashunx
+ */
+public class LoadRequest {
+
+    /**
+     * 请求名称(报告中按名称统计, 默认为"method url").
+     */
+    private String name;
+    private String method = HttpMethod.GET.name();
+    private String url;
+    private Map<String, String> headers = new LinkedHashMap<>();
+    private String body;
+    /**
+     * 请求在场景中的权重(按权重随机选取).
+     */
+    private int weight = 1;
+    /**
+     * http请求模板(压测开始前创建).
+     */
+    private FullHttpRequest template;
+    /**
+     * websocket文本帧内容(压测开始前创建).
+     */
+    private ByteBuf frameContent;
+
+    public LoadRequest() {}
+
+    public static LoadRequest get(String url) {
+        return new LoadRequest().method(HttpMethod.GET.name()).url(url);
+    }
+
+    public static LoadRequest post(String url, String body) {
+        return new LoadRequest().method(HttpMethod.POST.name()).url(url).body(body);
+    }
+
+    public static LoadRequest request(HttpMethod method, String url) {
+        return new LoadRequest().method(method.name()).url(url);
+    }
+
+    /**
+     * websocket文本帧.
+     * @param text 帧内容
+     * @return LoadRequest
+     */
+    public static LoadRequest text(String text) {
+        return new LoadRequest().name("text").body(text);
+    }
+
+    public LoadRequest name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public String getName() {
+        if (StringUtils.isEmpty(name)) {
+            return method + " " + url;
+        }
+        return name;
+    }
+
+    public LoadRequest method(String method) {
+        this.method = Objects.requireNonNull(method).toUpperCase();
+        return this;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public LoadRequest url(String url) {
+        this.url = url;
+        return this;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public LoadRequest header(String key, String value) {
+        this.headers.put(key, value);
+        return this;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public LoadRequest body(String body) {
+        this.body = body;
+        return this;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public LoadRequest weight(int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("load request weight must be positive");
+        }
+        this.weight = weight;
+        return this;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * 校验请求定义.
+     * @param websocket 是否为websocket场景
+     * @return LoadRequest
+     */
+    public LoadRequest check(boolean websocket) {
+        if (websocket) {
+            if (body == null) {
+                throw new IllegalArgumentException("websocket load request body can't be null");
+            }
+        } else {
+            if (StringUtils.isEmpty(url) || !url.startsWith("/")) {
+                throw new IllegalArgumentException("load request url must start with \"/\": " + url);
+            }
+            HttpMethod.valueOf(method);
+        }
+        return this;
+    }
+
+    /**
+     * 创建http请求模板.
+     * @param host Host header
+     * @param keepAlive 是否保持连接
+     */
+    void initTemplate(String host, boolean keepAlive) {
+        ByteBuf content = body == null ? Unpooled.EMPTY_BUFFER : unreleasableContent();
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(method), url, content);
+        HttpHeaders httpHeaders = request.headers();
+        httpHeaders.set(HttpHeaderNames.HOST, host);
+        httpHeaders.set(HttpHeaderNames.USER_AGENT, "masker-rest-loadtest");
+        httpHeaders.set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+        httpHeaders.setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        if (body != null) {
+            httpHeaders.set(HttpHeaderNames.CONTENT_TYPE, "application/json;charset=UTF-8");
+        }
+        headers.forEach(httpHeaders::set);
+        this.template = request;
+    }
+
+    /**
+     * 创建websocket文本帧内容.
+     */
+    void initFrameContent() {
+        this.frameContent = unreleasableContent();
+    }
+
+    private ByteBuf unreleasableContent() {
+        return Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 基于模板创建待发送请求(共享body内容, header独立).
+     * @return FullHttpRequest
+     */
+    FullHttpRequest newHttpRequest() {
+        return template.duplicate();
+    }
+
+    /**
+     * 创建待发送websocket文本帧(共享帧内容).
+     * @return TextWebSocketFrame
+     */
+    TextWebSocketFrame newTextFrame() {
+        return new TextWebSocketFrame(frameContent.duplicate());
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+}
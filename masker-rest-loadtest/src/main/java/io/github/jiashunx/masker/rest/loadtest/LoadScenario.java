@@ -0,0 +1,198 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.github.jiashunx.masker.rest.framework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 压测场景: 按权重随机选取的一组http请求, 或同一websocket地址上按权重随机选取的一组文本帧.
+ * <p>场景可附带服务端路由定义, 进程内压测时使用该定义启动MRestServer.</p>
+ * <p>json场景文件格式:</p>
+ * <pre>
+ * {
+ *   "name": "my-scenario",
+ *   "routes": ["get", "post"],
+ *   "websocket": "/demo/websocket-test",
+ *   "requests": [
+ *     {"name": "get-text", "method": "GET", "url": "/demo/get-text", "weight": 3, "headers": {"Accept": "text/plain"}},
+ *     {"method": "POST", "url": "/demo/post-form", "body": "{\"username\":\"admin\"}"}
+ *   ]
+ * }
+ * </pre>
+ * <p>routes(可选)为内置场景名称, 进程内压测时使用对应内置场景的服务端路由; websocket(可选)指定时requests为文本帧(仅body及weight有效).</p>
+ * @author jiashunx
+ */
+public class LoadScenario {
+
+    private final String name;
+    private String description;
+    private String websocketUrl;
+    private final List<LoadRequest> requests = new ArrayList<>();
+    private final List<Consumer<MRestServer>> routes = new ArrayList<>();
+    /**
+     * 按权重展开的请求序号(随机选取时直接按下标取值).
+     */
+    private int[] weightedIndexes;
+
+    public LoadScenario(String name) {
+        if (StringUtils.isEmpty(name)) {
+            throw new IllegalArgumentException("load scenario name can't be empty");
+        }
+        this.name = name;
+    }
+
+    public static LoadScenario newInstance(String name) {
+        return new LoadScenario(name);
+    }
+
+    /**
+     * 从json文件加载场景.
+     * @param file json场景文件
+     * @return LoadScenario
+     * @throws IOException IOException
+     */
+    public static LoadScenario fromJson(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        LoadScenario scenario = new LoadScenario(root.path("name").asText(file.getName()));
+        scenario.description(root.path("description").asText(file.getPath()));
+        if (root.hasNonNull("websocket")) {
+            scenario.websocket(root.get("websocket").asText());
+        }
+        for (JsonNode route: root.path("routes")) {
+            LoadScenario builtin = DemoScenarios.get(route.asText());
+            if (builtin == null) {
+                throw new IllegalArgumentException("unknown routes: " + route.asText() + ", built-in scenarios: " + DemoScenarios.names());
+            }
+            scenario.routes.addAll(builtin.routes);
+        }
+        for (JsonNode node: root.path("requests")) {
+            LoadRequest request = new LoadRequest()
+                    .method(node.path("method").asText("GET"))
+                    .url(node.path("url").asText(null))
+                    .body(node.hasNonNull("body") ? node.get("body").asText() : null)
+                    .weight(node.path("weight").asInt(1));
+            if (node.hasNonNull("name")) {
+                request.name(node.get("name").asText());
+            }
+            node.path("headers").fields().forEachRemaining(entry -> request.header(entry.getKey(), entry.getValue().asText()));
+            scenario.request(request);
+        }
+        return scenario.check();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LoadScenario description(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 指定为websocket场景.
+     * @param websocketUrl websocket地址(含context-path)
+     * @return LoadScenario
+     */
+    public LoadScenario websocket(String websocketUrl) {
+        this.websocketUrl = websocketUrl;
+        return this;
+    }
+
+    public String getWebsocketUrl() {
+        return websocketUrl;
+    }
+
+    public boolean isWebsocket() {
+        return websocketUrl != null;
+    }
+
+    public LoadScenario request(LoadRequest request) {
+        this.requests.add(Objects.requireNonNull(request));
+        return this;
+    }
+
+    public List<LoadRequest> getRequests() {
+        return Collections.unmodifiableList(requests);
+    }
+
+    /**
+     * 添加服务端路由定义(进程内压测时使用).
+     * @param route 路由定义
+     * @return LoadScenario
+     */
+    public LoadScenario route(Consumer<MRestServer> route) {
+        this.routes.add(Objects.requireNonNull(route));
+        return this;
+    }
+
+    /**
+     * 添加其他场景的请求及服务端路由定义.
+     * @param scenario 场景
+     * @return LoadScenario
+     */
+    public LoadScenario include(LoadScenario scenario) {
+        this.requests.addAll(scenario.requests);
+        this.routes.addAll(scenario.routes);
+        return this;
+    }
+
+    public boolean hasRoutes() {
+        return !routes.isEmpty();
+    }
+
+    /**
+     * 在server上注册场景的服务端路由.
+     * @param restServer restServer
+     */
+    public void configure(MRestServer restServer) {
+        routes.forEach(route -> route.accept(restServer));
+    }
+
+    /**
+     * 校验场景定义.
+     * @return LoadScenario
+     */
+    public LoadScenario check() {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("load scenario " + name + " has no request");
+        }
+        if (isWebsocket() && !websocketUrl.startsWith("/")) {
+            throw new IllegalArgumentException("websocket url must start with \"/\": " + websocketUrl);
+        }
+        int total = 0;
+        for (LoadRequest request: requests) {
+            request.check(isWebsocket());
+            total += request.getWeight();
+        }
+        int[] indexes = new int[total];
+        int position = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            for (int j = 0; j < requests.get(i).getWeight(); j++) {
+                indexes[position++] = i;
+            }
+        }
+        this.weightedIndexes = indexes;
+        return this;
+    }
+
+    /**
+     * 按权重随机选取请求.
+     * @param random random
+     * @return 请求序号
+     */
+    int nextIndex(Random random) {
+        return weightedIndexes[random.nextInt(weightedIndexes.length)];
+    }
+
+}
@@ -0,0 +1,266 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.github.jiashunx.masker.rest.framework.util.StringUtils;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 压测配置.
+ * <p>rate大于0时为开放模型(按目标速率发送请求, 延迟自计划发送时间起算, 不受协调遗漏影响);
+ * rate为0时为封闭模型(每个连接保持pipelining个在途请求, 收到响应后立即发送下一请求).</p>
+ * @author jiashunx
+ */
+public class LoadTestConfig {
+
+    /**
+     * 压测场景.
+     */
+    private LoadScenario scenario;
+    /**
+     * 目标server地址(为空时进程内启动场景对应server并通过loopback压测).
+     */
+    private String host;
+    private int port;
+    /**
+     * 目标速率(请求数/秒, 0表示封闭模型).
+     */
+    private long rate = 0L;
+    /**
+     * 连接数.
+     */
+    private int connections = 16;
+    /**
+     * 每个连接最大在途请求数(大于1时使用http pipelining, websocket场景为最大在途帧数).
+     */
+    private int pipelining = 1;
+    /**
+     * 是否保持连接(否则每个请求使用新连接, 此时pipelining固定为1).
+     */
+    private boolean keepAlive = true;
+    /**
+     * 压测时长(毫秒, 不含预热).
+     */
+    private long durationMillis = 30_000L;
+    /**
+     * 预热时长(毫秒, 预热期间的请求不计入报告).
+     */
+    private long warmupMillis = 5_000L;
+    /**
+     * 客户端io线程数.
+     */
+    private int ioThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /**
+     * 进程内server的worker线程数(0表示使用server默认值).
+     */
+    private int serverWorkerThreads = 0;
+    /**
+     * 压测结束后等待在途请求完成的最长时间(毫秒).
+     */
+    private long drainTimeoutMillis = 5_000L;
+    /**
+     * 随机数种子(请求选取顺序可复现).
+     */
+    private long seed = 20211024L;
+    /**
+     * json报告输出文件(为空时不输出).
+     */
+    private String reportFile;
+
+    public LoadTestConfig() {}
+
+    public static LoadTestConfig newInstance() {
+        return new LoadTestConfig();
+    }
+
+    public static LoadTestConfig newInstance(Consumer<LoadTestConfig> consumer) {
+        LoadTestConfig config = newInstance();
+        consumer.accept(config);
+        return config;
+    }
+
+    public LoadTestConfig scenario(LoadScenario scenario) {
+        this.scenario = Objects.requireNonNull(scenario);
+        return this;
+    }
+
+    public LoadScenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * 压测已启动的server(loopback或其他主机).
+     * @param host 主机
+     * @param port 端口
+     * @return LoadTestConfig
+     */
+    public LoadTestConfig target(String host, int port) {
+        if (StringUtils.isEmpty(host)) {
+            throw new IllegalArgumentException("load test target host can't be empty");
+        }
+        if (port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("load test target port must be in (0, 65535]");
+        }
+        this.host = host;
+        this.port = port;
+        return this;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isInProcess() {
+        return host == null;
+    }
+
+    public LoadTestConfig rate(long rate) {
+        if (rate < 0L) {
+            throw new IllegalArgumentException("load test rate can't be negative");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    public long getRate() {
+        return rate;
+    }
+
+    public boolean isOpenModel() {
+        return rate > 0L;
+    }
+
+    public LoadTestConfig connections(int connections) {
+        if (connections <= 0) {
+            throw new IllegalArgumentException("load test connections must be positive");
+        }
+        this.connections = connections;
+        return this;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public LoadTestConfig pipelining(int pipelining) {
+        if (pipelining <= 0) {
+            throw new IllegalArgumentException("load test pipelining must be positive");
+        }
+        this.pipelining = pipelining;
+        return this;
+    }
+
+    public int getPipelining() {
+        return keepAlive ? pipelining : 1;
+    }
+
+    public LoadTestConfig keepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public LoadTestConfig durationMillis(long durationMillis) {
+        if (durationMillis <= 0L) {
+            throw new IllegalArgumentException("load test duration must be positive");
+        }
+        this.durationMillis = durationMillis;
+        return this;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public LoadTestConfig warmupMillis(long warmupMillis) {
+        if (warmupMillis < 0L) {
+            throw new IllegalArgumentException("load test warmup can't be negative");
+        }
+        this.warmupMillis = warmupMillis;
+        return this;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    public LoadTestConfig ioThreads(int ioThreads) {
+        if (ioThreads <= 0) {
+            throw new IllegalArgumentException("load test ioThreads must be positive");
+        }
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public LoadTestConfig serverWorkerThreads(int serverWorkerThreads) {
+        if (serverWorkerThreads < 0) {
+            throw new IllegalArgumentException("load test serverWorkerThreads can't be negative");
+        }
+        this.serverWorkerThreads = serverWorkerThreads;
+        return this;
+    }
+
+    public int getServerWorkerThreads() {
+        return serverWorkerThreads;
+    }
+
+    public LoadTestConfig drainTimeoutMillis(long drainTimeoutMillis) {
+        if (drainTimeoutMillis < 0L) {
+            throw new IllegalArgumentException("load test drainTimeout can't be negative");
+        }
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        return this;
+    }
+
+    public long getDrainTimeoutMillis() {
+        return drainTimeoutMillis;
+    }
+
+    public LoadTestConfig seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public LoadTestConfig reportFile(String reportFile) {
+        this.reportFile = reportFile;
+        return this;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    /**
+     * 校验配置.
+     * @return LoadTestConfig
+     */
+    public LoadTestConfig check() {
+        if (scenario == null) {
+            throw new IllegalArgumentException("load test scenario can't be null");
+        }
+        scenario.check();
+        if (isInProcess() && !scenario.hasRoutes()) {
+            throw new IllegalArgumentException("load scenario " + scenario.getName() + " has no server routes, target must be specified");
+        }
+        if (scenario.isWebsocket() && !keepAlive) {
+            throw new IllegalArgumentException("websocket load scenario requires keep-alive connections");
+        }
+        return this;
+    }
+
+}
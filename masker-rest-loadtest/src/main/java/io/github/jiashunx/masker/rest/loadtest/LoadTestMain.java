@@ -0,0 +1,127 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测入口.
+ * <p>执行: java -jar masker-rest-loadtest/target/loadtest.jar --scenario=get --rate=20000 --duration=30</p>
+ * @author jiashunx
+ */
+public class LoadTestMain {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: java -jar loadtest.jar [options]",
+            "  --scenario=<name>         built-in scenario: %s (default: get)",
+            "  --scenario-file=<file>    json scenario file (see LoadScenario javadoc)",
+            "  --target=<host:port>      load an already running server (default: start scenario routes in-process)",
+            "  --rate=<n>                target requests per second, open model; 0 = closed model (default: 0)",
+            "  --connections=<n>         connections (default: 16)",
+            "  --pipelining=<n>          max in-flight requests per connection (default: 1)",
+            "  --keep-alive=<bool>       reuse connections (default: true)",
+            "  --duration=<seconds>      measured duration (default: 30)",
+            "  --warmup=<seconds>        warmup duration, not reported (default: 5)",
+            "  --io-threads=<n>          client io threads (default: cpu / 2)",
+            "  --server-threads=<n>      in-process server worker threads (default: server default)",
+            "  --drain-timeout=<seconds> wait for in-flight requests after the run (default: 5)",
+            "  --seed=<n>                random seed for request selection",
+            "  --report=<file>           also write the report as json",
+            "  --list                    list built-in scenarios",
+            "  --help                    print this message");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        if (options.containsKey("help")) {
+            System.out.println(String.format(USAGE, DemoScenarios.names()));
+            return;
+        }
+        if (options.containsKey("list")) {
+            for (String name: DemoScenarios.names()) {
+                System.out.println(String.format("%-10s %s", name, DemoScenarios.get(name).getDescription()));
+            }
+            return;
+        }
+        LoadScenario scenario;
+        if (options.containsKey("scenario-file")) {
+            scenario = LoadScenario.fromJson(new File(options.remove("scenario-file")));
+        } else {
+            String name = options.getOrDefault("scenario", "get");
+            scenario = DemoScenarios.get(name);
+            if (scenario == null) {
+                throw new IllegalArgumentException("unknown scenario: " + name + ", built-in scenarios: " + DemoScenarios.names());
+            }
+        }
+        options.remove("scenario");
+        LoadTestConfig config = LoadTestConfig.newInstance().scenario(scenario);
+        for (Map.Entry<String, String> entry: options.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "target":
+                    int index = value.lastIndexOf(':');
+                    if (index <= 0) {
+                        throw new IllegalArgumentException("target must be host:port, " + value);
+                    }
+                    config.target(value.substring(0, index), Integer.parseInt(value.substring(index + 1)));
+                    break;
+                case "rate":
+                    config.rate(Long.parseLong(value));
+                    break;
+                case "connections":
+                    config.connections(Integer.parseInt(value));
+                    break;
+                case "pipelining":
+                    config.pipelining(Integer.parseInt(value));
+                    break;
+                case "keep-alive":
+                    config.keepAlive(Boolean.parseBoolean(value));
+                    break;
+                case "duration":
+                    config.durationMillis(millis(value));
+                    break;
+                case "warmup":
+                    config.warmupMillis(millis(value));
+                    break;
+                case "io-threads":
+                    config.ioThreads(Integer.parseInt(value));
+                    break;
+                case "server-threads":
+                    config.serverWorkerThreads(Integer.parseInt(value));
+                    break;
+                case "drain-timeout":
+                    config.drainTimeoutMillis(millis(value));
+                    break;
+                case "seed":
+                    config.seed(Long.parseLong(value));
+                    break;
+                case "report":
+                    config.reportFile(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: --" + entry.getKey() + System.lineSeparator() + String.format(USAGE, DemoScenarios.names()));
+            }
+        }
+        LoadTestRunner.execute(config);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg: args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("illegal argument: " + arg);
+            }
+            int index = arg.indexOf('=');
+            if (index < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, index), arg.substring(index + 1));
+            }
+        }
+        return options;
+    }
+
+    private static long millis(String seconds) {
+        return (long) (Double.parseDouble(seconds) * 1000D);
+    }
+
+}
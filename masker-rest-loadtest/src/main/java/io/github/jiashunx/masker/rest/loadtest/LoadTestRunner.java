@@ -0,0 +1,183 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.github.jiashunx.masker.rest.framework.MRestServer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测执行: (进程内压测时)启动场景对应server, 建立全部连接后开始发送请求, 预热及压测结束后等待在途请求完成并生成报告.
+ * @author jiashunx
+ */
+public class LoadTestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    /**
+     * 建立全部连接的最长等待时间(毫秒).
+     */
+    private static final long CONNECT_TIMEOUT_MILLIS = 10_000L;
+    /**
+     * 进度输出间隔(毫秒).
+     */
+    private static final long PROGRESS_INTERVAL_MILLIS = 5_000L;
+
+    private final LoadTestConfig config;
+
+    public LoadTestRunner(LoadTestConfig config) {
+        this.config = config.check();
+    }
+
+    /**
+     * 执行压测.
+     * @return LoadReport
+     * @throws InterruptedException InterruptedException
+     */
+    public LoadReport run() throws InterruptedException {
+        MRestServer restServer = null;
+        InetSocketAddress target;
+        if (config.isInProcess()) {
+            restServer = new MRestServer(freePort(), "masker-rest-loadtest");
+            if (config.getServerWorkerThreads() > 0) {
+                restServer.workerThreadNum(config.getServerWorkerThreads());
+            }
+            config.getScenario().configure(restServer);
+            restServer.start();
+            target = InetSocketAddress.createUnresolved("127.0.0.1", restServer.getListenPort());
+        } else {
+            target = InetSocketAddress.createUnresolved(config.getHost(), config.getPort());
+        }
+        EventLoopGroup eventLoopGroup = new NioEventLoopGroup(config.getIoThreads(), new DefaultThreadFactory("masker-rest-loadtest"));
+        try {
+            return run(eventLoopGroup, target);
+        } finally {
+            eventLoopGroup.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).syncUninterruptibly();
+            if (restServer != null) {
+                restServer.shutdown();
+            }
+        }
+    }
+
+    private LoadReport run(EventLoopGroup eventLoopGroup, InetSocketAddress target) throws InterruptedException {
+        LoadScenario scenario = config.getScenario();
+        List<LoadRequest> requests = scenario.getRequests();
+        String host = target.getHostString() + ":" + target.getPort();
+        for (LoadRequest request: requests) {
+            if (scenario.isWebsocket()) {
+                request.initFrameContent();
+            } else {
+                request.initTemplate(host, config.isKeepAlive());
+            }
+        }
+        LoadRecorder recorder = new LoadRecorder(requests);
+        Bootstrap bootstrap = new Bootstrap()
+                .remoteAddress(target.getHostString(), target.getPort())
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) CONNECT_TIMEOUT_MILLIS);
+        List<AbstractLoadConnection> connections = new ArrayList<>(config.getConnections());
+        CountDownLatch readyLatch = new CountDownLatch(config.getConnections());
+        for (int i = 0; i < config.getConnections(); i++) {
+            AbstractLoadConnection connection = scenario.isWebsocket()
+                    ? new WebsocketLoadConnection(config, recorder, eventLoopGroup.next(), bootstrap, i, host)
+                    : new HttpLoadConnection(config, recorder, eventLoopGroup.next(), bootstrap, i);
+            connections.add(connection);
+            connection.connect(readyLatch::countDown);
+        }
+        try {
+            if (!readyLatch.await(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(String.format("connect to %s timeout, %d of %d connections ready",
+                        host, config.getConnections() - readyLatch.getCount(), config.getConnections()));
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("load test start, scenario: {}, target: {}, {} connections ready", scenario.getName(), host, config.getConnections());
+            }
+            long startNanos = System.nanoTime();
+            long measureStartNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(config.getWarmupMillis());
+            long endNanos = measureStartNanos + TimeUnit.MILLISECONDS.toNanos(config.getDurationMillis());
+            recorder.measure(measureStartNanos, endNanos);
+            for (AbstractLoadConnection connection: connections) {
+                connection.start(startNanos, endNanos);
+            }
+            long lastCompleted = 0L;
+            long now;
+            while ((now = System.nanoTime()) < endNanos) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(endNanos - now, TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MILLIS)));
+                long completed = recorder.getTotalCompleted();
+                if (logger.isInfoEnabled()) {
+                    now = System.nanoTime();
+                    logger.info("load test {}, elapsed: {}s, completed: {} (+{}), errors: {}, pending: {}",
+                            now < measureStartNanos ? "warmup" : "running", TimeUnit.NANOSECONDS.toSeconds(now - startNanos),
+                            completed, completed - lastCompleted, recorder.getErrors(), pending(connections));
+                }
+                lastCompleted = completed;
+            }
+            // 等待在途及积压请求完成
+            long drainEndNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getDrainTimeoutMillis());
+            while (pending(connections) > 0L && System.nanoTime() < drainEndNanos) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+        } finally {
+            connections.forEach(AbstractLoadConnection::close);
+        }
+        long pending = pending(connections);
+        if (pending > 0L && logger.isWarnEnabled()) {
+            logger.warn("load test finished with {} requests pending after {}ms drain timeout", pending, config.getDrainTimeoutMillis());
+        }
+        return new LoadReport(config, recorder, host, pending);
+    }
+
+    private static long pending(List<AbstractLoadConnection> connections) {
+        long pending = 0L;
+        for (AbstractLoadConnection connection: connections) {
+            pending += connection.getPending();
+        }
+        return pending;
+    }
+
+    /**
+     * 获取本机空闲端口(server不支持监听0端口).
+     * @return int
+     */
+    private static int freePort() {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        } catch (IOException exception) {
+            throw new IllegalStateException("no free port for in-process server", exception);
+        }
+    }
+
+    /**
+     * 执行压测并输出报告(配置了报告文件时同时输出json报告).
+     * @param config 压测配置
+     * @return LoadReport
+     * @throws InterruptedException InterruptedException
+     * @throws IOException IOException
+     */
+    public static LoadReport execute(LoadTestConfig config) throws InterruptedException, IOException {
+        LoadReport report = new LoadTestRunner(config).run();
+        System.out.println(report.render());
+        if (config.getReportFile() != null) {
+            report.writeJson(new File(config.getReportFile()));
+            if (logger.isInfoEnabled()) {
+                logger.info("load test report written to {}", config.getReportFile());
+            }
+        }
+        return report;
+    }
+
+}
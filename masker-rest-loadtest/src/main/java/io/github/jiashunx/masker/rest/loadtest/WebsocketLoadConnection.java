@@ -0,0 +1,62 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.*;
+
+import java.net.URI;
+
+/**
+ * websocket压测连接: 握手完成后发送文本帧, 要求服务端对每个文本帧按顺序回复一个数据帧.
+ * @author jiashunx
+ */
+class WebsocketLoadConnection extends AbstractLoadConnection {
+
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private final URI websocketUri;
+
+    WebsocketLoadConnection(LoadTestConfig config, LoadRecorder recorder, EventLoop eventLoop, Bootstrap bootstrap, int connectionIndex, String host) {
+        super(config, recorder, eventLoop, bootstrap, connectionIndex);
+        this.websocketUri = URI.create("ws://" + host + config.getScenario().getWebsocketUrl());
+    }
+
+    @Override
+    protected void initPipeline(ChannelPipeline pipeline) {
+        WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory.newHandshaker(
+                websocketUri, WebSocketVersion.V13, null, false, new DefaultHttpHeaders(), MAX_FRAME_LENGTH);
+        pipeline.addLast(new HttpClientCodec());
+        pipeline.addLast(new HttpObjectAggregator(MAX_FRAME_LENGTH));
+        pipeline.addLast(new WebSocketClientProtocolHandler(handshaker));
+        pipeline.addLast(new SimpleChannelInboundHandler<WebSocketFrame>() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+                if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                    onReady(ctx.channel());
+                }
+                super.userEventTriggered(ctx, evt);
+            }
+
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+                if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame) {
+                    onResponse(0, true);
+                }
+            }
+
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                ctx.close();
+            }
+        });
+    }
+
+    @Override
+    protected void write(Channel channel, LoadRequest request) {
+        channel.write(request.newTextFrame(), channel.voidPromise());
+    }
+
+}
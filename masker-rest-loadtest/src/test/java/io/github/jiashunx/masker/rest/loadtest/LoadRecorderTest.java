@@ -0,0 +1,25 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class LoadRecorderTest {
+
+    @Test
+    public void test_latencyPrecision() {
+        LoadRecorder recorder = new LoadRecorder(Collections.singletonList((LoadRequest) null));
+        recorder.measure(0L, Long.MAX_VALUE);
+        for (long micros: new long[] { 1234L, 56789L, 987654L }) {
+            for (int i = 0; i < 100; i++) {
+                recorder.recordResponse(0, 1L, 1L, 1L + micros * 1000L, 200);
+            }
+        }
+        // 压测延迟统计误差不超过1%
+        assertEquals(1234D, recorder.getLatency().snapshot().getValueAtPercentile(30), 12.34D);
+        assertEquals(56789D, recorder.getServiceTime().snapshot().getValueAtPercentile(60), 567.89D);
+        assertEquals(987654D, recorder.getRequestStats(0).latency.snapshot().getValueAtPercentile(90), 9876.54D);
+    }
+
+}
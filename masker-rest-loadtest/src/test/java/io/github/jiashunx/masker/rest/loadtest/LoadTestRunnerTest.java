@@ -0,0 +1,37 @@
+package io.github.jiashunx.masker.rest.loadtest;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LoadTestRunnerTest {
+
+    @Test
+    public void test_closedModel() throws InterruptedException {
+        LoadReport report = new LoadTestRunner(LoadTestConfig.newInstance()
+                .scenario(DemoScenarios.get("get"))
+                .connections(2)
+                .pipelining(2)
+                .ioThreads(1)
+                .warmupMillis(200L)
+                .durationMillis(1000L)).run();
+        assertTrue(report.getCompleted() > 0L);
+        assertEquals(0L, report.getErrors());
+        assertEquals(0L, report.getSummary().get("pending"));
+    }
+
+    @Test
+    public void test_openModel() throws InterruptedException {
+        LoadReport report = new LoadTestRunner(LoadTestConfig.newInstance()
+                .scenario(DemoScenarios.get("mixed"))
+                .rate(1000L)
+                .connections(4)
+                .ioThreads(1)
+                .warmupMillis(200L)
+                .durationMillis(1000L)).run();
+        // 开放模型下统计窗口内的请求数由计划发送速率决定
+        assertTrue(Math.abs(report.getCompleted() - 1000L) <= 4L);
+        assertEquals(0L, report.getErrors());
+        assertEquals(1000D, report.getThroughput(), 4D);
+    }
+
+}